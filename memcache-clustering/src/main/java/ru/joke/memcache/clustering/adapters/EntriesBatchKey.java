@@ -0,0 +1,24 @@
+package ru.joke.memcache.clustering.adapters;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The key of the bus event for the batch of the cache entries: the batch removal of the entries
+ * is sent to the bus by the single compact event with the list of the keys instead of the event for each key
+ * or the event for all entries of the cache. The event is applied to the cache by {@linkplain MemCacheBusAdapter}.
+ *
+ * @param keys the keys of the entries of the batch, cannot be {@code null}.
+ * @author Alik
+ * @see MemCacheBusAdapter
+ */
+@Immutable
+public record EntriesBatchKey(@Nonnull List<? extends Serializable> keys) implements Serializable {
+
+    public EntriesBatchKey {
+        keys = List.copyOf(Objects.requireNonNull(keys, "keys"));
+    }
+}
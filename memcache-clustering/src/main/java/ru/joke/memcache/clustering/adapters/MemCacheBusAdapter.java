@@ -1,7 +1,10 @@
 package ru.joke.memcache.clustering.adapters;
 
 import ru.joke.cache.bus.core.Cache;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.CacheEventListener;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
 import ru.joke.memcache.core.MemCache;
 import ru.joke.memcache.core.events.CacheEntryEventListener;
 
@@ -9,13 +12,24 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
- * Adapter implementation of the {@linkplain Cache} for the MemCache.
+ * Adapter implementation of the {@linkplain Cache} for the MemCache.<br>
+ * All changes made through the adapter are considered as received from the other nodes of the cluster,
+ * so they are not published back to the bus (see {@linkplain #isRemoteChangeInProgress()}).<br>
+ * The changes published by MemCache nodes are received with the {@linkplain VersionedKey}: such a change
+ * (put, merge or eviction of the entry) is applied as the event with the version of the key
+ * (see {@linkplain #apply(CacheEntryEvent)}), so stale and repeated changes are discarded and the entry keeps the version
+ * assigned by the node where the change was made. The value of the merge received with the versioned key is the
+ * new value of the entry, so it replaces the value in the cache. The changes with the ordinary keys are applied as is.<br>
+ * The batch removal of the entries is received from the bus as the single event with the {@linkplain EntriesBatchKey}.
  *
  * @param <K> type of the cache keys
  * @param <V> type of cache values
@@ -26,10 +40,15 @@ import java.util.function.Function;
 @ThreadSafe
 public final class MemCacheBusAdapter<K extends Serializable, V extends Serializable> implements Cache<K, V> {
 
+    private static final ThreadLocal<Boolean> remoteChangeInProgress = new ThreadLocal<>();
+
     private final MemCache<K, V> memCache;
+    private final Object bufferLock;
+    private List<Runnable> bufferedChanges; // guarded by bufferLock
 
     public MemCacheBusAdapter(@Nonnull MemCache<K, V> memCache) {
         this.memCache = Objects.requireNonNull(memCache, "memCache");
+        this.bufferLock = new Object();
     }
 
     @Override
@@ -40,44 +59,145 @@ public final class MemCacheBusAdapter<K extends Serializable, V extends Serializ
     @Nonnull
     @Override
     public Optional<V> get(@Nonnull K key) {
-        return this.memCache.get(key);
+        return this.memCache.get(unwrap(key));
     }
 
     @Override
     public void evict(@Nonnull K key) {
-        this.memCache.remove(key);
+        if (key instanceof VersionedKey<?> versionedKey) {
+            applyVersioned(versionedKey, null, CacheEntryEventType.EVICTED);
+        } else if (key instanceof EntriesBatchKey batchKey) {
+            applyOrBuffer(() -> this.memCache.removeAll(keysOf(batchKey)));
+        } else {
+            applyOrBuffer(() -> this.memCache.remove(key));
+        }
     }
 
     @Nonnull
     @Override
     public Optional<V> remove(@Nonnull K key) {
-        return this.memCache.remove(key);
+        if (key instanceof VersionedKey<?> versionedKey) {
+            final Optional<V> previousValue = get(key);
+            return applyVersioned(versionedKey, null, CacheEntryEventType.EVICTED) ? previousValue : Optional.empty();
+        }
+
+        return applyRemoteChange(() -> this.memCache.remove(key));
     }
 
     @Override
     public void put(@Nonnull K key, @Nullable V value) {
-        this.memCache.put(key, value);
+        if (key instanceof VersionedKey<?> versionedKey) {
+            applyVersioned(versionedKey, value, CacheEntryEventType.UPDATED);
+        } else {
+            applyOrBuffer(() -> this.memCache.put(key, value));
+        }
     }
 
     @Override
     public void putIfAbsent(@Nonnull K key, @Nullable V value) {
-        this.memCache.putIfAbsent(key, value);
+        if (key instanceof VersionedKey<?> versionedKey) {
+            applyVersioned(versionedKey, value, CacheEntryEventType.ADDED);
+        } else {
+            applyOrBuffer(() -> this.memCache.putIfAbsent(key, value));
+        }
     }
 
     @Override
     public void clear() {
-        this.memCache.clear();
+        applyOrBuffer(this.memCache::clear);
     }
 
     @Override
     public void merge(@Nonnull K key, @Nonnull V value, @Nonnull BiFunction<? super V, ? super V, ? extends V> mergeFunc) {
-        this.memCache.merge(key, value, mergeFunc);
+        if (key instanceof VersionedKey<?> versionedKey) {
+            applyVersioned(versionedKey, value, CacheEntryEventType.UPDATED);
+        } else {
+            applyOrBuffer(() -> this.memCache.merge(key, value, mergeFunc));
+        }
     }
 
     @Nonnull
     @Override
     public Optional<V> computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> valueFunc) {
-        return this.memCache.computeIfAbsent(key, valueFunc);
+        final K unwrappedKey = unwrap(key);
+        return applyRemoteChange(() -> this.memCache.computeIfAbsent(unwrappedKey, valueFunc));
+    }
+
+    /**
+     * Applies the event received from the other node of the cluster to the cache. The time of the event is
+     * considered as the version of the change, so stale or repeated events are discarded
+     * (see {@linkplain MemCache#putIfNewer(Serializable, Serializable, long)}).
+     * While the buffering of the remote events is enabled, the event is buffered and applied later.
+     *
+     * @param event the event received from the bus, cannot be {@code null}.
+     * @return {@code true} if the event was applied to the cache or buffered, {@code false} if it was discarded as stale.
+     * @see #startBufferingRemoteEvents()
+     */
+    public boolean apply(@Nonnull CacheEntryEvent<K, V> event) {
+        return buffer(() -> applyEvent(event)) || applyEvent(event);
+    }
+
+    /**
+     * Applies the change received from the other node of the cluster to the cache if its version is newer
+     * than the version of the element in the cache. Unlike {@linkplain #apply(CacheEntryEvent)},
+     * the change is never buffered.
+     *
+     * @param key     the key of the element in the cache; cannot be {@code null}.
+     * @param value   the new value of the element; can be {@code null}.
+     * @param version the version of the change.
+     * @return {@code true} if the change was applied to the cache, {@code false} if it was discarded as stale.
+     * @see MemCache#putIfNewer(Serializable, Serializable, long)
+     */
+    public boolean putIfNewer(@Nonnull K key, @Nullable V value, long version) {
+        return applyRemoteChange(() -> this.memCache.putIfNewer(key, value, version));
+    }
+
+    /**
+     * Enables the buffering of the events received from the other nodes, for example while the state of the cache
+     * is transferred from another node. The events passed to {@linkplain #apply(CacheEntryEvent)} and the changes
+     * made by the bus through the methods of the cache (put, putIfAbsent, merge, evict, clear and the removal
+     * with the {@linkplain VersionedKey}) are buffered; the changes returning their result (the removal with the ordinary key
+     * and {@code computeIfAbsent}) are applied immediately.
+     * Buffered changes are applied in the order of their receiving by {@linkplain #stopBufferingRemoteEvents()}.
+     */
+    public void startBufferingRemoteEvents() {
+        synchronized (this.bufferLock) {
+            if (this.bufferedChanges == null) {
+                this.bufferedChanges = new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Applies the buffered changes to the cache and disables the buffering of the events received from the other nodes.
+     *
+     * @see #startBufferingRemoteEvents()
+     */
+    public void stopBufferingRemoteEvents() {
+        while (true) {
+            final List<Runnable> changes;
+            synchronized (this.bufferLock) {
+                changes = this.bufferedChanges;
+                if (changes == null) {
+                    return;
+                }
+
+                // changes received while the buffered ones are being applied are buffered until the buffer is drained
+                this.bufferedChanges = changes.isEmpty() ? null : new ArrayList<>();
+            }
+
+            changes.forEach(this::applyRemoteChange);
+        }
+    }
+
+    /**
+     * Returns whether the change received from the other node of the cluster is being applied to the cache
+     * in the current thread. Events of such changes must not be published to the bus again.
+     *
+     * @return {@code true} if the remote change is being applied in the current thread, {@code false} otherwise.
+     */
+    public static boolean isRemoteChangeInProgress() {
+        return remoteChangeInProgress.get() != null;
     }
 
     @Override
@@ -102,4 +222,82 @@ public final class MemCacheBusAdapter<K extends Serializable, V extends Serializ
             throw new ClassCastException("Cache listener implementation must implement " + CacheEntryEventListener.class.getCanonicalName());
         }
     }
+
+    private boolean applyVersioned(final VersionedKey<?> key, final V value, final CacheEntryEventType eventType) {
+        @SuppressWarnings("unchecked")
+        final K changedKey = (K) key.key();
+        return apply(new ImmutableCacheEntryEvent<>(changedKey, null, value, key.version(), eventType, getName()));
+    }
+
+    private boolean applyEvent(final CacheEntryEvent<K, V> event) {
+        final K key = unwrap(event.key());
+        if (CacheEntryEvent.ALL_ENTRIES_KEY.equals(key)) {
+            applyRemoteChange(this.memCache::clear);
+            return true;
+        } else if (key instanceof EntriesBatchKey batchKey) {
+            // each entry of the batch is removed only if it was not changed after the batch removal
+            boolean applied = false;
+            for (final K batchEntryKey : keysOf(batchKey)) {
+                applied |= putIfNewer(batchEntryKey, null, event.eventTime());
+            }
+
+            return applied;
+        }
+
+        final V value = switch (event.eventType()) {
+            case ADDED, UPDATED -> event.newValue();
+            case EVICTED, EXPIRED -> null;
+        };
+
+        return putIfNewer(key, value, event.eventTime());
+    }
+
+    private K unwrap(final K key) {
+        @SuppressWarnings("unchecked")
+        final K result = key instanceof VersionedKey<?> versionedKey ? (K) versionedKey.key() : key;
+        return result;
+    }
+
+    private List<K> keysOf(final EntriesBatchKey batchKey) {
+        @SuppressWarnings("unchecked")
+        final List<K> keys = (List<K>) batchKey.keys();
+        return keys;
+    }
+
+    private void applyOrBuffer(final Runnable change) {
+        if (!buffer(change)) {
+            applyRemoteChange(change);
+        }
+    }
+
+    private boolean buffer(final Runnable change) {
+        synchronized (this.bufferLock) {
+            if (this.bufferedChanges == null) {
+                return false;
+            }
+
+            this.bufferedChanges.add(change);
+            return true;
+        }
+    }
+
+    private void applyRemoteChange(final Runnable change) {
+        applyRemoteChange(() -> {
+            change.run();
+            return null;
+        });
+    }
+
+    private <T> T applyRemoteChange(final Supplier<T> change) {
+        if (isRemoteChangeInProgress()) {
+            return change.get();
+        }
+
+        remoteChangeInProgress.set(Boolean.TRUE);
+        try {
+            return change.get();
+        } finally {
+            remoteChangeInProgress.remove();
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package ru.joke.memcache.clustering.adapters;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The key of the bus event carrying the version of the change: the bus applies the received events
+ * to the cache by the methods of the {@linkplain ru.joke.cache.bus.core.Cache} without the time of the event,
+ * so the version is sent together with the key of the changed entry (or with the {@linkplain EntriesBatchKey}).
+ * The change is applied to the cache by {@linkplain MemCacheBusAdapter} only if its version is newer
+ * than the version of the entry in the cache.
+ *
+ * @param key     the key of the changed entry or the batch of the entries, cannot be {@code null}.
+ * @param version the version of the change.
+ * @param <K>     type of the key
+ * @author Alik
+ * @see MemCacheBusAdapter
+ * @see ru.joke.memcache.core.MemCache#putIfNewer(Serializable, Serializable, long)
+ */
+@Immutable
+public record VersionedKey<K extends Serializable>(@Nonnull K key, long version) implements Serializable {
+
+    public VersionedKey {
+        Objects.requireNonNull(key, "key");
+    }
+}
@@ -0,0 +1,244 @@
+package ru.joke.memcache.clustering.configuration;
+
+import ru.joke.memcache.core.configuration.InvalidConfigurationException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Objects;
+
+/**
+ * The configuration of publishing of the MemCache entry events to the bus.<br>
+ * For manual building, use the builder {@code ru.joke.memcache.clustering.configuration.BusPublishingConfiguration#builder()}.
+ *
+ * @author Alik
+ * @see MemCacheProviderBusConfiguration
+ */
+public interface BusPublishingConfiguration {
+
+    /**
+     * Returns the mode of the replication of cache entries values to the other nodes.
+     *
+     * @return the replication mode, cannot be {@code null}.
+     * @see ReplicationMode
+     */
+    @Nonnull
+    ReplicationMode replicationMode();
+
+    /**
+     * Returns the max size of the value in bytes (in serialized form) that is replicated
+     * with the event in the {@linkplain ReplicationMode#HYBRID} mode.
+     *
+     * @return the max size of the replicated value in bytes.
+     */
+    @Nonnegative
+    int maxReplicatedValueSize();
+
+    /**
+     * Returns the max count of the buffered events of the cache (after coalescing by keys).
+     * A value of {@code 1} disables the batching of the events.
+     *
+     * @return the max count of the buffered events of the cache.
+     */
+    @Nonnegative
+    int maxBatchSize();
+
+    /**
+     * Returns the interval in milliseconds after which the buffered events are sent to the bus
+     * even if the max batch size is not reached.
+     *
+     * @return the flush interval in milliseconds.
+     */
+    @Nonnegative
+    long flushInterval();
+
+    /**
+     * Returns a default configuration: full replication without the batching of events.
+     *
+     * @return configuration, cannot be {@code null}.
+     */
+    @Nonnull
+    static BusPublishingConfiguration createDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a bus publishing configuration builder.
+     *
+     * @return builder, cannot be {@code null}.
+     * @see BusPublishingConfiguration.Builder
+     */
+    @Nonnull
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Modes of the replication of cache entries values.
+     *
+     * @author Alik
+     */
+    enum ReplicationMode {
+
+        /**
+         * Old and new values of the entry are sent to the bus with each event.
+         */
+        FULL,
+
+        /**
+         * Only keys of the changed entries are sent to the bus, other nodes invalidate their copies of the entries.
+         */
+        INVALIDATION,
+
+        /**
+         * Values not exceeding the configured max size are replicated as in the {@linkplain ReplicationMode#FULL} mode,
+         * larger values are invalidated as in the {@linkplain ReplicationMode#INVALIDATION} mode.
+         * The size of strings, primitive arrays and primitive wrappers is computed without serialization,
+         * the size of values of other types is estimated by the periodically serialized values of the same type.
+         */
+        HYBRID
+    }
+
+    /**
+     * Bus publishing configuration builder.
+     *
+     * @author Alik
+     */
+    @NotThreadSafe
+    class Builder {
+
+        private ReplicationMode replicationMode = ReplicationMode.FULL;
+        private int maxReplicatedValueSize;
+        private int maxBatchSize = 1;
+        private long flushInterval;
+
+        /**
+         * Sets the mode of the replication of cache entries values to the other nodes.
+         *
+         * @param replicationMode the replication mode, cannot be {@code null}.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setReplicationMode(@Nonnull final ReplicationMode replicationMode) {
+            this.replicationMode = replicationMode;
+            return this;
+        }
+
+        /**
+         * Sets the max size of the value in bytes (in serialized form) that is replicated
+         * with the event in the {@linkplain ReplicationMode#HYBRID} mode.
+         *
+         * @param maxReplicatedValueSize the max size of the replicated value in bytes; must be positive for the hybrid mode.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setMaxReplicatedValueSize(@Nonnegative final int maxReplicatedValueSize) {
+            this.maxReplicatedValueSize = maxReplicatedValueSize;
+            return this;
+        }
+
+        /**
+         * Sets the max count of the buffered events of the cache (after coalescing by keys).
+         * A value of {@code 1} disables the batching of the events.
+         *
+         * @param maxBatchSize the max count of the buffered events of the cache; must be positive.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setMaxBatchSize(@Nonnegative final int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the interval in milliseconds after which the buffered events are sent to the bus
+         * even if the max batch size is not reached.
+         *
+         * @param flushInterval the flush interval in milliseconds; must be positive if the batching is enabled.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setFlushInterval(@Nonnegative final long flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Performs the creation of the configuration of publishing of the events to the bus
+         * based on the data passed to the builder.
+         *
+         * @return cannot be {@code null}.
+         * @see BusPublishingConfiguration
+         */
+        @Nonnull
+        public BusPublishingConfiguration build() {
+            if (this.replicationMode == null) {
+                throw new InvalidConfigurationException("Replication mode must be set");
+            } else if (this.replicationMode == ReplicationMode.HYBRID && this.maxReplicatedValueSize <= 0) {
+                throw new InvalidConfigurationException("Max replicated value size must be positive in hybrid replication mode");
+            } else if (this.maxBatchSize < 1) {
+                throw new InvalidConfigurationException("Max batch size must be positive");
+            } else if (this.maxBatchSize > 1 && this.flushInterval <= 0) {
+                throw new InvalidConfigurationException("Flush interval must be positive if batching is enabled");
+            }
+
+            final ReplicationMode replicationMode = this.replicationMode;
+            final int maxReplicatedValueSize = this.maxReplicatedValueSize;
+            final int maxBatchSize = this.maxBatchSize;
+            final long flushInterval = this.flushInterval;
+
+            return new BusPublishingConfiguration() {
+                @Nonnull
+                @Override
+                public ReplicationMode replicationMode() {
+                    return replicationMode;
+                }
+
+                @Override
+                public int maxReplicatedValueSize() {
+                    return maxReplicatedValueSize;
+                }
+
+                @Override
+                public int maxBatchSize() {
+                    return maxBatchSize;
+                }
+
+                @Override
+                public long flushInterval() {
+                    return flushInterval;
+                }
+
+                @Override
+                public String toString() {
+                    return "BusPublishingConfiguration{" +
+                            "replicationMode=" + replicationMode +
+                            ", maxReplicatedValueSize=" + maxReplicatedValueSize +
+                            ", maxBatchSize=" + maxBatchSize +
+                            ", flushInterval=" + flushInterval +
+                            '}';
+                }
+
+                @Override
+                public int hashCode() {
+                    return Objects.hash(replicationMode, maxReplicatedValueSize, maxBatchSize, flushInterval);
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    if (this == o) {
+                        return true;
+                    }
+                    if (!(o instanceof BusPublishingConfiguration that)) {
+                        return false;
+                    }
+
+                    return that.replicationMode() == replicationMode
+                            && that.maxReplicatedValueSize() == maxReplicatedValueSize
+                            && that.maxBatchSize() == maxBatchSize
+                            && that.flushInterval() == flushInterval;
+                }
+            };
+        }
+    }
+}
@@ -25,6 +25,15 @@ public final class MemCacheProviderBusConfiguration extends CacheProviderConfigu
         );
     }
 
+    public MemCacheProviderBusConfiguration(
+            @Nonnull MemCacheManager cacheManager,
+            @Nonnull BusPublishingConfiguration publishingConfiguration) {
+        super(
+                new MemCacheManagerBusAdapter(cacheManager),
+                new MemCacheCacheEventListenerRegistrar(publishingConfiguration)
+        );
+    }
+
     /**
      * Creates caching provider configuration by provided MemCache cache manager.
      *
@@ -36,4 +45,21 @@ public final class MemCacheProviderBusConfiguration extends CacheProviderConfigu
     public static CacheProviderConfiguration create(@Nonnull MemCacheManager cacheManager) {
         return new MemCacheProviderBusConfiguration(cacheManager);
     }
+
+    /**
+     * Creates caching provider configuration by provided MemCache cache manager and configuration
+     * of the publishing of cache entry events to the bus (replication mode, batching of events).
+     *
+     * @param cacheManager            MemCache cache manager, cannot be {@code null}.
+     * @param publishingConfiguration configuration of the publishing of events to the bus, cannot be {@code null}.
+     * @return caching provider configuration, cannot be {@code null}.
+     * @see CacheProviderConfiguration
+     * @see BusPublishingConfiguration
+     */
+    @Nonnull
+    public static CacheProviderConfiguration create(
+            @Nonnull MemCacheManager cacheManager,
+            @Nonnull BusPublishingConfiguration publishingConfiguration) {
+        return new MemCacheProviderBusConfiguration(cacheManager, publishingConfiguration);
+    }
 }
\ No newline at end of file
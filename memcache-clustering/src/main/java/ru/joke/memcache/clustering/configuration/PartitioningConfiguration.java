@@ -0,0 +1,220 @@
+package ru.joke.memcache.clustering.configuration;
+
+import ru.joke.memcache.core.configuration.InvalidConfigurationException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The configuration of the partitioned mode of the cluster in which each key is owned only by some nodes of the cluster
+ * (the primary owner and the configured number of backup owners) instead of being replicated to all nodes.<br>
+ * For manual building, use the builder {@code ru.joke.memcache.clustering.configuration.PartitioningConfiguration#builder()}.
+ *
+ * @author Alik
+ * @see ru.joke.memcache.clustering.partitioning.PartitionedMemCacheNode
+ */
+public interface PartitioningConfiguration {
+
+    /**
+     * Returns the identifier of the local node of the cluster.
+     *
+     * @return the identifier of the local node, cannot be {@code null}.
+     */
+    @Nonnull
+    String localNodeId();
+
+    /**
+     * Returns the identifiers of all nodes of the cluster (including the local node).
+     *
+     * @return the identifiers of the nodes of the cluster, cannot be {@code null}.
+     */
+    @Nonnull
+    Set<String> members();
+
+    /**
+     * Returns the count of the virtual nodes of each node on the consistent hash ring.
+     * The more virtual nodes, the more uniform the distribution of keys between the nodes.
+     *
+     * @return the count of the virtual nodes per node.
+     */
+    @Nonnegative
+    int virtualNodesCount();
+
+    /**
+     * Returns the count of the backup owners of each key in addition to the primary owner.
+     *
+     * @return the count of the backup owners of each key.
+     */
+    @Nonnegative
+    int backupsCount();
+
+    /**
+     * Returns a partitioning configuration builder.
+     *
+     * @return builder, cannot be {@code null}.
+     * @see PartitioningConfiguration.Builder
+     */
+    @Nonnull
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Partitioning configuration builder.
+     *
+     * @author Alik
+     */
+    @NotThreadSafe
+    class Builder {
+
+        private static final int DEFAULT_VIRTUAL_NODES_COUNT = 128;
+
+        private final Set<String> members = new LinkedHashSet<>();
+        private String localNodeId;
+        private int virtualNodesCount = DEFAULT_VIRTUAL_NODES_COUNT;
+        private int backupsCount = 1;
+
+        /**
+         * Sets the identifier of the local node of the cluster.
+         *
+         * @param localNodeId the identifier of the local node, cannot be {@code null}.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setLocalNodeId(@Nonnull final String localNodeId) {
+            this.localNodeId = localNodeId;
+            return this;
+        }
+
+        /**
+         * Adds the identifier of the node to the members of the cluster.
+         *
+         * @param nodeId the identifier of the node, cannot be {@code null}.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder addMember(@Nonnull final String nodeId) {
+            this.members.add(nodeId);
+            return this;
+        }
+
+        /**
+         * Sets the identifiers of all nodes of the cluster.
+         *
+         * @param members the identifiers of the nodes, cannot be {@code null}.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setMembers(@Nonnull final Set<String> members) {
+            this.members.clear();
+            this.members.addAll(members);
+            return this;
+        }
+
+        /**
+         * Sets the count of the virtual nodes of each node on the consistent hash ring.
+         *
+         * @param virtualNodesCount the count of the virtual nodes per node; must be positive.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setVirtualNodesCount(@Nonnegative final int virtualNodesCount) {
+            this.virtualNodesCount = virtualNodesCount;
+            return this;
+        }
+
+        /**
+         * Sets the count of the backup owners of each key in addition to the primary owner.
+         *
+         * @param backupsCount the count of the backup owners; must be non-negative.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setBackupsCount(@Nonnegative final int backupsCount) {
+            this.backupsCount = backupsCount;
+            return this;
+        }
+
+        /**
+         * Performs the creation of the partitioning configuration based on the data passed to the builder.
+         *
+         * @return cannot be {@code null}.
+         * @see PartitioningConfiguration
+         */
+        @Nonnull
+        public PartitioningConfiguration build() {
+            if (this.localNodeId == null || this.localNodeId.isBlank()) {
+                throw new InvalidConfigurationException("Local node id must be set");
+            } else if (!this.members.contains(this.localNodeId)) {
+                throw new InvalidConfigurationException("Members of the cluster must contain the local node");
+            } else if (this.virtualNodesCount < 1) {
+                throw new InvalidConfigurationException("Virtual nodes count must be positive");
+            } else if (this.backupsCount < 0) {
+                throw new InvalidConfigurationException("Backups count must be non-negative");
+            }
+
+            final String localNodeId = this.localNodeId;
+            final Set<String> members = Set.copyOf(this.members);
+            final int virtualNodesCount = this.virtualNodesCount;
+            final int backupsCount = this.backupsCount;
+
+            return new PartitioningConfiguration() {
+                @Nonnull
+                @Override
+                public String localNodeId() {
+                    return localNodeId;
+                }
+
+                @Nonnull
+                @Override
+                public Set<String> members() {
+                    return members;
+                }
+
+                @Override
+                public int virtualNodesCount() {
+                    return virtualNodesCount;
+                }
+
+                @Override
+                public int backupsCount() {
+                    return backupsCount;
+                }
+
+                @Override
+                public String toString() {
+                    return "PartitioningConfiguration{" +
+                            "localNodeId=" + localNodeId +
+                            ", members=" + members +
+                            ", virtualNodesCount=" + virtualNodesCount +
+                            ", backupsCount=" + backupsCount +
+                            '}';
+                }
+
+                @Override
+                public int hashCode() {
+                    return Objects.hash(localNodeId, members, virtualNodesCount, backupsCount);
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    if (this == o) {
+                        return true;
+                    }
+                    if (!(o instanceof PartitioningConfiguration that)) {
+                        return false;
+                    }
+
+                    return that.localNodeId().equals(localNodeId)
+                            && that.members().equals(members)
+                            && that.virtualNodesCount() == virtualNodesCount
+                            && that.backupsCount() == backupsCount;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.joke.memcache.clustering.listeners;
+
+import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.memcache.clustering.adapters.EntriesBatchKey;
+import ru.joke.memcache.clustering.adapters.VersionedKey;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+
+@ThreadSafe
+interface BusEventsPublisher<K extends Serializable, V extends Serializable> {
+
+    void publish(@Nonnull CacheEntryEvent<VersionedKey<K>, V> event);
+
+    void publishForAllEntries(@Nonnull CacheEntryEvent<String, V> event);
+
+    void publishForEntries(@Nonnull CacheEntryEvent<VersionedKey<EntriesBatchKey>, V> event);
+
+    void close();
+
+    @Nonnull
+    static <K extends Serializable, V extends Serializable> BusEventsPublisher<K, V> direct(@Nonnull CacheBus cacheBus) {
+        return new BusEventsPublisher<>() {
+            @Override
+            public void publish(@Nonnull CacheEntryEvent<VersionedKey<K>, V> event) {
+                cacheBus.send(event);
+            }
+
+            @Override
+            public void publishForAllEntries(@Nonnull CacheEntryEvent<String, V> event) {
+                cacheBus.send(event);
+            }
+
+            @Override
+            public void publishForEntries(@Nonnull CacheEntryEvent<VersionedKey<EntriesBatchKey>, V> event) {
+                cacheBus.send(event);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package ru.joke.memcache.clustering.listeners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.memcache.clustering.adapters.EntriesBatchKey;
+import ru.joke.memcache.clustering.adapters.VersionedKey;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@ThreadSafe
+final class CoalescingBusEventsPublisher<K extends Serializable, V extends Serializable> implements BusEventsPublisher<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingBusEventsPublisher.class);
+
+    private final CacheBus cacheBus;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flushExecutor;
+    private final ScheduledFuture<?> flushTask;
+    private final Object flushLock;
+    private final LongAdder failedEventsCounter;
+    private final Runnable onClose;
+
+    private Map<K, CacheEntryEvent<VersionedKey<K>, V>> events;
+    private CacheEntryEvent<String, V> allEntriesEvent;
+    private List<CacheEntryEvent<VersionedKey<EntriesBatchKey>, V>> batchEvents;
+    private boolean flushRequested;
+    private boolean closed;
+
+    CoalescingBusEventsPublisher(
+            @Nonnull CacheBus cacheBus,
+            @Nonnegative int maxBatchSize,
+            @Nonnegative long flushInterval,
+            @Nonnull ScheduledExecutorService flushExecutor) {
+        this(cacheBus, maxBatchSize, flushInterval, flushExecutor, new LongAdder(), () -> {});
+    }
+
+    CoalescingBusEventsPublisher(
+            @Nonnull CacheBus cacheBus,
+            @Nonnegative int maxBatchSize,
+            @Nonnegative long flushInterval,
+            @Nonnull ScheduledExecutorService flushExecutor,
+            @Nonnull LongAdder failedEventsCounter,
+            @Nonnull Runnable onClose) {
+        this.cacheBus = cacheBus;
+        this.failedEventsCounter = failedEventsCounter;
+        this.onClose = onClose;
+        this.maxBatchSize = maxBatchSize;
+        this.flushExecutor = flushExecutor;
+        this.flushLock = new Object();
+        this.events = new LinkedHashMap<>();
+        this.batchEvents = new ArrayList<>();
+        this.flushTask = flushExecutor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(@Nonnull CacheEntryEvent<VersionedKey<K>, V> event) {
+        synchronized (this) {
+            // the check of the closing is performed under the same lock as the buffering,
+            // so the event is either buffered before the final flush or sent directly
+            if (this.closed) {
+                this.cacheBus.send(event);
+                return;
+            }
+
+            // consecutive events of the key are coalesced into the single one at the position of the first of them
+            this.events.merge(event.key().key(), event, CoalescingBusEventsPublisher::coalesce);
+            if (this.events.size() < this.maxBatchSize || this.flushRequested) {
+                return;
+            }
+
+            this.flushRequested = true;
+        }
+
+        requestFlush();
+    }
+
+    @Override
+    public void publishForAllEntries(@Nonnull CacheEntryEvent<String, V> event) {
+        synchronized (this) {
+            if (this.closed) {
+                this.cacheBus.send(event);
+                return;
+            }
+
+            // the buffered events are superseded by the event for all entries
+            this.events.clear();
+            this.batchEvents.clear();
+            this.allEntriesEvent = event;
+            if (this.flushRequested) {
+                return;
+            }
+
+            this.flushRequested = true;
+        }
+
+        requestFlush();
+    }
+
+    @Override
+    public void publishForEntries(@Nonnull CacheEntryEvent<VersionedKey<EntriesBatchKey>, V> event) {
+        synchronized (this) {
+            if (this.closed) {
+                this.cacheBus.send(event);
+                return;
+            }
+
+            // the buffered events of the keys of the batch are superseded by the batch event,
+            // the events buffered after it are sent after the batch events
+            event.key().key().keys().forEach(this.events::remove);
+            this.batchEvents.add(event);
+            if (this.events.size() + this.batchEvents.size() < this.maxBatchSize || this.flushRequested) {
+                return;
+            }
+
+            this.flushRequested = true;
+        }
+
+        requestFlush();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+        }
+
+        this.flushTask.cancel(false);
+        try {
+            flush();
+        } finally {
+            this.onClose.run();
+        }
+    }
+
+    void flush() {
+        // batches are sent in the order of their buffering
+        synchronized (this.flushLock) {
+            final CacheEntryEvent<String, V> allEntriesEvent;
+            final List<CacheEntryEvent<VersionedKey<EntriesBatchKey>, V>> batchEvents;
+            final Collection<CacheEntryEvent<VersionedKey<K>, V>> events;
+            synchronized (this) {
+                allEntriesEvent = this.allEntriesEvent;
+                batchEvents = this.batchEvents;
+                events = this.events.values();
+
+                this.allEntriesEvent = null;
+                this.batchEvents = new ArrayList<>();
+                this.events = new LinkedHashMap<>();
+                this.flushRequested = false;
+            }
+
+            // the failure of the sending of the event does not prevent the sending of the rest events of the batch
+            if (allEntriesEvent != null) {
+                send(allEntriesEvent);
+            }
+
+            batchEvents.forEach(this::send);
+            events.forEach(this::send);
+        }
+    }
+
+    private void send(final CacheEntryEvent<?, V> event) {
+        try {
+            this.cacheBus.send(event);
+        } catch (RuntimeException ex) {
+            this.failedEventsCounter.increment();
+            logger.error("Unable to send buffered event to the bus: " + event, ex);
+        }
+    }
+
+    private void requestFlush() {
+        try {
+            this.flushExecutor.execute(this::flush);
+        } catch (RejectedExecutionException ex) {
+            // the executor is stopped only after the closing of the publisher, the buffered events are sent by the final flush
+            logger.debug("Flush request was rejected", ex);
+        }
+    }
+
+    private static <K extends Serializable, V extends Serializable> CacheEntryEvent<VersionedKey<K>, V> coalesce(
+            final CacheEntryEvent<VersionedKey<K>, V> previous,
+            final CacheEntryEvent<VersionedKey<K>, V> next) {
+        final CacheEntryEventType eventType =
+                previous.eventType() == CacheEntryEventType.ADDED && next.eventType() == CacheEntryEventType.UPDATED
+                        ? CacheEntryEventType.ADDED
+                        : next.eventType();
+        return new ImmutableCacheEntryEvent<>(
+                next.key(),
+                previous.oldValue(),
+                next.newValue(),
+                next.eventTime(),
+                eventType,
+                next.cacheName()
+        );
+    }
+}
@@ -3,16 +3,22 @@ package ru.joke.memcache.clustering.listeners;
 import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.memcache.clustering.adapters.EntriesBatchKey;
+import ru.joke.memcache.clustering.adapters.MemCacheBusAdapter;
+import ru.joke.memcache.clustering.adapters.VersionedKey;
+import ru.joke.memcache.clustering.configuration.BusPublishingConfiguration;
 import ru.joke.memcache.core.events.CacheEntriesEvent;
 import ru.joke.memcache.core.events.CacheEntryEvent;
 import ru.joke.memcache.core.events.CacheEntryEventListener;
 import ru.joke.memcache.core.events.EventType;
 
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementation of the {@linkplain ru.joke.cache.bus.core.CacheEventListener} for MemCache.
@@ -22,38 +28,79 @@ import java.util.Objects;
  * @see CacheEntryEventListener
  */
 @ThreadSafe
-@Immutable
 final class MemCache2BusEntryEventListener<K extends Serializable, V extends Serializable> implements CacheEntryEventListener<K, V>, ru.joke.cache.bus.core.CacheEventListener<K, V> {
 
     private final String listenerId;
     private final CacheBus cacheBus;
     private final String cacheName;
+    private final BusEventsPublisher<K, V> publisher;
+    private final BusPublishingConfiguration.ReplicationMode replicationMode;
+    private final ValueSizeEstimator valueSizeEstimator;
 
     public MemCache2BusEntryEventListener(
             @Nonnull String listenerId,
             @Nonnull CacheBus cacheBus,
             @Nonnull String cacheName) {
+        this(listenerId, cacheBus, cacheName, BusPublishingConfiguration.createDefault(), BusEventsPublisher.direct(cacheBus));
+    }
+
+    MemCache2BusEntryEventListener(
+            @Nonnull String listenerId,
+            @Nonnull CacheBus cacheBus,
+            @Nonnull String cacheName,
+            @Nonnull BusPublishingConfiguration configuration,
+            @Nonnull BusEventsPublisher<K, V> publisher) {
         this.listenerId = Objects.requireNonNull(listenerId, "listenerId");
         this.cacheBus = Objects.requireNonNull(cacheBus, "cacheBus");
         this.cacheName = Objects.requireNonNull(cacheName, "cacheName");
+        this.publisher = Objects.requireNonNull(publisher, "publisher");
+        this.replicationMode = configuration.replicationMode();
+        this.valueSizeEstimator = new ValueSizeEstimator(configuration.maxReplicatedValueSize());
     }
 
     @Override
     public void onEvent(@Nonnull CacheEntryEvent<? extends K, ? extends V> cacheEvent) {
+        if (MemCacheBusAdapter.isRemoteChangeInProgress()) {
+            // the change was received from the bus, so it must not be echoed back to the other nodes
+            return;
+        }
 
-        final ru.joke.cache.bus.core.CacheEntryEvent<K, V> busEvent = new ImmutableCacheEntryEvent<>(
-                cacheEvent.key(),
-                cacheEvent.oldValue().orElse(null),
-                cacheEvent.newValue().orElse(null),
-                System.currentTimeMillis(),
-                convertMemCacheEventType2BusType(cacheEvent.eventType()),
-                this.cacheName
-        );
-        this.cacheBus.send(busEvent);
+        final V oldValue = cacheEvent.oldValue().orElse(null);
+        final V newValue = cacheEvent.newValue().orElse(null);
+        final CacheEntryEventType eventType = convertMemCacheEventType2BusType(cacheEvent.eventType());
+
+        final ru.joke.cache.bus.core.CacheEntryEvent<VersionedKey<K>, V> busEvent = switch (this.replicationMode) {
+            case FULL -> createBusEvent(cacheEvent.key(), oldValue, newValue, eventType, cacheEvent.version());
+            case INVALIDATION -> createInvalidationBusEvent(cacheEvent.key(), eventType, cacheEvent.version());
+            case HYBRID -> newValue == null || this.valueSizeEstimator.isWithinLimit(newValue)
+                    ? createBusEvent(cacheEvent.key(), oldValue == null || this.valueSizeEstimator.isWithinLimit(oldValue) ? oldValue : null, newValue, eventType, cacheEvent.version())
+                    : createInvalidationBusEvent(cacheEvent.key(), eventType, cacheEvent.version());
+        };
+
+        this.publisher.publish(busEvent);
     }
 
     @Override
     public void onBatchEvent(@Nonnull CacheEntriesEvent<? extends K, ? extends V> cacheEntriesEvent) {
+        if (MemCacheBusAdapter.isRemoteChangeInProgress()) {
+            return;
+        }
+
+        final Optional<? extends Set<? extends K>> keys = cacheEntriesEvent.keys();
+        if (keys.isPresent()) {
+            // the batch is sent as the single compact event with the keys, the event time is the version of the batch
+            final ru.joke.cache.bus.core.CacheEntryEvent<VersionedKey<EntriesBatchKey>, V> busEvent = new ImmutableCacheEntryEvent<>(
+                    new VersionedKey<>(new EntriesBatchKey(new ArrayList<>(keys.get())), cacheEntriesEvent.version()),
+                    null,
+                    null,
+                    cacheEntriesEvent.version(),
+                    convertMemCacheEventType2BusType(cacheEntriesEvent.eventType()),
+                    this.cacheName
+            );
+            this.publisher.publishForEntries(busEvent);
+            return;
+        }
+
         final ru.joke.cache.bus.core.CacheEntryEvent<String, V> busEvent = new ImmutableCacheEntryEvent<>(
                 ru.joke.cache.bus.core.CacheEntryEvent.ALL_ENTRIES_KEY,
                 null,
@@ -62,7 +109,11 @@ final class MemCache2BusEntryEventListener<K extends Serializable, V extends Ser
                 convertMemCacheEventType2BusType(cacheEntriesEvent.eventType()),
                 this.cacheName
         );
-        this.cacheBus.send(busEvent);
+        this.publisher.publishForAllEntries(busEvent);
+    }
+
+    void close() {
+        this.publisher.close();
     }
 
     @Override
@@ -97,6 +148,37 @@ final class MemCache2BusEntryEventListener<K extends Serializable, V extends Ser
                 '}';
     }
 
+    private ru.joke.cache.bus.core.CacheEntryEvent<VersionedKey<K>, V> createBusEvent(
+            final K key,
+            final V oldValue,
+            final V newValue,
+            final CacheEntryEventType eventType,
+            final long version) {
+        // the key and the event time carry the version of the entry, so the other nodes are able to discard stale events
+        return new ImmutableCacheEntryEvent<>(
+                new VersionedKey<>(key, version),
+                oldValue,
+                newValue,
+                version,
+                eventType,
+                this.cacheName
+        );
+    }
+
+    private ru.joke.cache.bus.core.CacheEntryEvent<VersionedKey<K>, V> createInvalidationBusEvent(
+            final K key,
+            final CacheEntryEventType eventType,
+            final long version) {
+        // values are not sent, so other nodes must evict the entry; the event time is the version of the invalidation
+        return createBusEvent(
+                key,
+                null,
+                null,
+                eventType == CacheEntryEventType.EXPIRED ? CacheEntryEventType.EXPIRED : CacheEntryEventType.EVICTED,
+                version
+        );
+    }
+
     private CacheEntryEventType convertMemCacheEventType2BusType(final EventType eventType) {
         return switch (eventType) {
             case REMOVED -> CacheEntryEventType.EVICTED;
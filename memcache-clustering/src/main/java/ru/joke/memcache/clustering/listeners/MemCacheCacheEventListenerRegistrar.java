@@ -2,34 +2,60 @@ package ru.joke.memcache.clustering.listeners;
 
 import ru.joke.cache.bus.core.Cache;
 import ru.joke.cache.bus.core.CacheBus;
-import ru.joke.cache.bus.core.CacheEventListener;
 import ru.joke.cache.bus.core.CacheEventListenerRegistrar;
+import ru.joke.memcache.clustering.configuration.BusPublishingConfiguration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.Serializable;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Implementation of the {@linkplain CacheEventListenerRegistrar} for MemCache.
+ * Implementation of the {@linkplain CacheEventListenerRegistrar} for MemCache.<br>
+ * Cache entry events are sent to the bus according to the {@linkplain BusPublishingConfiguration}:
+ * by default, each event is sent to the bus immediately with old and new values of the entry.
+ * The thread flushing the buffered events is stopped when the last cache with the buffered events is unregistered.
  *
  * @see CacheEventListenerRegistrar
+ * @see BusPublishingConfiguration
  * @author Alik
  */
 @ThreadSafe
-@Immutable
 public final class MemCacheCacheEventListenerRegistrar implements CacheEventListenerRegistrar {
 
     private final String listenerId;
+    private final BusPublishingConfiguration configuration;
+    private final Map<String, MemCache2BusEntryEventListener<?, ?>> registeredListeners;
+    private final LongAdder failedEventsCounter;
+    private ScheduledExecutorService flushExecutor;
+    private int activePublishers;
 
     public MemCacheCacheEventListenerRegistrar() {
         this(UUID.randomUUID().toString());
     }
 
     public MemCacheCacheEventListenerRegistrar(@Nonnull String listenerId) {
+        this(listenerId, BusPublishingConfiguration.createDefault());
+    }
+
+    public MemCacheCacheEventListenerRegistrar(@Nonnull BusPublishingConfiguration configuration) {
+        this(UUID.randomUUID().toString(), configuration);
+    }
+
+    public MemCacheCacheEventListenerRegistrar(
+            @Nonnull String listenerId,
+            @Nonnull BusPublishingConfiguration configuration) {
         this.listenerId = Objects.requireNonNull(listenerId, "listenerId");
+        this.configuration = Objects.requireNonNull(configuration, "configuration");
+        this.registeredListeners = new ConcurrentHashMap<>();
+        this.failedEventsCounter = new LongAdder();
     }
 
     @Override
@@ -37,7 +63,12 @@ public final class MemCacheCacheEventListenerRegistrar implements CacheEventList
             @Nonnull CacheBus cacheBus,
             @Nonnull Cache<K, V> cache) {
 
-        final CacheEventListener<K, V> listener = new MemCache2BusEntryEventListener<>(this.listenerId, cacheBus, cache.getName());
+        final MemCache2BusEntryEventListener<K, V> listener = new MemCache2BusEntryEventListener<>(this.listenerId, cacheBus, cache.getName(), this.configuration, createPublisher(cacheBus));
+        final MemCache2BusEntryEventListener<?, ?> previousListener = this.registeredListeners.put(cache.getName(), listener);
+        if (previousListener != null) {
+            previousListener.close();
+        }
+
         cache.registerEventListener(listener);
     }
 
@@ -46,7 +77,58 @@ public final class MemCacheCacheEventListenerRegistrar implements CacheEventList
             @Nonnull CacheBus cacheBus,
             @Nonnull Cache<K, V> cache) {
 
-        final CacheEventListener<K, V> listener = new MemCache2BusEntryEventListener<>(this.listenerId, cacheBus, cache.getName());
+        // listeners are equal by the id, bus and cache name
+        final MemCache2BusEntryEventListener<K, V> listener = new MemCache2BusEntryEventListener<>(this.listenerId, cacheBus, cache.getName());
         cache.unregisterEventListener(listener);
+
+        final MemCache2BusEntryEventListener<?, ?> registeredListener = this.registeredListeners.remove(cache.getName());
+        if (registeredListener != null) {
+            registeredListener.close();
+        }
+    }
+
+    /**
+     * Returns the count of the buffered events which were not sent to the bus because of the failures of the bus.<br>
+     * Events sent to the bus immediately are not counted, the failures of their sending are thrown to the caller.
+     *
+     * @return the count of the failed buffered events.
+     */
+    @Nonnegative
+    public long failedEventsCount() {
+        return this.failedEventsCounter.sum();
+    }
+
+    private <K extends Serializable, V extends Serializable> BusEventsPublisher<K, V> createPublisher(final CacheBus cacheBus) {
+        if (this.configuration.maxBatchSize() == 1) {
+            return BusEventsPublisher.direct(cacheBus);
+        }
+
+        synchronized (this) {
+            if (this.flushExecutor == null) {
+                this.flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    final Thread thread = new Thread(r, "MemCache-Bus-Events-Flush-Thread-" + this.listenerId);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+
+            this.activePublishers++;
+            return new CoalescingBusEventsPublisher<>(
+                    cacheBus,
+                    this.configuration.maxBatchSize(),
+                    this.configuration.flushInterval(),
+                    this.flushExecutor,
+                    this.failedEventsCounter,
+                    this::onPublisherClose
+            );
+        }
+    }
+
+    private synchronized void onPublisherClose() {
+        // the flush executor is stopped with the last publisher and started again by the next registration
+        if (--this.activePublishers == 0) {
+            this.flushExecutor.shutdown();
+            this.flushExecutor = null;
+        }
     }
 }
@@ -0,0 +1,148 @@
+package ru.joke.memcache.clustering.listeners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ThreadSafe
+final class ValueSizeEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValueSizeEstimator.class);
+
+    // the size of the values of other types is measured by the serialization of one of the values of the type in the sampling rate
+    private static final int SAMPLING_RATE = 64;
+
+    private final int maxSize;
+    private final Map<Class<?>, SizeSample> samples;
+
+    ValueSizeEstimator(@Nonnegative int maxSize) {
+        this.maxSize = maxSize;
+        this.samples = new ConcurrentHashMap<>();
+    }
+
+    boolean isWithinLimit(@Nonnull Serializable value) {
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum<?>) {
+            return true;
+        } else if (value instanceof byte[] bytes) {
+            return bytes.length <= this.maxSize;
+        } else if (value instanceof String str) {
+            return isWithinLimit(str);
+        } else if (value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+            return (long) Array.getLength(value) * primitiveSize(value.getClass().getComponentType()) <= this.maxSize;
+        }
+
+        // values are serialized on the writer thread, so the decision of the last measured value of the type is reused
+        // for the next values of the type until the next sample
+        final SizeSample sample = this.samples.computeIfAbsent(value.getClass(), c -> new SizeSample());
+        if (sample.counter.getAndIncrement() % SAMPLING_RATE == 0) {
+            sample.withinLimit = measure(value);
+        }
+
+        return sample.withinLimit;
+    }
+
+    private boolean isWithinLimit(final String str) {
+        // modified UTF-8 takes from 1 to 3 bytes per char
+        if (str.length() > this.maxSize) {
+            return false;
+        } else if (str.length() * 3L <= this.maxSize) {
+            return true;
+        }
+
+        int size = 0;
+        for (int i = 0; i < str.length(); i++) {
+            final char c = str.charAt(i);
+            size += c >= 0x0001 && c <= 0x007F ? 1 : c > 0x07FF ? 3 : 2;
+            if (size > this.maxSize) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean measure(final Serializable value) {
+        // serialization is interrupted as soon as the limit is exceeded, so large values are never serialized completely
+        final LimitedOutputStream stream = new LimitedOutputStream(this.maxSize);
+        try {
+            final ObjectOutputStream oos = new ObjectOutputStream(stream);
+            oos.writeObject(value);
+            oos.flush();
+            return true;
+        } catch (LimitExceededException ex) {
+            return false;
+        } catch (IOException ex) {
+            logger.debug("Unable to estimate size of the value, it will not be replicated", ex);
+            return false;
+        }
+    }
+
+    private static int primitiveSize(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return Long.BYTES;
+        } else if (type == int.class || type == float.class) {
+            return Integer.BYTES;
+        } else if (type == short.class || type == char.class) {
+            return Short.BYTES;
+        }
+
+        return Byte.BYTES;
+    }
+
+    private static class SizeSample {
+
+        private final AtomicLong counter = new AtomicLong();
+        private volatile boolean withinLimit;
+    }
+
+    private static class LimitedOutputStream extends OutputStream {
+
+        private final int limit;
+        private int size;
+
+        private LimitedOutputStream(final int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws LimitExceededException {
+            count(1);
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) throws LimitExceededException {
+            count(len);
+        }
+
+        private void count(final int bytesCount) throws LimitExceededException {
+            if ((this.size += bytesCount) > this.limit) {
+                throw LimitExceededException.INSTANCE;
+            }
+        }
+    }
+
+    private static class LimitExceededException extends IOException {
+
+        private static final LimitExceededException INSTANCE = new LimitExceededException();
+
+        private LimitExceededException() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package ru.joke.memcache.clustering.near;
+
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
+import ru.joke.memcache.core.events.CacheEntryEventListener;
+import ru.joke.memcache.core.stats.MemCacheStatistics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * The decorator of the cache which keeps the hot entries of the backing cache in the small local cache (L1),
+ * so the repeated reads of the hot keys are served at the latency of the local memory.<br>
+ * The bound, the eviction policy and the expiration (TTL) of the near entries are defined by the configuration
+ * of the L1 cache; the L1 cache must not be clustered itself.<br>
+ * Reads are served by the L1 cache and fall back to the backing cache on a miss, writes are always performed
+ * on the backing cache and invalidate the near entry. The near entries are also invalidated by any event of the backing cache,
+ * including the changes received from the other nodes of the cluster through the bus
+ * (see {@linkplain ru.joke.memcache.clustering.adapters.MemCacheBusAdapter}) and the changes published to the bus by
+ * {@linkplain ru.joke.memcache.clustering.listeners.MemCacheCacheEventListenerRegistrar}.<br>
+ * The near cache can front the partitioned cache ({@linkplain ru.joke.memcache.clustering.partitioning.PartitionedMemCache}):
+ * the registration of the invalidation listener subscribes the node to the changes of the entries owned by the other nodes.<br>
+ * The name, the configuration and the statistics of the near cache are the ones of the backing cache,
+ * the statistics of the L1 cache are available via {@linkplain #nearStatistics()}.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cache values
+ * @author Alik
+ * @see MemCache
+ */
+@ThreadSafe
+public final class NearCache<K extends Serializable, V extends Serializable> implements MemCache<K, V> {
+
+    // the invalidations are stamped per stripe of the keys, so the invalidation of one key
+    // doesn't discard the concurrent population of the near entries of the keys of other stripes
+    private static final int INVALIDATION_STRIPES = 64;
+
+    private final MemCache<K, V> nearCache;
+    private final MemCache<K, V> backingCache;
+    private final CacheEntryEventListener<K, V> invalidationListener;
+    private final AtomicLongArray invalidationStamps;
+
+    /**
+     * Creates the near cache in front of the backing cache.
+     *
+     * @param nearCache    the local cache (L1) which stores the near entries, cannot be {@code null}.
+     * @param backingCache the backing cache, cannot be {@code null}.
+     */
+    public NearCache(@Nonnull MemCache<K, V> nearCache, @Nonnull MemCache<K, V> backingCache) {
+        this.nearCache = Objects.requireNonNull(nearCache, "nearCache");
+        this.backingCache = Objects.requireNonNull(backingCache, "backingCache");
+        this.invalidationListener = new InvalidationListener();
+        this.invalidationStamps = new AtomicLongArray(INVALIDATION_STRIPES);
+    }
+
+    /**
+     * Returns the local cache (L1) which stores the near entries.
+     *
+     * @return the local cache, cannot be {@code null}.
+     */
+    @Nonnull
+    public MemCache<K, V> nearCache() {
+        return this.nearCache;
+    }
+
+    /**
+     * Returns the backing cache.
+     *
+     * @return the backing cache, cannot be {@code null}.
+     */
+    @Nonnull
+    public MemCache<K, V> backingCache() {
+        return this.backingCache;
+    }
+
+    /**
+     * Returns the statistics of the local cache (L1): the hits and the misses of the near entries.
+     *
+     * @return the statistics of the local cache, cannot be {@code null}.
+     */
+    @Nonnull
+    public MemCacheStatistics nearStatistics() {
+        return this.nearCache.statistics();
+    }
+
+    /**
+     * Invalidates the near entry of the key, the backing cache is not changed.
+     *
+     * @param key the key of the entry, cannot be {@code null}.
+     */
+    public void invalidate(@Nonnull K key) {
+        // the stamp is incremented before the removal, so the concurrent population of the near entry can detect it
+        this.invalidationStamps.incrementAndGet(stripeOf(key));
+        this.nearCache.remove(key);
+    }
+
+    /**
+     * Invalidates all near entries, the backing cache is not changed.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            this.invalidationStamps.incrementAndGet(i);
+        }
+
+        this.nearCache.clear();
+    }
+
+    @Override
+    public void initialize() {
+        this.backingCache.registerEventListener(this.invalidationListener);
+    }
+
+    @Override
+    public void shutdown() {
+        this.backingCache.deregisterEventListener(this.invalidationListener);
+        invalidateAll();
+    }
+
+    @Nonnull
+    @Override
+    public ComponentStatus status() {
+        return this.backingCache.status();
+    }
+
+    @Nonnull
+    @Override
+    public String name() {
+        return this.backingCache.name();
+    }
+
+    @Nonnull
+    @Override
+    public CacheConfiguration configuration() {
+        return this.backingCache.configuration();
+    }
+
+    @Override
+    public boolean registerEventListener(@Nonnull CacheEntryEventListener<K, V> listener) {
+        return this.backingCache.registerEventListener(listener);
+    }
+
+    @Override
+    public boolean deregisterEventListener(@Nonnull CacheEntryEventListener<K, V> listener) {
+        return this.backingCache.deregisterEventListener(listener);
+    }
+
+    @Nonnull
+    @Override
+    public MemCacheStatistics statistics() {
+        return this.backingCache.statistics();
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> get(@Nonnull K key) {
+        final Optional<V> nearValue = this.nearCache.get(key);
+        if (nearValue.isPresent()) {
+            return nearValue;
+        }
+
+        final long stamp = this.invalidationStamps.get(stripeOf(key));
+        final Optional<V> value = this.backingCache.get(key);
+        value.ifPresent(v -> populate(key, v, stamp));
+
+        return value;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> remove(@Nonnull K key) {
+        try {
+            return this.backingCache.remove(key);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public boolean remove(@Nonnull K key, @Nonnull V value) {
+        try {
+            return this.backingCache.remove(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> put(@Nonnull K key, @Nullable V value) {
+        try {
+            return this.backingCache.put(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> put(@Nonnull K key, @Nullable V value, @Nonnull Set<String> tags) {
+        try {
+            return this.backingCache.put(key, value, tags);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> putIfAbsent(@Nonnull K key, @Nullable V value) {
+        try {
+            return this.backingCache.putIfAbsent(key, value);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            this.backingCache.clear();
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> merge(@Nonnull K key, @Nonnull V value, @Nonnull BiFunction<? super V, ? super V, ? extends V> mergeFunction) {
+        try {
+            return this.backingCache.merge(key, value, mergeFunction);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> mappingFunction) {
+        try {
+            return this.backingCache.computeIfAbsent(key, mappingFunction);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> compute(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        try {
+            return this.backingCache.compute(key, remappingFunction);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> computeIfPresent(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        try {
+            return this.backingCache.computeIfPresent(key, remappingFunction);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public boolean replace(@Nonnull K key, @Nullable V oldValue, @Nullable V newValue) {
+        try {
+            return this.backingCache.replace(key, oldValue, newValue);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public int removeAll(@Nonnull Collection<? extends K> keys) {
+        try {
+            return this.backingCache.removeAll(keys);
+        } finally {
+            keys.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public int removeIf(@Nonnull BiPredicate<? super K, ? super V> predicate) {
+        // the removed keys are invalidated by the batch event of the backing cache
+        return this.backingCache.removeIf(predicate);
+    }
+
+    @Override
+    public int invalidateTag(@Nonnull String tag) {
+        // the removed keys are invalidated by the batch event of the backing cache
+        return this.backingCache.invalidateTag(tag);
+    }
+
+    @Override
+    public boolean putIfNewer(@Nonnull K key, @Nullable V value, long version) {
+        try {
+            return this.backingCache.putIfNewer(key, value, version);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public void forEach(@Nonnull VersionedEntryConsumer<? super K, ? super V> action) {
+        this.backingCache.forEach(action);
+    }
+
+    @Nonnull
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return this.backingCache.spliterator();
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> getAsync(@Nonnull K key) {
+        final Optional<V> nearValue = this.nearCache.get(key);
+        if (nearValue.isPresent()) {
+            return CompletableFuture.completedFuture(nearValue);
+        }
+
+        final long stamp = this.invalidationStamps.get(stripeOf(key));
+        return this.backingCache.getAsync(key)
+                                .thenApply(value -> {
+                                    value.ifPresent(v -> populate(key, v, stamp));
+                                    return value;
+                                });
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> removeAsync(@Nonnull K key) {
+        return invalidateOnCompletion(key, this.backingCache.removeAsync(key));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> removeAsync(@Nonnull K key, @Nonnull V value) {
+        return invalidateOnCompletion(key, this.backingCache.removeAsync(key, value));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> putAsync(@Nonnull K key, @Nullable V value) {
+        return invalidateOnCompletion(key, this.backingCache.putAsync(key, value));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> putIfAbsentAsync(@Nonnull K key, @Nullable V value) {
+        return invalidateOnCompletion(key, this.backingCache.putIfAbsentAsync(key, value));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        return this.backingCache.clearAsync()
+                                .whenComplete((result, ex) -> invalidateAll());
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> mergeAsync(@Nonnull K key, @Nonnull V value, @Nonnull BiFunction<? super V, ? super V, ? extends V> mergeFunction) {
+        return invalidateOnCompletion(key, this.backingCache.mergeAsync(key, value, mergeFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> computeIfAbsentAsync(@Nonnull K key, @Nonnull Function<? super K, ? extends V> remappingFunction) {
+        return invalidateOnCompletion(key, this.backingCache.computeIfAbsentAsync(key, remappingFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> computeAsync(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return invalidateOnCompletion(key, this.backingCache.computeAsync(key, remappingFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> computeIfPresentAsync(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return invalidateOnCompletion(key, this.backingCache.computeIfPresentAsync(key, remappingFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> replaceAsync(@Nonnull K key, @Nullable V oldValue, @Nullable V newValue) {
+        return invalidateOnCompletion(key, this.backingCache.replaceAsync(key, oldValue, newValue));
+    }
+
+    @Override
+    public String toString() {
+        return "NearCache{" +
+                "nearCache=" + nearCache.name() +
+                ", backingCache=" + backingCache.name() +
+                '}';
+    }
+
+    private void populate(final K key, final V value, final long stamp) {
+        this.nearCache.put(key, value);
+        // the value read before the concurrent invalidation can be stale, so it must not stay in the near cache
+        if (this.invalidationStamps.get(stripeOf(key)) != stamp) {
+            this.nearCache.remove(key);
+        }
+    }
+
+    private int stripeOf(final K key) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    private <T> CompletableFuture<T> invalidateOnCompletion(final K key, final CompletableFuture<T> future) {
+        return future.whenComplete((result, ex) -> invalidate(key));
+    }
+
+    private class InvalidationListener implements CacheEntryEventListener<K, V> {
+
+        @Override
+        public void onEvent(@Nonnull CacheEntryEvent<? extends K, ? extends V> event) {
+            invalidate(event.key());
+        }
+
+        @Override
+        public void onBatchEvent(@Nonnull CacheEntriesEvent<? extends K, ? extends V> event) {
+            event.keys().ifPresentOrElse(
+                    keys -> keys.forEach(NearCache.this::invalidate),
+                    NearCache.this::invalidateAll
+            );
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Immutable
+final class ConsistentHashRing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] points;
+    private final String[] pointOwners;
+    private final int nodesCount;
+
+    ConsistentHashRing(@Nonnull Collection<String> nodes, @Nonnegative int virtualNodesCount) {
+        // the nodes are sorted so that all nodes build the same ring regardless of the order of members in the configuration
+        final List<String> sortedNodes = new ArrayList<>(new TreeSet<>(nodes));
+        final TreeMap<Long, String> ring = new TreeMap<>();
+        for (final String node : sortedNodes) {
+            for (int i = 0; i < virtualNodesCount; i++) {
+                ring.putIfAbsent(hash(node + '#' + i), node);
+            }
+        }
+
+        this.points = new long[ring.size()];
+        this.pointOwners = new String[ring.size()];
+        int i = 0;
+        for (final Map.Entry<Long, String> point : ring.entrySet()) {
+            this.points[i] = point.getKey();
+            this.pointOwners[i++] = point.getValue();
+        }
+
+        this.nodesCount = sortedNodes.size();
+    }
+
+    @Nonnull
+    List<String> owners(@Nonnull Object key, @Nonnegative int count) {
+        final int ownersCount = Math.min(count, this.nodesCount);
+        final List<String> owners = new ArrayList<>(ownersCount);
+
+        // walking clockwise from the key position until the required count of distinct nodes is collected
+        for (int i = pointIndex(key); owners.size() < ownersCount; i = (i + 1) % this.points.length) {
+            final String owner = this.pointOwners[i];
+            if (!owners.contains(owner)) {
+                owners.add(owner);
+            }
+        }
+
+        return owners;
+    }
+
+    private int pointIndex(final Object key) {
+        // the hash codes of the enum constants are identity-based, so the enum keys are placed by their names
+        final long keyHash = mix(key instanceof Enum<?> e ? e.name().hashCode() : key.hashCode());
+        final int index = Arrays.binarySearch(this.points, keyHash);
+        final int position = index >= 0 ? index : -index - 1;
+        return position == this.points.length ? 0 : position;
+    }
+
+    private static long hash(final String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= FNV_PRIME;
+        }
+
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        // the finalizer of the 64-bit murmur hash spreads the close hash codes of keys over the whole ring
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
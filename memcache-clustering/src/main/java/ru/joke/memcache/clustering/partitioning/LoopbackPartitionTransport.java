@@ -0,0 +1,52 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-process implementation of the {@linkplain PartitionTransport}: commands are handled by the nodes
+ * registered in the same transport instance in the calling thread. Suitable for the tests and
+ * for the partitioning of the cache data between several cache managers within one process.
+ *
+ * @author Alik
+ * @see PartitionTransport
+ */
+@ThreadSafe
+public final class LoopbackPartitionTransport implements PartitionTransport {
+
+    private final Map<String, Function<PartitionCommand, Serializable>> handlers = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(@Nonnull String nodeId, @Nonnull Function<PartitionCommand, Serializable> handler) {
+        this.handlers.put(Objects.requireNonNull(nodeId, "nodeId"), Objects.requireNonNull(handler, "handler"));
+    }
+
+    @Override
+    public void unregister(@Nonnull String nodeId) {
+        this.handlers.remove(nodeId);
+    }
+
+    @Nullable
+    @Override
+    public Serializable send(@Nonnull String targetNodeId, @Nonnull PartitionCommand command) {
+        final Function<PartitionCommand, Serializable> handler = this.handlers.get(targetNodeId);
+        if (handler == null) {
+            throw new PartitionUnavailableException("Node " + targetNodeId + " is unavailable");
+        }
+
+        return handler.apply(command);
+    }
+
+    @Override
+    public String toString() {
+        return "LoopbackPartitionTransport{" +
+                "nodes=" + handlers.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,128 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The command of the operation with the cache entry sent by the node of the partitioned cluster to the owner of the entry.
+ *
+ * @param cacheName     the name of the cache, cannot be {@code null}.
+ * @param type          the type of the operation, cannot be {@code null}.
+ * @param key           the key of the entry or the identifier of the node for the {@linkplain Type#SUBSCRIBE} and
+ *                      {@linkplain Type#UNSUBSCRIBE} commands or the tag for the {@linkplain Type#INVALIDATE_TAG} command,
+ *                      can be {@code null} only for the {@linkplain Type#CLEAR} command.
+ * @param value         the value of the entry for the put operations, can be {@code null}.
+ * @param expectedValue the expected current value of the entry for the {@linkplain Type#REPLACE} command, can be {@code null}.
+ * @param tags          the tags of the entry for the put operations, can be {@code null}; the {@code null} tags retain the current tags of the entry.
+ * @param version       the version of the change assigned by the primary owner for the backup and invalidation commands.
+ * @author Alik
+ * @see PartitionTransport
+ */
+public record PartitionCommand(
+        @Nonnull String cacheName,
+        @Nonnull Type type,
+        @Nullable Serializable key,
+        @Nullable Serializable value,
+        @Nullable Serializable expectedValue,
+        @Nullable Set<String> tags,
+        long version
+) implements Serializable {
+
+    public PartitionCommand {
+        Objects.requireNonNull(cacheName, "cacheName");
+        Objects.requireNonNull(type, "type");
+        if (type != Type.CLEAR) {
+            Objects.requireNonNull(key, "key");
+        }
+        tags = tags == null ? null : Set.copyOf(tags);
+    }
+
+    public PartitionCommand(
+            @Nonnull String cacheName,
+            @Nonnull Type type,
+            @Nullable Serializable key,
+            @Nullable Serializable value,
+            @Nullable Serializable expectedValue,
+            long version) {
+        this(cacheName, type, key, value, expectedValue, null, version);
+    }
+
+    public PartitionCommand(
+            @Nonnull String cacheName,
+            @Nonnull Type type,
+            @Nullable Serializable key,
+            @Nullable Serializable value) {
+        this(cacheName, type, key, value, null, null, 0);
+    }
+
+    /**
+     * Types of the operations with the cache entries.
+     *
+     * @author Alik
+     */
+    public enum Type {
+
+        /**
+         * Retrieval of the value of the entry from the owner.
+         */
+        GET,
+
+        /**
+         * Put of the value to the primary owner of the entry, which replicates the value to the backup owners.
+         */
+        PUT,
+
+        /**
+         * Put of the value to the primary owner of the entry if the entry is absent.
+         */
+        PUT_IF_ABSENT,
+
+        /**
+         * Replacement of the value of the entry on the primary owner if the current value is equal to the expected one.
+         */
+        REPLACE,
+
+        /**
+         * Removal of the entry from the primary owner, which removes the entry from the backup owners.
+         */
+        REMOVE,
+
+        /**
+         * Removal of all entries stored by the node.
+         */
+        CLEAR,
+
+        /**
+         * Removal of the entries with the tag stored by the node.
+         */
+        INVALIDATE_TAG,
+
+        /**
+         * Put of the value to the backup owner of the entry, applied only if the version is newer than the stored one.
+         */
+        BACKUP_PUT,
+
+        /**
+         * Removal of the entry from the backup owner, applied only if the version is newer than the stored one.
+         */
+        BACKUP_REMOVE,
+
+        /**
+         * Subscription of the node to the changes of the entries owned by the other nodes.
+         */
+        SUBSCRIBE,
+
+        /**
+         * Cancellation of the subscription of the node to the changes of the entries owned by the other nodes.
+         */
+        UNSUBSCRIBE,
+
+        /**
+         * Notification of the subscribed node about the change of the entry made by the primary owner.
+         */
+        INVALIDATE
+    }
+}
@@ -0,0 +1,42 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.function.Function;
+
+/**
+ * The transport of the commands between the nodes of the partitioned cluster.
+ *
+ * @author Alik
+ * @see LoopbackPartitionTransport
+ * @see PartitionCommand
+ */
+public interface PartitionTransport {
+
+    /**
+     * Registers the handler of the commands sent to the node with the given identifier.
+     *
+     * @param nodeId  the identifier of the node, cannot be {@code null}.
+     * @param handler the handler of the commands, cannot be {@code null}.
+     */
+    void register(@Nonnull String nodeId, @Nonnull Function<PartitionCommand, Serializable> handler);
+
+    /**
+     * Unregisters the handler of the commands of the node with the given identifier.
+     *
+     * @param nodeId the identifier of the node, cannot be {@code null}.
+     */
+    void unregister(@Nonnull String nodeId);
+
+    /**
+     * Sends the command to the node and waits for the result of its handling.
+     *
+     * @param targetNodeId the identifier of the target node, cannot be {@code null}.
+     * @param command      the command, cannot be {@code null}.
+     * @return the result of the command handling, can be {@code null}.
+     * @throws PartitionUnavailableException if the target node is unavailable
+     */
+    @Nullable
+    Serializable send(@Nonnull String targetNodeId, @Nonnull PartitionCommand command);
+}
@@ -0,0 +1,18 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import ru.joke.memcache.core.MemCacheException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Exception thrown when the node owning the cache entry is unavailable.
+ *
+ * @author Alik
+ * @see PartitionTransport
+ */
+public final class PartitionUnavailableException extends MemCacheException {
+
+    public PartitionUnavailableException(@Nonnull String message) {
+        super(message);
+    }
+}
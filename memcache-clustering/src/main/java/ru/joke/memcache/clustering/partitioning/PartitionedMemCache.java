@@ -0,0 +1,665 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
+import ru.joke.memcache.core.events.CacheEntryEventListener;
+import ru.joke.memcache.core.events.DefaultCacheEntriesEvent;
+import ru.joke.memcache.core.events.DefaultCacheEntryEvent;
+import ru.joke.memcache.core.events.EventType;
+import ru.joke.memcache.core.stats.MemCacheStatistics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The partitioned view of the cache: operations with the keys owned by the local node are performed on the local cache,
+ * operations with other keys are forwarded to the owners of the keys. Writes are always performed by the primary owner
+ * which replicates them to the backup owners after the local change; the primary owner assigns the version to each change
+ * of the key, so the backup owners apply the changes by their versions regardless of the order of the replication.
+ * Reads are performed by any available owner.<br>
+ * The operations with the functions ({@linkplain #compute(Serializable, BiFunction)}, {@linkplain #merge(Serializable, Serializable, BiFunction)}
+ * and others) of the keys owned by the other nodes apply the functions on the calling node and write the result
+ * by the optimistic replacement on the primary owner, so the functions can be invoked several times under contention.<br>
+ * The iteration operations ({@linkplain #forEach(VersionedEntryConsumer)}, {@linkplain #spliterator()}, {@linkplain #removeIf(BiPredicate)})
+ * visit only the entries for which the local node is the primary owner, so the iteration on all nodes of the cluster
+ * visits each entry once; the statistics are the ones of the local cache.<br>
+ * The event listeners receive the events of the entries stored by the local node and, since the node with the registered listeners
+ * subscribes to the changes on the other nodes available at the registration, the events of the changes of the entries
+ * owned by the other nodes (such events don't contain the old values).<br>
+ * The tags of the entries are written with the values to the primary owner and replicated to the backup owners;
+ * the invalidation of the tag is performed on all available nodes of the cluster as the cleaning, and the event listeners
+ * receive the batch event without the keys since the invalidated entries can be owned by any node.
+ * The asynchronous operations are performed by the executor of the {@linkplain PartitionedMemCacheNode}.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cache values
+ * @author Alik
+ * @see PartitionedMemCacheNode
+ */
+@ThreadSafe
+public final class PartitionedMemCache<K extends Serializable, V extends Serializable> implements MemCache<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedMemCache.class);
+
+    private static final int WRITE_LOCKS_COUNT = 64;
+
+    private final PartitionedMemCacheNode node;
+    private final MemCache<K, V> localCache;
+    private final Set<CacheEntryEventListener<K, V>> listeners;
+    private final Set<String> subscribers;
+    private final ReentrantLock[] writeLocks;
+
+    PartitionedMemCache(@Nonnull PartitionedMemCacheNode node, @Nonnull MemCache<K, V> localCache) {
+        this.node = node;
+        this.localCache = localCache;
+        this.listeners = new CopyOnWriteArraySet<>();
+        this.subscribers = ConcurrentHashMap.newKeySet();
+        this.writeLocks = new ReentrantLock[WRITE_LOCKS_COUNT];
+        for (int i = 0; i < this.writeLocks.length; i++) {
+            this.writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the local cache which stores the entries owned by the local node.
+     *
+     * @return the local cache, cannot be {@code null}.
+     */
+    @Nonnull
+    public MemCache<K, V> localCache() {
+        return this.localCache;
+    }
+
+    /**
+     * Returns whether the local node is the owner (primary or backup) of the key.
+     *
+     * @param key the key of the entry, cannot be {@code null}.
+     * @return {@code true} if the local node owns the key, {@code false} otherwise.
+     */
+    public boolean isLocallyOwned(@Nonnull K key) {
+        return this.node.owners(key).contains(this.node.localNodeId());
+    }
+
+    @Override
+    public void initialize() {
+        // the lifecycle of the local cache is managed by the cache manager
+    }
+
+    @Override
+    public void shutdown() {
+        // the lifecycle of the local cache is managed by the cache manager
+    }
+
+    @Nonnull
+    @Override
+    public ComponentStatus status() {
+        return this.localCache.status();
+    }
+
+    @Nonnull
+    @Override
+    public String name() {
+        return this.localCache.name();
+    }
+
+    @Nonnull
+    @Override
+    public CacheConfiguration configuration() {
+        return this.localCache.configuration();
+    }
+
+    @Override
+    public synchronized boolean registerEventListener(@Nonnull CacheEntryEventListener<K, V> listener) {
+        final boolean result = this.localCache.registerEventListener(listener);
+        if (this.listeners.add(listener) && this.listeners.size() == 1) {
+            sendToOtherMembers(PartitionCommand.Type.SUBSCRIBE);
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized boolean deregisterEventListener(@Nonnull CacheEntryEventListener<K, V> listener) {
+        final boolean result = this.localCache.deregisterEventListener(listener);
+        if (this.listeners.remove(listener) && this.listeners.isEmpty()) {
+            sendToOtherMembers(PartitionCommand.Type.UNSUBSCRIBE);
+        }
+
+        return result;
+    }
+
+    @Nonnull
+    @Override
+    public MemCacheStatistics statistics() {
+        return this.localCache.statistics();
+    }
+
+    /**
+     * Returns the value associated with the given key from the local cache if the local node owns the key
+     * or from the first available owner of the key otherwise.
+     *
+     * @param key the key of the entry, cannot be {@code null}.
+     * @return the value wrapped in {@linkplain Optional}, cannot be {@code null}.
+     * @throws PartitionUnavailableException if all owners of the key are unavailable
+     */
+    @Nonnull
+    @Override
+    public Optional<V> get(@Nonnull K key) {
+        final List<String> owners = this.node.owners(key);
+        if (owners.contains(this.node.localNodeId())) {
+            return this.localCache.get(key);
+        }
+
+        PartitionUnavailableException lastException = null;
+        for (final String owner : owners) {
+            try {
+                return Optional.ofNullable(cast(this.node.send(owner, new PartitionCommand(name(), PartitionCommand.Type.GET, key, null))));
+            } catch (PartitionUnavailableException ex) {
+                logger.debug("Owner {} of the key is unavailable, next owner will be used", owner, ex);
+                lastException = ex;
+            }
+        }
+
+        throw Objects.requireNonNull(lastException);
+    }
+
+    /**
+     * Removes the entry with the given key from the primary owner and the backup owners of the key.
+     *
+     * @param key the key of the entry, cannot be {@code null}.
+     * @return the removed value wrapped in {@linkplain Optional}, cannot be {@code null}.
+     * @throws PartitionUnavailableException if the primary owner of the key is unavailable
+     */
+    @Nonnull
+    @Override
+    public Optional<V> remove(@Nonnull K key) {
+        final String primaryOwner = primaryOwner(key);
+        return isLocal(primaryOwner)
+                ? Optional.ofNullable(writeAsPrimary(key, (k, v) -> null).oldValue)
+                : Optional.ofNullable(cast(this.node.send(primaryOwner, new PartitionCommand(name(), PartitionCommand.Type.REMOVE, key, null))));
+    }
+
+    @Override
+    public boolean remove(@Nonnull K key, @Nonnull V value) {
+        return replace(key, Objects.requireNonNull(value, "value"), null);
+    }
+
+    /**
+     * Associates the value with the given key on the primary owner and the backup owners of the key.
+     *
+     * @param key   the key of the entry, cannot be {@code null}.
+     * @param value the value of the entry, can be {@code null}; the {@code null} value removes the entry.
+     * @return the previous value associated with the key wrapped in {@linkplain Optional}, cannot be {@code null}.
+     * @throws PartitionUnavailableException if the primary owner of the key is unavailable
+     */
+    @Nonnull
+    @Override
+    public Optional<V> put(@Nonnull K key, @Nullable V value) {
+        final String primaryOwner = primaryOwner(key);
+        return isLocal(primaryOwner)
+                ? Optional.ofNullable(writeAsPrimary(key, (k, v) -> value).oldValue)
+                : Optional.ofNullable(cast(this.node.send(primaryOwner, new PartitionCommand(name(), PartitionCommand.Type.PUT, key, value))));
+    }
+
+    /**
+     * Associates the value and the tags with the given key on the primary owner and the backup owners of the key.
+     *
+     * @param key   the key of the entry, cannot be {@code null}.
+     * @param value the value of the entry, can be {@code null}; the {@code null} value removes the entry.
+     * @param tags  the tags of the entry, cannot be {@code null}.
+     * @return the previous value associated with the key wrapped in {@linkplain Optional}, cannot be {@code null}.
+     * @throws PartitionUnavailableException if the primary owner of the key is unavailable
+     */
+    @Nonnull
+    @Override
+    public Optional<V> put(@Nonnull K key, @Nullable V value, @Nonnull Set<String> tags) {
+        Objects.requireNonNull(tags, "tags");
+        final String primaryOwner = primaryOwner(key);
+        return isLocal(primaryOwner)
+                ? Optional.ofNullable(putAsPrimary(key, value, tags))
+                : Optional.ofNullable(cast(this.node.send(primaryOwner, new PartitionCommand(name(), PartitionCommand.Type.PUT, key, value, null, tags, 0))));
+    }
+
+    @Override
+    public Optional<V> putIfAbsent(@Nonnull K key, @Nullable V value) {
+        final String primaryOwner = primaryOwner(key);
+        return isLocal(primaryOwner)
+                ? Optional.ofNullable(writeAsPrimary(key, (k, v) -> v == null ? value : v).oldValue)
+                : Optional.ofNullable(cast(this.node.send(primaryOwner, new PartitionCommand(name(), PartitionCommand.Type.PUT_IF_ABSENT, key, value))));
+    }
+
+    /**
+     * Clears the cache on all available nodes of the cluster.
+     */
+    @Override
+    public void clear() {
+        final PartitionCommand command = new PartitionCommand(name(), PartitionCommand.Type.CLEAR, null, null);
+        for (final String member : this.node.members()) {
+            if (isLocal(member)) {
+                this.localCache.clear();
+                continue;
+            }
+
+            try {
+                this.node.send(member, command);
+            } catch (PartitionUnavailableException ex) {
+                logger.warn("Node {} is unavailable, cache {} will not be cleared on it", member, name());
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> merge(@Nonnull K key, @Nonnull V value, @Nonnull BiFunction<? super V, ? super V, ? extends V> mergeFunction) {
+        return computeOnPrimary(key, (k, v) -> v == null ? value : mergeFunction.apply(v, value));
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> mappingFunction) {
+        return computeOnPrimary(key, (k, v) -> v == null ? mappingFunction.apply(k) : v);
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> compute(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return computeOnPrimary(key, remappingFunction);
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> computeIfPresent(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return computeOnPrimary(key, (k, v) -> v == null ? null : remappingFunction.apply(k, v));
+    }
+
+    @Override
+    public boolean replace(@Nonnull K key, @Nullable V oldValue, @Nullable V newValue) {
+        final String primaryOwner = primaryOwner(key);
+        return isLocal(primaryOwner)
+                ? replaceAsPrimary(key, oldValue, newValue)
+                : Boolean.TRUE.equals(this.node.send(primaryOwner, new PartitionCommand(name(), PartitionCommand.Type.REPLACE, key, newValue, oldValue, 0)));
+    }
+
+    @Override
+    public int removeAll(@Nonnull Collection<? extends K> keys) {
+        int result = 0;
+        for (final K key : keys) {
+            if (remove(key).isPresent()) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int removeIf(@Nonnull BiPredicate<? super K, ? super V> predicate) {
+        final List<Map.Entry<K, V>> removedEntries = new ArrayList<>();
+        forEach((key, value) -> {
+            if (predicate.test(key, value)) {
+                removedEntries.add(Map.entry(key, value));
+            }
+        });
+
+        int result = 0;
+        for (final Map.Entry<K, V> entry : removedEntries) {
+            // the entry changed after the check of the predicate is retained
+            if (remove(entry.getKey(), entry.getValue())) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the entries with the given tag on all available nodes of the cluster.
+     *
+     * @param tag the tag of the entries, cannot be {@code null}.
+     * @return the count of the removed entries including the copies removed from the backup owners.
+     */
+    @Override
+    public int invalidateTag(@Nonnull String tag) {
+        final PartitionCommand command = new PartitionCommand(name(), PartitionCommand.Type.INVALIDATE_TAG, tag, null);
+        int result = 0;
+        for (final String member : this.node.members()) {
+            if (isLocal(member)) {
+                result += invalidateTagLocally(tag);
+                continue;
+            }
+
+            try {
+                result += (Integer) Objects.requireNonNull(this.node.send(member, command));
+            } catch (PartitionUnavailableException ex) {
+                logger.warn("Node {} is unavailable, tag {} of cache {} will not be invalidated on it", member, tag, name());
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean putIfNewer(@Nonnull K key, @Nullable V value, long version) {
+        final String primaryOwner = primaryOwner(key);
+        final boolean result = isLocal(primaryOwner)
+                ? putIfNewerLocally(key, value, null, version)
+                : Boolean.TRUE.equals(this.node.send(primaryOwner, createBackupCommand(key, value, null, version)));
+        if (result) {
+            propagate(key, value, null, version);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void forEach(@Nonnull VersionedEntryConsumer<? super K, ? super V> action) {
+        this.localCache.forEach((key, value, version) -> {
+            if (isLocal(primaryOwner(key))) {
+                action.accept(key, value, version);
+            }
+        });
+    }
+
+    @Nonnull
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return this.localCache.stream()
+                                .filter(entry -> isLocal(primaryOwner(entry.getKey())))
+                                .spliterator();
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> getAsync(@Nonnull K key) {
+        return async(() -> get(key));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> removeAsync(@Nonnull K key) {
+        return async(() -> remove(key));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> removeAsync(@Nonnull K key, @Nonnull V value) {
+        return async(() -> remove(key, value));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> putAsync(@Nonnull K key, @Nullable V value) {
+        return async(() -> put(key, value));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> putIfAbsentAsync(@Nonnull K key, @Nullable V value) {
+        return async(() -> putIfAbsent(key, value));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        return async(() -> {
+            clear();
+            return null;
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> mergeAsync(@Nonnull K key, @Nonnull V value, @Nonnull BiFunction<? super V, ? super V, ? extends V> mergeFunction) {
+        return async(() -> merge(key, value, mergeFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> computeIfAbsentAsync(@Nonnull K key, @Nonnull Function<? super K, ? extends V> remappingFunction) {
+        return async(() -> computeIfAbsent(key, remappingFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> computeAsync(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return async(() -> compute(key, remappingFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Optional<V>> computeIfPresentAsync(@Nonnull K key, @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return async(() -> computeIfPresent(key, remappingFunction));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Boolean> replaceAsync(@Nonnull K key, @Nullable V oldValue, @Nullable V newValue) {
+        return async(() -> replace(key, oldValue, newValue));
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionedMemCache{" +
+                "name=" + name() +
+                ", node=" + node +
+                '}';
+    }
+
+    @Nullable
+    Serializable handle(@Nonnull PartitionCommand command) {
+        final K key = cast(command.key());
+        final V value = cast(command.value());
+
+        return switch (command.type()) {
+            case GET -> this.localCache.get(key).orElse(null);
+            case PUT -> command.tags() == null ? writeAsPrimary(key, (k, v) -> value).oldValue : putAsPrimary(key, value, command.tags());
+            case PUT_IF_ABSENT -> writeAsPrimary(key, (k, v) -> v == null ? value : v).oldValue;
+            case REPLACE -> replaceAsPrimary(key, cast(command.expectedValue()), value);
+            case REMOVE -> writeAsPrimary(key, (k, v) -> null).oldValue;
+            case CLEAR -> {
+                this.localCache.clear();
+                yield null;
+            }
+            case INVALIDATE_TAG -> invalidateTagLocally((String) command.key());
+            case BACKUP_PUT, BACKUP_REMOVE -> putIfNewerLocally(key, value, command.tags(), command.version());
+            case SUBSCRIBE -> this.subscribers.add((String) command.key());
+            case UNSUBSCRIBE -> this.subscribers.remove((String) command.key());
+            case INVALIDATE -> {
+                final EventType eventType = value == null ? EventType.REMOVED : EventType.UPDATED;
+                final CacheEntryEvent<K, V> event = new DefaultCacheEntryEvent<>(key, null, value, eventType, this, command.version());
+                this.listeners.forEach(l -> l.onEvent(event));
+                yield null;
+            }
+        };
+    }
+
+    private PrimaryWrite<V> writeAsPrimary(final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        final PrimaryWrite<V> write = new PrimaryWrite<>();
+        final ReentrantLock lock = writeLockOf(key);
+        lock.lock();
+        try {
+            this.localCache.compute(key, (k, v) -> {
+                final V newValue = remappingFunction.apply(k, v);
+                write.oldValue = v;
+                write.newValue = newValue;
+                // the version is assigned under the lock of the key, so the versions of the key are ordered as its changes
+                if (newValue != v) {
+                    write.version = this.node.nextVersion();
+                }
+
+                return newValue;
+            });
+        } finally {
+            lock.unlock();
+        }
+
+        // the replication is performed outside the lock of the key: the backups don't block the local writes
+        // and the reordered changes are resolved by the backups with the versions
+        if (write.version != 0) {
+            propagate(key, write.newValue, null, write.version);
+        }
+
+        return write;
+    }
+
+    private V putAsPrimary(final K key, final V value, final Set<String> tags) {
+        final V oldValue;
+        final long version;
+        final ReentrantLock lock = writeLockOf(key);
+        lock.lock();
+        try {
+            // the tagged put can't assign the version inside the local write, so the writes of the key are ordered by the lock
+            oldValue = this.localCache.put(key, value, tags).orElse(null);
+            version = this.node.nextVersion();
+        } finally {
+            lock.unlock();
+        }
+
+        propagate(key, value, tags, version);
+        return oldValue;
+    }
+
+    private boolean putIfNewerLocally(final K key, final V value, final Set<String> tags, final long version) {
+        final ReentrantLock lock = writeLockOf(key);
+        lock.lock();
+        try {
+            // the value is kept by the put of the equal value, so only the tags are applied
+            final boolean result = this.localCache.putIfNewer(key, value, version);
+            if (result && value != null && tags != null) {
+                this.localCache.put(key, value, tags);
+            }
+
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int invalidateTagLocally(final String tag) {
+        final int result = this.localCache.invalidateTag(tag);
+        // the listeners can hold the entries owned by the other nodes (as the near caches), so they are notified without the keys
+        if (!this.listeners.isEmpty()) {
+            final CacheEntriesEvent<K, V> event = new DefaultCacheEntriesEvent<>(EventType.REMOVED, this);
+            this.listeners.forEach(l -> l.onBatchEvent(event));
+        }
+
+        return result;
+    }
+
+    private void propagate(final K key, final V value, final Set<String> tags, final long version) {
+        final List<String> owners = this.node.owners(key);
+        this.node.replicateToBackups(createBackupCommand(key, value, tags, version), owners);
+        if (this.subscribers.isEmpty()) {
+            return;
+        }
+
+        // the owners receive the events of their local caches, so only the other subscribers are notified
+        final PartitionCommand command = new PartitionCommand(name(), PartitionCommand.Type.INVALIDATE, key, value, null, version);
+        for (final String subscriber : this.subscribers) {
+            if (owners.contains(subscriber)) {
+                continue;
+            }
+
+            try {
+                this.node.send(subscriber, command);
+            } catch (PartitionUnavailableException ex) {
+                logger.warn("Subscriber {} is unavailable, it will not be notified about the changes of cache {}", subscriber, name());
+                this.subscribers.remove(subscriber);
+            } catch (RuntimeException ex) {
+                logger.warn("Unable to notify subscriber {} about the change of cache {}", subscriber, name(), ex);
+            }
+        }
+    }
+
+    private void sendToOtherMembers(final PartitionCommand.Type type) {
+        final PartitionCommand command = new PartitionCommand(name(), type, this.node.localNodeId(), null);
+        for (final String member : this.node.members()) {
+            if (isLocal(member)) {
+                continue;
+            }
+
+            try {
+                this.node.send(member, command);
+            } catch (PartitionUnavailableException ex) {
+                logger.warn("Node {} is unavailable, command {} will not be sent to it", member, command);
+            }
+        }
+    }
+
+    private boolean replaceAsPrimary(final K key, final V oldValue, final V newValue) {
+        final PrimaryWrite<V> write = writeAsPrimary(key, (k, v) -> Objects.equals(v, oldValue) ? newValue : v);
+        return Objects.equals(write.oldValue, oldValue) && (oldValue != null || newValue != null);
+    }
+
+    private Optional<V> computeOnPrimary(final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        final String primaryOwner = primaryOwner(key);
+        if (isLocal(primaryOwner)) {
+            return Optional.ofNullable(writeAsPrimary(key, remappingFunction).newValue);
+        }
+
+        // the functions are not sent to the primary owner, so the result is written by the optimistic replacement
+        final PartitionCommand getCommand = new PartitionCommand(name(), PartitionCommand.Type.GET, key, null);
+        while (true) {
+            final V oldValue = cast(this.node.send(primaryOwner, getCommand));
+            final V newValue = remappingFunction.apply(key, oldValue);
+            if (newValue == oldValue || replace(key, oldValue, newValue)) {
+                return Optional.ofNullable(newValue);
+            }
+        }
+    }
+
+    private PartitionCommand createBackupCommand(final K key, final V value, final Set<String> tags, final long version) {
+        final PartitionCommand.Type type = value == null ? PartitionCommand.Type.BACKUP_REMOVE : PartitionCommand.Type.BACKUP_PUT;
+        return new PartitionCommand(name(), type, key, value, null, tags, version);
+    }
+
+    private String primaryOwner(final K key) {
+        return this.node.owners(key).get(0);
+    }
+
+    private boolean isLocal(final String nodeId) {
+        return nodeId.equals(this.node.localNodeId());
+    }
+
+    private ReentrantLock writeLockOf(final K key) {
+        return this.writeLocks[(key.hashCode() & Integer.MAX_VALUE) % this.writeLocks.length];
+    }
+
+    private <T> CompletableFuture<T> async(final Supplier<T> operation) {
+        return this.node.supplyAsync(operation);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cast(final Object value) {
+        return (T) value;
+    }
+
+    private static final class PrimaryWrite<V> {
+
+        private V oldValue;
+        private V newValue;
+        private long version;
+    }
+}
@@ -0,0 +1,201 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.joke.memcache.clustering.configuration.PartitioningConfiguration;
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.MemCacheManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The node of the partitioned cluster. Unlike the replicated mode in which each node stores all entries of the cache,
+ * in the partitioned mode each key is owned by the primary owner and the configured number of backup owners
+ * chosen on the consistent hash ring with virtual nodes, so the total capacity of the cluster grows with the count of the nodes.
+ * Non-owner nodes forward the operations to the owners of the keys through the {@linkplain PartitionTransport}.<br>
+ * The caches are created in the local cache manager of each node as usual; the hash codes of the keys
+ * must be the same on all nodes (as for strings, numbers and records of them); the enum keys are placed by their names
+ * since the hash codes of the enum constants differ between the nodes.<br>
+ * The asynchronous operations of the partitioned caches are performed by the executor owned by the node,
+ * so the operations waiting for the remote owners don't occupy the common pool.
+ *
+ * @author Alik
+ * @see PartitionedMemCache
+ * @see PartitioningConfiguration
+ * @see PartitionTransport
+ */
+@ThreadSafe
+public final class PartitionedMemCacheNode implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedMemCacheNode.class);
+
+    // the version is the physical time in millis in the high bits and the logical counter in the low bits
+    private static final int LOGICAL_VERSION_BITS = 16;
+
+    private final MemCacheManager cacheManager;
+    private final PartitionTransport transport;
+    private final String localNodeId;
+    private final Set<String> members;
+    private final int ownersCount;
+    private final ConsistentHashRing ring;
+    private final Map<String, PartitionedMemCache<?, ?>> caches;
+    private final AtomicLong lastVersion;
+    private final ThreadPoolExecutor asyncOpsExecutor;
+
+    public PartitionedMemCacheNode(
+            @Nonnull MemCacheManager cacheManager,
+            @Nonnull PartitionTransport transport,
+            @Nonnull PartitioningConfiguration configuration) {
+        this.cacheManager = Objects.requireNonNull(cacheManager, "cacheManager");
+        this.transport = Objects.requireNonNull(transport, "transport");
+        this.localNodeId = configuration.localNodeId();
+        this.members = configuration.members();
+        this.ownersCount = configuration.backupsCount() + 1;
+        this.ring = new ConsistentHashRing(configuration.members(), configuration.virtualNodesCount());
+        this.caches = new ConcurrentHashMap<>();
+        this.lastVersion = new AtomicLong();
+        this.asyncOpsExecutor = createAsyncOpsExecutor(this.localNodeId);
+        this.transport.register(this.localNodeId, this::handle);
+    }
+
+    /**
+     * Returns the partitioned view of the cache of the local cache manager with the given name.
+     *
+     * @param cacheName the name of the cache, cannot be {@code null}.
+     * @param <K>       the type of the cache keys
+     * @param <V>       the type of the cache values
+     * @return the partitioned cache wrapped in {@linkplain Optional}, cannot be {@code null}.
+     */
+    @Nonnull
+    public <K extends Serializable, V extends Serializable> Optional<PartitionedMemCache<K, V>> getCache(@Nonnull String cacheName) {
+        return this.cacheManager.<K, V> getCache(cacheName).map(cache -> {
+            // the view is recreated only when the local cache is recreated in the cache manager
+            final PartitionedMemCache<?, ?> result = this.caches.compute(
+                    cacheName,
+                    (name, view) -> view != null && view.localCache() == cache ? view : new PartitionedMemCache<>(this, cache)
+            );
+            return cast(result);
+        });
+    }
+
+    /**
+     * Returns the identifier of the local node of the cluster.
+     *
+     * @return the identifier of the local node, cannot be {@code null}.
+     */
+    @Nonnull
+    public String localNodeId() {
+        return this.localNodeId;
+    }
+
+    /**
+     * Returns the owners of the key: the primary owner is the first one, the backup owners follow it.
+     *
+     * @param key the key of the entry, cannot be {@code null}.
+     * @return the identifiers of the owner nodes, cannot be {@code null}.
+     */
+    @Nonnull
+    public List<String> owners(@Nonnull Serializable key) {
+        return this.ring.owners(key, this.ownersCount);
+    }
+
+    /**
+     * Returns the identifiers of all nodes of the cluster.
+     *
+     * @return the identifiers of the nodes, cannot be {@code null}.
+     */
+    @Nonnull
+    public Set<String> members() {
+        return this.members;
+    }
+
+    @Override
+    public void close() {
+        this.transport.unregister(this.localNodeId);
+        this.caches.clear();
+        this.asyncOpsExecutor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionedMemCacheNode{" +
+                "localNodeId=" + localNodeId +
+                ", ownersCount=" + ownersCount +
+                '}';
+    }
+
+    @Nullable
+    Serializable send(@Nonnull String targetNodeId, @Nonnull PartitionCommand command) {
+        return this.transport.send(targetNodeId, command);
+    }
+
+    long nextVersion() {
+        final long physicalVersion = System.currentTimeMillis() << LOGICAL_VERSION_BITS;
+        return this.lastVersion.updateAndGet(last -> Math.max(physicalVersion, last + 1));
+    }
+
+    void replicateToBackups(@Nonnull PartitionCommand command, @Nonnull List<String> owners) {
+        for (int i = 1; i < owners.size(); i++) {
+            final String backupOwner = owners.get(i);
+            try {
+                send(backupOwner, command);
+            } catch (PartitionUnavailableException ex) {
+                logger.warn("Backup owner {} is unavailable, command will not be replicated: {}", backupOwner, command);
+            }
+        }
+    }
+
+    @Nonnull
+    <T> CompletableFuture<T> supplyAsync(@Nonnull Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, this.asyncOpsExecutor);
+    }
+
+    private Serializable handle(final PartitionCommand command) {
+        final PartitionedMemCache<Serializable, Serializable> cache =
+                this.<Serializable, Serializable> getCache(command.cacheName())
+                        .orElseThrow(() -> new MemCacheException("Cache " + command.cacheName() + " not found on node " + this.localNodeId));
+        return cache.handle(command);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K extends Serializable, V extends Serializable> PartitionedMemCache<K, V> cast(final PartitionedMemCache<?, ?> cache) {
+        return (PartitionedMemCache<K, V>) cache;
+    }
+
+    private static ThreadPoolExecutor createAsyncOpsExecutor(final String localNodeId) {
+        // the operations wait for the remote owners, so the threads are not limited by the count of the processors
+        final int threads = Runtime.getRuntime().availableProcessors() * 4;
+        final AtomicInteger threadsCounter = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                1,
+                TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread thread = new Thread(r, "MemCache-Partitioned-Ops-Thread-" + localNodeId + "-" + threadsCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
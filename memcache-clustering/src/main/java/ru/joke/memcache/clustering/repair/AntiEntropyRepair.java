@@ -0,0 +1,193 @@
+package ru.joke.memcache.clustering.repair;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.joke.memcache.clustering.adapters.MemCacheBusAdapter;
+import ru.joke.memcache.clustering.transfer.StateChunk;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.spi.AntiEntropySupport;
+import ru.joke.memcache.core.spi.MerkleTree;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The background anti-entropy repair of the replicas of the caches: the events of the bus can be lost,
+ * so the replicas periodically compare their Merkle trees with the peers and fetch only the entries of the divergent ranges of keys.<br>
+ * The Merkle trees cover only the live entries (the tombstones of the removals are retained only for a short time),
+ * so the entry which is absent in one of the replicas
+ * can be either removed or not yet replicated. The divergence is resolved in the safe direction for the cache:
+ * the local entry absent in the peer replica is invalidated instead of being resurrected on the peer, the entries present
+ * in both replicas converge to the newest version. Each node repairs its own replica, so all replicas converge
+ * when all nodes run the repair.
+ *
+ * @author Alik
+ * @see AntiEntropyTransport
+ * @see MerkleTree
+ * @see AntiEntropySupport
+ */
+@ThreadSafe
+public final class AntiEntropyRepair implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AntiEntropyRepair.class);
+
+    private final String localNodeId;
+    private final List<String> peers;
+    private final MemCacheManager cacheManager;
+    private final AntiEntropyTransport transport;
+    private final AtomicInteger nextPeer;
+    private final ScheduledExecutorService repairExecutor;
+
+    /**
+     * Creates the anti-entropy repair of the replicas of the caches of the local cache manager.
+     *
+     * @param localNodeId    the identifier of the local node, cannot be {@code null}.
+     * @param peers          the identifiers of the peer nodes, cannot be {@code null}.
+     * @param cacheManager   the local cache manager, cannot be {@code null}.
+     * @param transport      the transport, cannot be {@code null}.
+     * @param repairInterval the interval of the background repair in milliseconds; if {@code 0}, the background repair is disabled.
+     */
+    public AntiEntropyRepair(
+            @Nonnull String localNodeId,
+            @Nonnull Collection<String> peers,
+            @Nonnull MemCacheManager cacheManager,
+            @Nonnull AntiEntropyTransport transport,
+            @Nonnegative long repairInterval) {
+        if (repairInterval < 0) {
+            throw new IllegalArgumentException("Repair interval must be non-negative");
+        }
+
+        this.localNodeId = Objects.requireNonNull(localNodeId, "localNodeId");
+        this.peers = List.copyOf(peers);
+        this.cacheManager = Objects.requireNonNull(cacheManager, "cacheManager");
+        this.transport = Objects.requireNonNull(transport, "transport");
+        this.nextPeer = new AtomicInteger();
+        this.transport.register(localNodeId, new LocalReplica());
+
+        if (repairInterval > 0 && !this.peers.isEmpty()) {
+            this.repairExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "memcache-anti-entropy-" + localNodeId);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.repairExecutor.scheduleWithFixedDelay(this::repairAll, repairInterval, repairInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.repairExecutor = null;
+        }
+    }
+
+    /**
+     * Repairs the replica of the cache by comparing it with the replica of the peer node.
+     *
+     * @param peerNodeId the identifier of the peer node, cannot be {@code null}.
+     * @param cacheName  the name of the cache, cannot be {@code null}.
+     * @return the count of the repaired entries of the local replica.
+     * @throws MemCacheException if the peer node is unavailable or the cache is not found
+     */
+    public int repair(@Nonnull String peerNodeId, @Nonnull String cacheName) {
+        final MemCache<Serializable, Serializable> cache = findCache(cacheName);
+        final AntiEntropySupport<Serializable, Serializable> antiEntropySupport = antiEntropySupportOf(cache);
+
+        final MerkleTree peerTree = this.transport.requestMerkleTree(peerNodeId, cacheName);
+        final BitSet divergentRanges = antiEntropySupport.merkleTree().diff(peerTree);
+        if (divergentRanges.isEmpty()) {
+            return 0;
+        }
+
+        logger.debug("Replica of cache {} diverges from replica of node {} (ranges {})", cacheName, peerNodeId, divergentRanges.cardinality());
+
+        // only the entries of the divergent ranges are visited
+        final Map<Serializable, Long> localVersions = new HashMap<>();
+        antiEntropySupport.forEachInRanges(divergentRanges, (key, value, version) -> localVersions.put(key, version));
+
+        final MemCacheBusAdapter<Serializable, Serializable> adapter = new MemCacheBusAdapter<>(cache);
+        int repairedEntries = 0;
+        for (final StateChunk.Entry peerEntry : this.transport.requestEntries(peerNodeId, cacheName, divergentRanges)) {
+            // the entry absent in the local replica is not added, because it can be removed locally
+            if (localVersions.remove(peerEntry.key()) != null && adapter.putIfNewer(peerEntry.key(), peerEntry.value(), peerEntry.version())) {
+                repairedEntries++;
+            }
+        }
+
+        // the entries absent in the peer replica are invalidated only if they were not changed since the comparison
+        for (final Map.Entry<Serializable, Long> localEntry : localVersions.entrySet()) {
+            if (adapter.putIfNewer(localEntry.getKey(), null, localEntry.getValue() + 1)) {
+                repairedEntries++;
+            }
+        }
+
+        logger.debug("Replica of cache {} was repaired by replica of node {} (entries {})", cacheName, peerNodeId, repairedEntries);
+        return repairedEntries;
+    }
+
+    @Override
+    public void close() {
+        if (this.repairExecutor != null) {
+            this.repairExecutor.shutdownNow();
+        }
+
+        this.transport.unregister(this.localNodeId);
+    }
+
+    @Override
+    public String toString() {
+        return "AntiEntropyRepair{" +
+                "localNodeId=" + localNodeId +
+                ", peers=" + peers +
+                '}';
+    }
+
+    private void repairAll() {
+        // the peers are chosen in turn, so the divergence with any peer is repaired eventually
+        final String peerNodeId = this.peers.get(Math.floorMod(this.nextPeer.getAndIncrement(), this.peers.size()));
+        for (final String cacheName : this.cacheManager.getCacheNames()) {
+            try {
+                repair(peerNodeId, cacheName);
+            } catch (RuntimeException ex) {
+                logger.warn("Unable to repair replica of cache " + cacheName + " by replica of node " + peerNodeId, ex);
+            }
+        }
+    }
+
+    private MemCache<Serializable, Serializable> findCache(final String cacheName) {
+        return this.cacheManager.<Serializable, Serializable> getCache(cacheName)
+                                .orElseThrow(() -> new MemCacheException("Cache " + cacheName + " not found on node " + this.localNodeId));
+    }
+
+    private AntiEntropySupport<Serializable, Serializable> antiEntropySupportOf(final MemCache<Serializable, Serializable> cache) {
+        if (cache instanceof AntiEntropySupport<?, ?>) {
+            @SuppressWarnings("unchecked")
+            final AntiEntropySupport<Serializable, Serializable> result = (AntiEntropySupport<Serializable, Serializable>) cache;
+            return result;
+        }
+
+        throw new MemCacheException("Cache " + cache.name() + " doesn't support anti-entropy repair on node " + this.localNodeId);
+    }
+
+    private class LocalReplica implements AntiEntropyTransport.Replica {
+
+        @Nonnull
+        @Override
+        public MerkleTree merkleTree(@Nonnull String cacheName) {
+            return antiEntropySupportOf(findCache(cacheName)).merkleTree();
+        }
+
+        @Nonnull
+        @Override
+        public List<StateChunk.Entry> entries(@Nonnull String cacheName, @Nonnull BitSet ranges) {
+            final List<StateChunk.Entry> result = new ArrayList<>();
+            antiEntropySupportOf(findCache(cacheName)).forEachInRanges(ranges, (key, value, version) -> result.add(new StateChunk.Entry(key, value, version)));
+            return result;
+        }
+    }
+}
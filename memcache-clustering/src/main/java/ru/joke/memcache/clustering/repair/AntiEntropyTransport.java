@@ -0,0 +1,83 @@
+package ru.joke.memcache.clustering.repair;
+
+import ru.joke.memcache.clustering.transfer.StateChunk;
+import ru.joke.memcache.core.spi.MerkleTree;
+
+import javax.annotation.Nonnull;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The transport of the Merkle trees and the entries of the divergent ranges of keys between the replicas of the caches.
+ *
+ * @author Alik
+ * @see LoopbackAntiEntropyTransport
+ * @see AntiEntropyRepair
+ */
+public interface AntiEntropyTransport {
+
+    /**
+     * Registers the replica of the caches of the node with the given identifier.
+     *
+     * @param nodeId  the identifier of the node, cannot be {@code null}.
+     * @param replica the replica of the caches, cannot be {@code null}.
+     */
+    void register(@Nonnull String nodeId, @Nonnull Replica replica);
+
+    /**
+     * Unregisters the replica of the caches of the node with the given identifier.
+     *
+     * @param nodeId the identifier of the node, cannot be {@code null}.
+     */
+    void unregister(@Nonnull String nodeId);
+
+    /**
+     * Requests the Merkle tree of the cache from the peer node.
+     *
+     * @param peerNodeId the identifier of the peer node, cannot be {@code null}.
+     * @param cacheName  the name of the cache, cannot be {@code null}.
+     * @return the Merkle tree of the cache of the peer node, cannot be {@code null}.
+     * @throws ru.joke.memcache.core.MemCacheException if the peer node is unavailable
+     */
+    @Nonnull
+    MerkleTree requestMerkleTree(@Nonnull String peerNodeId, @Nonnull String cacheName);
+
+    /**
+     * Requests the entries of the given ranges of keys of the cache from the peer node.
+     *
+     * @param peerNodeId the identifier of the peer node, cannot be {@code null}.
+     * @param cacheName  the name of the cache, cannot be {@code null}.
+     * @param ranges     the indexes of the ranges (leaves of the Merkle tree), cannot be {@code null}.
+     * @return the entries of the ranges of the cache of the peer node, cannot be {@code null}.
+     * @throws ru.joke.memcache.core.MemCacheException if the peer node is unavailable
+     */
+    @Nonnull
+    List<StateChunk.Entry> requestEntries(@Nonnull String peerNodeId, @Nonnull String cacheName, @Nonnull BitSet ranges);
+
+    /**
+     * The replica of the caches of the node which handles the requests of the other nodes.
+     *
+     * @author Alik
+     */
+    interface Replica {
+
+        /**
+         * Returns the Merkle tree of the cache.
+         *
+         * @param cacheName the name of the cache, cannot be {@code null}.
+         * @return the Merkle tree of the cache, cannot be {@code null}.
+         */
+        @Nonnull
+        MerkleTree merkleTree(@Nonnull String cacheName);
+
+        /**
+         * Returns the entries of the given ranges of keys of the cache.
+         *
+         * @param cacheName the name of the cache, cannot be {@code null}.
+         * @param ranges    the indexes of the ranges (leaves of the Merkle tree), cannot be {@code null}.
+         * @return the entries of the ranges, cannot be {@code null}.
+         */
+        @Nonnull
+        List<StateChunk.Entry> entries(@Nonnull String cacheName, @Nonnull BitSet ranges);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.joke.memcache.clustering.repair;
+
+import ru.joke.memcache.clustering.transfer.StateChunk;
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.spi.MerkleTree;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process implementation of the {@linkplain AntiEntropyTransport}: requests are handled by the replicas
+ * registered in the same transport instance in the calling thread.
+ *
+ * @author Alik
+ * @see AntiEntropyTransport
+ */
+@ThreadSafe
+public final class LoopbackAntiEntropyTransport implements AntiEntropyTransport {
+
+    private final Map<String, Replica> replicas = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(@Nonnull String nodeId, @Nonnull Replica replica) {
+        this.replicas.put(Objects.requireNonNull(nodeId, "nodeId"), Objects.requireNonNull(replica, "replica"));
+    }
+
+    @Override
+    public void unregister(@Nonnull String nodeId) {
+        this.replicas.remove(nodeId);
+    }
+
+    @Nonnull
+    @Override
+    public MerkleTree requestMerkleTree(@Nonnull String peerNodeId, @Nonnull String cacheName) {
+        return findReplica(peerNodeId).merkleTree(cacheName);
+    }
+
+    @Nonnull
+    @Override
+    public List<StateChunk.Entry> requestEntries(@Nonnull String peerNodeId, @Nonnull String cacheName, @Nonnull BitSet ranges) {
+        return findReplica(peerNodeId).entries(cacheName, ranges);
+    }
+
+    @Override
+    public String toString() {
+        return "LoopbackAntiEntropyTransport{" +
+                "nodes=" + replicas.keySet() +
+                '}';
+    }
+
+    private Replica findReplica(final String nodeId) {
+        final Replica replica = this.replicas.get(nodeId);
+        if (replica == null) {
+            throw new MemCacheException("Node " + nodeId + " is unavailable");
+        }
+
+        return replica;
+    }
+}
@@ -0,0 +1,205 @@
+package ru.joke.memcache.clustering.transfer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.joke.memcache.clustering.adapters.MemCacheBusAdapter;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.MemCacheManager;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The state transfer between the nodes of the replicated cluster: the joining node requests the snapshot
+ * of the cache from the peer node instead of filling the cache only through the misses and the later events of the bus.<br>
+ * The snapshot is streamed by chunks and the chunks are applied to the local cache in parallel batches.
+ * The entries of the snapshot are applied with their versions, so they never override the newer changes;
+ * the events received from the bus during the transfer are buffered and applied after the snapshot.
+ * Each node provides the state of its caches to other nodes while the state transfer is not closed.
+ *
+ * @author Alik
+ * @see StateTransferTransport
+ * @see MemCacheBusAdapter
+ */
+@ThreadSafe
+public final class CacheStateTransfer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheStateTransfer.class);
+
+    private final String localNodeId;
+    private final MemCacheManager cacheManager;
+    private final StateTransferTransport transport;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    public CacheStateTransfer(
+            @Nonnull String localNodeId,
+            @Nonnull MemCacheManager cacheManager,
+            @Nonnull StateTransferTransport transport,
+            @Nonnegative int chunkSize,
+            @Nonnegative int parallelism) {
+        this(localNodeId, cacheManager, transport, chunkSize, parallelism, null);
+    }
+
+    /**
+     * Creates the state transfer applying the chunks of the snapshots by the given executor.
+     * If the executor is not provided, the state transfer creates its own pool with the threads of the given parallelism,
+     * the pool is shut down by {@linkplain #close()}. The provided executor is not shut down by the state transfer.
+     *
+     * @param localNodeId  the identifier of the local node, cannot be {@code null}.
+     * @param cacheManager the cache manager of the local node, cannot be {@code null}.
+     * @param transport    the transport of the snapshots, cannot be {@code null}.
+     * @param chunkSize    the count of the entries in the chunk of the snapshot; must be positive.
+     * @param parallelism  the max count of the chunks applied in parallel; must be positive.
+     * @param executor     the executor applying the chunks, can be {@code null}.
+     */
+    public CacheStateTransfer(
+            @Nonnull String localNodeId,
+            @Nonnull MemCacheManager cacheManager,
+            @Nonnull StateTransferTransport transport,
+            @Nonnegative int chunkSize,
+            @Nonnegative int parallelism,
+            @Nullable Executor executor) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        } else if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+
+        this.localNodeId = Objects.requireNonNull(localNodeId, "localNodeId");
+        this.cacheManager = Objects.requireNonNull(cacheManager, "cacheManager");
+        this.transport = Objects.requireNonNull(transport, "transport");
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.ownedExecutor = executor == null ? createExecutor(localNodeId, parallelism) : null;
+        this.executor = executor == null ? this.ownedExecutor : executor;
+        this.transport.register(localNodeId, this::streamState);
+    }
+
+    /**
+     * Transfers the state of the cache from the peer node to the local cache.
+     *
+     * @param peerNodeId the identifier of the peer node, cannot be {@code null}.
+     * @param cache      the adapter of the local cache, cannot be {@code null}.
+     * @param <K>        the type of the cache keys
+     * @param <V>        the type of the cache values
+     * @return the count of the entries in the received snapshot.
+     * @throws MemCacheException if the peer node is unavailable or the snapshot can not be applied
+     */
+    public <K extends Serializable, V extends Serializable> int transferState(
+            @Nonnull String peerNodeId,
+            @Nonnull MemCacheBusAdapter<K, V> cache) {
+        logger.info("State transfer of cache {} from node {} was started", cache.getName(), peerNodeId);
+
+        final Queue<CompletableFuture<Void>> batches = new ConcurrentLinkedQueue<>();
+        // limits the count of the received but not yet applied chunks
+        final Semaphore pendingChunks = new Semaphore(this.parallelism * 2);
+        final AtomicInteger entriesCount = new AtomicInteger();
+        final CompletableFuture<Void> lastChunkReceived = new CompletableFuture<>();
+
+        cache.startBufferingRemoteEvents();
+        try {
+            this.transport.requestState(peerNodeId, cache.getName(), chunk -> {
+                pendingChunks.acquireUninterruptibly();
+                batches.add(CompletableFuture.runAsync(() -> applyChunk(cache, chunk), this.executor)
+                                                .whenComplete((r, ex) -> pendingChunks.release()));
+                entriesCount.addAndGet(chunk.entries().size());
+                if (chunk.last()) {
+                    lastChunkReceived.complete(null);
+                }
+            });
+
+            if (!lastChunkReceived.isDone()) {
+                throw new MemCacheException("State transfer of cache " + cache.getName() + " from node " + peerNodeId + " was interrupted");
+            }
+
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException ex) {
+            throw new MemCacheException("Unable to apply state of cache " + cache.getName() + " from node " + peerNodeId, ex);
+        } finally {
+            cache.stopBufferingRemoteEvents();
+        }
+
+        logger.info("State transfer of cache {} from node {} was completed (entries {})", cache.getName(), peerNodeId, entriesCount.get());
+        return entriesCount.get();
+    }
+
+    @Override
+    public void close() {
+        this.transport.unregister(this.localNodeId);
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStateTransfer{" +
+                "localNodeId=" + localNodeId +
+                ", chunkSize=" + chunkSize +
+                ", parallelism=" + parallelism +
+                '}';
+    }
+
+    private void streamState(final String cacheName, final Consumer<StateChunk> chunkConsumer) {
+        final MemCache<Serializable, Serializable> cache =
+                this.cacheManager.<Serializable, Serializable> getCache(cacheName)
+                                    .orElseThrow(() -> new MemCacheException("Cache " + cacheName + " not found on node " + this.localNodeId));
+
+        final List<StateChunk.Entry> entries = new ArrayList<>(this.chunkSize);
+        cache.forEach((key, value, version) -> {
+            entries.add(new StateChunk.Entry(key, value, version));
+            if (entries.size() == this.chunkSize) {
+                chunkConsumer.accept(new StateChunk(cacheName, entries, false));
+                entries.clear();
+            }
+        });
+
+        chunkConsumer.accept(new StateChunk(cacheName, entries, true));
+    }
+
+    private static ExecutorService createExecutor(final String localNodeId, final int parallelism) {
+        final AtomicInteger threadsCounter = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                1,
+                TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread thread = new Thread(r, "MemCache-State-Transfer-Thread-" + localNodeId + "-" + threadsCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        // the transfers are rare, so the threads are not kept between them
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private <K extends Serializable, V extends Serializable> void applyChunk(
+            final MemCacheBusAdapter<K, V> cache,
+            final StateChunk chunk) {
+        for (final StateChunk.Entry entry : chunk.entries()) {
+            @SuppressWarnings("unchecked")
+            final K key = (K) entry.key();
+            @SuppressWarnings("unchecked")
+            final V value = (V) entry.value();
+            cache.putIfNewer(key, value, entry.version());
+        }
+    }
+}
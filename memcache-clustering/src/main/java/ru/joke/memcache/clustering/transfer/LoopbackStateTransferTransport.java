@@ -0,0 +1,51 @@
+package ru.joke.memcache.clustering.transfer;
+
+import ru.joke.memcache.core.MemCacheException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * In-process implementation of the {@linkplain StateTransferTransport}: the snapshot is streamed by the provider
+ * of the peer node registered in the same transport instance in the calling thread.
+ *
+ * @author Alik
+ * @see StateTransferTransport
+ */
+@ThreadSafe
+public final class LoopbackStateTransferTransport implements StateTransferTransport {
+
+    private final Map<String, BiConsumer<String, Consumer<StateChunk>>> stateProviders = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(@Nonnull String nodeId, @Nonnull BiConsumer<String, Consumer<StateChunk>> stateProvider) {
+        this.stateProviders.put(Objects.requireNonNull(nodeId, "nodeId"), Objects.requireNonNull(stateProvider, "stateProvider"));
+    }
+
+    @Override
+    public void unregister(@Nonnull String nodeId) {
+        this.stateProviders.remove(nodeId);
+    }
+
+    @Override
+    public void requestState(@Nonnull String peerNodeId, @Nonnull String cacheName, @Nonnull Consumer<StateChunk> chunkConsumer) {
+        final BiConsumer<String, Consumer<StateChunk>> stateProvider = this.stateProviders.get(peerNodeId);
+        if (stateProvider == null) {
+            throw new MemCacheException("Node " + peerNodeId + " is unavailable");
+        }
+
+        stateProvider.accept(cacheName, chunkConsumer);
+    }
+
+    @Override
+    public String toString() {
+        return "LoopbackStateTransferTransport{" +
+                "nodes=" + stateProviders.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,47 @@
+package ru.joke.memcache.clustering.transfer;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The chunk of the snapshot of the cache state streamed from the peer node to the joining node.
+ *
+ * @param cacheName the name of the cache, cannot be {@code null}.
+ * @param entries   the entries of the chunk, cannot be {@code null}.
+ * @param last      whether the chunk is the last chunk of the snapshot.
+ * @author Alik
+ * @see StateTransferTransport
+ */
+public record StateChunk(
+        @Nonnull String cacheName,
+        @Nonnull List<Entry> entries,
+        boolean last
+) implements Serializable {
+
+    public StateChunk {
+        Objects.requireNonNull(cacheName, "cacheName");
+        entries = List.copyOf(entries);
+    }
+
+    /**
+     * The entry of the cache in the snapshot.
+     *
+     * @param key     the key of the entry, cannot be {@code null}.
+     * @param value   the value of the entry, cannot be {@code null}.
+     * @param version the version of the entry.
+     * @author Alik
+     */
+    public record Entry(
+            @Nonnull Serializable key,
+            @Nonnull Serializable value,
+            long version
+    ) implements Serializable {
+
+        public Entry {
+            Objects.requireNonNull(key, "key");
+            Objects.requireNonNull(value, "value");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.joke.memcache.clustering.transfer;
+
+import javax.annotation.Nonnull;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The transport of the snapshots of the caches state between the nodes of the cluster.
+ *
+ * @author Alik
+ * @see LoopbackStateTransferTransport
+ * @see StateChunk
+ */
+public interface StateTransferTransport {
+
+    /**
+     * Registers the provider of the state of the caches of the node with the given identifier.
+     * The provider accepts the name of the cache and the consumer of the chunks of the cache snapshot.
+     *
+     * @param nodeId        the identifier of the node, cannot be {@code null}.
+     * @param stateProvider the provider of the state of the caches, cannot be {@code null}.
+     */
+    void register(@Nonnull String nodeId, @Nonnull BiConsumer<String, Consumer<StateChunk>> stateProvider);
+
+    /**
+     * Unregisters the provider of the state of the caches of the node with the given identifier.
+     *
+     * @param nodeId the identifier of the node, cannot be {@code null}.
+     */
+    void unregister(@Nonnull String nodeId);
+
+    /**
+     * Requests the snapshot of the cache from the peer node. The chunks of the snapshot are passed to the consumer
+     * in the order of their streaming; the method returns after the last chunk is passed to the consumer.
+     *
+     * @param peerNodeId    the identifier of the peer node, cannot be {@code null}.
+     * @param cacheName     the name of the cache, cannot be {@code null}.
+     * @param chunkConsumer the consumer of the chunks of the snapshot, cannot be {@code null}.
+     * @throws ru.joke.memcache.core.MemCacheException if the peer node is unavailable
+     */
+    void requestState(@Nonnull String peerNodeId, @Nonnull String cacheName, @Nonnull Consumer<StateChunk> chunkConsumer);
+}
@@ -2,19 +2,22 @@ package ru.joke.memcache.clustering.adapters;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEventType;
 import ru.joke.cache.bus.core.CacheEventListener;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
 import ru.joke.memcache.core.MemCache;
 import ru.joke.memcache.core.events.CacheEntriesEvent;
 import ru.joke.memcache.core.events.CacheEntryEvent;
 import ru.joke.memcache.core.events.CacheEntryEventListener;
 
 import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class MemCacheBusAdapterTest {
@@ -111,6 +114,65 @@ public class MemCacheBusAdapterTest {
         assertEquals(Optional.of(value), result, "New value must be equal");
     }
 
+    @Test
+    public void testApplyEvent() {
+        final String key = "key";
+        final String value = "value";
+        when(mockMemCache.putIfNewer(key, value, 2)).then(invocation -> MemCacheBusAdapter.isRemoteChangeInProgress());
+
+        assertTrue(memCacheBusAdapter.apply(new ImmutableCacheEntryEvent<>(key, null, value, 2, CacheEntryEventType.ADDED, "cache")), "Remote change must be in progress while event is applied");
+        assertFalse(MemCacheBusAdapter.isRemoteChangeInProgress(), "Remote change must be completed");
+
+        memCacheBusAdapter.apply(new ImmutableCacheEntryEvent<>(key, value, null, 3, CacheEntryEventType.EVICTED, "cache"));
+        verify(mockMemCache).putIfNewer(key, null, 3);
+
+        memCacheBusAdapter.apply(new ImmutableCacheEntryEvent<>(ru.joke.cache.bus.core.CacheEntryEvent.ALL_ENTRIES_KEY, null, null, 4, CacheEntryEventType.EVICTED, "cache"));
+        verify(mockMemCache).clear();
+    }
+
+    @Test
+    public void testApplyBatchEvent() {
+        final EntriesBatchKey batchKey = new EntriesBatchKey(List.of("key1", "key2"));
+        when(mockMemCache.putIfNewer("key1", null, 5)).thenReturn(true);
+
+        // the bus delivers the batch events to the same cache as the events of single keys
+        @SuppressWarnings("unchecked")
+        final MemCacheBusAdapter<Serializable, String> batchAdapter = (MemCacheBusAdapter<Serializable, String>) (MemCacheBusAdapter<?, ?>) memCacheBusAdapter;
+        assertTrue(batchAdapter.apply(new ImmutableCacheEntryEvent<>(batchKey, null, null, 5, CacheEntryEventType.EVICTED, "cache")), "Batch event must be applied");
+        verify(mockMemCache).putIfNewer("key1", null, 5);
+        verify(mockMemCache).putIfNewer("key2", null, 5);
+        verify(mockMemCache, never()).clear();
+
+        batchAdapter.evict(batchKey);
+        verify(mockMemCache).removeAll(List.of("key1", "key2"));
+    }
+
+    @Test
+    public void testVersionedChangesFromBus() {
+        // the bus applies the events by the methods of the cache, the version of the change is received with the key
+        @SuppressWarnings("unchecked")
+        final MemCacheBusAdapter<Serializable, String> versionedAdapter = (MemCacheBusAdapter<Serializable, String>) (MemCacheBusAdapter<?, ?>) memCacheBusAdapter;
+        when(mockMemCache.putIfNewer("key", "value1", 1)).then(invocation -> MemCacheBusAdapter.isRemoteChangeInProgress());
+
+        versionedAdapter.putIfAbsent(new VersionedKey<>("key", 1), "value1");
+        versionedAdapter.put(new VersionedKey<>("key", 2), "value2");
+        versionedAdapter.merge(new VersionedKey<>("key", 3), "value3", (v1, v2) -> v1 + v2);
+        versionedAdapter.evict(new VersionedKey<>("key", 4));
+        versionedAdapter.evict(new VersionedKey<>(new EntriesBatchKey(List.of("key1", "key2")), 5));
+
+        verify(mockMemCache).putIfNewer("key", "value1", 1);
+        verify(mockMemCache).putIfNewer("key", "value2", 2);
+        verify(mockMemCache).putIfNewer("key", "value3", 3);
+        verify(mockMemCache).putIfNewer("key", null, 4);
+        verify(mockMemCache).putIfNewer("key1", null, 5);
+        verify(mockMemCache).putIfNewer("key2", null, 5);
+        verify(mockMemCache, never()).put(any(), any());
+        verify(mockMemCache, never()).putIfAbsent(any(), any());
+        verify(mockMemCache, never()).merge(any(), any(), any());
+        verify(mockMemCache, never()).remove(any());
+        verify(mockMemCache, never()).removeAll(any());
+    }
+
     @Test
     public void testRegisterEventListener() {
         final TestListener listener = new TestListener();
@@ -0,0 +1,41 @@
+package ru.joke.memcache.clustering.configuration;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.InvalidConfigurationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BusPublishingConfigurationTest {
+
+    @Test
+    public void testDefaultConfiguration() {
+        final BusPublishingConfiguration configuration = BusPublishingConfiguration.createDefault();
+
+        assertEquals(BusPublishingConfiguration.ReplicationMode.FULL, configuration.replicationMode(), "Replication mode must be equal");
+        assertEquals(1, configuration.maxBatchSize(), "Max batch size must be equal");
+    }
+
+    @Test
+    public void testValidConfiguration() {
+        final BusPublishingConfiguration configuration =
+                BusPublishingConfiguration.builder()
+                                            .setReplicationMode(BusPublishingConfiguration.ReplicationMode.HYBRID)
+                                            .setMaxReplicatedValueSize(1024)
+                                            .setMaxBatchSize(100)
+                                            .setFlushInterval(50)
+                                            .build();
+
+        assertEquals(BusPublishingConfiguration.ReplicationMode.HYBRID, configuration.replicationMode(), "Replication mode must be equal");
+        assertEquals(1024, configuration.maxReplicatedValueSize(), "Max replicated value size must be equal");
+        assertEquals(100, configuration.maxBatchSize(), "Max batch size must be equal");
+        assertEquals(50, configuration.flushInterval(), "Flush interval must be equal");
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        assertThrows(InvalidConfigurationException.class, () -> BusPublishingConfiguration.builder().setReplicationMode(null).build());
+        assertThrows(InvalidConfigurationException.class, () -> BusPublishingConfiguration.builder().setReplicationMode(BusPublishingConfiguration.ReplicationMode.HYBRID).build());
+        assertThrows(InvalidConfigurationException.class, () -> BusPublishingConfiguration.builder().setMaxBatchSize(0).build());
+        assertThrows(InvalidConfigurationException.class, () -> BusPublishingConfiguration.builder().setMaxBatchSize(10).build());
+    }
+}
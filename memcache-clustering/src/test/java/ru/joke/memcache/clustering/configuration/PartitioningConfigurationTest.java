@@ -0,0 +1,36 @@
+package ru.joke.memcache.clustering.configuration;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.InvalidConfigurationException;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitioningConfigurationTest {
+
+    @Test
+    public void testValidConfiguration() {
+        final PartitioningConfiguration configuration =
+                PartitioningConfiguration.builder()
+                                            .setLocalNodeId("node1")
+                                            .addMember("node1")
+                                            .addMember("node2")
+                                            .setVirtualNodesCount(64)
+                                            .setBackupsCount(2)
+                                         .build();
+
+        assertEquals("node1", configuration.localNodeId(), "Local node id must be equal");
+        assertEquals(Set.of("node1", "node2"), configuration.members(), "Members must be equal");
+        assertEquals(64, configuration.virtualNodesCount(), "Virtual nodes count must be equal");
+        assertEquals(2, configuration.backupsCount(), "Backups count must be equal");
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        assertThrows(InvalidConfigurationException.class, () -> PartitioningConfiguration.builder().addMember("node1").build());
+        assertThrows(InvalidConfigurationException.class, () -> PartitioningConfiguration.builder().setLocalNodeId("node1").addMember("node2").build());
+        assertThrows(InvalidConfigurationException.class, () -> PartitioningConfiguration.builder().setLocalNodeId("node1").addMember("node1").setVirtualNodesCount(0).build());
+        assertThrows(InvalidConfigurationException.class, () -> PartitioningConfiguration.builder().setLocalNodeId("node1").addMember("node1").setBackupsCount(-1).build());
+    }
+}
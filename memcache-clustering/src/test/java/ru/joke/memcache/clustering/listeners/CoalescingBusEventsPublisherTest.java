@@ -0,0 +1,155 @@
+package ru.joke.memcache.clustering.listeners;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.joke.cache.bus.core.CacheBus;
+import ru.joke.cache.bus.core.CacheEntryEvent;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.memcache.clustering.adapters.VersionedKey;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CoalescingBusEventsPublisherTest {
+
+    private CacheBus cacheBus;
+    private ArgumentCaptor<CacheEntryEvent<?, ?>> eventCaptor;
+    private ScheduledExecutorService flushExecutor;
+
+    @BeforeEach
+    void setUp() {
+        this.cacheBus = mock(CacheBus.class);
+        this.eventCaptor = ArgumentCaptor.forClass(CacheEntryEvent.class);
+        doNothing().when(this.cacheBus).send(this.eventCaptor.capture());
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.flushExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testCoalescingOfKeyEvents() {
+        final var publisher = new CoalescingBusEventsPublisher<String, Integer>(this.cacheBus, 100, 60_000, this.flushExecutor);
+
+        publisher.publish(keyEvent("1", null, 1, CacheEntryEventType.ADDED));
+        publisher.publish(keyEvent("2", 1, 2, CacheEntryEventType.UPDATED));
+        for (int i = 1; i < 1_000; i++) {
+            publisher.publish(keyEvent("1", i, i + 1, CacheEntryEventType.UPDATED));
+        }
+        publisher.publish(keyEvent("2", 2, null, CacheEntryEventType.EVICTED));
+
+        verify(this.cacheBus, never()).send(any());
+
+        publisher.flush();
+
+        final List<CacheEntryEvent<?, ?>> events = this.eventCaptor.getAllValues();
+        assertEquals(2, events.size(), "Events count must be equal");
+
+        assertEquals("1", keyOf(events.get(0)), "Key must be equal");
+        assertNull(events.get(0).oldValue(), "Old value must be equal");
+        assertEquals(1_000, events.get(0).newValue(), "New value must be equal");
+        assertEquals(CacheEntryEventType.ADDED, events.get(0).eventType(), "Event type must be equal");
+
+        assertEquals("2", keyOf(events.get(1)), "Key must be equal");
+        assertEquals(1, events.get(1).oldValue(), "Old value must be equal");
+        assertNull(events.get(1).newValue(), "New value must be equal");
+        assertEquals(CacheEntryEventType.EVICTED, events.get(1).eventType(), "Event type must be equal");
+
+        publisher.flush();
+        assertEquals(2, this.eventCaptor.getAllValues().size(), "Events must not be sent twice");
+    }
+
+    @Test
+    public void testFlushBySize() {
+        final var publisher = new CoalescingBusEventsPublisher<String, Integer>(this.cacheBus, 2, 60_000, this.flushExecutor);
+
+        publisher.publish(keyEvent("1", null, 1, CacheEntryEventType.ADDED));
+        publisher.publish(keyEvent("1", 1, 2, CacheEntryEventType.UPDATED));
+        verify(this.cacheBus, after(100).never()).send(any());
+
+        publisher.publish(keyEvent("2", null, 1, CacheEntryEventType.ADDED));
+        verify(this.cacheBus, timeout(1_000).times(2)).send(any());
+    }
+
+    @Test
+    public void testFlushByTime() {
+        final var publisher = new CoalescingBusEventsPublisher<String, Integer>(this.cacheBus, 100, 50, this.flushExecutor);
+
+        publisher.publish(keyEvent("1", null, 1, CacheEntryEventType.ADDED));
+        verify(this.cacheBus, timeout(1_000).times(1)).send(any());
+    }
+
+    @Test
+    public void testEventForAllEntriesSupersedesBufferedEvents() {
+        final var publisher = new CoalescingBusEventsPublisher<String, Integer>(this.cacheBus, 100, 60_000, this.flushExecutor);
+
+        publisher.publish(keyEvent("1", null, 1, CacheEntryEventType.ADDED));
+        publisher.publishForAllEntries(event(CacheEntryEvent.ALL_ENTRIES_KEY, null, null, CacheEntryEventType.EVICTED));
+        publisher.publish(keyEvent("2", null, 2, CacheEntryEventType.ADDED));
+        publisher.close();
+
+        final List<CacheEntryEvent<?, ?>> events = this.eventCaptor.getAllValues();
+        assertEquals(2, events.size(), "Events count must be equal");
+        assertEquals(CacheEntryEvent.ALL_ENTRIES_KEY, events.get(0).key(), "Event for all entries must be sent first");
+        assertEquals("2", keyOf(events.get(1)), "Key must be equal");
+    }
+
+    @Test
+    public void testPublishAfterClose() {
+        final var publisher = new CoalescingBusEventsPublisher<String, Integer>(this.cacheBus, 100, 60_000, this.flushExecutor);
+        publisher.close();
+
+        publisher.publish(keyEvent("1", null, 1, CacheEntryEventType.ADDED));
+        verify(this.cacheBus, times(1)).send(any());
+    }
+
+    @Test
+    public void testFailedEventsAreCounted() {
+        final LongAdder failedEventsCounter = new LongAdder();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final var publisher = new CoalescingBusEventsPublisher<String, Integer>(this.cacheBus, 100, 60_000, this.flushExecutor, failedEventsCounter, () -> closed.set(true));
+
+        final CacheEntryEvent<VersionedKey<String>, Integer> failedEvent = keyEvent("1", null, 1, CacheEntryEventType.ADDED);
+        doThrow(new IllegalStateException()).when(this.cacheBus).send(failedEvent);
+
+        publisher.publish(failedEvent);
+        publisher.publish(keyEvent("2", null, 2, CacheEntryEventType.ADDED));
+        publisher.close();
+
+        assertEquals(1, failedEventsCounter.sum(), "Failed events count must be equal");
+        assertEquals(List.of("2"), this.eventCaptor.getAllValues().stream().map(CoalescingBusEventsPublisherTest::keyOf).toList(), "Rest events of the batch must be sent after the failure");
+        assertTrue(closed.get(), "Close callback must be called");
+    }
+
+    private static CacheEntryEvent<VersionedKey<String>, Integer> keyEvent(
+            final String key,
+            final Integer oldValue,
+            final Integer newValue,
+            final CacheEntryEventType eventType) {
+        return event(new VersionedKey<>(key, System.nanoTime()), oldValue, newValue, eventType);
+    }
+
+    private static Object keyOf(final CacheEntryEvent<?, ?> event) {
+        return event.key() instanceof VersionedKey<?> versionedKey ? versionedKey.key() : event.key();
+    }
+
+    private static <K extends Serializable> CacheEntryEvent<K, Integer> event(
+            final K key,
+            final Integer oldValue,
+            final Integer newValue,
+            final CacheEntryEventType eventType) {
+        return new ImmutableCacheEntryEvent<>(key, oldValue, newValue, System.currentTimeMillis(), eventType, "cache");
+    }
+}
@@ -5,14 +5,20 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.memcache.clustering.adapters.EntriesBatchKey;
+import ru.joke.memcache.clustering.adapters.MemCacheBusAdapter;
+import ru.joke.memcache.clustering.adapters.VersionedKey;
+import ru.joke.memcache.clustering.configuration.BusPublishingConfiguration;
+import ru.joke.memcache.core.MemCache;
 import ru.joke.memcache.core.events.CacheEntriesEvent;
 import ru.joke.memcache.core.events.CacheEntryEvent;
 import ru.joke.memcache.core.events.EventType;
 
+import java.io.Serializable;
 import java.util.Optional;
+import java.util.Set;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class MemCache2BusEntryEventListenerTest {
@@ -37,15 +43,34 @@ public class MemCache2BusEntryEventListenerTest {
         when(cacheEvent.oldValue()).thenReturn(Optional.of(1));
         when(cacheEvent.newValue()).thenReturn(Optional.of(2));
         when(cacheEvent.eventType()).thenReturn(EventType.UPDATED);
+        when(cacheEvent.version()).thenReturn(42L);
 
         eventListener.onEvent(cacheEvent);
 
         assertNotNull(this.eventCaptor.getValue(), "Event should be sent to bus");
-        assertEquals("key", this.eventCaptor.getValue().key(), "Key must be equal");
+        assertEquals(new VersionedKey<>("key", 42L), this.eventCaptor.getValue().key(), "Key with the version of the entry must be equal");
         assertEquals(1, this.eventCaptor.getValue().oldValue(), "Old value must be equal");
         assertEquals(2, this.eventCaptor.getValue().newValue(), "New value must be equal");
         assertEquals(CacheEntryEventType.UPDATED, this.eventCaptor.getValue().eventType(), "Event type must be equal");
         assertEquals("cache", this.eventCaptor.getValue().cacheName(), "Cache name must be equal");
+        assertEquals(42L, this.eventCaptor.getValue().eventTime(), "Event time must be equal to the version of the entry");
+    }
+
+    @Test
+    public void testRemoteChangeIsNotPublished() {
+        final CacheEntryEvent<String, Integer> cacheEvent = createEvent(null, 1, EventType.ADDED);
+        @SuppressWarnings("unchecked")
+        final MemCache<String, Integer> memCache = mock(MemCache.class);
+        doAnswer(invocation -> {
+            eventListener.onEvent(cacheEvent);
+            return Optional.empty();
+        }).when(memCache).put("key", 1);
+
+        new MemCacheBusAdapter<>(memCache).put("key", 1);
+        verify(cacheBus, never()).send(any());
+
+        eventListener.onEvent(cacheEvent);
+        verify(cacheBus, times(1)).send(any());
     }
 
     @Test
@@ -58,4 +83,77 @@ public class MemCache2BusEntryEventListenerTest {
         assertNotNull(this.eventCaptor.getValue(), "Batch type should be sent to bus");
         assertEquals(CacheEntryEventType.EVICTED, this.eventCaptor.getValue().eventType(), "Event type must be equal");
     }
+
+    @Test
+    public void testOnBatchEventWithKeys() {
+        CacheEntriesEvent<String, Integer> cacheEntriesEvent = mock(CacheEntriesEvent.class);
+        when(cacheEntriesEvent.eventType()).thenReturn(EventType.REMOVED);
+        when(cacheEntriesEvent.keys()).thenReturn(Optional.of(Set.of("key1", "key2")));
+        when(cacheEntriesEvent.version()).thenReturn(42L);
+
+        eventListener.onBatchEvent(cacheEntriesEvent);
+
+        verify(cacheBus, times(1)).send(any());
+        final var busEvent = this.eventCaptor.getValue();
+        final VersionedKey<?> versionedKey = assertInstanceOf(VersionedKey.class, busEvent.key(), "Batch must be sent with the version");
+        assertEquals(42L, versionedKey.version(), "Version of the key must be equal to the version of the batch");
+        final EntriesBatchKey batchKey = assertInstanceOf(EntriesBatchKey.class, versionedKey.key(), "Batch must be sent as single event with keys");
+        assertEquals(Set.of("key1", "key2"), Set.copyOf(batchKey.keys()), "Keys of batch must be equal");
+        assertEquals(42L, busEvent.eventTime(), "Event time must be equal to the version of the batch");
+        assertEquals(CacheEntryEventType.EVICTED, busEvent.eventType(), "Event type must be equal");
+    }
+
+    @Test
+    public void testOnEventInInvalidationMode() {
+        final var configuration = BusPublishingConfiguration.builder()
+                                                            .setReplicationMode(BusPublishingConfiguration.ReplicationMode.INVALIDATION)
+                                                            .build();
+        final var listener = new MemCache2BusEntryEventListener<String, Integer>("listener1", cacheBus, "cache", configuration, BusEventsPublisher.direct(cacheBus));
+
+        listener.onEvent(createEvent(1, 2, EventType.UPDATED));
+
+        assertEquals("key", assertInstanceOf(VersionedKey.class, this.eventCaptor.getValue().key(), "Key must be sent with the version").key(), "Key must be equal");
+        assertNull(this.eventCaptor.getValue().oldValue(), "Old value must not be sent");
+        assertNull(this.eventCaptor.getValue().newValue(), "New value must not be sent");
+        assertEquals(CacheEntryEventType.EVICTED, this.eventCaptor.getValue().eventType(), "Event type must be equal");
+
+        listener.onEvent(createEvent(1, null, EventType.EXPIRED));
+        assertEquals(CacheEntryEventType.EXPIRED, this.eventCaptor.getValue().eventType(), "Event type must be equal");
+    }
+
+    @Test
+    public void testOnEventInHybridMode() {
+        final var configuration = BusPublishingConfiguration.builder()
+                                                            .setReplicationMode(BusPublishingConfiguration.ReplicationMode.HYBRID)
+                                                            .setMaxReplicatedValueSize(64)
+                                                            .build();
+        final var listener = new MemCache2BusEntryEventListener<String, Serializable>("listener1", cacheBus, "cache", configuration, BusEventsPublisher.direct(cacheBus));
+
+        final String smallValue = "value";
+        final byte[] largeValue = new byte[1024];
+
+        listener.onEvent(createEvent(null, smallValue, EventType.ADDED));
+        assertEquals(smallValue, this.eventCaptor.getValue().newValue(), "Small value must be sent");
+        assertEquals(CacheEntryEventType.ADDED, this.eventCaptor.getValue().eventType(), "Event type must be equal");
+
+        listener.onEvent(createEvent(smallValue, largeValue, EventType.UPDATED));
+        assertNull(this.eventCaptor.getValue().newValue(), "Large value must not be sent");
+        assertEquals(CacheEntryEventType.EVICTED, this.eventCaptor.getValue().eventType(), "Event type must be equal");
+
+        listener.onEvent(createEvent(largeValue, smallValue, EventType.UPDATED));
+        assertNull(this.eventCaptor.getValue().oldValue(), "Large old value must not be sent");
+        assertEquals(smallValue, this.eventCaptor.getValue().newValue(), "Small value must be sent");
+        assertEquals(CacheEntryEventType.UPDATED, this.eventCaptor.getValue().eventType(), "Event type must be equal");
+    }
+
+    private <V extends Serializable> CacheEntryEvent<String, V> createEvent(final V oldValue, final V newValue, final EventType eventType) {
+        @SuppressWarnings("unchecked")
+        final CacheEntryEvent<String, V> cacheEvent = mock(CacheEntryEvent.class);
+        when(cacheEvent.key()).thenReturn("key");
+        when(cacheEvent.oldValue()).thenReturn(Optional.ofNullable(oldValue));
+        when(cacheEvent.newValue()).thenReturn(Optional.ofNullable(newValue));
+        when(cacheEvent.eventType()).thenReturn(eventType);
+
+        return cacheEvent;
+    }
 }
@@ -8,11 +8,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import ru.joke.cache.bus.core.CacheBus;
 import ru.joke.cache.bus.core.CacheEventListener;
 import ru.joke.memcache.clustering.adapters.MemCacheBusAdapter;
+import ru.joke.memcache.clustering.configuration.BusPublishingConfiguration;
 import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.events.CacheEntryEvent;
 import ru.joke.memcache.core.events.CacheEntryEventListener;
+import ru.joke.memcache.core.events.EventType;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -54,4 +58,63 @@ public class MemCacheCacheEventListenerRegistrarTest {
         assertEquals(2, listenerCaptor.getAllValues().size(), "Must be captured 2 listeners");
         assertEquals(listenerCaptor.getAllValues().get(0), listenerCaptor.getAllValues().get(1), "Registered listener and unregistered must be equal");
     }
+
+    @Test
+    public void testRegistrationWithBatching() {
+        final MemCacheCacheEventListenerRegistrar registrar = new MemCacheCacheEventListenerRegistrar(
+                "test",
+                BusPublishingConfiguration.builder()
+                                            .setMaxBatchSize(10)
+                                            .setFlushInterval(60_000)
+                                            .build()
+        );
+        final MemCacheBusAdapter<String, String> cacheAdapter = new MemCacheBusAdapter<>(cache);
+
+        registrar.registerFor(this.cacheBus, cacheAdapter);
+
+        @SuppressWarnings("unchecked")
+        final CacheEntryEvent<String, String> event = mock(CacheEntryEvent.class);
+        when(event.key()).thenReturn("key");
+        when(event.oldValue()).thenReturn(Optional.empty());
+        when(event.newValue()).thenReturn(Optional.of("value"));
+        when(event.eventType()).thenReturn(EventType.ADDED);
+
+        final MemCache2BusEntryEventListener<String, String> listener = (MemCache2BusEntryEventListener<String, String>) listenerCaptor.getValue();
+        listener.onEvent(event);
+        listener.onEvent(event);
+        verify(this.cacheBus, never()).send(any());
+
+        registrar.unregisterFor(this.cacheBus, cacheAdapter);
+        verify(this.cacheBus, times(1)).send(any());
+    }
+
+    @Test
+    public void testFlushThreadIsStoppedAfterUnregistration() throws InterruptedException {
+        final MemCacheCacheEventListenerRegistrar registrar = new MemCacheCacheEventListenerRegistrar(
+                "stopped-flush-thread-test",
+                BusPublishingConfiguration.builder()
+                                            .setMaxBatchSize(10)
+                                            .setFlushInterval(60_000)
+                                            .build()
+        );
+        final MemCacheBusAdapter<String, String> cacheAdapter = new MemCacheBusAdapter<>(cache);
+
+        registrar.registerFor(this.cacheBus, cacheAdapter);
+        final Thread flushThread = findFlushThread("stopped-flush-thread-test");
+        assertNotNull(flushThread, "Flush thread must be started");
+
+        registrar.unregisterFor(this.cacheBus, cacheAdapter);
+        flushThread.join(1_000);
+        assertFalse(flushThread.isAlive(), "Flush thread must be stopped after the unregistration of the last cache");
+        assertEquals(0, registrar.failedEventsCount(), "Failed events count must be equal");
+    }
+
+    private static Thread findFlushThread(final String listenerId) {
+        return Thread.getAllStackTraces()
+                        .keySet()
+                        .stream()
+                        .filter(t -> t.getName().equals("MemCache-Bus-Events-Flush-Thread-" + listenerId))
+                        .findAny()
+                        .orElse(null);
+    }
 }
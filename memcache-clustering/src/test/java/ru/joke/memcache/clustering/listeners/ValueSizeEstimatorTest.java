@@ -0,0 +1,41 @@
+package ru.joke.memcache.clustering.listeners;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueSizeEstimatorTest {
+
+    @Test
+    public void testValuesOfKnownTypes() {
+        final ValueSizeEstimator estimator = new ValueSizeEstimator(10);
+
+        assertTrue(estimator.isWithinLimit(Long.MAX_VALUE), "Primitive wrapper must be within the limit");
+        assertTrue(estimator.isWithinLimit(new byte[10]), "Byte array must be within the limit");
+        assertFalse(estimator.isWithinLimit(new byte[11]), "Byte array must exceed the limit");
+        assertTrue(estimator.isWithinLimit(new int[2]), "Int array must be within the limit");
+        assertFalse(estimator.isWithinLimit(new long[2]), "Long array must exceed the limit");
+        assertTrue(estimator.isWithinLimit("abcdefghij"), "String must be within the limit");
+        assertFalse(estimator.isWithinLimit("abcdefghijk"), "String must exceed the limit");
+        assertFalse(estimator.isWithinLimit("абвгдеж"), "String with multibyte chars must exceed the limit");
+        assertTrue(estimator.isWithinLimit("абвгд"), "String with multibyte chars must be within the limit");
+    }
+
+    @Test
+    public void testValuesOfOtherTypesAreSampled() {
+        final ValueSizeEstimator estimator = new ValueSizeEstimator(256);
+
+        final ArrayList<Integer> smallValue = new ArrayList<>(List.of(1));
+        final ArrayList<Integer> largeValue = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            largeValue.add(i);
+        }
+
+        assertTrue(estimator.isWithinLimit(smallValue), "Sampled value must be within the limit");
+        assertTrue(estimator.isWithinLimit(largeValue), "Decision of the sampled value must be reused for the values of the same type");
+        assertFalse(new ValueSizeEstimator(256).isWithinLimit(largeValue), "Sampled value must exceed the limit");
+    }
+}
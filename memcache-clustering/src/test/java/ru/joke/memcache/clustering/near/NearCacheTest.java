@@ -0,0 +1,229 @@
+package ru.joke.memcache.clustering.near;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.clustering.adapters.MemCacheBusAdapter;
+import ru.joke.memcache.clustering.configuration.PartitioningConfiguration;
+import ru.joke.memcache.clustering.partitioning.LoopbackPartitionTransport;
+import ru.joke.memcache.clustering.partitioning.PartitionedMemCache;
+import ru.joke.memcache.clustering.partitioning.PartitionedMemCacheNode;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.Configuration;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NearCacheTest {
+
+    private static final String NEAR_CACHE_NAME = "near";
+    private static final String BACKING_CACHE_NAME = "backing";
+    private static final int NEAR_ENTRIES = 8;
+
+    private InternalMemCacheManager cacheManager;
+    private NearCache<String, Integer> cache;
+
+    @BeforeEach
+    void setUp() {
+        this.cacheManager = new InternalMemCacheManager(createConfiguration());
+        this.cacheManager.initialize();
+
+        final MemCache<String, Integer> nearCache = this.cacheManager.<String, Integer> getCache(NEAR_CACHE_NAME).orElseThrow();
+        final MemCache<String, Integer> backingCache = this.cacheManager.<String, Integer> getCache(BACKING_CACHE_NAME).orElseThrow();
+        this.cache = new NearCache<>(nearCache, backingCache);
+        this.cache.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.cache.shutdown();
+        this.cacheManager.shutdown();
+    }
+
+    @Test
+    public void testReadsAreServedByNearCache() {
+        this.cache.backingCache().put("key", 1);
+        assertTrue(this.cache.nearCache().get("key").isEmpty(), "Near entry must not present before the first read");
+
+        assertEquals(1, this.cache.get("key").orElseThrow(), "Value must be equal");
+        assertEquals(1, this.cache.nearCache().get("key").orElseThrow(), "Near entry must be populated on read");
+        assertEquals(1, this.cache.getAsync("key").join().orElseThrow(), "Value must be equal");
+
+        assertTrue(this.cache.get("absent").isEmpty(), "Value must not present");
+        assertTrue(this.cache.nearCache().get("absent").isEmpty(), "Absent entry must not be populated");
+    }
+
+    @Test
+    public void testWritesInvalidateNearEntries() {
+        this.cache.put("key", 1);
+        assertEquals(1, this.cache.get("key").orElseThrow(), "Value must be equal");
+
+        this.cache.put("key", 2);
+        assertTrue(this.cache.nearCache().get("key").isEmpty(), "Near entry must be invalidated by write");
+        assertEquals(2, this.cache.get("key").orElseThrow(), "Value must be equal");
+
+        this.cache.mergeAsync("key", 3, Integer::sum).join();
+        assertEquals(5, this.cache.get("key").orElseThrow(), "Value must be equal");
+
+        this.cache.remove("key");
+        assertTrue(this.cache.get("key").isEmpty(), "Value must be removed");
+        assertTrue(this.cache.nearCache().get("key").isEmpty(), "Near entry must be invalidated by removal");
+    }
+
+    @Test
+    public void testRemoteChangesInvalidateNearEntries() {
+        this.cache.put("key1", 1);
+        this.cache.put("key2", 2);
+        assertEquals(1, this.cache.get("key1").orElseThrow(), "Value must be equal");
+        assertEquals(2, this.cache.get("key2").orElseThrow(), "Value must be equal");
+
+        final MemCacheBusAdapter<String, Integer> adapter = new MemCacheBusAdapter<>(this.cache.backingCache());
+        adapter.put("key1", 10);
+
+        assertTrue(this.cache.nearCache().get("key1").isEmpty(), "Near entry must be invalidated by remote change");
+        assertEquals(10, this.cache.get("key1").orElseThrow(), "Value must be equal");
+
+        adapter.clear();
+        assertTrue(this.cache.nearCache().get("key1").isEmpty(), "Near entries must be invalidated by remote clear");
+        assertTrue(this.cache.get("key2").isEmpty(), "Value must be removed");
+    }
+
+    @Test
+    public void testNearCacheIsBounded() {
+        for (int i = 0; i < NEAR_ENTRIES * 4; i++) {
+            this.cache.put("key" + i, i);
+            assertEquals(i, this.cache.get("key" + i).orElseThrow(), "Value must be equal");
+        }
+
+        assertTrue(this.cache.nearCache().statistics().currentEntriesCount() <= NEAR_ENTRIES, "Near cache must be bounded");
+        assertEquals(NEAR_ENTRIES * 4, this.cache.statistics().currentEntriesCount(), "All entries must be stored in the backing cache");
+    }
+
+    @Test
+    public void testNearCacheStatistics() {
+        this.cache.nearStatistics().setStatisticsEnabled(true);
+        this.cache.statistics().setStatisticsEnabled(true);
+
+        this.cache.put("key", 1);
+        assertEquals(1, this.cache.get("key").orElseThrow(), "Value must be equal");
+        assertEquals(1, this.cache.get("key").orElseThrow(), "Value must be equal");
+
+        assertEquals(1, this.cache.nearStatistics().readOnlyRetrievalHitsCount(), "Near hits count must be equal");
+        assertEquals(1, this.cache.nearStatistics().readOnlyRetrievalMissesCount(), "Near misses count must be equal");
+        assertEquals(1, this.cache.statistics().readOnlyRetrievalHitsCount(), "Backing hits count must be equal");
+    }
+
+    @Test
+    public void testNearCacheOverPartitionedCache() {
+        final Set<String> members = Set.of("node1", "node2", "node3");
+        final LoopbackPartitionTransport transport = new LoopbackPartitionTransport();
+        final List<InternalMemCacheManager> cacheManagers = new ArrayList<>();
+        final List<PartitionedMemCacheNode> nodes = new ArrayList<>();
+        for (final String member : members) {
+            final var cacheManager = new InternalMemCacheManager(createConfiguration());
+            cacheManager.initialize();
+            cacheManagers.add(cacheManager);
+
+            final var partitioningConfiguration =
+                    PartitioningConfiguration.builder()
+                                                .setLocalNodeId(member)
+                                                .setMembers(members)
+                                                .setBackupsCount(1)
+                                             .build();
+            nodes.add(new PartitionedMemCacheNode(cacheManager, transport, partitioningConfiguration));
+        }
+
+        final PartitionedMemCacheNode localNode = nodes.get(0);
+        final NearCache<String, Integer> nearCache = new NearCache<>(
+                cacheManagers.get(0).<String, Integer> getCache(NEAR_CACHE_NAME).orElseThrow(),
+                localNode.<String, Integer> getCache(BACKING_CACHE_NAME).orElseThrow()
+        );
+        nearCache.initialize();
+        try {
+            String key = null;
+            for (int i = 0; key == null; i++) {
+                if (!localNode.owners("key" + i).contains(localNode.localNodeId())) {
+                    key = "key" + i;
+                }
+            }
+
+            final PartitionedMemCache<String, Integer> remoteCache = nodes.get(1).<String, Integer> getCache(BACKING_CACHE_NAME).orElseThrow();
+            remoteCache.put(key, 1);
+            assertEquals(1, nearCache.get(key).orElseThrow(), "Value must be equal");
+            assertEquals(1, nearCache.nearCache().get(key).orElseThrow(), "Near entry of the remote key must be populated");
+
+            remoteCache.put(key, 2);
+            assertTrue(nearCache.nearCache().get(key).isEmpty(), "Near entry must be invalidated by the change on the other node");
+            assertEquals(2, nearCache.get(key).orElseThrow(), "Value must be equal");
+
+            remoteCache.remove(key);
+            assertTrue(nearCache.get(key).isEmpty(), "Value must be removed");
+        } finally {
+            nearCache.shutdown();
+            nodes.forEach(PartitionedMemCacheNode::close);
+            cacheManagers.forEach(InternalMemCacheManager::shutdown);
+        }
+    }
+
+    private static Configuration createConfiguration() {
+        final CacheConfiguration nearCacheConfiguration =
+                CacheConfiguration.builder()
+                                    .setCacheName(NEAR_CACHE_NAME)
+                                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                                    .setMemoryStoreConfiguration(
+                                            MemoryStoreConfiguration.builder()
+                                                                        .setMaxEntries(NEAR_ENTRIES)
+                                                                        .setConcurrencyLevel(1)
+                                                                    .build()
+                                    )
+                                    .setExpirationConfiguration(
+                                            ExpirationConfiguration.builder()
+                                                                        .setLifespan(60_000)
+                                                                        .setIdleTimeout(30_000)
+                                                                    .build()
+                                    )
+                                  .build();
+        final CacheConfiguration backingCacheConfiguration =
+                CacheConfiguration.builder()
+                                    .setCacheName(BACKING_CACHE_NAME)
+                                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                                    .setMemoryStoreConfiguration(
+                                            MemoryStoreConfiguration.builder()
+                                                                        .setMaxEntries(1_000)
+                                                                        .setConcurrencyLevel(4)
+                                                                    .build()
+                                    )
+                                    .setExpirationConfiguration(
+                                            ExpirationConfiguration.builder()
+                                                                        .setEternal(true)
+                                                                    .build()
+                                    )
+                                  .build();
+
+        return new Configuration() {
+            @Nonnull
+            @Override
+            public Set<CacheConfiguration> cacheConfigurations() {
+                return Set.of(nearCacheConfiguration, backingCacheConfiguration);
+            }
+
+            @Override
+            public int cleaningPoolSize() {
+                return 1;
+            }
+
+            @Override
+            public int asyncCacheOpsParallelismLevel() {
+                return 1;
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS_COUNT = 30_000;
+
+    @Test
+    public void testOwnersAreDistinctNodes() {
+        final var ring = new ConsistentHashRing(Set.of("n1", "n2", "n3"), 64);
+
+        for (int i = 0; i < 1_000; i++) {
+            final List<String> owners = ring.owners("key" + i, 2);
+            assertEquals(2, owners.size(), "Owners count must be equal");
+            assertNotEquals(owners.get(0), owners.get(1), "Owners must be distinct nodes");
+        }
+
+        assertEquals(3, ring.owners("key", 5).size(), "Owners count must not exceed nodes count");
+    }
+
+    @Test
+    public void testSameRingRegardlessOfMembersOrder() {
+        final var ring1 = new ConsistentHashRing(List.of("n1", "n2", "n3"), 64);
+        final var ring2 = new ConsistentHashRing(List.of("n3", "n1", "n2"), 64);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(ring1.owners(i, 2), ring2.owners(i, 2), "Owners must be equal");
+        }
+    }
+
+    @Test
+    public void testUniformDistribution() {
+        final var ring = new ConsistentHashRing(Set.of("n1", "n2", "n3", "n4"), 128);
+
+        final Map<String, Integer> keysByNodes = new HashMap<>();
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            keysByNodes.merge(ring.owners("key" + i, 1).get(0), 1, Integer::sum);
+        }
+
+        assertEquals(4, keysByNodes.size(), "All nodes must own keys");
+        keysByNodes.values().forEach(count -> assertTrue(Math.abs(count - KEYS_COUNT / 4) < KEYS_COUNT / 10, "Keys must be distributed uniformly"));
+    }
+
+    @Test
+    public void testMinimalMovementOfKeysOnNodeAddition() {
+        final var ring = new ConsistentHashRing(Set.of("n1", "n2", "n3"), 128);
+        final var extendedRing = new ConsistentHashRing(Set.of("n1", "n2", "n3", "n4"), 128);
+
+        int movedKeys = 0;
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            final String owner = ring.owners(i, 1).get(0);
+            final String newOwner = extendedRing.owners(i, 1).get(0);
+            if (!owner.equals(newOwner)) {
+                assertEquals("n4", newOwner, "Keys must move only to the new node");
+                movedKeys++;
+            }
+        }
+
+        assertTrue(movedKeys < KEYS_COUNT / 3, "Only a part of keys must move to the new node");
+    }
+
+    @Test
+    public void testEnumKeysArePlacedByNames() {
+        final var ring = new ConsistentHashRing(Set.of("n1", "n2", "n3"), 64);
+
+        // the hash codes of the enum constants differ between the nodes, so the owners must depend only on the name
+        for (final TimeUnit unit : TimeUnit.values()) {
+            assertEquals(ring.owners(unit.name(), 2), ring.owners(unit, 2), "Owners of the enum key must be equal");
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package ru.joke.memcache.clustering.partitioning;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.clustering.configuration.PartitioningConfiguration;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.Configuration;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
+import ru.joke.memcache.core.events.CacheEntryEventListener;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedMemCacheTest {
+
+    private static final String CACHE_NAME = "partitioned";
+    private static final Set<String> MEMBERS = Set.of("node1", "node2", "node3");
+    private static final int KEYS_COUNT = 3_000;
+
+    private final List<InternalMemCacheManager> cacheManagers = new ArrayList<>();
+    private final List<PartitionedMemCacheNode> nodes = new ArrayList<>();
+    private LoopbackPartitionTransport transport;
+    private volatile Consumer<PartitionCommand> sendInterceptor;
+
+    @BeforeEach
+    void setUp() {
+        this.transport = new LoopbackPartitionTransport();
+        this.sendInterceptor = command -> {};
+        final PartitionTransport interceptingTransport = new PartitionTransport() {
+            @Override
+            public void register(@Nonnull String nodeId, @Nonnull Function<PartitionCommand, Serializable> handler) {
+                transport.register(nodeId, handler);
+            }
+
+            @Override
+            public void unregister(@Nonnull String nodeId) {
+                transport.unregister(nodeId);
+            }
+
+            @Nullable
+            @Override
+            public Serializable send(@Nonnull String targetNodeId, @Nonnull PartitionCommand command) {
+                sendInterceptor.accept(command);
+                return transport.send(targetNodeId, command);
+            }
+        };
+        for (final String member : MEMBERS) {
+            final var cacheManager = new InternalMemCacheManager(createConfiguration());
+            cacheManager.initialize();
+            this.cacheManagers.add(cacheManager);
+
+            final var partitioningConfiguration =
+                    PartitioningConfiguration.builder()
+                                                .setLocalNodeId(member)
+                                                .setMembers(MEMBERS)
+                                                .setBackupsCount(1)
+                                             .build();
+            this.nodes.add(new PartitionedMemCacheNode(cacheManager, interceptingTransport, partitioningConfiguration));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.nodes.forEach(PartitionedMemCacheNode::close);
+        this.cacheManagers.forEach(InternalMemCacheManager::shutdown);
+    }
+
+    @Test
+    public void testPartitionedOperations() {
+        final List<PartitionedMemCache<String, Integer>> caches = new ArrayList<>();
+        this.nodes.forEach(node -> caches.add(node.<String, Integer> getCache(CACHE_NAME).orElseThrow()));
+
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            assertTrue(caches.get(i % caches.size()).put("key" + i, i).isEmpty(), "Old value must not present");
+        }
+
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            for (final PartitionedMemCache<String, Integer> cache : caches) {
+                assertEquals(i, cache.get("key" + i).orElseThrow(), "Value must be available from any node");
+            }
+        }
+
+        final int storedEntries = caches.stream().mapToInt(cache -> cache.localCache().statistics().currentEntriesCount()).sum();
+        assertEquals(KEYS_COUNT * 2, storedEntries, "Each key must be stored only on the primary and backup owners");
+
+        for (final PartitionedMemCache<String, Integer> cache : caches) {
+            assertTrue(cache.localCache().statistics().currentEntriesCount() < KEYS_COUNT, "Node must not store all keys");
+            assertEquals(cache.isLocallyOwned("key0"), cache.localCache().get("key0").isPresent(), "Only owners must store the key");
+        }
+
+        assertEquals(1, caches.get(1).put("key1", 100).orElseThrow(), "Old value must be equal");
+        assertEquals(100, caches.get(2).remove("key1").orElseThrow(), "Removed value must be equal");
+        for (final PartitionedMemCache<String, Integer> cache : caches) {
+            assertTrue(cache.get("key1").isEmpty(), "Value must be removed on all nodes");
+            assertTrue(cache.localCache().get("key1").isEmpty(), "Value must be removed from all owners");
+        }
+    }
+
+    @Test
+    public void testReadFromBackupOwner() {
+        final PartitionedMemCacheNode node = this.nodes.get(0);
+        final PartitionedMemCache<String, Integer> cache = node.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+
+        String key = null;
+        for (int i = 0; key == null; i++) {
+            if (!node.owners("key" + i).contains(node.localNodeId())) {
+                key = "key" + i;
+            }
+        }
+
+        cache.put(key, 1);
+
+        final String primaryOwner = node.owners(key).get(0);
+        this.transport.unregister(primaryOwner);
+
+        assertEquals(1, cache.get(key).orElseThrow(), "Value must be read from the backup owner");
+        final String unavailableKey = key;
+        assertThrows(PartitionUnavailableException.class, () -> cache.put(unavailableKey, 2));
+    }
+
+    @Test
+    public void testOperationsWithFunctionsOnNonOwner() {
+        final PartitionedMemCacheNode node = this.nodes.get(0);
+        final PartitionedMemCache<String, Integer> cache = node.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final String key = findKey(node, false);
+
+        assertEquals(1, cache.computeIfAbsent(key, k -> 1).orElseThrow(), "Computed value must be equal");
+        assertEquals(1, cache.computeIfAbsent(key, k -> 2).orElseThrow(), "Present value must be retained");
+        assertEquals(3, cache.merge(key, 2, Integer::sum).orElseThrow(), "Merged value must be equal");
+        assertEquals(4, cache.compute(key, (k, v) -> v + 1).orElseThrow(), "Computed value must be equal");
+        assertEquals(5, cache.computeIfPresent(key, (k, v) -> v + 1).orElseThrow(), "Computed value must be equal");
+        assertFalse(cache.replace(key, 1, 6), "Value must not be replaced if the old value is not equal");
+        assertTrue(cache.replace(key, 5, 6), "Value must be replaced if the old value is equal");
+        assertEquals(6, cache.putIfAbsent(key, 7).orElseThrow(), "Present value must be returned");
+        assertOwnersValue(node, key, 6);
+
+        assertFalse(cache.remove(key, 5), "Value must not be removed if it is not equal");
+        assertTrue(cache.remove(key, 6), "Value must be removed if it is equal");
+        assertTrue(cache.computeIfPresent(key, (k, v) -> v + 1).isEmpty(), "Absent value must not be computed");
+        assertOwnersValue(node, key, null);
+    }
+
+    @Test
+    public void testBackupsApplyChangesByVersion() {
+        final PartitionedMemCacheNode node = this.nodes.get(0);
+        final PartitionedMemCache<String, Integer> cache = node.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final String key = findKey(node, true);
+
+        final List<PartitionCommand> backupCommands = new ArrayList<>();
+        this.sendInterceptor = command -> {
+            if (command.type() == PartitionCommand.Type.BACKUP_PUT) {
+                backupCommands.add(command);
+            }
+        };
+
+        cache.put(key, 1);
+        cache.put(key, 2);
+
+        assertEquals(2, backupCommands.size(), "Each change must be replicated to the backup");
+        assertTrue(backupCommands.get(0).version() < backupCommands.get(1).version(), "Versions of the changes of the key must grow");
+
+        // the delayed replication of the older change must not override the newer value on the backup
+        final String backupOwner = node.owners(key).get(1);
+        assertEquals(Boolean.FALSE, this.transport.send(backupOwner, backupCommands.get(0)), "Stale change must be discarded");
+        assertOwnersValue(node, key, 2);
+    }
+
+    @Test
+    public void testReplicationOutsideOfKeyLock() {
+        final PartitionedMemCacheNode node = this.nodes.get(0);
+        final PartitionedMemCache<String, Integer> cache = node.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final String key = findKey(node, true);
+
+        // the backup touches the key on the primary owner while the change is replicated
+        this.sendInterceptor = command -> {
+            if (command.type() == PartitionCommand.Type.BACKUP_PUT) {
+                CompletableFuture.runAsync(() -> cache.localCache().compute(key, (k, v) -> v))
+                                 .orTimeout(5, TimeUnit.SECONDS)
+                                 .join();
+            }
+        };
+
+        assertTrue(cache.put(key, 1).isEmpty(), "Old value must not present");
+        assertOwnersValue(node, key, 1);
+    }
+
+    @Test
+    public void testTagsOfEntries() {
+        final PartitionedMemCacheNode node = this.nodes.get(0);
+        final PartitionedMemCache<String, Integer> cache = node.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final String localKey = findKey(node, true);
+        final String remoteKey = findKey(node, false);
+
+        assertTrue(cache.put(localKey, 1, Set.of("a")).isEmpty(), "Old value must not present");
+        assertTrue(cache.put(remoteKey, 2, Set.of("a", "b")).isEmpty(), "Old value must not present");
+        cache.put("untagged", 3);
+        assertOwnersValue(node, remoteKey, 2);
+
+        final List<Boolean> invalidations = new ArrayList<>();
+        final PartitionedMemCache<String, Integer> otherCache = this.nodes.get(1).<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        otherCache.registerEventListener(new CacheEntryEventListener<>() {
+            @Override
+            public void onEvent(@Nonnull CacheEntryEvent<? extends String, ? extends Integer> event) {
+            }
+
+            @Override
+            public void onBatchEvent(@Nonnull CacheEntriesEvent<? extends String, ? extends Integer> event) {
+                invalidations.add(event.keys().isEmpty());
+            }
+        });
+
+        assertEquals(4, otherCache.invalidateTag("a"), "Invalidated entries count must include the backup copies");
+        assertOwnersValue(node, localKey, null);
+        assertOwnersValue(node, remoteKey, null);
+        assertEquals(3, cache.get("untagged").orElseThrow(), "Untagged entry must be retained");
+        assertTrue(invalidations.contains(true), "Listeners must be notified about the invalidation without the keys");
+        assertEquals(0, cache.invalidateTag("b"), "Tag must be removed with the invalidated entries");
+    }
+
+    @Test
+    public void testAsyncOperationsAreNotPerformedInCommonPool() {
+        final PartitionedMemCache<String, Integer> cache = this.nodes.get(0).<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final AtomicReference<String> thread = new AtomicReference<>();
+        cache.computeAsync("key", (k, v) -> {
+            thread.set(Thread.currentThread().getName());
+            return 1;
+        }).join();
+        assertTrue(thread.get().startsWith("MemCache-Partitioned-Ops-Thread-"), "Operation must be performed by the executor of the node");
+    }
+
+    @Test
+    public void testCacheViewIsReused() {
+        final PartitionedMemCacheNode node = this.nodes.get(0);
+        assertSame(node.getCache(CACHE_NAME).orElseThrow(), node.getCache(CACHE_NAME).orElseThrow(), "View of the cache must be reused");
+    }
+
+    private void assertOwnersValue(final PartitionedMemCacheNode node, final String key, final Integer expectedValue) {
+        for (final String owner : node.owners(key)) {
+            final PartitionedMemCacheNode ownerNode = this.nodes.stream().filter(n -> n.localNodeId().equals(owner)).findAny().orElseThrow();
+            final PartitionedMemCache<String, Integer> ownerCache = ownerNode.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+            assertEquals(expectedValue, ownerCache.localCache().get(key).orElse(null), "Value of the owner must be equal");
+        }
+    }
+
+    private static String findKey(final PartitionedMemCacheNode node, final boolean primary) {
+        for (int i = 0; ; i++) {
+            final List<String> owners = node.owners("key" + i);
+            if (primary ? owners.get(0).equals(node.localNodeId()) : !owners.contains(node.localNodeId())) {
+                return "key" + i;
+            }
+        }
+    }
+
+    private static Configuration createConfiguration() {
+        final CacheConfiguration cacheConfiguration =
+                CacheConfiguration.builder()
+                                    .setCacheName(CACHE_NAME)
+                                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                                    .setMemoryStoreConfiguration(
+                                            MemoryStoreConfiguration.builder()
+                                                                        .setMaxEntries(KEYS_COUNT)
+                                                                        .setConcurrencyLevel(4)
+                                                                    .build()
+                                    )
+                                    .setExpirationConfiguration(
+                                            ExpirationConfiguration.builder()
+                                                                        .setEternal(true)
+                                                                    .build()
+                                    )
+                                  .build();
+
+        return new Configuration() {
+            @Nonnull
+            @Override
+            public Set<CacheConfiguration> cacheConfigurations() {
+                return Set.of(cacheConfiguration);
+            }
+
+            @Override
+            public int cleaningPoolSize() {
+                return 1;
+            }
+
+            @Override
+            public int asyncCacheOpsParallelismLevel() {
+                return 1;
+            }
+        };
+    }
+}
@@ -0,0 +1,139 @@
+package ru.joke.memcache.clustering.repair;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.Configuration;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+import ru.joke.memcache.core.spi.AntiEntropySupport;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AntiEntropyRepairTest {
+
+    private static final String CACHE_NAME = "replicated";
+    private static final int KEYS_COUNT = 1_000;
+
+    private InternalMemCacheManager cacheManager1;
+    private InternalMemCacheManager cacheManager2;
+    private LoopbackAntiEntropyTransport transport;
+    private AntiEntropyRepair repair1;
+    private AntiEntropyRepair repair2;
+
+    @BeforeEach
+    void setUp() {
+        this.cacheManager1 = new InternalMemCacheManager(createConfiguration());
+        this.cacheManager1.initialize();
+        this.cacheManager2 = new InternalMemCacheManager(createConfiguration());
+        this.cacheManager2.initialize();
+
+        this.transport = new LoopbackAntiEntropyTransport();
+        this.repair1 = new AntiEntropyRepair("node1", List.of("node2"), this.cacheManager1, this.transport, 0);
+        this.repair2 = new AntiEntropyRepair("node2", List.of("node1"), this.cacheManager2, this.transport, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.repair1.close();
+        this.repair2.close();
+        this.cacheManager1.shutdown();
+        this.cacheManager2.shutdown();
+    }
+
+    @Test
+    public void testRepairOfDivergentReplicas() {
+        final MemCache<String, Integer> cache1 = this.cacheManager1.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final MemCache<String, Integer> cache2 = this.cacheManager2.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            cache1.put("key" + i, i);
+        }
+        cache1.forEach((key, value, version) -> cache2.putIfNewer(key, value, version));
+        assertEquals(0, this.repair1.repair("node2", CACHE_NAME), "Equal replicas must not be repaired");
+
+        // the events of these changes are lost
+        cache1.put("key1", 100);
+        cache1.remove("key2");
+        cache2.put("key3", 300);
+        cache1.put("new", 1);
+
+        assertEquals(2, this.repair1.repair("node2", CACHE_NAME), "Repaired entries count must be equal");
+        assertEquals(2, this.repair2.repair("node1", CACHE_NAME), "Repaired entries count must be equal");
+
+        assertEquals(((AntiEntropySupport<?, ?>) cache1).merkleTree(), ((AntiEntropySupport<?, ?>) cache2).merkleTree(), "Trees of replicas must be equal after repair");
+        assertEquals(100, cache2.get("key1").orElseThrow(), "Newer value must be repaired");
+        assertEquals(300, cache1.get("key3").orElseThrow(), "Newer value must be repaired");
+        assertTrue(cache2.get("key2").isEmpty(), "Removed entry must be invalidated");
+        assertTrue(cache1.get("new").isEmpty(), "Entry absent in peer replica must be invalidated");
+        assertEquals(KEYS_COUNT - 1, cache1.statistics().currentEntriesCount(), "Entries count must be equal");
+    }
+
+    @Test
+    public void testBackgroundRepair() throws InterruptedException {
+        final MemCache<String, Integer> cache1 = this.cacheManager1.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final MemCache<String, Integer> cache2 = this.cacheManager2.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+
+        cache1.put("key", 1);
+        cache1.forEach((key, value, version) -> cache2.putIfNewer(key, value, version));
+        cache1.put("key", 2);
+
+        try (final var backgroundRepair = new AntiEntropyRepair("node3", List.of("node1"), this.cacheManager2, this.transport, 10)) {
+            for (int i = 0; i < 100 && cache2.get("key").orElseThrow() != 2; i++) {
+                Thread.sleep(10);
+            }
+        }
+
+        assertEquals(2, cache2.get("key").orElseThrow(), "Newer value must be repaired in background");
+    }
+
+    @Test
+    public void testRepairByUnavailableNode() {
+        assertThrows(MemCacheException.class, () -> this.repair1.repair("unknown", CACHE_NAME));
+    }
+
+    private static Configuration createConfiguration() {
+        final CacheConfiguration cacheConfiguration =
+                CacheConfiguration.builder()
+                                    .setCacheName(CACHE_NAME)
+                                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                                    .setMemoryStoreConfiguration(
+                                            MemoryStoreConfiguration.builder()
+                                                                        .setMaxEntries(KEYS_COUNT * 2)
+                                                                        .setConcurrencyLevel(4)
+                                                                    .build()
+                                    )
+                                    .setExpirationConfiguration(
+                                            ExpirationConfiguration.builder()
+                                                                        .setEternal(true)
+                                                                    .build()
+                                    )
+                                  .build();
+
+        return new Configuration() {
+            @Nonnull
+            @Override
+            public Set<CacheConfiguration> cacheConfigurations() {
+                return Set.of(cacheConfiguration);
+            }
+
+            @Override
+            public int cleaningPoolSize() {
+                return 1;
+            }
+
+            @Override
+            public int asyncCacheOpsParallelismLevel() {
+                return 1;
+            }
+        };
+    }
+}
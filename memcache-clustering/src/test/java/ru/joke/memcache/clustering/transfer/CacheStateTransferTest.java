@@ -0,0 +1,191 @@
+package ru.joke.memcache.clustering.transfer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.joke.cache.bus.core.CacheEntryEventType;
+import ru.joke.cache.bus.core.impl.ImmutableCacheEntryEvent;
+import ru.joke.memcache.clustering.adapters.MemCacheBusAdapter;
+import ru.joke.memcache.clustering.adapters.VersionedKey;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.Configuration;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheStateTransferTest {
+
+    private static final String CACHE_NAME = "replicated";
+    private static final int KEYS_COUNT = 10_000;
+
+    private InternalMemCacheManager peerCacheManager;
+    private InternalMemCacheManager joiningCacheManager;
+    private LoopbackStateTransferTransport transport;
+    private CacheStateTransfer peerStateTransfer;
+    private CacheStateTransfer joiningStateTransfer;
+
+    @BeforeEach
+    void setUp() {
+        this.peerCacheManager = new InternalMemCacheManager(createConfiguration());
+        this.peerCacheManager.initialize();
+        this.joiningCacheManager = new InternalMemCacheManager(createConfiguration());
+        this.joiningCacheManager.initialize();
+
+        this.transport = new LoopbackStateTransferTransport();
+        this.peerStateTransfer = new CacheStateTransfer("peer", this.peerCacheManager, this.transport, 100, 4);
+        this.joiningStateTransfer = new CacheStateTransfer("joining", this.joiningCacheManager, this.transport, 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.peerStateTransfer.close();
+        this.joiningStateTransfer.close();
+        this.peerCacheManager.shutdown();
+        this.joiningCacheManager.shutdown();
+    }
+
+    @Test
+    public void testStateTransfer() {
+        final MemCache<String, Integer> peerCache = this.peerCacheManager.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            peerCache.put("key" + i, i);
+        }
+
+        final MemCache<String, Integer> joiningCache = this.joiningCacheManager.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final var adapter = new MemCacheBusAdapter<>(joiningCache);
+
+        assertEquals(KEYS_COUNT, this.joiningStateTransfer.transferState("peer", adapter), "Transferred entries count must be equal");
+        assertEquals(KEYS_COUNT, joiningCache.statistics().currentEntriesCount(), "Entries count must be equal");
+
+        peerCache.forEach((key, value, version) -> {
+            assertEquals(value, joiningCache.get(key).orElseThrow(), "Value must be equal");
+            assertFalse(joiningCache.putIfNewer(key, -1, version), "Version of the transferred entry must be equal");
+        });
+    }
+
+    @Test
+    public void testLiveEventsAreBufferedDuringTransfer() {
+        final MemCache<String, Integer> peerCache = this.peerCacheManager.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        peerCache.put("key1", 1);
+        peerCache.put("key2", 2);
+
+        final MemCache<String, Integer> joiningCache = this.joiningCacheManager.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final var adapter = new MemCacheBusAdapter<>(joiningCache);
+        // the bus delivers the versioned keys to the cache
+        @SuppressWarnings("unchecked")
+        final MemCacheBusAdapter<Serializable, Integer> busCache = (MemCacheBusAdapter<Serializable, Integer>) (MemCacheBusAdapter<?, ?>) adapter;
+
+        final var slowTransport = new StateTransferTransport() {
+            @Override
+            public void register(@Nonnull String nodeId, @Nonnull BiConsumer<String, Consumer<StateChunk>> stateProvider) {
+            }
+
+            @Override
+            public void unregister(@Nonnull String nodeId) {
+            }
+
+            @Override
+            public void requestState(@Nonnull String peerNodeId, @Nonnull String cacheName, @Nonnull Consumer<StateChunk> chunkConsumer) {
+                // the live events are received before the snapshot and are applied by the bus through the methods of the cache
+                busCache.evict(new VersionedKey<>("key1", Long.MAX_VALUE));
+                busCache.put(new VersionedKey<>("key2", 1), 20);
+                busCache.put("key4", 4);
+                adapter.apply(new ImmutableCacheEntryEvent<>("key5", null, 5, Long.MAX_VALUE, CacheEntryEventType.ADDED, CACHE_NAME));
+                assertTrue(joiningCache.get("key2").isEmpty(), "Live events must be buffered during transfer");
+                assertTrue(joiningCache.get("key4").isEmpty(), "Live events must be buffered during transfer");
+                assertTrue(joiningCache.get("key5").isEmpty(), "Live events must be buffered during transfer");
+
+                transport.requestState(peerNodeId, cacheName, chunkConsumer);
+            }
+        };
+
+        try (final var stateTransfer = new CacheStateTransfer("joining-slow", this.joiningCacheManager, slowTransport, 1, 2)) {
+            assertEquals(2, stateTransfer.transferState("peer", adapter), "Transferred entries count must be equal");
+        }
+
+        assertTrue(joiningCache.get("key1").isEmpty(), "Newer buffered removal must be applied after transfer");
+        assertEquals(2, joiningCache.get("key2").orElseThrow(), "Stale buffered event must be discarded");
+        assertEquals(4, joiningCache.get("key4").orElseThrow(), "Buffered change must be applied after transfer");
+        assertEquals(5, joiningCache.get("key5").orElseThrow(), "Buffered event must be applied after transfer");
+
+        adapter.apply(new ImmutableCacheEntryEvent<>("key3", null, 3, Long.MAX_VALUE, CacheEntryEventType.ADDED, CACHE_NAME));
+        assertEquals(3, joiningCache.get("key3").orElseThrow(), "Live events must be applied after transfer");
+    }
+
+    @Test
+    public void testTransferWithProvidedExecutor() {
+        final MemCache<String, Integer> peerCache = this.peerCacheManager.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        for (int i = 0; i < 1_000; i++) {
+            peerCache.put("key" + i, i);
+        }
+
+        final MemCache<String, Integer> joiningCache = this.joiningCacheManager.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            try (final var stateTransfer = new CacheStateTransfer("joining-executor", this.joiningCacheManager, this.transport, 100, 2, executor)) {
+                assertEquals(1_000, stateTransfer.transferState("peer", new MemCacheBusAdapter<>(joiningCache)), "Transferred entries count must be equal");
+                assertEquals(1_000, stateTransfer.transferState("peer", new MemCacheBusAdapter<>(joiningCache)), "Executor must be reused by the next transfer");
+            }
+
+            assertFalse(executor.isShutdown(), "Provided executor must not be shut down by the state transfer");
+            assertEquals(1_000, joiningCache.statistics().currentEntriesCount(), "Entries count must be equal");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTransferFromUnavailableNode() {
+        final MemCache<String, Integer> joiningCache = this.joiningCacheManager.<String, Integer> getCache(CACHE_NAME).orElseThrow();
+        assertThrows(MemCacheException.class, () -> this.joiningStateTransfer.transferState("unknown", new MemCacheBusAdapter<>(joiningCache)));
+    }
+
+    private static Configuration createConfiguration() {
+        final CacheConfiguration cacheConfiguration =
+                CacheConfiguration.builder()
+                                    .setCacheName(CACHE_NAME)
+                                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                                    .setMemoryStoreConfiguration(
+                                            MemoryStoreConfiguration.builder()
+                                                                        .setMaxEntries(KEYS_COUNT)
+                                                                        .setConcurrencyLevel(4)
+                                                                    .build()
+                                    )
+                                    .setExpirationConfiguration(
+                                            ExpirationConfiguration.builder()
+                                                                        .setEternal(true)
+                                                                    .build()
+                                    )
+                                  .build();
+
+        return new Configuration() {
+            @Nonnull
+            @Override
+            public Set<CacheConfiguration> cacheConfigurations() {
+                return Set.of(cacheConfiguration);
+            }
+
+            @Override
+            public int cleaningPoolSize() {
+                return 1;
+            }
+
+            @Override
+            public int asyncCacheOpsParallelismLevel() {
+                return 1;
+            }
+        };
+    }
+}
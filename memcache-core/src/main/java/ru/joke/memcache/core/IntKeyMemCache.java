@@ -0,0 +1,73 @@
+package ru.joke.memcache.core;
+
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * A cache with {@code int} keys backed by the primitive keys storage (open-addressing hash segments
+ * with {@code int} keys), so the keys lookup doesn't require boxing of the keys.<br>
+ * The cache supports all the operations of the {@linkplain MemCache} with the same eviction, expiration,
+ * events and persistence contracts; the operations with {@linkplain Integer} keys are also available.<br>
+ * The cache is created when {@linkplain CacheConfiguration.KeysType#INT} keys type is specified
+ * in the cache configuration.
+ *
+ * @param <V> the type of the cache values, must be serializable
+ * @author Alik
+ * @see MemCache
+ * @see CacheConfiguration#keysType()
+ * @see MemCacheManager#getIntKeyCache(String)
+ */
+public interface IntKeyMemCache<V extends Serializable> extends MemCache<Integer, V> {
+
+    /**
+     * Retrieves the value from the cache based on the key, if it exists in the cache.
+     *
+     * @param key the key of the element in the cache.
+     * @return the value in the cache associated with the specified key, wrapped in {@link Optional};
+     * the value may be absent.
+     * @see MemCache#get(Serializable)
+     */
+    @Nonnull
+    @CheckReturnValue
+    Optional<V> get(int key);
+
+    /**
+     * Adds an element to the cache. Replaces the existing element with a new value if the element already exists the cache.<br>
+     * If a value equal to null is passed, this key is removed from the cache.
+     *
+     * @param key   the key of the element.
+     * @param value the value of the element, can be {@code null}.
+     * @return the value previously associated with the key, wrapped in {@link Optional}. The value may be absent.
+     * @see MemCache#put(Serializable, Serializable)
+     */
+    @Nonnull
+    @CheckReturnValue
+    Optional<V> put(int key, @Nullable V value);
+
+    /**
+     * Adds an element to the cache if there is no value associated with the given key.
+     *
+     * @param key   the key of the element.
+     * @param value the value of the element, can be {@code null}.
+     * @return the value previously associated with the key, wrapped in {@link Optional}. The value may be absent.
+     * @see MemCache#putIfAbsent(Serializable, Serializable)
+     */
+    Optional<V> putIfAbsent(int key, @Nullable V value);
+
+    /**
+     * Removes an element from the cache based on the key. Returns the value previously associated with the key.
+     * If an element with the given key does not exist, returns {@code Optional.empty()}.
+     *
+     * @param key the key of the element in the cache.
+     * @return the value previously associated with the key, wrapped in {@link Optional}. The value may be absent.
+     * @see MemCache#remove(Serializable)
+     */
+    @Nonnull
+    @CheckReturnValue
+    Optional<V> remove(int key);
+}
@@ -1,6 +1,8 @@
 package ru.joke.memcache.core;
 
 import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
 import ru.joke.memcache.core.events.CacheEntryEventListener;
 import ru.joke.memcache.core.stats.MemCacheStatistics;
 
@@ -8,11 +10,17 @@ import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.function.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An abstract representation of a named cache that stores data in Java heap memory.
@@ -139,6 +147,23 @@ public interface MemCache<K extends Serializable, V extends Serializable> extend
     @CheckReturnValue
     Optional<V> put(@Nonnull K key, @Nullable V value);
 
+    /**
+     * Adds an element with the given tags to the cache (see {@linkplain #put(Serializable, Serializable)}).
+     * The tags of the element replace its previous tags; the operations without the tags retain the tags
+     * of the present element. The tags are dropped when the element is removed from the cache (including
+     * the eviction and the expiration), the tags are not persisted to the disk.<br>
+     * All elements with the tag can be removed by {@linkplain #invalidateTag(String)}.
+     *
+     * @param key   the key of the element, cannot be {@code null}.
+     * @param value the value of the element, can be {@code null}.
+     * @param tags  the tags of the element, cannot be {@code null}; the empty set removes the tags of the element.
+     * @return the value previously associated with the key, wrapped in {@link Optional}. The value may be absent.
+     * @see #invalidateTag(String)
+     */
+    @Nonnull
+    @CheckReturnValue
+    Optional<V> put(@Nonnull K key, @Nullable V value, @Nonnull Set<String> tags);
+
     /**
      * Adds an element to the cache if there is no value associated with the given key.<br>
      * Asynchronous version of this operation: {@linkplain #putIfAbsentAsync(Serializable, Serializable)}.
@@ -231,6 +256,166 @@ public interface MemCache<K extends Serializable, V extends Serializable> extend
      */
     boolean replace(@Nonnull K key, @Nullable V oldValue, @Nullable V newValue);
 
+    /**
+     * Removes the elements with the given keys from the cache. Unlike the removal of each key separately,
+     * the listeners are notified about the removal of all elements by the single batch event
+     * (see {@linkplain CacheEntryEventListener#onBatchEvent(CacheEntriesEvent)}) which contains the keys of the removed elements.
+     *
+     * @param keys the keys of the elements in the cache; cannot be {@code null}.
+     * @return the count of the removed elements.
+     * @see CacheEntriesEvent#keys()
+     */
+    int removeAll(@Nonnull Collection<? extends K> keys);
+
+    /**
+     * Removes the elements of the cache matching the given predicate. The segments of the cache are scanned
+     * in parallel in the {@linkplain java.util.concurrent.ForkJoinPool#commonPool()}; the predicate is evaluated again
+     * under the lock of the element before the removal, so the element changed concurrently is removed only if its new
+     * value matches the predicate. The elements added during the operation may not be visited.<br>
+     * As with {@linkplain #removeAll(Collection)}, the listeners are notified about the removal of all elements
+     * by the single batch event which contains the keys of the removed elements.
+     *
+     * @param predicate the predicate for the elements to remove; cannot be {@code null}, must be thread-safe.
+     * @return the count of the removed elements.
+     * @see CacheEntriesEvent#keys()
+     */
+    int removeIf(@Nonnull BiPredicate<? super K, ? super V> predicate);
+
+    /**
+     * Removes the elements of the cache with the given tag (see {@linkplain #put(Serializable, Serializable, Set)}).
+     * The elements are found by the index of the tags, so the time of the operation is proportional to the count
+     * of the elements with the tag rather than to the size of the cache.<br>
+     * As with {@linkplain #removeAll(Collection)}, the listeners are notified about the removal of all elements
+     * by the single batch event which contains the keys of the removed elements.
+     *
+     * @param tag the tag of the elements to remove; cannot be {@code null}.
+     * @return the count of the removed elements.
+     * @see CacheEntriesEvent#keys()
+     */
+    int invalidateTag(@Nonnull String tag);
+
+    /**
+     * Applies the value associated with the given key only if the given version is newer than the version
+     * of the element in the cache. If the value is {@code null}, the element with this key is removed from the cache
+     * (in case its version is older than the given one). The version of the removal is remembered for a while,
+     * so the delayed change of the removed element with the older version is discarded too.<br>
+     * The operation is intended for the application of the changes received from the other nodes of the cluster:
+     * the stale or repeated changes are discarded, so the concurrent updates of the same key converge
+     * to the value with the greatest version on all nodes. The version passed to the method is assigned
+     * to the element and is available in the generated event via {@linkplain CacheEntryEvent#version()}.
+     *
+     * @param key     the key of the element in the cache; cannot be {@code null}.
+     * @param value   the new value of the element; can be {@code null}.
+     * @param version the version of the change.
+     * @return {@code true} if the change was applied to the cache, {@code false} if it was discarded as stale.
+     * @see CacheEntryEvent#version()
+     */
+    boolean putIfNewer(@Nonnull K key, @Nullable V value, long version);
+
+    /**
+     * Performs the given action for each element of the cache. The iteration is weakly consistent: it reflects
+     * the state of the cache at some point at or since the start of the iteration and never fails because of
+     * the concurrent modifications, but the elements changed during the iteration may not be visited.
+     * The value and the version of each visited element are consistent with each other.
+     *
+     * @param action the action for each element; cannot be {@code null}.
+     * @see CacheEntryEvent#version()
+     */
+    void forEach(@Nonnull VersionedEntryConsumer<? super K, ? super V> action);
+
+    /**
+     * Performs the given action for each element of the cache (see {@linkplain #forEach(VersionedEntryConsumer)}).
+     *
+     * @param action the action for each element; cannot be {@code null}.
+     */
+    default void forEach(@Nonnull BiConsumer<? super K, ? super V> action) {
+        forEach((key, value, version) -> action.accept(key, value));
+    }
+
+    /**
+     * Performs the given action for each element of the cache (see {@linkplain #forEach(VersionedEntryConsumer)}).
+     * The elements are processed in parallel in the {@linkplain java.util.concurrent.ForkJoinPool#commonPool()}
+     * if the estimated count of the elements of the cache is not less than the given threshold
+     * (similar to {@linkplain java.util.concurrent.ConcurrentHashMap#forEach(long, BiConsumer)}):
+     * {@code Long.MAX_VALUE} suppresses the parallelism, {@code 1} gives the maximal parallelism.
+     * The action must be thread-safe if the elements can be processed in parallel.
+     *
+     * @param parallelismThreshold the estimated count of the elements needed for the parallel processing.
+     * @param action               the action for each element; cannot be {@code null}.
+     */
+    default void forEach(long parallelismThreshold, @Nonnull BiConsumer<? super K, ? super V> action) {
+        stream(parallelismThreshold).forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Returns the result of the accumulation of the given transformation of all elements of the cache using
+     * the given reducer to combine the values. The elements are processed in parallel depending on the given
+     * threshold (see {@linkplain #forEach(long, BiConsumer)}).
+     *
+     * @param parallelismThreshold the estimated count of the elements needed for the parallel processing.
+     * @param transformer          the function returning the transformation of the element or {@code null} if there is
+     *                             no transformation (the element is not combined); cannot be {@code null}.
+     * @param reducer              the commutative associative combining function; cannot be {@code null}.
+     * @param <U>                  the type of the result
+     * @return the result of the accumulation of the transformations, cannot be {@code null}; empty if there are no transformations.
+     */
+    @Nonnull
+    default <U> Optional<U> reduce(
+            long parallelismThreshold,
+            @Nonnull BiFunction<? super K, ? super V, ? extends U> transformer,
+            @Nonnull BinaryOperator<U> reducer) {
+        return stream(parallelismThreshold)
+                .<U> map(entry -> transformer.apply(entry.getKey(), entry.getValue()))
+                .filter(Objects::nonNull)
+                .reduce(reducer);
+    }
+
+    /**
+     * Returns the count of the elements of the cache matching the given predicate. The elements are processed
+     * in parallel depending on the given threshold (see {@linkplain #forEach(long, BiConsumer)}).
+     *
+     * @param parallelismThreshold the estimated count of the elements needed for the parallel processing.
+     * @param predicate            the predicate for the elements; cannot be {@code null}.
+     * @return the count of the matching elements.
+     */
+    default long count(long parallelismThreshold, @Nonnull BiPredicate<? super K, ? super V> predicate) {
+        return stream(parallelismThreshold)
+                .filter(entry -> predicate.test(entry.getKey(), entry.getValue()))
+                .count();
+    }
+
+    /**
+     * Returns the spliterator over the elements of the cache. The spliterator is weakly consistent
+     * (see {@linkplain #forEach(VersionedEntryConsumer)}) and is split by the segments of the cache first,
+     * so the parallel processing of the elements scales with the concurrency level of the cache.
+     * The returned entries are immutable snapshots of the elements.
+     *
+     * @return the spliterator over the elements of the cache; cannot be {@code null}.
+     * @see ru.joke.memcache.core.configuration.MemoryStoreConfiguration#concurrencyLevel()
+     */
+    @Nonnull
+    Spliterator<Map.Entry<K, V>> spliterator();
+
+    /**
+     * Returns the sequential stream over the elements of the cache (see {@linkplain #spliterator()}).
+     *
+     * @return the stream over the elements of the cache; cannot be {@code null}.
+     */
+    @Nonnull
+    default Stream<Map.Entry<K, V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns the parallel stream over the elements of the cache (see {@linkplain #spliterator()}).
+     *
+     * @return the stream over the elements of the cache; cannot be {@code null}.
+     */
+    @Nonnull
+    default Stream<Map.Entry<K, V>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     /**
      * Asynchronous version of the operation: {@linkplain #get(Serializable)}.
      *
@@ -361,4 +546,29 @@ public interface MemCache<K extends Serializable, V extends Serializable> extend
     @Nonnull
     @CheckReturnValue
     CompletableFuture<Boolean> replaceAsync(@Nonnull K key, @Nullable V oldValue, @Nullable V newValue);
+
+    private Stream<Map.Entry<K, V>> stream(final long parallelismThreshold) {
+        final Spliterator<Map.Entry<K, V>> spliterator = spliterator();
+        return StreamSupport.stream(spliterator, spliterator.estimateSize() >= parallelismThreshold);
+    }
+
+    /**
+     * The action performed for the element of the cache together with its version.
+     *
+     * @param <K> the type of the cache keys
+     * @param <V> the type of the cache values
+     * @see MemCache#forEach(VersionedEntryConsumer)
+     */
+    @FunctionalInterface
+    interface VersionedEntryConsumer<K extends Serializable, V extends Serializable> {
+
+        /**
+         * Performs the action for the element of the cache.
+         *
+         * @param key     the key of the element, cannot be {@code null}.
+         * @param value   the value of the element, cannot be {@code null}.
+         * @param version the version of the element.
+         */
+        void accept(@Nonnull K key, @Nonnull V value, long version);
+    }
 }
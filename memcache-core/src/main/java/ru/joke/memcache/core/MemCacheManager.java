@@ -62,6 +62,54 @@ public interface MemCacheManager extends Lifecycle {
     @CheckReturnValue
     <K extends Serializable, V extends Serializable> Optional<MemCache<K, V>> getCache(@Nonnull String cacheName, @Nonnull Class<K> keysType, @Nonnull Class<V> valuesType);
 
+    /**
+     * Returns the cache with {@code long} keys with the specified name if a cache managed by the cache manager
+     * with that name exists.
+     *
+     * @param cacheName unique name of the cache, cannot be {@code null}.
+     * @param <V>       the type of the cache values
+     * @return the cache with the specified name, or {@linkplain Optional#empty()} if the cache with such name does not exist.
+     * @throws MemCacheException if the cache with the specified name exists but is not configured with
+     *                           {@linkplain CacheConfiguration.KeysType#LONG} keys type.
+     * @see LongKeyMemCache
+     */
+    @Nonnull
+    @CheckReturnValue
+    default <V extends Serializable> Optional<LongKeyMemCache<V>> getLongKeyCache(@Nonnull String cacheName) {
+        return this.<Long, V> getCache(cacheName)
+                .map(c -> {
+                    if (!(c instanceof LongKeyMemCache<V> result)) {
+                        throw new MemCacheException("Cache " + cacheName + " is not configured with " + CacheConfiguration.KeysType.LONG + " keys type");
+                    }
+
+                    return result;
+                });
+    }
+
+    /**
+     * Returns the cache with {@code int} keys with the specified name if a cache managed by the cache manager
+     * with that name exists.
+     *
+     * @param cacheName unique name of the cache, cannot be {@code null}.
+     * @param <V>       the type of the cache values
+     * @return the cache with the specified name, or {@linkplain Optional#empty()} if the cache with such name does not exist.
+     * @throws MemCacheException if the cache with the specified name exists but is not configured with
+     *                           {@linkplain CacheConfiguration.KeysType#INT} keys type.
+     * @see IntKeyMemCache
+     */
+    @Nonnull
+    @CheckReturnValue
+    default <V extends Serializable> Optional<IntKeyMemCache<V>> getIntKeyCache(@Nonnull String cacheName) {
+        return this.<Integer, V> getCache(cacheName)
+                .map(c -> {
+                    if (!(c instanceof IntKeyMemCache<V> result)) {
+                        throw new MemCacheException("Cache " + cacheName + " is not configured with " + CacheConfiguration.KeysType.INT + " keys type");
+                    }
+
+                    return result;
+                });
+    }
+
     /**
      * Returns a list of names (identifiers) of caches managed by this cache manager.
      *
@@ -65,6 +65,18 @@ public interface CacheConfiguration {
     @Nonnull
     EvictionPolicy evictionPolicy();
 
+    /**
+     * Returns the type of the cache keys. For {@linkplain KeysType#INT} and {@linkplain KeysType#LONG}
+     * key types the cache is backed by the primitive keys storage and can be obtained as
+     * {@linkplain ru.joke.memcache.core.IntKeyMemCache} or {@linkplain ru.joke.memcache.core.LongKeyMemCache}
+     * respectively. The default value is {@linkplain KeysType#OBJECT}.
+     *
+     * @return the type of the cache keys, cannot be {@code null}.
+     * @see KeysType
+     */
+    @Nonnull
+    KeysType keysType();
+
     /**
      * Returns the configuration of expiration time for cache elements.
      *
@@ -118,6 +130,29 @@ public interface CacheConfiguration {
         LIFO
     }
 
+    /**
+     * Type of the cache keys.
+     *
+     * @author Alik
+     */
+    enum KeysType {
+
+        /**
+         * Arbitrary serializable keys
+         */
+        OBJECT,
+
+        /**
+         * {@code int} (or {@linkplain Integer}) keys
+         */
+        INT,
+
+        /**
+         * {@code long} (or {@linkplain Long}) keys
+         */
+        LONG
+    }
+
     /**
      * Returns a cache configuration builder based on the Java API.
      *
@@ -142,6 +177,7 @@ public interface CacheConfiguration {
         private MemoryStoreConfiguration memoryStoreConfiguration;
         private PersistentStoreConfiguration persistentStoreConfiguration;
         private EvictionPolicy evictionPolicy;
+        private KeysType keysType = KeysType.OBJECT;
         private ExpirationConfiguration expirationConfiguration;
         private List<CacheEntryEventListener<?, ?>> listeners = new ArrayList<>();
 
@@ -196,6 +232,19 @@ public interface CacheConfiguration {
             return this;
         }
 
+        /**
+         * Sets the type of the cache keys. The default value is {@linkplain KeysType#OBJECT}.
+         *
+         * @param keysType the type of the cache keys, cannot be {@code null}.
+         * @return builder, cannot be {@code null}.
+         * @see KeysType
+         */
+        @Nonnull
+        public Builder setKeysType(@Nonnull final KeysType keysType) {
+            this.keysType = keysType;
+            return this;
+        }
+
         /**
          * Sets the configuration for expiration time of cache elements.
          *
@@ -251,6 +300,8 @@ public interface CacheConfiguration {
                 throw new InvalidConfigurationException("Memory store configuration must be not null");
             } else if (this.expirationConfiguration == null) {
                 throw new InvalidConfigurationException("Expiration configuration must be not null");
+            } else if (this.keysType == null) {
+                throw new InvalidConfigurationException("Keys type must be not null");
             }
 
             final var persistentStoreConfig = Optional.ofNullable(this.persistentStoreConfiguration);
@@ -279,6 +330,12 @@ public interface CacheConfiguration {
                     return evictionPolicy;
                 }
 
+                @Override
+                @Nonnull
+                public KeysType keysType() {
+                    return keysType;
+                }
+
                 @Override
                 @Nonnull
                 public ExpirationConfiguration expirationConfiguration() {
@@ -300,6 +357,7 @@ public interface CacheConfiguration {
                     return "CacheConfiguration{" +
                             "cacheName=" + cacheName() +
                             ", evictionPolicy=" + evictionPolicy() +
+                            ", keysType=" + keysType() +
                             ", memoryStoreConfiguration=" + memoryStoreConfiguration() +
                             ", persistentStoreConfiguration=" + persistentStoreConfiguration() +
                             ", expirationConfiguration=" + expirationConfiguration +
@@ -44,4 +44,50 @@ public interface Configuration {
      */
     @Nonnegative
     int asyncCacheOpsParallelismLevel();
+
+    /**
+     * Returns the mode of execution of asynchronous operations on cache elements.<br>
+     * The default value is {@linkplain AsyncCacheOpsMode#POOLED}.
+     *
+     * @return the mode of execution of asynchronous operations, cannot be {@code null}.
+     * @see AsyncCacheOpsMode
+     */
+    @Nonnull
+    default AsyncCacheOpsMode asyncCacheOpsMode() {
+        return AsyncCacheOpsMode.POOLED;
+    }
+
+    /**
+     * Modes of execution of asynchronous operations on cache elements.
+     *
+     * @author Alik
+     * @see #asyncCacheOpsMode()
+     */
+    enum AsyncCacheOpsMode {
+
+        /**
+         * Operations are executed on the work-stealing pool which size is equal to
+         * {@linkplain #asyncCacheOpsParallelismLevel()}. Operations blocked inside user functions
+         * (e.g. in the compute functions) occupy the threads of the pool.
+         */
+        POOLED,
+
+        /**
+         * Each operation is executed on its own virtual thread, the count of concurrently executed operations
+         * is limited by {@linkplain #asyncCacheOpsParallelismLevel()}, so the blocked operations do not occupy
+         * the platform threads. The operations submitted while the limit is reached are queued without the blocking
+         * of the caller and started when the running ones complete.<br>
+         * Virtual threads are the preview feature of Java 19 and 20, so the application must be run with
+         * {@code --enable-preview} on these releases (no flags are required since Java 21). If the virtual threads
+         * are not available in the runtime, the initialization of the cache manager fails.
+         */
+        VIRTUAL_THREADS,
+
+        /**
+         * Operations are executed in the calling thread and the already completed futures are returned.
+         * Suitable for the caches with the cheap in-memory operations only, since the caller is blocked
+         * for the time of the operation.
+         */
+        INLINE
+    }
 }
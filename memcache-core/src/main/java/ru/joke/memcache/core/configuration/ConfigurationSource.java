@@ -4,6 +4,7 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -54,6 +55,7 @@ public interface ConfigurationSource {
         private final Set<CacheConfiguration> configurations = new HashSet<>();
         private int cleaningPoolSize = 1;
         private int asyncCacheOpsParallelismLevel = Math.max(Runtime.getRuntime().availableProcessors() / 2, 1);
+        private Configuration.AsyncCacheOpsMode asyncCacheOpsMode = Configuration.AsyncCacheOpsMode.POOLED;
 
         @Nonnull
         @Override
@@ -83,12 +85,19 @@ public interface ConfigurationSource {
                     return asyncCacheOpsParallelismLevel;
                 }
 
+                @Override
+                @Nonnull
+                public AsyncCacheOpsMode asyncCacheOpsMode() {
+                    return asyncCacheOpsMode;
+                }
+
                 @Override
                 public String toString() {
                     return "Configuration{" +
                             "cacheConfigurations=" + cacheConfigurations() +
                             ", cleaningPoolSize=" + cleaningPoolSize() +
                             ", asyncCacheOpsParallelismLevel=" + asyncCacheOpsParallelismLevel() +
+                            ", asyncCacheOpsMode=" + asyncCacheOpsMode() +
                             '}';
                 }
             };
@@ -158,12 +167,27 @@ public interface ConfigurationSource {
             return this;
         }
 
+        /**
+         * Sets the mode of execution of asynchronous operations on cache elements.<br>
+         * The default value is {@linkplain Configuration.AsyncCacheOpsMode#POOLED}.
+         *
+         * @param asyncCacheOpsMode the mode of execution of asynchronous operations, cannot be {@code null}.
+         * @return the source for further building, cannot be {@code null}.
+         * @see Configuration.AsyncCacheOpsMode
+         */
+        @Nonnull
+        public SimpleConfigurationSource setAsyncCacheOpsMode(@Nonnull Configuration.AsyncCacheOpsMode asyncCacheOpsMode) {
+            this.asyncCacheOpsMode = Objects.requireNonNull(asyncCacheOpsMode, "asyncCacheOpsMode");
+            return this;
+        }
+
         @Override
         public String toString() {
             return "SimpleConfigurationSource{" +
                     "configurations=" + configurations +
                     ", cleaningPoolSize=" + cleaningPoolSize +
                     ", asyncCacheOpsParallelismLevel=" + asyncCacheOpsParallelismLevel +
+                    ", asyncCacheOpsMode=" + asyncCacheOpsMode +
                     '}';
         }
     }
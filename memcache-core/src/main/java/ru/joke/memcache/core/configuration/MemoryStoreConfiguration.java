@@ -19,6 +19,18 @@ public interface MemoryStoreConfiguration {
      */
     int concurrencyLevel();
 
+    /**
+     * Returns the upper bound of the concurrency level up to which the cache can adapt its internal segmentation
+     * when contention between writing threads is detected. The cache splits the contended segments one by one and merges
+     * them back (but not below the {@link #concurrencyLevel()}) when the contention disappears for a while.<br>
+     * A value of {@code 0} means that the bound is determined automatically by the number of available processors.
+     * A value equal to the {@link #concurrencyLevel()} disables the adaptation. The default value is {@code 0}.
+     *
+     * @return the upper bound of the concurrency level, cannot be negative.
+     * @see #concurrencyLevel()
+     */
+    int maxConcurrencyLevel();
+
     /**
      * Returns the size of the data container by number of entries. Eviction occurs after the container size exceeds the maximum count.
      *
@@ -26,6 +38,27 @@ public interface MemoryStoreConfiguration {
      */
     int maxEntries();
 
+    /**
+     * Returns the sign of storing cache values in memory in compressed form.<br>
+     * Compressed values are kept as deflated serialized bytes and are decompressed on each read,
+     * so this option trades CPU for heap and is intended for caches with large serializable values.
+     * The default value is {@code false}.
+     *
+     * @return the sign of storing cache values in compressed form.
+     * @see #decompressedValuesCacheSize()
+     */
+    boolean valuesCompressionEnabled();
+
+    /**
+     * Returns the size (number of values) of the cache of decompressed values that is used to avoid
+     * repeated decompression of frequently read values. Used only when values compression is enabled.<br>
+     * A value of {@code 0} disables the cache of decompressed values. The default value is {@code 0}.
+     *
+     * @return the size of the cache of decompressed values, cannot be negative.
+     * @see #valuesCompressionEnabled()
+     */
+    int decompressedValuesCacheSize();
+
     /**
      * Returns a cache memory store configuration builder based on the Java API.
      *
@@ -47,6 +80,9 @@ public interface MemoryStoreConfiguration {
 
         private int maxEntries;
         private int concurrencyLevel;
+        private int maxConcurrencyLevel;
+        private boolean valuesCompressionEnabled;
+        private int decompressedValuesCacheSize;
 
         /**
          * Sets the size of the data container by number of entries.
@@ -72,6 +108,47 @@ public interface MemoryStoreConfiguration {
             return this;
         }
 
+        /**
+         * Sets the upper bound of the concurrency level up to which the cache can adapt its internal segmentation.<br>
+         * A value of {@code 0} means that the bound is determined automatically by the number of available processors.
+         * A value equal to the concurrency level disables the adaptation. The default value is {@code 0}.
+         *
+         * @param maxConcurrencyLevel the upper bound of the concurrency level, cannot be negative.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setMaxConcurrencyLevel(final int maxConcurrencyLevel) {
+            this.maxConcurrencyLevel = maxConcurrencyLevel;
+            return this;
+        }
+
+        /**
+         * Sets the sign of storing cache values in memory in compressed form.<br>
+         * The default value is {@code false}.
+         *
+         * @param valuesCompressionEnabled the sign of storing cache values in compressed form.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setValuesCompressionEnabled(final boolean valuesCompressionEnabled) {
+            this.valuesCompressionEnabled = valuesCompressionEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the size (number of values) of the cache of decompressed values.
+         * Used only when values compression is enabled.<br>
+         * A value of {@code 0} disables the cache of decompressed values. The default value is {@code 0}.
+         *
+         * @param decompressedValuesCacheSize the size of the cache of decompressed values, cannot be negative.
+         * @return the builder, cannot be {@code null}.
+         */
+        @Nonnull
+        public Builder setDecompressedValuesCacheSize(final int decompressedValuesCacheSize) {
+            this.decompressedValuesCacheSize = decompressedValuesCacheSize;
+            return this;
+        }
+
         /**
          * Performs the creation of the configuration of memory storing cache elements
          * based on the data passed to the builder.
@@ -85,25 +162,55 @@ public interface MemoryStoreConfiguration {
                 throw new InvalidConfigurationException("Concurrency level must be at least 1");
             } else if (maxEntries < 1) {
                 throw new InvalidConfigurationException("Max entries count must be at least 1");
+            } else if (maxConcurrencyLevel != 0 && maxConcurrencyLevel < concurrencyLevel) {
+                throw new InvalidConfigurationException("Max concurrency level must be 0 or not less than concurrency level");
+            } else if (decompressedValuesCacheSize < 0) {
+                throw new InvalidConfigurationException("Decompressed values cache size must be not negative");
             }
 
             final int concurrencyLevel = Math.min(this.concurrencyLevel, this.maxEntries);
+            final int maxConcurrencyLevel = Math.min(
+                    this.maxConcurrencyLevel == 0
+                            ? Math.max(this.concurrencyLevel, Runtime.getRuntime().availableProcessors() * 4)
+                            : this.maxConcurrencyLevel,
+                    this.maxEntries
+            );
+            final boolean valuesCompressionEnabled = this.valuesCompressionEnabled;
+            final int decompressedValuesCacheSize = valuesCompressionEnabled ? this.decompressedValuesCacheSize : 0;
             return new MemoryStoreConfiguration() {
                 @Override
                 public int concurrencyLevel() {
                     return concurrencyLevel;
                 }
 
+                @Override
+                public int maxConcurrencyLevel() {
+                    return maxConcurrencyLevel;
+                }
+
                 @Override
                 public int maxEntries() {
                     return maxEntries;
                 }
 
+                @Override
+                public boolean valuesCompressionEnabled() {
+                    return valuesCompressionEnabled;
+                }
+
+                @Override
+                public int decompressedValuesCacheSize() {
+                    return decompressedValuesCacheSize;
+                }
+
                 @Override
                 public String toString() {
                     return "MemoryStoreConfiguration{" +
                             "maxEntries=" + maxEntries() +
                             ", concurrencyLevel=" + concurrencyLevel() +
+                            ", maxConcurrencyLevel=" + maxConcurrencyLevel() +
+                            ", valuesCompressionEnabled=" + valuesCompressionEnabled() +
+                            ", decompressedValuesCacheSize=" + decompressedValuesCacheSize() +
                             '}';
                 }
 
@@ -117,7 +224,10 @@ public interface MemoryStoreConfiguration {
                     }
 
                     return that.maxEntries() == maxEntries
-                            && that.concurrencyLevel() == concurrencyLevel;
+                            && that.concurrencyLevel() == concurrencyLevel
+                            && that.maxConcurrencyLevel() == maxConcurrencyLevel
+                            && that.valuesCompressionEnabled() == valuesCompressionEnabled
+                            && that.decompressedValuesCacheSize() == decompressedValuesCacheSize;
                 }
 
                 @Override
@@ -125,6 +235,9 @@ public interface MemoryStoreConfiguration {
                     int result = 31;
                     result = 31 * result + maxEntries;
                     result = 31 * result + concurrencyLevel;
+                    result = 31 * result + maxConcurrencyLevel;
+                    result = 31 * result + (valuesCompressionEnabled ? 1 : 0);
+                    result = 31 * result + decompressedValuesCacheSize;
                     return result;
                 }
             };
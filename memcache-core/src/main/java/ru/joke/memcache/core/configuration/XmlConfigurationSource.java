@@ -45,7 +45,9 @@ public final class XmlConfigurationSource implements ConfigurationSource {
     private static final String CACHE_ELEMENT = "cache";
     private static final String EXPIRED_CLEANING_POOL_SIZE_ATTR = "expired-cleaning-pool-size";
     private static final String ASYNC_CACHES_OPS_PARALLELISM_ATTR = "async-cache-ops-parallelism";
+    private static final String ASYNC_CACHES_OPS_MODE_ATTR = "async-cache-ops-mode";
     private static final String CACHE_NAME_ATTR = "name";
+    private static final String CACHE_KEYS_TYPE_ATTR = "keys-type";
     private static final String CACHE_EVICTION_POLICY_ELEMENT = "eviction-policy";
     private static final String CACHE_MEMORY_STORE_ELEMENT = "memory-store";
     private static final String CACHE_EVENT_LISTENERS_ELEMENT = "event-listeners";
@@ -56,6 +58,9 @@ public final class XmlConfigurationSource implements ConfigurationSource {
     private static final String CACHE_PERSISTENT_STORE_LOCATION_ATTR = "location";
     private static final String CACHE_MEMORY_STORE_MAX_ELEMENTS_ATTR = "max-entries";
     private static final String CACHE_MEMORY_STORE_CONCURRENCY_LEVEL_ATTR = "concurrency-level";
+    private static final String CACHE_MEMORY_STORE_MAX_CONCURRENCY_LEVEL_ATTR = "max-concurrency-level";
+    private static final String CACHE_MEMORY_STORE_VALUES_COMPRESSION_ATTR = "values-compression";
+    private static final String CACHE_MEMORY_STORE_DECOMPRESSED_VALUES_CACHE_SIZE_ATTR = "decompressed-values-cache-size";
     private static final String CACHE_EXPIRATION_LIFESPAN_ATTR = "lifespan";
     private static final String CACHE_EXPIRATION_IDLE_TTL_ATTR = "idle-ttl";
     private static final String CACHE_EXPIRATION_ETERNAL_ATTR = "eternal";
@@ -91,6 +96,7 @@ public final class XmlConfigurationSource implements ConfigurationSource {
         final Set<CacheConfiguration> collectedConfigs = new HashSet<>();
         int expiredCleaningPoolSizeMax = 1;
         int asyncCacheOpsParallelismMax = 1;
+        Configuration.AsyncCacheOpsMode asyncCacheOpsMode = Configuration.AsyncCacheOpsMode.POOLED;
         for (Configuration configuration : configurations) {
 
             collectedConfigs.addAll(configuration.cacheConfigurations());
@@ -101,9 +107,18 @@ public final class XmlConfigurationSource implements ConfigurationSource {
             if (configuration.asyncCacheOpsParallelismLevel() > asyncCacheOpsParallelismMax) {
                 asyncCacheOpsParallelismMax = configuration.asyncCacheOpsParallelismLevel();
             }
+
+            // the default mode can be overridden by any configuration file, but the overridden modes must be the same
+            if (configuration.asyncCacheOpsMode() != Configuration.AsyncCacheOpsMode.POOLED) {
+                if (asyncCacheOpsMode != Configuration.AsyncCacheOpsMode.POOLED && asyncCacheOpsMode != configuration.asyncCacheOpsMode()) {
+                    throw new InvalidConfigurationException("Different async cache operations modes are set in the configuration files: " + asyncCacheOpsMode + ", " + configuration.asyncCacheOpsMode());
+                }
+
+                asyncCacheOpsMode = configuration.asyncCacheOpsMode();
+            }
         }
 
-        return composeConfiguration(collectedConfigs, expiredCleaningPoolSizeMax, asyncCacheOpsParallelismMax);
+        return composeConfiguration(collectedConfigs, expiredCleaningPoolSizeMax, asyncCacheOpsParallelismMax, asyncCacheOpsMode);
     }
 
     @Override
@@ -169,6 +184,12 @@ public final class XmlConfigurationSource implements ConfigurationSource {
             asyncCacheOpsParallelism = Integer.parseInt(asyncCacheOpsParallelismStr);
         }
 
+        final String asyncCacheOpsModeStr = document.getDocumentElement().getAttribute(ASYNC_CACHES_OPS_MODE_ATTR);
+        final Configuration.AsyncCacheOpsMode asyncCacheOpsMode =
+                asyncCacheOpsModeStr.isBlank()
+                        ? Configuration.AsyncCacheOpsMode.POOLED
+                        : Configuration.AsyncCacheOpsMode.valueOf(asyncCacheOpsModeStr);
+
         final int cleaningPoolSize = Integer.parseInt(document.getDocumentElement().getAttribute(EXPIRED_CLEANING_POOL_SIZE_ATTR));
         final NodeList caches = document.getElementsByTagName(CACHE_ELEMENT);
         for (int cacheIndex = 0; cacheIndex < caches.getLength(); cacheIndex++) {
@@ -181,6 +202,7 @@ public final class XmlConfigurationSource implements ConfigurationSource {
 
             final Element cacheElement = (Element) node;
             final String cacheName = cacheElement.getAttribute(CACHE_NAME_ATTR);
+            final String keysTypeStr = cacheElement.getAttribute(CACHE_KEYS_TYPE_ATTR);
 
             final List<CacheEntryEventListener<?, ?>> eventListeners = parseEventListeners(cacheElement);
             final CacheConfiguration.EvictionPolicy evictionPolicy = parseEvictionPolicy(cacheElement);
@@ -193,6 +215,7 @@ public final class XmlConfigurationSource implements ConfigurationSource {
                             builder()
                                 .setCacheName(cacheName)
                                 .setEvictionPolicy(evictionPolicy)
+                                .setKeysType(keysTypeStr.isBlank() ? CacheConfiguration.KeysType.OBJECT : CacheConfiguration.KeysType.valueOf(keysTypeStr))
                                 .setExpirationConfiguration(expirationConfiguration)
                                 .setMemoryStoreConfiguration(memoryStoreConfiguration)
                                 .setPersistentStoreConfiguration(persistentStoreConfiguration)
@@ -203,7 +226,7 @@ public final class XmlConfigurationSource implements ConfigurationSource {
 
         logger.debug("Configuration was build: {}", result);
 
-        return composeConfiguration(Set.copyOf(result), cleaningPoolSize, asyncCacheOpsParallelism);
+        return composeConfiguration(Set.copyOf(result), cleaningPoolSize, asyncCacheOpsParallelism, asyncCacheOpsMode);
     }
 
     private MemoryStoreConfiguration createMemoryStoreConfiguration(final Element cacheElement) {
@@ -213,11 +236,17 @@ public final class XmlConfigurationSource implements ConfigurationSource {
 
         final String maxEntriesStr = storeConfigElement.getAttribute(CACHE_MEMORY_STORE_MAX_ELEMENTS_ATTR);
         final String concurrencyLevelStr = storeConfigElement.getAttribute(CACHE_MEMORY_STORE_CONCURRENCY_LEVEL_ATTR);
+        final String maxConcurrencyLevelStr = storeConfigElement.getAttribute(CACHE_MEMORY_STORE_MAX_CONCURRENCY_LEVEL_ATTR);
+        final String valuesCompressionStr = storeConfigElement.getAttribute(CACHE_MEMORY_STORE_VALUES_COMPRESSION_ATTR);
+        final String decompressedValuesCacheSizeStr = storeConfigElement.getAttribute(CACHE_MEMORY_STORE_DECOMPRESSED_VALUES_CACHE_SIZE_ATTR);
 
         return MemoryStoreConfiguration
                     .builder()
                         .setMaxEntries(Integer.parseInt(maxEntriesStr))
                         .setConcurrencyLevel(Integer.parseInt(concurrencyLevelStr))
+                        .setMaxConcurrencyLevel(maxConcurrencyLevelStr.isBlank() ? 0 : Integer.parseInt(maxConcurrencyLevelStr))
+                        .setValuesCompressionEnabled(Boolean.parseBoolean(valuesCompressionStr))
+                        .setDecompressedValuesCacheSize(decompressedValuesCacheSizeStr.isBlank() ? 0 : Integer.parseInt(decompressedValuesCacheSizeStr))
                     .build();
     }
 
@@ -340,7 +369,8 @@ public final class XmlConfigurationSource implements ConfigurationSource {
     private Configuration composeConfiguration(
             final Set<CacheConfiguration> cacheConfigurations,
             final int cleaningPoolSize,
-            final int asyncCacheOpsParallelismLevel) {
+            final int asyncCacheOpsParallelismLevel,
+            final Configuration.AsyncCacheOpsMode asyncCacheOpsMode) {
         return new Configuration() {
             @Override
             @Nonnull
@@ -360,12 +390,19 @@ public final class XmlConfigurationSource implements ConfigurationSource {
                 return asyncCacheOpsParallelismLevel;
             }
 
+            @Override
+            @Nonnull
+            public AsyncCacheOpsMode asyncCacheOpsMode() {
+                return asyncCacheOpsMode;
+            }
+
             @Override
             public String toString() {
                 return "Configuration{" +
                         "cacheConfigurations=" + cacheConfigurations() +
                         ", cleaningPoolSize=" + cleaningPoolSize() +
                         ", asyncCacheOpsParallelismLevel=" + asyncCacheOpsParallelismLevel() +
+                        ", asyncCacheOpsMode=" + asyncCacheOpsMode() +
                         '}';
             }
         };
@@ -4,6 +4,8 @@ import ru.joke.memcache.core.MemCache;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Cache element batch change event.
@@ -32,4 +34,21 @@ public interface CacheEntriesEvent<K extends Serializable, V extends Serializabl
      */
     @Nonnull
     MemCache<K, V> source();
+
+    /**
+     * Returns the keys of the elements affected by the batch change.
+     * If the keys are not present, the batch change affected all elements of the cache (e.g. cleaning of the cache).
+     *
+     * @return the keys of the affected elements, cannot be {@code null}.
+     */
+    @Nonnull
+    Optional<Set<K>> keys();
+
+    /**
+     * Returns the version of the batch change, i.e. the greatest version of the changes of the affected elements.
+     *
+     * @return the version of the batch change.
+     * @see CacheEntryEvent#version()
+     */
+    long version();
 }
@@ -57,4 +57,14 @@ public interface CacheEntryEvent<K extends Serializable, V extends Serializable>
      */
     @Nonnull
     MemCache<K, V> source();
+
+    /**
+     * Returns the version of the cache element assigned by the change. Versions are issued by the hybrid logical clock
+     * of the cache: they grow monotonically within the cache and are comparable with the versions of the other nodes
+     * of the cluster, so a change with a lower version can be recognized as stale.
+     *
+     * @return the version of the cache element after the change.
+     * @see MemCache#putIfNewer(Serializable, Serializable, long)
+     */
+    long version();
 }
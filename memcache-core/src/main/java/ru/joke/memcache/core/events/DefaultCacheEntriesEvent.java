@@ -3,27 +3,44 @@ package ru.joke.memcache.core.events;
 import ru.joke.memcache.core.MemCache;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * The implementation of a batch cache element change event.
  *
- * @param eventType the type of the event, cannot be {@code null}.
- * @param source    the source cache, cannot be {@code null}.
- * @param <K>       the type of the cache keys
- * @param <V>       the type of the cache values
+ * @param eventType    the type of the event, cannot be {@code null}.
+ * @param source       the source cache, cannot be {@code null}.
+ * @param affectedKeys the keys of the affected elements, {@code null} if all elements of the cache are affected.
+ * @param version      the version of the batch change.
+ * @param <K>          the type of the cache keys
+ * @param <V>          the type of the cache values
  * @author Alik
  * @see CacheEntriesEvent
  */
 public record DefaultCacheEntriesEvent<K extends Serializable, V extends Serializable>(
         @Nonnull EventType eventType,
-        @Nonnull MemCache<K, V> source
+        @Nonnull MemCache<K, V> source,
+        @Nullable Set<K> affectedKeys,
+        long version
 ) implements CacheEntriesEvent<K, V> {
 
     public DefaultCacheEntriesEvent {
         Objects.requireNonNull(eventType, "eventType");
         Objects.requireNonNull(source, "source");
     }
+
+    public DefaultCacheEntriesEvent(@Nonnull EventType eventType, @Nonnull MemCache<K, V> source) {
+        this(eventType, source, null, 0);
+    }
+
+    @Nonnull
+    @Override
+    public Optional<Set<K>> keys() {
+        return Optional.ofNullable(this.affectedKeys);
+    }
 }
 
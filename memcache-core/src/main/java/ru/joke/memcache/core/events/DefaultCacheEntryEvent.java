@@ -16,6 +16,7 @@ import java.util.Optional;
  * @param newValue  the new value of the changed element, cannot be {@code null}.
  * @param eventType the type of the event, cannot be {@code null}.
  * @param source    the source cache, cannot be {@code null}.
+ * @param version   the version of the changed element.
  * @param <K>       the type of the cache keys
  * @param <V>       the type of the cache values
  * @author Alik
@@ -26,7 +27,8 @@ public record DefaultCacheEntryEvent<K extends Serializable, V extends Serializa
         @Nonnull Optional<V> oldValue,
         @Nonnull Optional<V> newValue,
         @Nonnull EventType eventType,
-        @Nonnull MemCache<K, V> source
+        @Nonnull MemCache<K, V> source,
+        long version
 ) implements CacheEntryEvent<K, V> {
 
     public DefaultCacheEntryEvent {
@@ -41,6 +43,16 @@ public record DefaultCacheEntryEvent<K extends Serializable, V extends Serializa
             @Nullable V newValue,
             @Nonnull EventType eventType,
             @Nonnull MemCache<K, V> source) {
-        this(key, Optional.ofNullable(oldValue), Optional.ofNullable(newValue), eventType, source);
+        this(key, oldValue, newValue, eventType, source, 0);
+    }
+
+    public DefaultCacheEntryEvent(
+            @Nonnull K key,
+            @Nullable V oldValue,
+            @Nullable V newValue,
+            @Nonnull EventType eventType,
+            @Nonnull MemCache<K, V> source,
+            long version) {
+        this(key, Optional.ofNullable(oldValue), Optional.ofNullable(newValue), eventType, source, version);
     }
 }
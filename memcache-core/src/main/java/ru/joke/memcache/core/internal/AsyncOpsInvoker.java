@@ -1,33 +1,160 @@
 package ru.joke.memcache.core.internal;
 
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.configuration.Configuration;
+
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.Closeable;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 
 final class AsyncOpsInvoker implements Closeable {
 
+    private static final CompletableFuture<Optional<?>> EMPTY_RESULT = new CompletedFuture<>(Optional.empty());
+
     private final ExecutorService asyncOpsPool;
+    private final Executor asyncOpsExecutor;
 
     AsyncOpsInvoker(@Nonnegative int parallelism) {
-        this.asyncOpsPool = Executors.newWorkStealingPool(parallelism);
+        this(parallelism, Configuration.AsyncCacheOpsMode.POOLED);
+    }
+
+    AsyncOpsInvoker(@Nonnegative int parallelism, @Nonnull Configuration.AsyncCacheOpsMode mode) {
+        this.asyncOpsPool = switch (mode) {
+            case POOLED -> Executors.newWorkStealingPool(parallelism);
+            case VIRTUAL_THREADS -> createVirtualThreadsPool();
+            case INLINE -> null;
+        };
+        this.asyncOpsExecutor =
+                mode == Configuration.AsyncCacheOpsMode.VIRTUAL_THREADS
+                        ? new BoundedExecutor(this.asyncOpsPool, parallelism)
+                        : this.asyncOpsPool;
     }
 
     @Nonnull
     <U> CompletableFuture<U> invoke(@Nonnull Supplier<U> operation) {
-        return CompletableFuture.supplyAsync(operation, this.asyncOpsPool);
+        if (this.asyncOpsExecutor == null) {
+            try {
+                return CompletableFuture.completedFuture(operation.get());
+            } catch (RuntimeException | Error ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+
+        return CompletableFuture.supplyAsync(operation, this.asyncOpsExecutor);
     }
 
     @Nonnull
     CompletableFuture<Void> invoke(@Nonnull Runnable operation) {
-        return CompletableFuture.runAsync(operation, this.asyncOpsPool);
+        if (this.asyncOpsExecutor == null) {
+            try {
+                operation.run();
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException | Error ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+
+        return CompletableFuture.runAsync(operation, this.asyncOpsExecutor);
+    }
+
+    @Nonnull
+    static <U> CompletableFuture<U> completed(@Nullable U value) {
+        return new CompletedFuture<>(value);
+    }
+
+    @Nonnull
+    static <U> CompletableFuture<Optional<U>> completedEmpty() {
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<Optional<U>> result = (CompletableFuture<Optional<U>>) (CompletableFuture<?>) EMPTY_RESULT;
+        return result;
     }
 
     @Override
     public void close() {
-        this.asyncOpsPool.close();
+        if (this.asyncOpsPool != null) {
+            this.asyncOpsPool.close();
+        }
+    }
+
+    private static ExecutorService createVirtualThreadsPool() {
+        // virtual threads are the preview API of the target release, so the executor is resolved at runtime;
+        // the mode is chosen explicitly, so the silent replacement of the virtual threads by the platform ones is not allowed
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            final Exception cause = ex instanceof InvocationTargetException && ex.getCause() instanceof Exception c ? c : ex;
+            throw new MemCacheException("Virtual threads are not available for async operations: Java 21+ or --enable-preview on Java 19/20 is required", cause);
+        }
+    }
+
+    private static final class CompletedFuture<T> extends CompletableFuture<T> {
+
+        private CompletedFuture(@Nullable T value) {
+            super.complete(value);
+        }
+
+        // the completed futures can be shared between the callers, so their result must not be replaced
+        @Override
+        public void obtrudeValue(T value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void obtrudeException(Throwable ex) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class BoundedExecutor implements Executor {
+
+        private final Executor executor;
+        private final Semaphore permits;
+        private final Queue<Runnable> pendingTasks;
+
+        private BoundedExecutor(@Nonnull Executor executor, @Nonnegative int parallelism) {
+            this.executor = executor;
+            this.permits = new Semaphore(parallelism);
+            this.pendingTasks = new ConcurrentLinkedQueue<>();
+        }
+
+        @Override
+        public void execute(@Nonnull Runnable command) {
+            // the excess tasks are queued instead of the blocking of the caller or the start of the virtual threads
+            // parked on the semaphore; the queued tasks are started when the running ones release the permits
+            this.pendingTasks.add(command);
+            startPendingTasks();
+        }
+
+        private void startPendingTasks() {
+            // the task is queued before the permit is tried and the permit is released before the queue is checked,
+            // so the queued task is started either by the submitter or by the completed task
+            while (!this.pendingTasks.isEmpty() && this.permits.tryAcquire()) {
+                final Runnable task = this.pendingTasks.poll();
+                if (task == null) {
+                    this.permits.release();
+                    continue;
+                }
+
+                try {
+                    this.executor.execute(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            this.permits.release();
+                            startPendingTasks();
+                        }
+                    });
+                } catch (RuntimeException | Error ex) {
+                    this.permits.release();
+                    throw ex;
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,559 @@
+package ru.joke.memcache.core.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+@ThreadSafe
+final class CacheSegments<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSegments.class);
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B9L;
+    private static final long POSITIONS_COUNT = 1L << Integer.SIZE;
+    private static final int MIN_WRITES_TO_ADAPT = 1024;
+    private static final int SPLIT_CONTENTION_RATIO = 16;
+    private static final int MERGE_CONTENTION_RATIO = 1024;
+    private static final int CALM_PERIODS_TO_MERGE = 8;
+    // the segment split (or merged) recently is not merged, so the segments don't flap when the contention fluctuates
+    private static final int PERIODS_TO_KEEP_REBUILT_SEGMENT = 32;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<CacheSegments, Layout> layoutUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(CacheSegments.class, Layout.class, "layout");
+
+    private final IntFunction<Map<K, MemCacheEntry<K, V>>> segmentFactory;
+    private final Function<LongAdder, EvictionQueue<K, V>> evictionQueueFactory;
+    private final int maxEntries;
+    private final int minDepth;
+    private final int maxDepth;
+    private final AtomicInteger victimsCursor;
+    private final Object rebuildLock;
+
+    private volatile Layout<K, V> layout;
+    private int calmPeriods;
+    private volatile int period;
+
+    CacheSegments(
+            @Nonnull IntFunction<Map<K, MemCacheEntry<K, V>>> segmentFactory,
+            @Nonnull Function<LongAdder, EvictionQueue<K, V>> evictionQueueFactory,
+            @Nonnegative int maxEntries,
+            @Nonnegative int concurrencyLevel,
+            @Nonnegative int maxConcurrencyLevel) {
+        this.segmentFactory = segmentFactory;
+        this.evictionQueueFactory = evictionQueueFactory;
+        this.maxEntries = maxEntries;
+        final int minSegmentsCount = segmentsCountFor(concurrencyLevel, maxEntries);
+        this.minDepth = Integer.numberOfTrailingZeros(minSegmentsCount);
+        this.maxDepth = Math.max(this.minDepth, Integer.numberOfTrailingZeros(segmentsCountFor(maxConcurrencyLevel, maxEntries)));
+        this.victimsCursor = new AtomicInteger();
+        this.rebuildLock = new Object();
+        this.layout = createLayout(new MerkleDigest(false), new TagIndex<>(), new LongAdder());
+    }
+
+    @Nonnull
+    Segment<K, V> segmentFor(final int keyHash) {
+        final Segment<K, V>[] directory = this.layout.directory;
+        return directory[indexFor(keyHash, directory.length)];
+    }
+
+    @Nonnull
+    Segment<K, V> acquire(final int keyHash) {
+        return acquire(keyHash, true);
+    }
+
+    // the consistent reads of the entries are coordinated with the rebuilding too, but they are not counted as writes
+    @Nonnull
+    Segment<K, V> acquireForRead(final int keyHash) {
+        return acquire(keyHash, false);
+    }
+
+    // the segment is acquired once for the batch of its entries, and the batch is consumed after the release,
+    // so the consumer can write to the cache while the rebuilding awaits the readers;
+    // the segments are walked by the ranges of the positions of the keys, so the layout can be changed between the batches
+    <T> void forEachBatch(
+            @Nonnull Function<MemCacheEntry<K, V>, T> reader,
+            @Nonnull Consumer<List<T>> batchConsumer) {
+        long position = 0;
+        while (position < POSITIONS_COUNT) {
+            final Segment<K, V> segment = acquireAt(position, false);
+            final List<T> batch = new ArrayList<>(segment.entries.size());
+            final long rangeSize = POSITIONS_COUNT >>> segment.depth;
+            final long rangeStart = position & -rangeSize;
+            try {
+                for (final MemCacheEntry<K, V> entry : segment.entries.values()) {
+                    // the beginning of the range of the merged segment was visited with the replaced segments
+                    if (rangeStart == position || positionOf(entry.key().hashCode()) >= position) {
+                        batch.add(reader.apply(entry));
+                    }
+                }
+            } finally {
+                segment.release();
+            }
+
+            batchConsumer.accept(batch);
+            position = rangeStart + rangeSize;
+        }
+    }
+
+    private Segment<K, V> acquire(final int keyHash, final boolean write) {
+        return acquireAt(positionOf(keyHash), write);
+    }
+
+    private Segment<K, V> acquireAt(final long position, final boolean write) {
+        while (true) {
+            final Segment<K, V>[] directory = this.layout.directory;
+            final Segment<K, V> segment = directory[indexAt(position, directory.length)];
+            if (segment.enter(write)) {
+                return segment;
+            }
+
+            // the segment is frozen by the rebuilding: new segments are published when the lock is released
+            synchronized (this.rebuildLock) {
+                logger.trace("Segments rebuilding was awaited");
+            }
+        }
+    }
+
+    @Nonnull
+    Segment<K, V>[] segments() {
+        return this.layout.segments;
+    }
+
+    // the segments are visited in turn by the evictions, when the segment of the writer has no victims
+    @Nonnull
+    Segment<K, V> nextSegment() {
+        final Segment<K, V>[] segments = this.layout.segments;
+        return segments[(this.victimsCursor.getAndIncrement() & Integer.MAX_VALUE) % segments.length];
+    }
+
+    @Nonnegative
+    long queuedCount() {
+        return this.layout.segments[0].queuedCount.sum();
+    }
+
+    @Nonnull
+    MerkleDigest digest() {
+        return this.layout.segments[0].digest;
+    }
+
+    @Nonnull
+    TagIndex<K> tagIndex() {
+        return this.layout.segments[0].tagIndex;
+    }
+
+    @Nonnegative
+    int size() {
+        int count = 0;
+        for (final Segment<K, V> segment : this.layout.segments) {
+            count += segment.entries.size();
+        }
+
+        return count;
+    }
+
+    @Nonnull
+    Segment<K, V>[] clear() {
+        // the next generation is published at once; operations already started on the previous one complete on it,
+        // rebuilding of the previous generation (if any) will fail to publish its result
+        final Segment<K, V>[] segments = this.layout.segments;
+        this.layout = createLayout(new MerkleDigest(segments[0].digest.keysIndexed()), new TagIndex<>(), new LongAdder());
+        return segments;
+    }
+
+    boolean adapt() {
+        final int period = ++this.period;
+        final Segment<K, V>[] segments = this.layout.segments;
+
+        long writes = 0;
+        long contendedWrites = 0;
+        Segment<K, V> mostContended = null;
+        long mostContendedWrites = 0;
+        Segment<K, V> coldest = null;
+        long coldestWrites = Long.MAX_VALUE;
+        for (final Segment<K, V> segment : segments) {
+            final long segmentWrites = segment.writes.sumThenReset();
+            final long segmentContendedWrites = segment.contendedWrites.sumThenReset();
+            writes += segmentWrites;
+            contendedWrites += segmentContendedWrites;
+
+            // only the contended segment is split, the others are kept as is
+            if (segmentWrites >= MIN_WRITES_TO_ADAPT
+                    && segmentContendedWrites * SPLIT_CONTENTION_RATIO >= segmentWrites
+                    && segmentContendedWrites > mostContendedWrites
+                    && segment.depth < this.maxDepth) {
+                mostContended = segment;
+                mostContendedWrites = segmentContendedWrites;
+            }
+
+            if (segment.depth > this.minDepth
+                    && period - segment.rebuiltAt >= PERIODS_TO_KEEP_REBUILT_SEGMENT
+                    && segmentWrites < coldestWrites) {
+                coldest = segment;
+                coldestWrites = segmentWrites;
+            }
+        }
+
+        if (writes < MIN_WRITES_TO_ADAPT) {
+            return false;
+        } else if (mostContended != null) {
+            this.calmPeriods = 0;
+            logger.debug("Contention was detected (writes {}, contended writes {}), segment will be split: {}", writes, contendedWrites, mostContendedWrites);
+            return split(mostContended);
+        } else if (contendedWrites * MERGE_CONTENTION_RATIO >= writes) {
+            this.calmPeriods = 0;
+            return false;
+        } else if (++this.calmPeriods >= CALM_PERIODS_TO_MERGE && coldest != null) {
+            this.calmPeriods = 0;
+            logger.debug("No contention was detected, the coldest segment will be merged: {}", segments.length);
+            return merge(coldest);
+        }
+
+        return false;
+    }
+
+    boolean split(@Nonnull final Segment<K, V> segment) {
+        synchronized (this.rebuildLock) {
+            final Layout<K, V> layout = this.layout;
+            if (segment.depth >= this.maxDepth || indexOf(layout.directory, segment) < 0) {
+                return false;
+            }
+
+            // the writers of the split segment are blocked while its entries are copied to the new segments;
+            // the other segments are not changed, so their writers and all readers continue to work
+            freeze(segment);
+
+            final Segment<K, V>[] directory =
+                    segment.depth == depthOf(layout.directory)
+                            ? expand(layout.directory)
+                            : layout.directory.clone();
+            final int from = indexOf(directory, segment);
+            final int half = (directory.length >> segment.depth) >> 1;
+            Arrays.fill(directory, from, from + half, createSegment(segment.depth + 1, segment));
+            Arrays.fill(directory, from + half, from + 2 * half, createSegment(segment.depth + 1, segment));
+
+            transfer(segment, directory);
+            return publish(layout, directory);
+        }
+    }
+
+    boolean merge(@Nonnull final Segment<K, V> segment) {
+        synchronized (this.rebuildLock) {
+            final Layout<K, V> layout = this.layout;
+            final int from = indexOf(layout.directory, segment);
+            if (segment.depth <= this.minDepth || from < 0) {
+                return false;
+            }
+
+            // the segment is merged with its buddy: the segment of the same depth which differs by the last bit of the prefix
+            final int span = layout.directory.length >> segment.depth;
+            final int buddyFrom = (from / span) % 2 == 0 ? from + span : from - span;
+            final Segment<K, V> buddy = layout.directory[buddyFrom];
+            if (buddy.depth != segment.depth) {
+                return false;
+            }
+
+            freeze(segment);
+            freeze(buddy);
+
+            Segment<K, V>[] directory = layout.directory.clone();
+            Arrays.fill(directory, Math.min(from, buddyFrom), Math.min(from, buddyFrom) + 2 * span, createSegment(segment.depth - 1, segment));
+
+            transfer(segment, directory);
+            transfer(buddy, directory);
+
+            while (depthOf(directory) > this.minDepth && canBeShrunk(directory)) {
+                directory = shrink(directory);
+            }
+
+            return publish(layout, directory);
+        }
+    }
+
+    void indexKeysOfRanges() {
+        synchronized (this.rebuildLock) {
+            final Layout<K, V> layout = this.layout;
+            final MerkleDigest digest = layout.segments[0].digest;
+            if (digest.keysIndexed()) {
+                return;
+            }
+
+            // the keys are indexed while writers are blocked, so the changes of the entries after the indexing are indexed by the digest itself;
+            // the frozen segments can't be unfrozen, so the entries are moved to the new segments of the same depths
+            for (final Segment<K, V> segment : layout.segments) {
+                freeze(segment);
+            }
+
+            final Segment<K, V>[] directory = layout.directory.clone();
+            for (final Segment<K, V> segment : layout.segments) {
+                final int from = indexOf(directory, segment);
+                Arrays.fill(directory, from, from + (directory.length >> segment.depth), createSegment(segment.depth, segment));
+                transfer(segment, directory);
+            }
+
+            final List<K> keys = new ArrayList<>();
+            for (final Segment<K, V> segment : distinct(directory)) {
+                for (final MemCacheEntry<K, V> entry : segment.entries.values()) {
+                    if (entry.version != 0) {
+                        keys.add(entry.key());
+                    }
+                }
+            }
+
+            digest.indexKeys(keys);
+
+            if (!publish(layout, directory)) {
+                logger.debug("Segments were cleared while indexing, indexed segments are discarded");
+            }
+        }
+    }
+
+    private boolean publish(final Layout<K, V> layout, final Segment<K, V>[] directory) {
+        if (!layoutUpdater.compareAndSet(this, layout, new Layout<>(directory, distinct(directory)))) {
+            logger.debug("Segments were cleared while rebuilding, rebuilt segments are discarded");
+            return false;
+        }
+
+        return true;
+    }
+
+    private void transfer(final Segment<K, V> segment, final Segment<K, V>[] directory) {
+        final int directorySize = directory.length;
+        for (final MemCacheEntry<K, V> entry : segment.entries.values()) {
+            final K key = entry.key();
+            directory[indexFor(key.hashCode(), directorySize)].entries.put(key, entry);
+        }
+
+        // the readers of the frozen segment still can touch its queue, so the queue is retired by the transfer
+        segment.evictionQueue.transferTo(entry -> directory[indexFor(entry.key().hashCode(), directorySize)].evictionQueue);
+    }
+
+    private void freeze(final Segment<K, V> segment) {
+        segment.frozen = true;
+        segment.awaitWriters();
+    }
+
+    private int indexFor(final int keyHash, final int directorySize) {
+        return indexAt(positionOf(keyHash), directorySize);
+    }
+
+    private int indexAt(final long position, final int directorySize) {
+        // high bits are used, because low bits of the hash are used by the hash tables of segments
+        return directorySize == 1 ? 0 : (int) (position >>> (Integer.SIZE - Integer.numberOfTrailingZeros(directorySize)));
+    }
+
+    private static long positionOf(final int keyHash) {
+        return (keyHash * HASH_MULTIPLIER) & 0xFFFFFFFFL;
+    }
+
+    private Layout<K, V> createLayout(
+            final MerkleDigest digest,
+            final TagIndex<K> tagIndex,
+            final LongAdder queuedCount) {
+        @SuppressWarnings("unchecked")
+        final Segment<K, V>[] directory = new Segment[1 << this.minDepth];
+        for (int i = 0; i < directory.length; i++) {
+            directory[i] = new Segment<>(
+                    this.segmentFactory.apply(this.maxEntries >> this.minDepth),
+                    this.evictionQueueFactory.apply(queuedCount),
+                    digest,
+                    tagIndex,
+                    queuedCount,
+                    this.minDepth,
+                    this.period
+            );
+        }
+
+        return new Layout<>(directory, directory);
+    }
+
+    // the new segment shares the state of the generation with the replaced one
+    private Segment<K, V> createSegment(final int depth, final Segment<K, V> replaced) {
+        return new Segment<>(
+                this.segmentFactory.apply(this.maxEntries >> depth),
+                this.evictionQueueFactory.apply(replaced.queuedCount),
+                replaced.digest,
+                replaced.tagIndex,
+                replaced.queuedCount,
+                depth,
+                this.period
+        );
+    }
+
+    private static <K, V> int indexOf(final Segment<K, V>[] directory, final Segment<K, V> segment) {
+        if (segment.depth > depthOf(directory)) {
+            return -1;
+        }
+
+        for (int i = 0; i < directory.length; i += directory.length >> segment.depth) {
+            if (directory[i] == segment) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int depthOf(final Segment<?, ?>[] directory) {
+        return Integer.numberOfTrailingZeros(directory.length);
+    }
+
+    private static <K, V> Segment<K, V>[] expand(final Segment<K, V>[] directory) {
+        @SuppressWarnings("unchecked")
+        final Segment<K, V>[] result = new Segment[directory.length << 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = directory[i >> 1];
+        }
+
+        return result;
+    }
+
+    private static boolean canBeShrunk(final Segment<?, ?>[] directory) {
+        final int depth = depthOf(directory);
+        for (final Segment<?, ?> segment : directory) {
+            if (segment.depth == depth) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static <K, V> Segment<K, V>[] shrink(final Segment<K, V>[] directory) {
+        @SuppressWarnings("unchecked")
+        final Segment<K, V>[] result = new Segment[directory.length >> 1];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = directory[i << 1];
+        }
+
+        return result;
+    }
+
+    // each segment occupies the contiguous range of the directory
+    private static <K, V> Segment<K, V>[] distinct(final Segment<K, V>[] directory) {
+        final List<Segment<K, V>> segments = new ArrayList<>(directory.length);
+        for (final Segment<K, V> segment : directory) {
+            if (segments.isEmpty() || segments.get(segments.size() - 1) != segment) {
+                segments.add(segment);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        final Segment<K, V>[] result = segments.toArray(new Segment[0]);
+        return result;
+    }
+
+    private static int segmentsCountFor(final int concurrencyLevel, final int maxEntries) {
+        int segmentsCount = Integer.highestOneBit(Math.max(concurrencyLevel, 1));
+        if (segmentsCount < concurrencyLevel) {
+            segmentsCount <<= 1;
+        }
+
+        while (segmentsCount > 1 && maxEntries / segmentsCount < 2) {
+            segmentsCount >>= 1;
+        }
+
+        return segmentsCount;
+    }
+
+    // the directory addresses the segments by the high bits of the hash: the segment of the depth d occupies 2^(D - d)
+    // adjacent cells of the directory of the depth D, so the single segment is split or merged without the others
+    private record Layout<K, V>(@Nonnull Segment<K, V>[] directory, @Nonnull Segment<K, V>[] segments) {
+    }
+
+    @ThreadSafe
+    static final class Segment<K, V> {
+
+        final Map<K, MemCacheEntry<K, V>> entries;
+        final EvictionQueue<K, V> evictionQueue;
+        // shared by all segments of the same generation
+        final MerkleDigest digest;
+        final TagIndex<K> tagIndex;
+        final LongAdder queuedCount;
+        // the count of the high bits of the hash addressing the segment
+        final int depth;
+        // the period of the adaptation when the segment was created
+        final int rebuiltAt;
+
+        private final AtomicInteger activeWriters;
+        private final LongAdder writes;
+        private final LongAdder contendedWrites;
+        private volatile boolean frozen;
+
+        private Segment(
+                @Nonnull Map<K, MemCacheEntry<K, V>> entries,
+                @Nonnull EvictionQueue<K, V> evictionQueue,
+                @Nonnull MerkleDigest digest,
+                @Nonnull TagIndex<K> tagIndex,
+                @Nonnull LongAdder queuedCount,
+                @Nonnegative int depth,
+                int rebuiltAt) {
+            this.entries = entries;
+            this.evictionQueue = evictionQueue;
+            this.digest = digest;
+            this.tagIndex = tagIndex;
+            this.queuedCount = queuedCount;
+            this.depth = depth;
+            this.rebuiltAt = rebuiltAt;
+            this.activeWriters = new AtomicInteger();
+            this.writes = new LongAdder();
+            this.contendedWrites = new LongAdder();
+        }
+
+        void release() {
+            // the counter is decremented before the flag is read, and the rebuilding sets the flag before it reads the counter,
+            // so either the rebuilding sees the released writer or the last writer sees the frozen segment and wakes it up
+            if (this.activeWriters.decrementAndGet() == 0 && this.frozen) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        private boolean enter(final boolean write) {
+            if (this.activeWriters.getAndIncrement() > 0 && write) {
+                this.contendedWrites.increment();
+            }
+
+            if (this.frozen) {
+                release();
+                return false;
+            }
+
+            if (write) {
+                this.writes.increment();
+            }
+
+            return true;
+        }
+
+        private synchronized void awaitWriters() {
+            boolean interrupted = false;
+            while (this.activeWriters.get() > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    // the rebuilding can't be abandoned with the frozen segments, so the interruption is restored after the waiting
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.joke.memcache.core.internal;
+
+import ru.joke.memcache.core.MemCacheException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+@ThreadSafe
+@Immutable
+final class CompressedValue implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int BUFFER_SIZE = 512;
+
+    private final byte[] data;
+
+    private CompressedValue(@Nonnull byte[] data) {
+        this.data = data;
+    }
+
+    @Nonnull
+    static CompressedValue compress(@Nonnull Serializable value) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream(BUFFER_SIZE);
+            try (final ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(result, deflater, BUFFER_SIZE))) {
+                out.writeObject(value);
+            }
+
+            return new CompressedValue(result.toByteArray());
+        } catch (IOException ex) {
+            throw new MemCacheException("Unable to compress value", ex);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Nonnull
+    Serializable decompress() {
+        final Inflater inflater = new Inflater();
+        try (final ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(this.data), inflater, BUFFER_SIZE))) {
+            return (Serializable) in.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new MemCacheException("Unable to decompress value", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    int size() {
+        return this.data.length;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedValue{" +
+                "size=" + size() +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package ru.joke.memcache.core.internal;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@ThreadSafe
+final class CompressingValuesCodec extends ValuesCodec {
+
+    // direct-mapped cache by identity of the compressed value: replaced value can never be returned from it
+    private final AtomicReferenceArray<DecompressedValue> decompressedValues;
+    private final int mask;
+
+    CompressingValuesCodec(@Nonnegative int decompressedValuesCacheSize) {
+        if (decompressedValuesCacheSize == 0) {
+            this.decompressedValues = null;
+            this.mask = 0;
+        } else {
+            final int capacity = Integer.highestOneBit(Math.max(decompressedValuesCacheSize - 1, 1)) << 1;
+            this.decompressedValues = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+    }
+
+    @Nonnull
+    @Override
+    <V extends Serializable> V encode(@Nonnull V value) {
+        if (value instanceof CompressedValue) {
+            return value;
+        }
+
+        final CompressedValue compressedValue = CompressedValue.compress(value);
+        // just written value will be probably read soon
+        storeDecompressedValue(compressedValue, value);
+
+        @SuppressWarnings("unchecked")
+        final V result = (V) compressedValue;
+        return result;
+    }
+
+    @Nonnull
+    @Override
+    <V extends Serializable> V decode(@Nonnull V storedValue) {
+        if (!(storedValue instanceof CompressedValue compressedValue)) {
+            return storedValue;
+        }
+
+        final Serializable cachedValue = findDecompressedValue(compressedValue);
+        if (cachedValue != null) {
+            @SuppressWarnings("unchecked")
+            final V result = (V) cachedValue;
+            return result;
+        }
+
+        final Serializable value = compressedValue.decompress();
+        storeDecompressedValue(compressedValue, value);
+
+        @SuppressWarnings("unchecked")
+        final V result = (V) value;
+        return result;
+    }
+
+    @Nonnull
+    @Override
+    <V extends Serializable> V adopt(@Nonnull V restoredValue) {
+        return encode(restoredValue);
+    }
+
+    private Serializable findDecompressedValue(final CompressedValue compressedValue) {
+        if (this.decompressedValues == null) {
+            return null;
+        }
+
+        final DecompressedValue decompressedValue = this.decompressedValues.get(indexOf(compressedValue));
+        return decompressedValue != null && decompressedValue.source() == compressedValue ? decompressedValue.value() : null;
+    }
+
+    private void storeDecompressedValue(final CompressedValue compressedValue, final Serializable value) {
+        if (this.decompressedValues != null) {
+            this.decompressedValues.set(indexOf(compressedValue), new DecompressedValue(compressedValue, value));
+        }
+    }
+
+    private int indexOf(final CompressedValue compressedValue) {
+        final int hash = System.identityHashCode(compressedValue);
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    private record DecompressedValue(@Nonnull CompressedValue source, @Nonnull Serializable value) {
+    }
+}
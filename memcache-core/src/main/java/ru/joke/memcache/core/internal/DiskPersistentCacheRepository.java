@@ -31,14 +31,26 @@ final class DiskPersistentCacheRepository extends PersistentCacheRepository {
     private static final String MEM_CACHE_DIR = "memcache";
     private static final String STORE_EXTENSION = ".bin";
 
+    // the legacy stores start with the non-negative count of the entries, so the negative marker distinguishes the formats
+    private static final int FORMAT_MARKER = 0xCAC4E5F0;
+    // the second version stores the time of the queuing of the entries
+    private static final byte FORMAT_VERSION = 2;
+
+    private static final byte STRING_KEY_TYPE = 1;
+    private static final byte OBJECT_KEY_TYPE = 2;
+    private static final byte LONG_KEY_TYPE = 3;
+    private static final byte INT_KEY_TYPE = 4;
+
     private final PersistentStoreConfiguration persistentConfiguration;
-    private final EntryMetadataFactory metadataFactory;
+    private final MemCacheEntryFactory entryFactory;
+    private final boolean legacyFrequencyStored;
     private final File dataStore;
 
     DiskPersistentCacheRepository(
             @Nonnull CacheConfiguration cacheConfiguration,
-            @Nonnull EntryMetadataFactory metadataFactory) {
-        this.metadataFactory = metadataFactory;
+            @Nonnull MemCacheEntryFactory entryFactory) {
+        this.entryFactory = entryFactory;
+        this.legacyFrequencyStored = cacheConfiguration.evictionPolicy() == CacheConfiguration.EvictionPolicy.LFU;
         this.persistentConfiguration = cacheConfiguration.persistentStoreConfiguration().orElseThrow(() -> new MemCacheException("Store configuration must be provided"));
         this.dataStore =
                 this.persistentConfiguration.location() == null
@@ -77,41 +89,102 @@ final class DiskPersistentCacheRepository extends PersistentCacheRepository {
             return Collections.emptySet();
         }
 
+        if (!this.dataStore.isFile()) {
+            logger.warn("Store is not a regular file, it will be ignored: {}", this.dataStore);
+            return Collections.emptySet();
+        } else if (this.dataStore.length() == 0) {
+            logger.info("Empty data was stored before");
+            deleteDataStoreIfPossible();
+            return Collections.emptySet();
+        }
+
+        final Set<MemCacheEntry<K, V>> entries;
         try (final FileChannel fileChannel = openDataStoreFileReadChannel();
              final ObjectInput in = new ObjectInputChannel(fileChannel)) {
+            entries = readFrom(in);
+        } catch (IOException | ClassNotFoundException | IllegalArgumentException ex) {
+            // the unreadable store can't be restored by any version, so the cache starts empty
+            logger.error("Unable to deserialize entries, store will be ignored: " + this.dataStore, ex);
+            deleteDataStoreIfPossible();
+            return Collections.emptySet();
+        }
 
-            if (in.available() < 0) {
-                logger.info("Empty data was stored before");
-                return Collections.emptySet();
-            }
+        // the store of the unsupported version is kept (the exception is thrown before), so it can be restored by the newer version of the library
+        deleteDataStoreIfPossible();
+        logger.info("{} entries was restored", entries.size());
 
-            final int capacity = in.readInt();
-            logger.debug("{} entries will be restored", capacity);
-            final Set<MemCacheEntry<K, V>> entries = new HashSet<>(capacity, 1);
+        return entries;
+    }
 
-            while (in.available() > 0) {
-                final byte keyType = in.readByte();
-                @SuppressWarnings("unchecked")
-                final K key = (K) (keyType == 1 ? in.readUTF() : in.readObject());
+    private <K extends Serializable, V extends Serializable> Set<MemCacheEntry<K, V>> readFrom(final ObjectInput in) throws IOException, ClassNotFoundException {
+        final int marker = in.readInt();
+        if (marker >= 0) {
+            logger.info("Store of the legacy format will be restored: {}", this.dataStore);
+            return readLegacyEntriesFrom(in, marker);
+        } else if (marker != FORMAT_MARKER) {
+            throw new StreamCorruptedException("Unknown format of the store: " + this.dataStore);
+        }
 
-                final EntryMetadata<?, K> metadata = this.metadataFactory.create(key);
-                metadata.restoreMetadata(in);
+        final byte version = in.readByte();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new MemCacheException("Unsupported version of the store format " + version + ": " + this.dataStore);
+        }
 
-                @SuppressWarnings("unchecked")
-                final V value = (V) in.readObject();
+        return readEntriesFrom(in, version > 1);
+    }
 
-                entries.add(new MemCacheEntry<>(value, metadata));
-            }
+    private <K extends Serializable, V extends Serializable> Set<MemCacheEntry<K, V>> readEntriesFrom(
+            final ObjectInput in,
+            final boolean queuingTimeStored) throws IOException, ClassNotFoundException {
+        final int capacity = in.readInt();
+        logger.debug("{} entries will be restored", capacity);
+        final Set<MemCacheEntry<K, V>> entries = new HashSet<>(capacity, 1);
+
+        while (in.available() > 0) {
+            final byte keyType = in.readByte();
+            @SuppressWarnings("unchecked")
+            final K key = (K) switch (keyType) {
+                case STRING_KEY_TYPE -> in.readUTF();
+                case LONG_KEY_TYPE -> in.readLong();
+                case INT_KEY_TYPE -> in.readInt();
+                default -> in.readObject();
+            };
+
+            @SuppressWarnings("unchecked")
+            final V value = (V) in.readObject();
+
+            final MemCacheEntry<K, V> entry = this.entryFactory.create(key, value);
+            entry.restoreMetadata(in, queuingTimeStored);
+
+            entries.add(entry);
+        }
 
-            logger.info("{} entries was restored", entries.size());
+        return entries;
+    }
 
-            return entries;
-        } catch (IOException | ClassNotFoundException ex) {
-            logger.error("Unable to deserialize entries", ex);
-            return Collections.emptySet();
-        } finally {
-            deleteDataStoreIfPossible();
+    private <K extends Serializable, V extends Serializable> Set<MemCacheEntry<K, V>> readLegacyEntriesFrom(final ObjectInput in, final int capacity) throws IOException, ClassNotFoundException {
+        logger.debug("{} entries will be restored", capacity);
+        final Set<MemCacheEntry<K, V>> entries = new HashSet<>(capacity, 1);
+
+        while (in.available() > 0) {
+            // the legacy layout: only string and object keys, the metadata is stored before the value
+            final byte keyType = in.readByte();
+            @SuppressWarnings("unchecked")
+            final K key = (K) (keyType == STRING_KEY_TYPE ? in.readUTF() : in.readObject());
+
+            final long idleTime = in.readLong();
+            final long frequency = this.legacyFrequencyStored ? in.readLong() : 0;
+
+            @SuppressWarnings("unchecked")
+            final V value = (V) in.readObject();
+
+            final MemCacheEntry<K, V> entry = this.entryFactory.create(key, value);
+            entry.restoreLegacyMetadata(idleTime, frequency);
+
+            entries.add(entry);
         }
+
+        return entries;
     }
 
     private void deleteDataStoreIfPossible() {
@@ -147,40 +220,50 @@ final class DiskPersistentCacheRepository extends PersistentCacheRepository {
     private FileChannel openDataStoreFileWriteChannel() throws IOException {
         return FileChannel.open(
                 this.dataStore.toPath(),
-                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
         );
     }
 
     private FileChannel openDataStoreFileReadChannel() throws IOException {
-        return FileChannel.open(
-                this.dataStore.toPath(),
-                StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE
-        );
+        return FileChannel.open(this.dataStore.toPath(), StandardOpenOption.READ);
     }
 
     private <K extends Serializable, V extends Serializable> void writeTo(
             final ObjectOutput output,
             final Collection<MemCacheEntry<K, V>> entries) throws IOException {
 
+        output.writeInt(FORMAT_MARKER);
+        output.writeByte(FORMAT_VERSION);
         output.writeInt(entries.size());
         for (final MemCacheEntry<?, ?> entry : entries) {
             // A small optimization for strings: the vast majority of cache keys are strings. readUTF is more efficient than readObject for strings.
-            final Object key = entry.metadata().key();
-            final int keyType = getKeyType(key);
+            // The same for primitive keys of the caches with int / long keys.
+            final Object key = entry.key();
+            final byte keyType = getKeyType(key);
             output.writeByte(keyType);
 
-            if (keyType == 1) {
-                output.writeUTF(key.toString());
-            } else {
-                output.writeObject(key);
+            switch (keyType) {
+                case STRING_KEY_TYPE -> output.writeUTF(key.toString());
+                case LONG_KEY_TYPE -> output.writeLong((Long) key);
+                case INT_KEY_TYPE -> output.writeInt((Integer) key);
+                default -> output.writeObject(key);
             }
 
-            entry.metadata().storeMetadata(output);
             output.writeObject(entry.value());
+            entry.storeMetadata(output);
         }
     }
 
-    private int getKeyType(final Object key) {
-        return key.getClass() == String.class ? 1 : 2;
+    private byte getKeyType(final Object key) {
+        final Class<?> keyClass = key.getClass();
+        if (keyClass == String.class) {
+            return STRING_KEY_TYPE;
+        } else if (keyClass == Long.class) {
+            return LONG_KEY_TYPE;
+        } else if (keyClass == Integer.class) {
+            return INT_KEY_TYPE;
+        }
+
+        return OBJECT_KEY_TYPE;
     }
 }
@@ -0,0 +1,448 @@
+package ru.joke.memcache.core.internal;
+
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+@ThreadSafe
+abstract class EvictionQueue<K, V> {
+
+    protected final ReentrantLock lock = new ReentrantLock();
+    // shared by the queues of all segments of the same generation, so the overflow of the cache is checked without the locks
+    private final LongAdder queuedCount;
+    private volatile int size;
+    // the retired queue belongs to the segment replaced by the rebuilding, its operations are ignored
+    private boolean retired;
+
+    protected EvictionQueue(@Nonnull LongAdder queuedCount) {
+        this.queuedCount = queuedCount;
+    }
+
+    @Nonnull
+    static <K, V> EvictionQueue<K, V> create(
+            @Nonnull CacheConfiguration.EvictionPolicy policy,
+            @Nonnull LongAdder queuedCount) {
+        return switch (policy) {
+            case FIFO -> new LinkedEvictionQueue<>(queuedCount, false, false);
+            case LIFO -> new LinkedEvictionQueue<>(queuedCount, false, true);
+            case LRU -> new LinkedEvictionQueue<>(queuedCount, true, false);
+            case MRU -> new LinkedEvictionQueue<>(queuedCount, true, true);
+            case LFU -> new LFUEvictionQueue<>(queuedCount);
+        };
+    }
+
+    @Nonnegative
+    int size() {
+        return this.size;
+    }
+
+    void add(@Nonnull MemCacheEntry<K, V> entry) {
+        this.lock.lock();
+        try {
+            if (!this.retired && !isQueued(entry)) {
+                entry.queuedAt = System.nanoTime();
+                link(entry);
+                this.size++;
+                this.queuedCount.increment();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    boolean remove(@Nonnull MemCacheEntry<K, V> entry) {
+        this.lock.lock();
+        try {
+            if (this.retired || !isQueued(entry)) {
+                return false;
+            }
+
+            unlink(entry);
+            this.size--;
+            this.queuedCount.decrement();
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void onAccess(@Nonnull MemCacheEntry<K, V> entry) {
+        if (!accessOrdered()) {
+            return;
+        }
+
+        // readers never wait for the lock: the access is recorded by the entry itself and is applied by the next reordering,
+        // so only the reordering is skipped under contention
+        recordAccess(entry);
+        if (!this.lock.tryLock()) {
+            return;
+        }
+
+        try {
+            if (!this.retired && isQueued(entry)) {
+                entry.queuedAt = System.nanoTime();
+                reorder(entry);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Nullable
+    MemCacheEntry<K, V> victim() {
+        this.lock.lock();
+        try {
+            return this.retired ? null : findVictim();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void transferTo(@Nonnull Function<MemCacheEntry<K, V>, EvictionQueue<K, V>> targetQueues) {
+        this.lock.lock();
+        try {
+            // the entries are moved in the order of the queue, so their relative order is kept in the target queues
+            MemCacheEntry<K, V> entry;
+            while ((entry = first()) != null) {
+                unlink(entry);
+                targetQueues.apply(entry).adopt(entry);
+            }
+
+            this.queuedCount.add(-this.size);
+            this.size = 0;
+            this.retired = true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void adopt(final MemCacheEntry<K, V> entry) {
+        this.lock.lock();
+        try {
+            // the time of the queuing is kept, so the victims of the target queues are ordered as in the source queue
+            link(entry);
+            this.size++;
+            this.queuedCount.increment();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Nonnull
+    abstract Comparator<MemCacheEntry<K, V>> restoreOrder();
+
+    protected abstract boolean accessOrdered();
+
+    protected void recordAccess(MemCacheEntry<K, V> entry) {
+    }
+
+    protected abstract boolean isQueued(MemCacheEntry<K, V> entry);
+
+    protected abstract void link(MemCacheEntry<K, V> entry);
+
+    protected abstract void unlink(MemCacheEntry<K, V> entry);
+
+    protected abstract void reorder(MemCacheEntry<K, V> entry);
+
+    protected abstract MemCacheEntry<K, V> findVictim();
+
+    protected abstract MemCacheEntry<K, V> first();
+
+    private static <K, V> Comparator<MemCacheEntry<K, V>> byQueuingTime() {
+        // nano time can overflow, so only the difference of the values is compared
+        return (e1, e2) -> Long.signum(e1.queuedAt - e2.queuedAt);
+    }
+
+    static final class FrequencyBucket<K, V> {
+
+        final long frequency;
+
+        private MemCacheEntry<K, V> head;
+        private MemCacheEntry<K, V> tail;
+        private FrequencyBucket<K, V> prev;
+        private FrequencyBucket<K, V> next;
+
+        FrequencyBucket(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    @ThreadSafe
+    static class LinkedEvictionQueue<K, V> extends EvictionQueue<K, V> {
+
+        private final boolean accessOrdered;
+        private final boolean evictNewest;
+
+        private MemCacheEntry<K, V> head;
+        private MemCacheEntry<K, V> tail;
+
+        LinkedEvictionQueue(@Nonnull LongAdder queuedCount, boolean accessOrdered, boolean evictNewest) {
+            super(queuedCount);
+            this.accessOrdered = accessOrdered;
+            this.evictNewest = evictNewest;
+        }
+
+        @Nonnull
+        @Override
+        Comparator<MemCacheEntry<K, V>> restoreOrder() {
+            // the order of FIFO / LIFO queues doesn't depend on the accesses, so the entries are restored in the order of the queuing
+            return this.accessOrdered ? Comparator.comparingLong(MemCacheEntry::lastAccessed) : byQueuingTime();
+        }
+
+        @Override
+        protected boolean accessOrdered() {
+            return this.accessOrdered;
+        }
+
+        @Override
+        protected boolean isQueued(MemCacheEntry<K, V> entry) {
+            return entry.prev != null || this.head == entry;
+        }
+
+        @Override
+        protected void link(MemCacheEntry<K, V> entry) {
+            final MemCacheEntry<K, V> tail = this.tail;
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                this.head = entry;
+            } else {
+                tail.next = entry;
+            }
+
+            this.tail = entry;
+        }
+
+        @Override
+        protected void unlink(MemCacheEntry<K, V> entry) {
+            final MemCacheEntry<K, V> prev = entry.prev;
+            final MemCacheEntry<K, V> next = entry.next;
+            if (prev == null) {
+                this.head = next;
+            } else {
+                prev.next = next;
+            }
+
+            if (next == null) {
+                this.tail = prev;
+            } else {
+                next.prev = prev;
+            }
+
+            entry.prev = null;
+            entry.next = null;
+        }
+
+        @Override
+        protected void reorder(MemCacheEntry<K, V> entry) {
+            if (this.tail != entry) {
+                unlink(entry);
+                link(entry);
+            }
+        }
+
+        @Override
+        protected MemCacheEntry<K, V> findVictim() {
+            return this.evictNewest ? this.tail : this.head;
+        }
+
+        @Override
+        protected MemCacheEntry<K, V> first() {
+            return this.head;
+        }
+    }
+
+    @ThreadSafe
+    static class LFUEvictionQueue<K, V> extends EvictionQueue<K, V> {
+
+        private FrequencyBucket<K, V> head;
+        private FrequencyBucket<K, V> tail;
+
+        LFUEvictionQueue(@Nonnull LongAdder queuedCount) {
+            super(queuedCount);
+        }
+
+        @Nonnull
+        @Override
+        Comparator<MemCacheEntry<K, V>> restoreOrder() {
+            final Comparator<MemCacheEntry<K, V>> byFrequency = Comparator.comparingLong(e -> ((MemCacheEntryFactory.LFUEntry<K, V>) e).frequency());
+            return byFrequency.thenComparingLong(MemCacheEntry::lastAccessed);
+        }
+
+        @Override
+        protected boolean accessOrdered() {
+            return true;
+        }
+
+        @Override
+        protected void recordAccess(MemCacheEntry<K, V> entry) {
+            ((MemCacheEntryFactory.LFUEntry<K, V>) entry).recordAccess();
+        }
+
+        @Override
+        protected boolean isQueued(MemCacheEntry<K, V> entry) {
+            final FrequencyBucket<K, V> bucket = ((MemCacheEntryFactory.LFUEntry<K, V>) entry).bucket;
+            return bucket != null && (entry.prev != null || bucket.head == entry);
+        }
+
+        @Override
+        protected void link(MemCacheEntry<K, V> entry) {
+            final MemCacheEntryFactory.LFUEntry<K, V> lfuEntry = (MemCacheEntryFactory.LFUEntry<K, V>) entry;
+            final long frequency = lfuEntry.bucketFrequency() + lfuEntry.drainAccesses();
+
+            // new entries go to the lowest frequency; restored ones are queued in ascending order of frequency, so the search from the tail is short
+            FrequencyBucket<K, V> bucket;
+            if (frequency == 0) {
+                bucket = this.head != null && this.head.frequency == 0 ? this.head : linkBucketAfter(null, 0);
+            } else {
+                bucket = this.tail;
+                while (bucket != null && bucket.frequency > frequency) {
+                    bucket = bucket.prev;
+                }
+
+                if (bucket == null || bucket.frequency != frequency) {
+                    bucket = linkBucketAfter(bucket, frequency);
+                }
+            }
+
+            linkToBucket(lfuEntry, bucket);
+        }
+
+        @Override
+        protected void unlink(MemCacheEntry<K, V> entry) {
+            final MemCacheEntryFactory.LFUEntry<K, V> lfuEntry = (MemCacheEntryFactory.LFUEntry<K, V>) entry;
+            final FrequencyBucket<K, V> bucket = lfuEntry.bucket;
+            unlinkFromBucket(lfuEntry, bucket);
+            if (bucket.head == null) {
+                unlinkBucket(bucket);
+            }
+        }
+
+        @Override
+        protected void reorder(MemCacheEntry<K, V> entry) {
+            final MemCacheEntryFactory.LFUEntry<K, V> lfuEntry = (MemCacheEntryFactory.LFUEntry<K, V>) entry;
+            final long accesses = lfuEntry.drainAccesses();
+            if (accesses == 0) {
+                return;
+            }
+
+            // all the accesses recorded since the last reordering are applied at once, usually it's the single one
+            final FrequencyBucket<K, V> bucket = lfuEntry.bucket;
+            final long frequency = bucket.frequency + accesses;
+
+            FrequencyBucket<K, V> prevBucket = bucket;
+            while (prevBucket.next != null && prevBucket.next.frequency <= frequency) {
+                prevBucket = prevBucket.next;
+            }
+
+            final FrequencyBucket<K, V> nextBucket =
+                    prevBucket.frequency == frequency
+                            ? prevBucket
+                            : linkBucketAfter(prevBucket, frequency);
+
+            unlinkFromBucket(lfuEntry, bucket);
+            if (bucket.head == null) {
+                unlinkBucket(bucket);
+            }
+
+            linkToBucket(lfuEntry, nextBucket);
+        }
+
+        @Override
+        protected MemCacheEntry<K, V> findVictim() {
+            // the accesses not applied because of the contention are applied before the choice, so the victim is never the entry accessed more often
+            MemCacheEntry<K, V> victim = first();
+            for (int i = size(); i > 0 && victim != null && ((MemCacheEntryFactory.LFUEntry<K, V>) victim).hasPendingAccesses(); i--) {
+                reorder(victim);
+                victim = first();
+            }
+
+            return victim;
+        }
+
+        @Override
+        protected MemCacheEntry<K, V> first() {
+            // the entries are moved in ascending order of frequency, so the search of the bucket on linking is short
+            return this.head == null ? null : this.head.head;
+        }
+
+        private FrequencyBucket<K, V> linkBucketAfter(final FrequencyBucket<K, V> prev, final long frequency) {
+            final FrequencyBucket<K, V> bucket = new FrequencyBucket<>(frequency);
+            final FrequencyBucket<K, V> next = prev == null ? this.head : prev.next;
+            bucket.prev = prev;
+            bucket.next = next;
+            if (prev == null) {
+                this.head = bucket;
+            } else {
+                prev.next = bucket;
+            }
+
+            if (next == null) {
+                this.tail = bucket;
+            } else {
+                next.prev = bucket;
+            }
+
+            return bucket;
+        }
+
+        private void unlinkBucket(final FrequencyBucket<K, V> bucket) {
+            final FrequencyBucket<K, V> prev = bucket.prev;
+            final FrequencyBucket<K, V> next = bucket.next;
+            if (prev == null) {
+                this.head = next;
+            } else {
+                prev.next = next;
+            }
+
+            if (next == null) {
+                this.tail = prev;
+            } else {
+                next.prev = prev;
+            }
+
+            bucket.prev = null;
+            bucket.next = null;
+        }
+
+        private void linkToBucket(final MemCacheEntryFactory.LFUEntry<K, V> entry, final FrequencyBucket<K, V> bucket) {
+            final MemCacheEntry<K, V> tail = bucket.tail;
+            entry.prev = tail;
+            entry.next = null;
+            entry.bucket = bucket;
+            if (tail == null) {
+                bucket.head = entry;
+            } else {
+                tail.next = entry;
+            }
+
+            bucket.tail = entry;
+        }
+
+        private void unlinkFromBucket(final MemCacheEntryFactory.LFUEntry<K, V> entry, final FrequencyBucket<K, V> bucket) {
+            final MemCacheEntry<K, V> prev = entry.prev;
+            final MemCacheEntry<K, V> next = entry.next;
+            if (prev == null) {
+                bucket.head = next;
+            } else {
+                prev.next = next;
+            }
+
+            if (next == null) {
+                bucket.tail = prev;
+            } else {
+                next.prev = prev;
+            }
+
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+}
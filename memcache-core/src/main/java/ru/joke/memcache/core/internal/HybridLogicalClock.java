@@ -0,0 +1,27 @@
+package ru.joke.memcache.core.internal;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ThreadSafe
+final class HybridLogicalClock {
+
+    // the timestamp is the physical time in millis in the high bits and the logical counter in the low bits
+    private static final int LOGICAL_BITS = 16;
+
+    private final AtomicLong lastTimestamp = new AtomicLong();
+
+    long now() {
+        final long physicalTimestamp = System.currentTimeMillis() << LOGICAL_BITS;
+        return this.lastTimestamp.updateAndGet(last -> Math.max(physicalTimestamp, last + 1));
+    }
+
+    long timestampBefore(final long millis) {
+        return (System.currentTimeMillis() - millis) << LOGICAL_BITS;
+    }
+
+    void update(final long receivedTimestamp) {
+        final long physicalTimestamp = System.currentTimeMillis() << LOGICAL_BITS;
+        this.lastTimestamp.updateAndGet(last -> Math.max(physicalTimestamp, Math.max(last, receivedTimestamp)));
+    }
+}
@@ -0,0 +1,58 @@
+package ru.joke.memcache.core.internal;
+
+import ru.joke.memcache.core.IntKeyMemCache;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.Optional;
+
+@ThreadSafe
+final class IntKeyMapMemCache<V extends Serializable> extends MapMemCache<Integer, V> implements IntKeyMemCache<V> {
+
+    IntKeyMapMemCache(@Nonnull CacheConfiguration configuration,
+                      @Nonnull AsyncOpsInvoker asyncOpsInvoker,
+                      @Nonnull PersistentCacheRepository persistentCacheRepository,
+                      @Nonnull MemCacheEntryFactory entryFactory) {
+        super(
+                configuration,
+                asyncOpsInvoker,
+                persistentCacheRepository,
+                entryFactory,
+                expectedSize -> new PrimitiveKeysSegment<>(Integer::intValue, expectedSize)
+        );
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> get(final int key) {
+        final CacheSegments.Segment<Integer, V> segment = computeSegment(Integer.hashCode(key));
+        return onRetrieval(segment, ((PrimitiveKeysSegment<Integer, V>) segment.entries).get(key));
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> put(final int key, @Nullable final V value) {
+        // the key object is required only by the events and by the insertion or the removal of the entry
+        final Optional<V> result = value == null ? null : overwritePresent(key, key, value);
+        return result == null ? put(Integer.valueOf(key), value) : result;
+    }
+
+    @Override
+    public Optional<V> putIfAbsent(final int key, @Nullable final V value) {
+        final MemCacheEntry<Integer, V> presentEntry = entries(key).get(key);
+        return presentEntry == null ? putIfAbsent(Integer.valueOf(key), value) : onPutIfAbsentMiss(presentEntry);
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> remove(final int key) {
+        return entries(key).get(key) == null ? onRemovalMiss() : remove(Integer.valueOf(key));
+    }
+
+    private PrimitiveKeysSegment<Integer, V> entries(final int key) {
+        return (PrimitiveKeysSegment<Integer, V>) computeSegment(Integer.hashCode(key)).entries;
+    }
+}
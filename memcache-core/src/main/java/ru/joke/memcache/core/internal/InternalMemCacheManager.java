@@ -2,10 +2,7 @@ package ru.joke.memcache.core.internal;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.joke.memcache.core.LifecycleException;
-import ru.joke.memcache.core.MemCache;
-import ru.joke.memcache.core.MemCacheException;
-import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.*;
 import ru.joke.memcache.core.configuration.CacheConfiguration;
 import ru.joke.memcache.core.configuration.Configuration;
 import ru.joke.memcache.core.configuration.ConfigurationSource;
@@ -24,6 +21,8 @@ public final class InternalMemCacheManager implements MemCacheManager, Closeable
 
     private static final Logger logger = LoggerFactory.getLogger(InternalMemCacheManager.class);
 
+    private static final long SEGMENTATION_ADAPTATION_INTERVAL = 1_000;
+
     private final Map<String, MapMemCache<?, ?>> caches = new ConcurrentHashMap<>();
     private final ConfigurationSource configurationSource;
     private final Configuration configuration;
@@ -68,7 +67,7 @@ public final class InternalMemCacheManager implements MemCacheManager, Closeable
 
             logger.debug("Configuration for initialization {}", configuration);
 
-            this.asyncOpsInvoker = new AsyncOpsInvoker(configuration.asyncCacheOpsParallelismLevel());
+            this.asyncOpsInvoker = new AsyncOpsInvoker(configuration.asyncCacheOpsParallelismLevel(), configuration.asyncCacheOpsMode());
             this.cleaningPoolSize = configuration.cleaningPoolSize();
             this.cleaningThreadPool = Executors.newScheduledThreadPool(this.cleaningPoolSize, new CleaningThreadFactory());
 
@@ -79,6 +78,14 @@ public final class InternalMemCacheManager implements MemCacheManager, Closeable
 
             this.scheduledCleaningTasks = scheduleCleaningTasks(false);
             logger.debug("Cleaning threads was scheduled");
+
+            this.cleaningThreadPool.scheduleWithFixedDelay(
+                    this::adaptSegmentation,
+                    SEGMENTATION_ADAPTATION_INTERVAL,
+                    SEGMENTATION_ADAPTATION_INTERVAL,
+                    TimeUnit.MILLISECONDS
+            );
+            logger.debug("Segmentation adaptation task was scheduled");
         } catch (RuntimeException ex) {
             this.status = ComponentStatus.FAILED;
             logger.error("Unable to initialize cache manager", ex);
@@ -190,19 +197,18 @@ public final class InternalMemCacheManager implements MemCacheManager, Closeable
 
     private boolean createCache(final CacheConfiguration configuration, final boolean rescheduleCleaningTasks) {
 
-        final EntryMetadataFactory metadataFactory = new EntryMetadataFactory(configuration);
+        final MemCacheEntryFactory entryFactory = new MemCacheEntryFactory(configuration);
         final PersistentCacheRepository persistentCacheRepository =
                 configuration.persistentStoreConfiguration()
-                                .map(psc -> new DiskPersistentCacheRepository(configuration, metadataFactory))
+                                .map(psc -> new DiskPersistentCacheRepository(configuration, entryFactory))
                                 .map(PersistentCacheRepository.class::cast)
                                 .orElseGet(PersistentCacheRepository.NoPersistentCacheRepository::new);
 
-        final MapMemCache<?, ?> cache = new MapMemCache<>(
-                configuration,
-                this.asyncOpsInvoker,
-                persistentCacheRepository,
-                metadataFactory
-        );
+        final MapMemCache<?, ?> cache = switch (configuration.keysType()) {
+            case OBJECT -> new MapMemCache<>(configuration, this.asyncOpsInvoker, persistentCacheRepository, entryFactory);
+            case LONG -> new LongKeyMapMemCache<>(configuration, this.asyncOpsInvoker, persistentCacheRepository, entryFactory);
+            case INT -> new IntKeyMapMemCache<>(configuration, this.asyncOpsInvoker, persistentCacheRepository, entryFactory);
+        };
         final boolean newCacheAdded = this.caches.putIfAbsent(cache.name(), cache) == null;
         if (newCacheAdded) {
             cache.initialize();
@@ -216,6 +222,17 @@ public final class InternalMemCacheManager implements MemCacheManager, Closeable
         return newCacheAdded;
     }
 
+    private void adaptSegmentation() {
+        // the exception thrown by the periodic task cancels its next executions, so the failures are only logged
+        for (final MapMemCache<?, ?> cache : this.caches.values()) {
+            try {
+                cache.adaptSegmentation();
+            } catch (RuntimeException ex) {
+                logger.error("Unable to adapt segmentation of cache " + cache.name(), ex);
+            }
+        }
+    }
+
     private List<Future<?>> scheduleCleaningTasks(boolean startImmediately) {
 
         final List<Future<?>> cleaningTasks = new ArrayList<>(this.cleaningPoolSize);
@@ -0,0 +1,58 @@
+package ru.joke.memcache.core.internal;
+
+import ru.joke.memcache.core.LongKeyMemCache;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.Optional;
+
+@ThreadSafe
+final class LongKeyMapMemCache<V extends Serializable> extends MapMemCache<Long, V> implements LongKeyMemCache<V> {
+
+    LongKeyMapMemCache(@Nonnull CacheConfiguration configuration,
+                       @Nonnull AsyncOpsInvoker asyncOpsInvoker,
+                       @Nonnull PersistentCacheRepository persistentCacheRepository,
+                       @Nonnull MemCacheEntryFactory entryFactory) {
+        super(
+                configuration,
+                asyncOpsInvoker,
+                persistentCacheRepository,
+                entryFactory,
+                expectedSize -> new PrimitiveKeysSegment<>(Long::longValue, expectedSize)
+        );
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> get(final long key) {
+        final CacheSegments.Segment<Long, V> segment = computeSegment(Long.hashCode(key));
+        return onRetrieval(segment, ((PrimitiveKeysSegment<Long, V>) segment.entries).get(key));
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> put(final long key, @Nullable final V value) {
+        // the key object is required only by the events and by the insertion or the removal of the entry
+        final Optional<V> result = value == null ? null : overwritePresent(key, Long.hashCode(key), value);
+        return result == null ? put(Long.valueOf(key), value) : result;
+    }
+
+    @Override
+    public Optional<V> putIfAbsent(final long key, @Nullable final V value) {
+        final MemCacheEntry<Long, V> presentEntry = entries(key).get(key);
+        return presentEntry == null ? putIfAbsent(Long.valueOf(key), value) : onPutIfAbsentMiss(presentEntry);
+    }
+
+    @Nonnull
+    @Override
+    public Optional<V> remove(final long key) {
+        return entries(key).get(key) == null ? onRemovalMiss() : remove(Long.valueOf(key));
+    }
+
+    private PrimitiveKeysSegment<Long, V> entries(final long key) {
+        return (PrimitiveKeysSegment<Long, V>) computeSegment(Long.hashCode(key)).entries;
+    }
+}
@@ -9,93 +9,82 @@ import ru.joke.memcache.core.configuration.CacheConfiguration;
 import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
 import ru.joke.memcache.core.events.*;
 import ru.joke.memcache.core.internal.util.CompositeCollection;
+import ru.joke.memcache.core.spi.AntiEntropySupport;
+import ru.joke.memcache.core.spi.MerkleTree;
 import ru.joke.memcache.core.stats.MemCacheStatistics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 @ThreadSafe
-final class MapMemCache<K extends Serializable, V extends Serializable> implements MemCache<K, V> {
+class MapMemCache<K extends Serializable, V extends Serializable> implements MemCache<K, V>, AntiEntropySupport<K, V> {
 
     private static final Logger logger = LoggerFactory.getLogger(MapMemCache.class);
     private static final int ALLOWED_OVERFLOW_NO_LOCK = 1000;
+    // the removals received from the other nodes are remembered to discard the delayed older changes of the removed keys
+    private static final long TOMBSTONES_RETENTION_TIME = TimeUnit.MINUTES.toMillis(1);
 
     private final CacheConfiguration configuration;
     private final AsyncOpsInvoker asyncOpsInvoker;
-    private final EntryMetadataFactory entryMetadataFactory;
-    private final ConcurrentSkipListSet<EntryMetadata<?, K>> entriesMetadata;
+    private final MemCacheEntryFactory entryFactory;
+    private final ValuesCodec valuesCodec;
     private final List<CacheEntryEventListener<K, V>> listeners;
-    private final ThreadLocal<MemCacheEntry<K, V>> oldEntryContainer;
-    private final AtomicInteger metadataCounter;
+    private final ThreadLocal<OperationContext<V>> operationContext;
     private final boolean eternal;
     private final int maxEntries;
     private final PersistentCacheRepository persistentCacheRepository;
     private final InternalMemCacheStatistics statistics;
+    private final CacheSegments<K, V> segments;
+    private final HybridLogicalClock clock;
+    private final Tombstones<K> tombstones;
 
     private volatile long nearestElementExpirationTime;
     private volatile ComponentStatus status;
-    private volatile Map<K, MemCacheEntry<K, V>>[] segments;
 
     MapMemCache(@Nonnull CacheConfiguration configuration,
                 @Nonnull AsyncOpsInvoker asyncOpsInvoker,
                 @Nonnull PersistentCacheRepository persistentCacheRepository,
-                @Nonnull EntryMetadataFactory metadataFactory) {
+                @Nonnull MemCacheEntryFactory entryFactory) {
+        this(configuration, asyncOpsInvoker, persistentCacheRepository, entryFactory, ConcurrentHashMap::new);
+    }
+
+    MapMemCache(@Nonnull CacheConfiguration configuration,
+                @Nonnull AsyncOpsInvoker asyncOpsInvoker,
+                @Nonnull PersistentCacheRepository persistentCacheRepository,
+                @Nonnull MemCacheEntryFactory entryFactory,
+                @Nonnull IntFunction<Map<K, MemCacheEntry<K, V>>> segmentFactory) {
         this.status = ComponentStatus.UNAVAILABLE;
         this.configuration = configuration;
         this.maxEntries = configuration().memoryStoreConfiguration().maxEntries();
-        this.metadataCounter = new AtomicInteger(0);
         this.asyncOpsInvoker = asyncOpsInvoker;
-        this.oldEntryContainer = new ThreadLocal<>();
+        this.operationContext = ThreadLocal.withInitial(OperationContext::new);
         this.persistentCacheRepository = persistentCacheRepository;
         this.eternal = configuration.expirationConfiguration().eternal();
-        this.segments = createSegments();
+        this.segments = new CacheSegments<>(
+                segmentFactory,
+                queuedCount -> EvictionQueue.create(configuration.evictionPolicy(), queuedCount),
+                this.maxEntries,
+                configuration.memoryStoreConfiguration().concurrencyLevel(),
+                configuration.memoryStoreConfiguration().maxConcurrencyLevel()
+        );
         this.listeners = new CopyOnWriteArrayList<>(configuration.eventListeners());
-        this.entryMetadataFactory = metadataFactory;
-        this.statistics = new InternalMemCacheStatistics(() -> {
-            final var segments = this.segments;
-            int count = 0;
-            for (var segment : segments) {
-                count += segment.size();
-            }
-
-            return count;
-        });
-
-        final int maxEntries = configuration.memoryStoreConfiguration().maxEntries();
-        this.entriesMetadata = new ConcurrentSkipListSet<>() {
-            @Override
-            public boolean add(EntryMetadata<?, K> metadata) {
-                if (super.add(metadata)) {
-                    metadataCounter.incrementAndGet();
-                    return true;
-                }
-
-                return false;
-            }
-
-            @Override
-            public boolean remove(Object o) {
-                if (super.remove(o)) {
-                    metadataCounter.decrementAndGet();
-                    return true;
-                }
-
-                return false;
-            }
-        };
+        this.entryFactory = entryFactory;
+        this.valuesCodec = ValuesCodec.create(configuration.memoryStoreConfiguration());
+        this.statistics = new InternalMemCacheStatistics(this.segments::size);
+        this.clock = new HybridLogicalClock();
+        this.tombstones = new Tombstones<>(this.clock, TOMBSTONES_RETENTION_TIME, this.maxEntries);
     }
 
     @Nonnull
@@ -145,17 +134,77 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
     @Nonnull
     @Override
     public Optional<V> get(@Nonnull K key) {
-        final Map<K, MemCacheEntry<K, V>> segment = computeSegment(key);
-        final MemCacheEntry<K, V> entry = segment.get(key);
+        final CacheSegments.Segment<K, V> segment = computeSegment(key.hashCode());
+        return onRetrieval(segment, segment.entries.get(key));
+    }
+
+    @Nonnull
+    final Optional<V> onRetrieval(@Nonnull CacheSegments.Segment<K, V> segment, @Nullable MemCacheEntry<K, V> entry) {
         if (entry == null) {
             this.statistics.onReadOnlyRetrievalMiss();
             return Optional.empty();
         }
 
-        entry.metadata().onUsage();
+        entry.onUsage();
+        segment.evictionQueue.onAccess(entry);
         this.statistics.onReadOnlyRetrievalHit();
 
-        return Optional.of(entry.value());
+        return Optional.of(this.valuesCodec.decode(entry.value()));
+    }
+
+    // the operations with the primitive keys are completed without the boxing of the key when the lookup determines the result
+    @Nonnull
+    final Optional<V> onRemovalMiss() {
+        this.statistics.onRemovalMiss();
+        return Optional.empty();
+    }
+
+    @Nonnull
+    final Optional<V> onPutIfAbsentMiss(@Nonnull MemCacheEntry<K, V> presentEntry) {
+        this.statistics.onPutMiss();
+        return Optional.of(this.valuesCodec.decode(presentEntry.value()));
+    }
+
+    // the overwrite of the present entry with the primitive key: the key object is required only by the events,
+    // so without the listeners the entry is changed in place; null is returned if the entry is absent or the key is required
+    @Nullable
+    final Optional<V> overwritePresent(final long primitiveKey, final int keyHash, @Nonnull V value) {
+        if (!this.listeners.isEmpty()) {
+            return null;
+        }
+
+        final OperationContext<V> context = this.operationContext.get();
+        final CacheSegments.Segment<K, V> segment = this.segments.acquire(keyHash);
+        try {
+            ((PrimitiveKeysSegment<K, V>) segment.entries).computeIfPresent(
+                    primitiveKey,
+                    v -> {
+                        final V currentVal = this.valuesCodec.decode(v.value());
+                        context.oldValue = currentVal;
+                        context.modified = true;
+                        if (!currentVal.equals(value)) {
+                            v.value(this.valuesCodec.encode(value));
+                            segment.digest.onUpdate(keyHash, v.version, context.version = this.clock.now());
+                            v.version = context.version;
+                        }
+
+                        return v;
+                    }
+            );
+        } finally {
+            segment.release();
+        }
+
+        final V oldValue = context.oldValue;
+        final boolean present = context.modified;
+        context.clear();
+
+        if (!present) {
+            return null;
+        }
+
+        this.statistics.onPutHit();
+        return Optional.of(oldValue);
     }
 
     @Nonnull
@@ -175,28 +224,18 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
     @Nonnull
     @Override
     public Optional<V> put(@Nonnull final K key, @Nullable final V value) {
-        final var oldValue = compute(key, (k, v) -> value, true, false);
-        oldValue.ifPresentOrElse(
-                v -> {
-                    if (value == null) {
-                        this.statistics.onRemovalHit();
-                    } else {
-                        this.statistics.onPutHit();
-                    }
-                },
-                () -> {
-                    if (value != null) {
-                        this.statistics.onPutHit();
-                    }
-                }
-        );
+        return putWithTags(key, value, null);
+    }
 
-        return oldValue;
+    @Nonnull
+    @Override
+    public Optional<V> put(@Nonnull K key, @Nullable V value, @Nonnull Set<String> tags) {
+        return putWithTags(key, value, tags);
     }
 
     @Override
     public Optional<V> putIfAbsent(@Nonnull K key, @Nullable V value) {
-        final var oldValue = compute(key, (k, v) -> v == null ? value : v, true, false);
+        final var oldValue = compute(key, (k, v) -> v == null ? value : v, true);
         oldValue.ifPresentOrElse(
                 v -> this.statistics.onPutMiss(),
                 () -> {
@@ -213,15 +252,117 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
     public void clear() {
         logger.debug("Cache cleaning was called: {}", this);
 
-        final Map<K, MemCacheEntry<K, V>>[] newSegments = createSegments();
-        // not atomic, but not terrible for entriesMetadata; floating entries (i.e. trash) added between next two constructions will be removed eventually
-        this.entriesMetadata.clear();
-        this.segments = newSegments;
+        // the previous generation is left to GC as a whole together with its eviction queues and its tag index: the entries
+        // never escape the cache, so the links between them can't retain the generation; the writes completed on the previous
+        // generation concurrently with the cleaning change its own index only
+        this.segments.clear();
 
         final CacheEntriesEvent<K, V> clearEvent = new DefaultCacheEntriesEvent<>(EventType.REMOVED, this);
         this.listeners.forEach(l -> l.onBatchEvent(clearEvent));
     }
 
+    @Override
+    public int removeAll(@Nonnull Collection<? extends K> keys) {
+        final Set<K> removedKeys = new HashSet<>();
+        long batchVersion = 0;
+
+        final OperationContext<V> context = this.operationContext.get();
+        for (final K key : keys) {
+            final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+            try {
+                segment.entries.computeIfPresent(
+                        key,
+                        (k, v) -> {
+                            unlink(segment, k, v);
+                            context.modified = true;
+                            context.version = this.clock.now();
+                            return null;
+                        }
+                );
+            } finally {
+                segment.release();
+            }
+
+            if (context.modified) {
+                removedKeys.add(key);
+                batchVersion = context.version;
+                this.statistics.onRemovalHit();
+            } else {
+                this.statistics.onRemovalMiss();
+            }
+
+            context.clear();
+        }
+
+        if (!removedKeys.isEmpty()) {
+            final CacheEntriesEvent<K, V> removalEvent = new DefaultCacheEntriesEvent<>(EventType.REMOVED, this, Collections.unmodifiableSet(removedKeys), batchVersion);
+            this.listeners.forEach(l -> l.onBatchEvent(removalEvent));
+        }
+
+        return removedKeys.size();
+    }
+
+    @Override
+    public int removeIf(@Nonnull BiPredicate<? super K, ? super V> predicate) {
+        final Set<K> removedKeys = ConcurrentHashMap.newKeySet();
+        final LongAccumulator batchVersion = new LongAccumulator(Math::max, 0);
+
+        Arrays.stream(this.segments.segments())
+                .parallel()
+                .forEach(segment -> removeIf(segment, predicate, removedKeys, batchVersion));
+
+        if (!removedKeys.isEmpty()) {
+            final CacheEntriesEvent<K, V> removalEvent = new DefaultCacheEntriesEvent<>(EventType.REMOVED, this, Collections.unmodifiableSet(removedKeys), batchVersion.get());
+            this.listeners.forEach(l -> l.onBatchEvent(removalEvent));
+        }
+
+        return removedKeys.size();
+    }
+
+    @Override
+    public int invalidateTag(@Nonnull String tag) {
+        final Set<K> removedKeys = new HashSet<>();
+        long batchVersion = 0;
+
+        final OperationContext<V> context = this.operationContext.get();
+        for (final K key : this.segments.tagIndex().keysOf(tag)) {
+            final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+            try {
+                segment.entries.computeIfPresent(
+                        key,
+                        (k, v) -> {
+                            // the key can be retagged after the snapshot of the tagged keys was taken
+                            if (!segment.tagIndex.hasTag(k, tag)) {
+                                return v;
+                            }
+
+                            unlink(segment, k, v);
+                            context.modified = true;
+                            context.version = this.clock.now();
+                            return null;
+                        }
+                );
+            } finally {
+                segment.release();
+            }
+
+            if (context.modified) {
+                removedKeys.add(key);
+                batchVersion = context.version;
+                this.statistics.onRemovalHit();
+            }
+
+            context.clear();
+        }
+
+        if (!removedKeys.isEmpty()) {
+            final CacheEntriesEvent<K, V> removalEvent = new DefaultCacheEntriesEvent<>(EventType.REMOVED, this, Collections.unmodifiableSet(removedKeys), batchVersion);
+            this.listeners.forEach(l -> l.onBatchEvent(removalEvent));
+        }
+
+        return removedKeys.size();
+    }
+
     @Override
     @Nonnull
     public Optional<V> merge(@Nonnull K key, @Nonnull V value, @Nonnull BiFunction<? super V, ? super V, ? extends V> mergeFunction) {
@@ -241,52 +382,65 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
 
                 return newVal;
             }
-        }, false, false);
+        }, false);
     }
 
     @Nonnull
     @Override
     public Optional<V> computeIfAbsent(@Nonnull K key, @Nonnull Function<? super K, ? extends V> valueFunction) {
 
-        final Map<K, MemCacheEntry<K, V>> segment = computeSegment(key);
-        final MemCacheEntry<K, V> resultEntry = segment.computeIfAbsent(
-                key,
-                k -> {
-                    final V value = valueFunction.apply(k);
-                    if (value == null) {
-                        return null;
-                    }
+        final MemCacheEntry<K, V> presentEntry = computeSegment(key.hashCode()).entries.get(key);
+        if (presentEntry != null) {
+            this.statistics.onReadOnlyRetrievalHit();
+            return Optional.of(this.valuesCodec.decode(presentEntry.value()));
+        }
+
+        final OperationContext<V> context = this.operationContext.get();
+        final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+        final MemCacheEntry<K, V> resultEntry;
+        try {
+            resultEntry = segment.entries.computeIfAbsent(
+                    key,
+                    k -> {
+                        final V value = valueFunction.apply(k);
+                        if (value == null) {
+                            return null;
+                        }
 
-                    final MemCacheEntry<K, V> result = new MemCacheEntry<>(
-                            value,
-                            this.entryMetadataFactory.create(k)
-                    );
-                    this.oldEntryContainer.set(result);
+                        final MemCacheEntry<K, V> result = this.entryFactory.create(k, this.valuesCodec.encode(value));
+                        result.version = context.version = this.clock.now();
+                        segment.digest.onChange(k, 0, result.version);
+                        segment.evictionQueue.add(result);
+                        context.newValue = value;
+                        context.modified = true;
 
-                    this.entriesMetadata.add(result.metadata());
-                    return result;
-                }
-        );
+                        return result;
+                    }
+            );
+        } finally {
+            segment.release();
+        }
 
-        final boolean valueComputed = this.oldEntryContainer.get() != null;
-        this.oldEntryContainer.remove();
+        final boolean valueComputed = context.modified;
+        final V computedValue = context.newValue;
+        final long version = context.version;
+        context.clear();
 
         if (resultEntry == null) {
             return Optional.empty();
-        }
-
-        if (!valueComputed) {
+        } else if (!valueComputed) {
             this.statistics.onReadOnlyRetrievalHit();
-            return Optional.of(resultEntry.value());
+            return Optional.of(this.valuesCodec.decode(resultEntry.value()));
         }
 
-        clearEntriesByEvictionPolicyIfOverflow();
+        final Optional<V> newValue = Optional.of(computedValue);
+
+        clearEntriesByEvictionPolicyIfOverflow(segment);
 
         this.statistics.onPutHit();
 
-        final Optional<V> newValue = Optional.of(resultEntry.value());
         final EventType eventType = EventType.ADDED;
-        final var event = new DefaultCacheEntryEvent<>(key, Optional.empty(), newValue, eventType, this);
+        final var event = new DefaultCacheEntryEvent<>(key, Optional.empty(), newValue, eventType, this, version);
         this.listeners.forEach(l -> l.onEvent(event));
 
         return newValue;
@@ -304,7 +458,7 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
             }
 
             return newVal;
-        }, false, false);
+        }, false);
     }
 
     @Nonnull
@@ -325,73 +479,195 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
     @Override
     public boolean replace(@Nonnull K key, @Nullable V oldValue, @Nullable V newValue) {
 
-        final Map<K, MemCacheEntry<K, V>> segment = computeSegment(key);
-        final MemCacheEntry<K, V> newEntry = segment.compute(
-                key,
-                (k, v) -> {
-                    this.oldEntryContainer.set(v);
-
-                    if (v == null && oldValue != null || v != null && !v.value().equals(oldValue)) {
-                        if (newValue != null) {
-                            this.statistics.onPutMiss();
-                        } else {
-                            this.statistics.onRemovalMiss();
+        final OperationContext<V> context = this.operationContext.get();
+        final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+        try {
+            segment.entries.compute(
+                    key,
+                    (k, v) -> {
+                        if (v == null && oldValue != null || v != null && !this.valuesCodec.decode(v.value()).equals(oldValue)) {
+                            if (newValue != null) {
+                                this.statistics.onPutMiss();
+                            } else {
+                                this.statistics.onRemovalMiss();
+                            }
+
+                            return v;
                         }
 
+                        if (newValue == null && v == null) {
+                            return null;
+                        } else if (newValue == null) {
+                            this.statistics.onRemovalHit();
+                            unlink(segment, k, v);
+                            context.modified = true;
+                            context.version = this.clock.now();
+                            return null;
+                        }
+
+                        this.statistics.onPutHit();
+                        context.modified = true;
+                        context.version = this.clock.now();
+                        if (v == null) {
+                            final MemCacheEntry<K, V> result = this.entryFactory.create(k, this.valuesCodec.encode(newValue));
+                            result.version = context.version;
+                            segment.digest.onChange(k, 0, result.version);
+                            segment.evictionQueue.add(result);
+                            return result;
+                        }
+
+                        v.value(this.valuesCodec.encode(newValue));
+                        segment.digest.onChange(k, v.version, context.version);
+                        v.version = context.version;
                         return v;
                     }
+            );
+        } finally {
+            segment.release();
+        }
 
-                    if (newValue == null && v == null) {
-                        return null;
-                    } else if (newValue == null) {
-                        this.statistics.onRemovalHit();
-                        this.entriesMetadata.remove(v.metadata());
-                        return null;
-                    }
+        final boolean replaced = context.modified;
+        final long version = context.version;
+        context.clear();
+        if (!replaced) {
+            return false;
+        }
 
-                    final MemCacheEntry<K, V> result = new MemCacheEntry<>(
-                            newValue,
-                            v == null ? this.entryMetadataFactory.create(k) : v.metadata()
-                    );
+        final EventType eventType = oldValue == null
+                                        ? EventType.ADDED
+                                        : newValue == null
+                                            ? EventType.REMOVED
+                                            : EventType.UPDATED;
+        if (eventType == EventType.ADDED) {
+            clearEntriesByEvictionPolicyIfOverflow(segment);
+        }
 
-                    this.statistics.onPutHit();
-                    if (v == null) {
-                        this.entriesMetadata.add(result.metadata());
-                    }
+        final var event = new DefaultCacheEntryEvent<>(key, oldValue, newValue, eventType, this, version);
+        this.listeners.forEach(l -> l.onEvent(event));
 
-                    return result;
-                }
-        );
+        return true;
+    }
 
-        final MemCacheEntry<K, V> oldEntry = this.oldEntryContainer.get();
-        if (newEntry == oldEntry) {
-            this.oldEntryContainer.remove();
-            return false;
-        }
+    @Override
+    public boolean putIfNewer(@Nonnull K key, @Nullable V value, long version) {
+        this.clock.update(version);
 
+        final OperationContext<V> context = this.operationContext.get();
+        final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
         try {
-            final EventType eventType = oldValue == null
-                                            ? EventType.ADDED
-                                            : newValue == null
-                                                ? EventType.REMOVED
-                                                : EventType.UPDATED;
-            if (eventType == EventType.ADDED) {
-                clearEntriesByEvictionPolicyIfOverflow();
-            }
+            segment.entries.compute(
+                    key,
+                    (k, v) -> {
+                        if (v != null && v.version >= version || v == null && this.tombstones.covers(k, version)) {
+                            return v;
+                        } else if (value == null) {
+                            // the removal leaves the tombstone, so the delayed older change of the key is not able to restore it
+                            this.tombstones.record(k, version);
+                            if (v == null) {
+                                return null;
+                            }
+                        }
 
-            final var event = new DefaultCacheEntryEvent<>(key, oldValue, newValue, eventType, this);
-            this.listeners.forEach(l -> l.onEvent(event));
+                        context.oldValue = v == null ? null : this.valuesCodec.decode(v.value());
+                        context.modified = true;
+                        if (value == null) {
+                            this.statistics.onRemovalHit();
+                            unlink(segment, k, v);
+                            return null;
+                        }
 
-            return true;
+                        this.statistics.onPutHit();
+                        if (v == null) {
+                            this.tombstones.forget(k);
+                            final MemCacheEntry<K, V> result = this.entryFactory.create(k, this.valuesCodec.encode(value));
+                            result.version = version;
+                            segment.digest.onChange(k, 0, version);
+                            segment.evictionQueue.add(result);
+                            return result;
+                        }
+
+                        v.value(this.valuesCodec.encode(value));
+                        segment.digest.onChange(k, v.version, version);
+                        v.version = version;
+                        return v;
+                    }
+            );
         } finally {
-            this.oldEntryContainer.remove();
+            segment.release();
         }
+
+        final boolean applied = context.modified;
+        final V oldValue = context.oldValue;
+        context.clear();
+        if (!applied) {
+            return false;
+        }
+
+        final EventType eventType = oldValue == null
+                                        ? EventType.ADDED
+                                        : value == null
+                                            ? EventType.REMOVED
+                                            : EventType.UPDATED;
+        if (eventType == EventType.ADDED) {
+            clearEntriesByEvictionPolicyIfOverflow(segment);
+        }
+
+        final var event = new DefaultCacheEntryEvent<>(key, oldValue, value, eventType, this, version);
+        this.listeners.forEach(l -> l.onEvent(event));
+
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public MerkleTree merkleTree() {
+        return new MerkleTree(this.segments.digest().leaves());
+    }
+
+    @Override
+    public void forEach(@Nonnull VersionedEntryConsumer<? super K, ? super V> action) {
+        this.segments.forEachBatch(
+                this::readVersioned,
+                batch -> batch.forEach(entry -> action.accept(entry.key(), entry.value(), entry.version()))
+        );
+    }
+
+    @Override
+    public void forEachInRanges(@Nonnull BitSet ranges, @Nonnull VersionedEntryConsumer<? super K, ? super V> action) {
+        MerkleDigest digest;
+        // the indexing can be discarded by the concurrent cleaning, the next generation is indexed then
+        while (!(digest = this.segments.digest()).keysIndexed()) {
+            this.segments.indexKeysOfRanges();
+        }
+
+        for (int leaf = ranges.nextSetBit(0); leaf >= 0 && leaf < MerkleTree.LEAVES_COUNT; leaf = ranges.nextSetBit(leaf + 1)) {
+            for (final Object indexedKey : digest.keysOf(leaf)) {
+                @SuppressWarnings("unchecked")
+                final K key = (K) indexedKey;
+                acceptVersioned(key, action);
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return new SegmentsSpliterator<>(this.segments.segments(), entry -> this.valuesCodec.decode(entry.value()));
     }
 
     @Nonnull
     @Override
     public CompletableFuture<Optional<V>> getAsync(@Nonnull K key) {
-        return this.asyncOpsInvoker.invoke(() -> get(key));
+        final CacheSegments.Segment<K, V> segment = computeSegment(key.hashCode());
+        final MemCacheEntry<K, V> entry = segment.entries.get(key);
+
+        // only the decompression of the value is worth the hand-off to the pool, other reads are completed in place
+        if (entry != null && entry.value() instanceof CompressedValue) {
+            return this.asyncOpsInvoker.invoke(() -> onRetrieval(segment, entry));
+        }
+
+        final Optional<V> result = onRetrieval(segment, entry);
+        return result.isEmpty() ? AsyncOpsInvoker.completedEmpty() : AsyncOpsInvoker.completed(result);
     }
 
     @Nonnull
@@ -513,30 +789,33 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
         return this.eternal;
     }
 
-    void clearEntriesByEvictionPolicyIfOverflow() {
-        final boolean overflow = this.metadataCounter.get() > this.maxEntries;
+    void clearEntriesByEvictionPolicyIfOverflow(@Nonnull CacheSegments.Segment<K, V> writerSegment) {
+        if (this.segments.queuedCount() <= this.maxEntries) {
+            return;
+        }
+
+        // Firstly we will try to remove expired entries if possible
+        if (!this.eternal) {
+            clearExpired();
+        }
 
-        if (overflow) {
+        while (this.segments.queuedCount() > this.maxEntries) {
 
-            // Firstly we will try to remove expired entries if possible
-            if (!this.eternal && this.metadataCounter.get() > this.maxEntries) {
-                clearExpired();
+            // each segment has own queue, so the victim is taken from the segment of the writer and the writers of different
+            // segments never contend on the same queue; the segment of the writer can be empty (or replaced by the rebuilding),
+            // then the other segments are visited in turn
+            EvictionQueue<K, V> evictionQueue = writerSegment.evictionQueue;
+            MemCacheEntry<K, V> victim = evictionQueue.victim();
+            for (int i = this.segments.segments().length; victim == null && i > 0; i--) {
+                evictionQueue = this.segments.nextSegment().evictionQueue;
+                victim = evictionQueue.victim();
             }
 
-            while (this.metadataCounter.get() > this.maxEntries) {
-
-                final EntryMetadata<?, K> removedEntry = this.entriesMetadata.first();
-                if (removedEntry != null) {
-                    computeIfPresent(
-                            removedEntry.key(),
-                            (k, v) -> {
-                                this.statistics.onEviction();
-                                return null;
-                            },
-                            true
-                    );
-                }
+            if (victim == null) {
+                break;
             }
+
+            removeEntry(evictionQueue, victim, EventType.REMOVED);
         }
     }
 
@@ -547,40 +826,35 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
             return;
         }
 
-        final LongContainer currentTime = new LongContainer();
-        currentTime.value = System.currentTimeMillis();
-        if (this.nearestElementExpirationTime > currentTime.value) {
+        long currentTime = System.currentTimeMillis();
+        if (this.nearestElementExpirationTime > currentTime) {
             return;
         }
 
         synchronized (this) {
 
-            if (this.nearestElementExpirationTime > (currentTime.value = System.currentTimeMillis())) {
+            if (this.nearestElementExpirationTime > (currentTime = System.currentTimeMillis())) {
                 return;
             }
 
             final long idleExpirationTimeout = this.configuration.expirationConfiguration().idleTimeout();
-            final long idleExpirationTime = idleExpirationTimeout < 0 ? idleExpirationTimeout : currentTime.value - idleExpirationTimeout;
-
-            final LongContainer nearestElementExpirationInterval = new LongContainer();
-            nearestElementExpirationInterval.value = idleExpirationTimeout;
-
-            this.entriesMetadata.forEach(metadata -> {
-                final long expiredByLifespanAfter = metadata.expiredByLifespanAt() - currentTime.value;
-                final long expiredByIdleTimeoutAfter = metadata.lastAccessed() - idleExpirationTime;
-                if (expiredByLifespanAfter <= 0 || expiredByIdleTimeoutAfter <= 0) {
-                    // eviction of element from cache data
-                    compute(metadata.key(), (k, v) -> {
-                        this.statistics.onExpiration();
-                        this.entriesMetadata.remove(metadata);
-                        return null;
-                    }, true, true);
-                } else if (nearestElementExpirationInterval.value > expiredByLifespanAfter || nearestElementExpirationInterval.value > expiredByIdleTimeoutAfter) {
-                    nearestElementExpirationInterval.value = Math.min(expiredByLifespanAfter, expiredByIdleTimeoutAfter);
+            final long idleExpirationTime = idleExpirationTimeout < 0 ? idleExpirationTimeout : currentTime - idleExpirationTimeout;
+
+            long nearestElementExpirationInterval = idleExpirationTimeout;
+            for (final CacheSegments.Segment<K, V> segment : this.segments.segments()) {
+                for (final MemCacheEntry<K, V> entry : segment.entries.values()) {
+                    final long expiredByLifespanAfter = entry.expiredByLifespanAt() - currentTime;
+                    final long expiredByIdleTimeoutAfter = entry.lastAccessed() - idleExpirationTime;
+                    if (expiredByLifespanAfter <= 0 || expiredByIdleTimeoutAfter <= 0) {
+                        // eviction of element from cache data
+                        removeEntry(segment.evictionQueue, entry, EventType.EXPIRED);
+                    } else if (nearestElementExpirationInterval > expiredByLifespanAfter || nearestElementExpirationInterval > expiredByIdleTimeoutAfter) {
+                        nearestElementExpirationInterval = Math.min(expiredByLifespanAfter, expiredByIdleTimeoutAfter);
+                    }
                 }
-            });
+            }
 
-            this.nearestElementExpirationTime = currentTime.value + nearestElementExpirationInterval.value;
+            this.nearestElementExpirationTime = currentTime + nearestElementExpirationInterval;
         }
 
         logger.trace("Expired entries cleaning was completed: {}", this);
@@ -589,15 +863,25 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
     private void restoreFromRepository() {
         logger.debug("Restore from disk was called: {}", this);
 
-        final Collection<MemCacheEntry<K, V>> restoredEntries = this.persistentCacheRepository.load();
+        final List<MemCacheEntry<K, V>> restoredEntries = new ArrayList<>(this.persistentCacheRepository.load());
+        restoredEntries.sort(this.segments.segments()[0].evictionQueue.restoreOrder());
 
         restoredEntries.forEach(entry -> {
-            final K key = entry.metadata().key();
-            this.computeSegment(key).put(key, entry);
-            this.entriesMetadata.add(entry.metadata());
+            final K key = entry.key();
+            entry.value(this.valuesCodec.adopt(entry.value()));
+            final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+            try {
+                segment.entries.put(key, entry);
+                segment.evictionQueue.add(entry);
+                segment.digest.onChange(key, 0, entry.version);
+            } finally {
+                segment.release();
+            }
+
+            this.clock.update(entry.version);
         });
 
-        clearEntriesByEvictionPolicyIfOverflow();
+        clearEntriesByEvictionPolicyIfOverflow(this.segments.nextSegment());
 
         logger.debug("Restore from disk was completed (entries {}): {}", restoredEntries.size(), this);
     }
@@ -605,9 +889,10 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
     private void persistToRepository() {
         logger.debug("Persist to disk was called: {}", this);
 
-        final CompositeCollection<MemCacheEntry<K, V>> compositeCollection = new CompositeCollection<>(this.segments.length);
-        for (final Map<K, MemCacheEntry<K, V>> segment : this.segments) {
-            compositeCollection.addCollection(segment.values());
+        final CacheSegments.Segment<K, V>[] segments = this.segments.segments();
+        final CompositeCollection<MemCacheEntry<K, V>> compositeCollection = new CompositeCollection<>(segments.length);
+        for (final CacheSegments.Segment<K, V> segment : segments) {
+            compositeCollection.addCollection(segment.entries.values());
         }
 
         logger.debug("Persist to disk will be executed for cache {} and {} entries", this, compositeCollection.size());
@@ -615,139 +900,316 @@ final class MapMemCache<K extends Serializable, V extends Serializable> implemen
         this.persistentCacheRepository.save(compositeCollection);
     }
 
+    private void removeIf(
+            final CacheSegments.Segment<K, V> scannedSegment,
+            final BiPredicate<? super K, ? super V> predicate,
+            final Set<K> removedKeys,
+            final LongAccumulator batchVersion) {
+        final OperationContext<V> context = this.operationContext.get();
+        for (final MemCacheEntry<K, V> entry : scannedSegment.entries.values()) {
+            final K key = entry.key();
+            // the predicate is checked without the lock first to not block the writers of the non-matching entries
+            if (!predicate.test(key, this.valuesCodec.decode(entry.value()))) {
+                continue;
+            }
+
+            // the scanned segment can be already replaced by the rebuilding, so the entry is removed from the actual one
+            final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+            try {
+                segment.entries.computeIfPresent(
+                        key,
+                        (k, v) -> {
+                            if (!predicate.test(k, this.valuesCodec.decode(v.value()))) {
+                                return v;
+                            }
+
+                            unlink(segment, k, v);
+                            context.modified = true;
+                            context.version = this.clock.now();
+                            return null;
+                        }
+                );
+            } finally {
+                segment.release();
+            }
+
+            if (context.modified) {
+                removedKeys.add(key);
+                batchVersion.accumulate(context.version);
+                this.statistics.onRemovalHit();
+            }
+
+            context.clear();
+        }
+    }
+
+    private Optional<V> putWithTags(final K key, final V value, final Set<String> tags) {
+        final var oldValue = compute(key, (k, v) -> value, true, tags);
+        oldValue.ifPresentOrElse(
+                v -> {
+                    if (value == null) {
+                        this.statistics.onRemovalHit();
+                    } else {
+                        this.statistics.onPutHit();
+                    }
+                },
+                () -> {
+                    if (value != null) {
+                        this.statistics.onPutHit();
+                    }
+                }
+        );
+
+        return oldValue;
+    }
+
+    private void acceptVersioned(final K key, final VersionedEntryConsumer<? super K, ? super V> action) {
+        // the segment is acquired, so the read is coordinated with the rebuilding of the segments
+        final CacheSegments.Segment<K, V> segment = this.segments.acquireForRead(key.hashCode());
+        final VersionedEntry<K, V> versionedEntry;
+        try {
+            final MemCacheEntry<K, V> entry = segment.entries.get(key);
+            versionedEntry = entry == null ? null : readVersioned(entry);
+        } finally {
+            segment.release();
+        }
+
+        if (versionedEntry != null) {
+            action.accept(key, versionedEntry.value(), versionedEntry.version());
+        }
+    }
+
+    private VersionedEntry<K, V> readVersioned(final MemCacheEntry<K, V> entry) {
+        // the value and the version are read without the lock of the entry: the version is written after the value,
+        // so the read is repeated until the version is not changed by the concurrent write
+        long version;
+        V value;
+        do {
+            version = entry.version;
+            value = entry.value();
+        } while (version != entry.version);
+
+        return new VersionedEntry<>(entry.key(), this.valuesCodec.decode(value), version);
+    }
+
+    private void unlink(final CacheSegments.Segment<K, V> segment, final K key, final MemCacheEntry<K, V> entry) {
+        segment.evictionQueue.remove(entry);
+        segment.digest.onChange(key, entry.version, 0);
+        segment.tagIndex.untag(key);
+    }
+
+    private void tag(final CacheSegments.Segment<K, V> segment, final K key, final Set<String> tags) {
+        // the tags of the present element are retained by the operations without the tags
+        if (tags != null) {
+            segment.tagIndex.tag(key, tags);
+        }
+    }
+
+    private void removeEntry(final EvictionQueue<K, V> evictionQueue, final MemCacheEntry<K, V> entry, final EventType eventType) {
+        final K key = entry.key();
+        final OperationContext<V> context = this.operationContext.get();
+        final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+        try {
+            segment.entries.computeIfPresent(
+                    key,
+                    (k, v) -> {
+                        // the key can be already mapped to another entry, only this entry must be removed
+                        if (v != entry) {
+                            return v;
+                        }
+
+                        unlink(segment, k, v);
+                        context.oldValue = this.valuesCodec.decode(v.value());
+                        context.version = this.clock.now();
+                        return null;
+                    }
+            );
+        } finally {
+            segment.release();
+        }
+
+        final V oldValue = context.oldValue;
+        final long version = context.version;
+        context.clear();
+
+        if (oldValue == null) {
+            // entry is not mapped anymore (e.g. after cache cleaning), so it must just leave the queue of its generation
+            evictionQueue.remove(entry);
+            return;
+        }
+
+        if (eventType == EventType.EXPIRED) {
+            this.statistics.onExpiration();
+        } else {
+            this.statistics.onEviction();
+        }
+
+        final var event = new DefaultCacheEntryEvent<>(key, Optional.of(oldValue), Optional.empty(), eventType, this, version);
+        this.listeners.forEach(l -> l.onEvent(event));
+    }
+
     private Optional<V> computeIfPresent(
             @Nonnull K key,
             @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction,
             boolean forRemoval) {
-        final Map<K, MemCacheEntry<K, V>> segment = computeSegment(key);
-        final MemCacheEntry<K, V> newEntry = segment.computeIfPresent(
-                key,
-                (k, v) -> {
-                    final V newVal = remappingFunction.apply(k, v.value());
-                    this.oldEntryContainer.set(v);
-
-                    if (newVal == null) {
-                        this.entriesMetadata.remove(v.metadata());
-                        return null;
-                    } else if (newVal.equals(v.value())) {
+        final OperationContext<V> context = this.operationContext.get();
+        final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+        try {
+            segment.entries.computeIfPresent(
+                    key,
+                    (k, v) -> {
+                        final V currentVal = this.valuesCodec.decode(v.value());
+                        final V newVal = remappingFunction.apply(k, currentVal);
+                        context.oldValue = currentVal;
+                        context.newValue = newVal;
+
+                        context.version = this.clock.now();
+                        if (newVal == null) {
+                            unlink(segment, k, v);
+                            return null;
+                        } else if (!newVal.equals(currentVal)) {
+                            v.value(this.valuesCodec.encode(newVal));
+                            segment.digest.onChange(k, v.version, context.version);
+                            v.version = context.version;
+                        }
+
                         return v;
                     }
+            );
+        } finally {
+            segment.release();
+        }
 
-                    return new MemCacheEntry<>(newVal, v.metadata());
-                }
-        );
+        final V currentValue = context.oldValue;
+        final V computedValue = context.newValue;
+        final long version = context.version;
+        context.clear();
 
-        final MemCacheEntry<K, V> oldEntry = this.oldEntryContainer.get();
-        if (oldEntry == null) {
+        if (currentValue == null) {
             return Optional.empty();
         }
 
-        final Optional<V> oldValue = Optional.of(oldEntry.value());
-        final Optional<V> newValue = newEntry == null ? Optional.empty() : Optional.of(newEntry.value());
-        try {
-            final EventType eventType = newValue.isEmpty()
-                                            ? EventType.REMOVED
-                                            : EventType.UPDATED;
-            final var event = new DefaultCacheEntryEvent<>(key, oldValue, newValue, eventType, this);
-            this.listeners.forEach(l -> l.onEvent(event));
+        final Optional<V> oldValue = Optional.of(currentValue);
+        final Optional<V> newValue = Optional.ofNullable(computedValue);
+        final EventType eventType = newValue.isEmpty()
+                                        ? EventType.REMOVED
+                                        : EventType.UPDATED;
+        final var event = new DefaultCacheEntryEvent<>(key, oldValue, newValue, eventType, this, version);
+        this.listeners.forEach(l -> l.onEvent(event));
 
-            return forRemoval ? oldValue : newValue;
-        } finally {
-            this.oldEntryContainer.remove();
-        }
+        return forRemoval ? oldValue : newValue;
+    }
+
+    private Optional<V> compute(
+            @Nonnull K key,
+            @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction,
+            boolean returnOldValue) {
+        return compute(key, remappingFunction, returnOldValue, null);
     }
 
     private Optional<V> compute(
             @Nonnull K key,
             @Nonnull BiFunction<? super K, ? super V, ? extends V> remappingFunction,
             boolean returnOldValue,
-            boolean ifEntryRemovedPopulateExpirationEvent) {
+            @Nullable Set<String> tags) {
 
-        final Map<K, MemCacheEntry<K, V>> segment = computeSegment(key);
-        final MemCacheEntry<K, V> newEntry = segment.compute(
-                key,
-                (k, v) -> {
-                    this.oldEntryContainer.set(v);
+        final OperationContext<V> context = this.operationContext.get();
+        final CacheSegments.Segment<K, V> segment = this.segments.acquire(key.hashCode());
+        try {
+            segment.entries.compute(
+                    key,
+                    (k, v) -> {
+                        final V currentVal = v == null ? null : this.valuesCodec.decode(v.value());
+                        final V newVal = remappingFunction.apply(k, currentVal);
+                        context.oldValue = currentVal;
+                        context.newValue = newVal;
+
+                        if (newVal == null && v == null) {
+                            return null;
+                        } else if (newVal == null) {
+                            unlink(segment, k, v);
+                            context.modified = true;
+                            context.version = this.clock.now();
+                            return null;
+                        } else if (v == null) {
+                            final MemCacheEntry<K, V> result = this.entryFactory.create(k, this.valuesCodec.encode(newVal));
+                            result.version = context.version = this.clock.now();
+                            segment.digest.onChange(k, 0, result.version);
+                            segment.evictionQueue.add(result);
+                            context.modified = true;
+                            tag(segment, k, tags);
+                            return result;
+                        } else if (!currentVal.equals(newVal)) {
+                            v.value(this.valuesCodec.encode(newVal));
+                            segment.digest.onChange(k, v.version, context.version = this.clock.now());
+                            v.version = context.version;
+                            context.modified = true;
+                        }
 
-                    final V newVal = remappingFunction.apply(k, v == null ? null : v.value());
-                    if (newVal == null && v == null) {
-                        return null;
-                    } else if (newVal == null) {
-                        this.entriesMetadata.remove(v.metadata());
-                        return null;
-                    } else if (v != null && v.value().equals(newVal)) {
+                        tag(segment, k, tags);
                         return v;
                     }
+            );
+        } finally {
+            segment.release();
+        }
 
-                    final MemCacheEntry<K, V> result = new MemCacheEntry<>(
-                            newVal,
-                            v == null ? this.entryMetadataFactory.create(k) : v.metadata()
-                    );
+        final V currentValue = context.oldValue;
+        final V computedValue = context.newValue;
+        final boolean modified = context.modified;
+        final long version = context.version;
+        context.clear();
 
-                    if (v == null) {
-                        this.entriesMetadata.add(result.metadata());
-                    }
+        if (computedValue == null && currentValue == null) {
+            return Optional.empty();
+        } else if (!modified) {
+            return Optional.of(currentValue);
+        }
 
-                    return result;
-                }
-        );
+        final Optional<V> oldValue = Optional.ofNullable(currentValue);
+        final Optional<V> newValue = Optional.ofNullable(computedValue);
+        final EventType eventType = oldValue.isEmpty()
+                                        ? EventType.ADDED
+                                        : newValue.isEmpty()
+                                            ? EventType.REMOVED
+                                            : EventType.UPDATED;
 
-        final MemCacheEntry<K, V> oldEntry = this.oldEntryContainer.get();
-        if (newEntry == null && oldEntry == null) {
-            return Optional.empty();
-        } else if (newEntry == oldEntry) {
-            this.oldEntryContainer.remove();
-            return Optional.of(oldEntry.value());
+        if (eventType == EventType.ADDED) {
+            clearEntriesByEvictionPolicyIfOverflow(segment);
         }
 
-        final Optional<V> oldValue = oldEntry == null ? Optional.empty() : Optional.of(oldEntry.value());
-        final Optional<V> newValue = newEntry == null ? Optional.empty() : Optional.of(newEntry.value());
-        try {
-            final EventType eventType = oldValue.isEmpty()
-                                            ? EventType.ADDED
-                                            : newValue.isEmpty()
-                                                ? ifEntryRemovedPopulateExpirationEvent
-                                                    ? EventType.EXPIRED
-                                                    : EventType.REMOVED
-                                                : EventType.UPDATED;
-
-            if (eventType == EventType.ADDED) {
-                clearEntriesByEvictionPolicyIfOverflow();
-            }
+        final var event = new DefaultCacheEntryEvent<>(key, oldValue, newValue, eventType, this, version);
+        this.listeners.forEach(l -> l.onEvent(event));
 
-            final var event = new DefaultCacheEntryEvent<>(key, oldValue, newValue, eventType, this);
-            this.listeners.forEach(l -> l.onEvent(event));
+        return returnOldValue ? oldValue : newValue;
+    }
 
-            return returnOldValue ? oldValue : newValue;
-        } finally {
-            this.oldEntryContainer.remove();
+    void adaptSegmentation() {
+        if (this.status == ComponentStatus.RUNNING) {
+            this.segments.adapt();
         }
     }
 
-    private Map<K, MemCacheEntry<K, V>> computeSegment(final K key) {
-        final int keyHash = key.hashCode();
-        final int hash = keyHash ^ (keyHash >>> 16);
-        return this.segments[this.segments.length - 1 & hash];
+    @Nonnull
+    final CacheSegments.Segment<K, V> computeSegment(final int keyHash) {
+        return this.segments.segmentFor(keyHash);
     }
 
-    private Map<K, MemCacheEntry<K, V>>[] createSegments() {
-        final MemoryStoreConfiguration storeConfiguration = configuration.memoryStoreConfiguration();
-        final int concurrencyLevel = storeConfiguration.concurrencyLevel();
-        int segmentsCount = concurrencyLevel % 2 == 1 ? concurrencyLevel + 1 : concurrencyLevel;
-        while (segmentsCount > 1 && storeConfiguration.maxEntries() / segmentsCount < 2) {
-            segmentsCount /= 2;
-        }
+    private static class OperationContext<V> {
 
-        @SuppressWarnings("unchecked")
-        final Map<K, MemCacheEntry<K, V>>[] segments = new ConcurrentHashMap[segmentsCount];
-        for (int i = 0; i < segmentsCount; i++) {
-            segments[i] = new ConcurrentHashMap<>(storeConfiguration.maxEntries() / segmentsCount);
-        }
+        private V oldValue;
+        private V newValue;
+        private boolean modified;
+        private long version;
 
-        return segments;
+        private void clear() {
+            this.oldValue = null;
+            this.newValue = null;
+            this.modified = false;
+            this.version = 0;
+        }
     }
 
-    private static class LongContainer {
-        private long value;
+    private record VersionedEntry<K, V>(K key, V value, long version) {
     }
 }
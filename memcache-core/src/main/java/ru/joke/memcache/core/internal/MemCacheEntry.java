@@ -1,6 +1,143 @@
 package ru.joke.memcache.core.internal;
 
 import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.TimeUnit;
 
-record MemCacheEntry<K, V>(@Nonnull V value, @Nonnull EntryMetadata<?, K> metadata) {
-}
\ No newline at end of file
+@ThreadSafe
+abstract class MemCacheEntry<K, V> {
+
+    // the keys of the caches with primitive keys are kept unboxed, the key object refers to the type of the key then
+    private static final Object LONG_KEY = new Object();
+    private static final Object INT_KEY = new Object();
+
+    private final Object key;
+    private final long primitiveKey;
+    private volatile V value;
+    private volatile long lastAccessed;
+    // hybrid logical timestamp of the last change: written under the lock of the entry after the value,
+    // so the value read between the equal reads of the version is not older than the version
+    volatile long version;
+
+    // eviction order links and the time of the queuing: guarded by the lock of the eviction queue
+    MemCacheEntry<K, V> prev;
+    MemCacheEntry<K, V> next;
+    long queuedAt;
+
+    protected MemCacheEntry(@Nonnull K key, @Nonnull V value) {
+        this(key, value, false);
+    }
+
+    protected MemCacheEntry(@Nonnull K key, @Nonnull V value, boolean unboxedKey) {
+        if (unboxedKey && key instanceof Long longKey) {
+            this.key = LONG_KEY;
+            this.primitiveKey = longKey;
+        } else if (unboxedKey && key instanceof Integer intKey) {
+            this.key = INT_KEY;
+            this.primitiveKey = intKey;
+        } else {
+            this.key = key;
+            this.primitiveKey = 0;
+        }
+
+        this.value = value;
+        this.lastAccessed = System.currentTimeMillis();
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    K key() {
+        final Object key = this.key;
+        if (key == LONG_KEY) {
+            return (K) Long.valueOf(this.primitiveKey);
+        } else if (key == INT_KEY) {
+            return (K) Integer.valueOf((int) this.primitiveKey);
+        }
+
+        return (K) key;
+    }
+
+    @Nonnull
+    V value() {
+        return this.value;
+    }
+
+    void value(@Nonnull V value) {
+        this.value = value;
+    }
+
+    long lastAccessed() {
+        return this.lastAccessed;
+    }
+
+    long expiredByLifespanAt() {
+        return Long.MAX_VALUE;
+    }
+
+    void onUsage() {
+        this.lastAccessed = System.currentTimeMillis();
+    }
+
+    void storeMetadata(@Nonnull ObjectOutput objectOutput) throws IOException {
+        objectOutput.writeLong(System.currentTimeMillis() - this.lastAccessed);
+        objectOutput.writeLong(this.version);
+        // the entries are stored by the stopped cache, so the time of the queuing is not changed concurrently
+        objectOutput.writeLong(System.nanoTime() - this.queuedAt);
+    }
+
+    void restoreMetadata(@Nonnull ObjectInput objectInput, boolean queuingTimeStored) throws IOException {
+        // Always safe operation: reading and writing the field will not be performed at the same time in other threads
+        final long idleTime = objectInput.readLong();
+        this.lastAccessed -= idleTime;
+        this.version = objectInput.readLong();
+        // the stores of the first version of the format have no time of the queuing, the time of the last access is the closest one
+        this.queuedAt = System.nanoTime() - (queuingTimeStored ? objectInput.readLong() : TimeUnit.MILLISECONDS.toNanos(idleTime));
+    }
+
+    // the layout of the stores written before the versioning of the format: the entries were not versioned
+    void restoreLegacyMetadata(long idleTime, long frequency) {
+        this.lastAccessed -= idleTime;
+        this.queuedAt = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTime);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final MemCacheEntry<?, ?> that = (MemCacheEntry<?, ?>) o;
+        if (this.key == LONG_KEY || this.key == INT_KEY) {
+            return this.key == that.key && this.primitiveKey == that.primitiveKey;
+        }
+
+        return this.key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        // the same as the hash codes of the boxed keys
+        if (this.key == LONG_KEY) {
+            return Long.hashCode(this.primitiveKey);
+        } else if (this.key == INT_KEY) {
+            return Integer.hashCode((int) this.primitiveKey);
+        }
+
+        return this.key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MemCacheEntry{" +
+                "key=" + key() +
+                ", lastAccessed=" + lastAccessed +
+                ", version=" + version +
+                '}';
+    }
+}
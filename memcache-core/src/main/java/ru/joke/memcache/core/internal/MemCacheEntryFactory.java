@@ -0,0 +1,139 @@
+package ru.joke.memcache.core.internal;
+
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+@ThreadSafe
+@Immutable
+final class MemCacheEntryFactory {
+
+    private final CacheConfiguration.EvictionPolicy policy;
+    private final long expirationTimeout;
+    private final boolean unboxedKeys;
+
+    MemCacheEntryFactory(@Nonnull CacheConfiguration configuration) {
+        this.policy = configuration.evictionPolicy();
+        this.expirationTimeout = configuration.expirationConfiguration().lifespan();
+        this.unboxedKeys = configuration.keysType() != CacheConfiguration.KeysType.OBJECT;
+    }
+
+    @Nonnull
+    <K, V> MemCacheEntry<K, V> create(@Nonnull K key, @Nonnull V value) {
+        if (this.policy == CacheConfiguration.EvictionPolicy.LFU) {
+            return this.expirationTimeout == -1
+                    ? new LFUEntry<>(key, value, this.unboxedKeys)
+                    : new ExpirableLFUEntry<>(key, value, this.unboxedKeys, this.expirationTimeout);
+        }
+
+        return this.expirationTimeout == -1
+                ? new LinkedEntry<>(key, value, this.unboxedKeys)
+                : new ExpirableLinkedEntry<>(key, value, this.unboxedKeys, this.expirationTimeout);
+    }
+
+    @ThreadSafe
+    static class LinkedEntry<K, V> extends MemCacheEntry<K, V> {
+
+        LinkedEntry(@Nonnull K key, @Nonnull V value) {
+            super(key, value);
+        }
+
+        LinkedEntry(@Nonnull K key, @Nonnull V value, boolean unboxedKey) {
+            super(key, value, unboxedKey);
+        }
+    }
+
+    @ThreadSafe
+    static class ExpirableLinkedEntry<K, V> extends LinkedEntry<K, V> {
+
+        private final long expiredByLifespanAt;
+
+        ExpirableLinkedEntry(@Nonnull K key, @Nonnull V value, boolean unboxedKey, long expirationTimeout) {
+            super(key, value, unboxedKey);
+            this.expiredByLifespanAt = System.currentTimeMillis() + expirationTimeout;
+        }
+
+        @Override
+        long expiredByLifespanAt() {
+            return this.expiredByLifespanAt;
+        }
+    }
+
+    @ThreadSafe
+    static class LFUEntry<K, V> extends MemCacheEntry<K, V> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<LFUEntry> pendingAccessesUpdater =
+                AtomicLongFieldUpdater.newUpdater(LFUEntry.class, "pendingAccesses");
+
+        // guarded by the lock of the eviction queue; detached bucket holds the restored frequency until the entry is queued
+        EvictionQueue.FrequencyBucket<K, V> bucket;
+        // the accesses recorded without the lock and not yet applied to the order of the queue
+        private volatile long pendingAccesses;
+
+        LFUEntry(@Nonnull K key, @Nonnull V value, boolean unboxedKey) {
+            super(key, value, unboxedKey);
+        }
+
+        long frequency() {
+            return bucketFrequency() + this.pendingAccesses;
+        }
+
+        long bucketFrequency() {
+            final EvictionQueue.FrequencyBucket<K, V> bucket = this.bucket;
+            return bucket == null ? 0 : bucket.frequency;
+        }
+
+        void recordAccess() {
+            pendingAccessesUpdater.incrementAndGet(this);
+        }
+
+        boolean hasPendingAccesses() {
+            return this.pendingAccesses != 0;
+        }
+
+        long drainAccesses() {
+            return this.pendingAccesses == 0 ? 0 : pendingAccessesUpdater.getAndSet(this, 0);
+        }
+
+        @Override
+        void storeMetadata(@Nonnull ObjectOutput objectOutput) throws IOException {
+            super.storeMetadata(objectOutput);
+            objectOutput.writeLong(frequency());
+        }
+
+        @Override
+        void restoreMetadata(@Nonnull ObjectInput objectInput, boolean queuingTimeStored) throws IOException {
+            super.restoreMetadata(objectInput, queuingTimeStored);
+            this.bucket = new EvictionQueue.FrequencyBucket<>(objectInput.readLong());
+        }
+
+        @Override
+        void restoreLegacyMetadata(long idleTime, long frequency) {
+            super.restoreLegacyMetadata(idleTime, frequency);
+            this.bucket = new EvictionQueue.FrequencyBucket<>(frequency);
+        }
+    }
+
+    @ThreadSafe
+    static class ExpirableLFUEntry<K, V> extends LFUEntry<K, V> {
+
+        private final long expiredByLifespanAt;
+
+        ExpirableLFUEntry(@Nonnull K key, @Nonnull V value, boolean unboxedKey, long expirationTimeout) {
+            super(key, value, unboxedKey);
+            this.expiredByLifespanAt = System.currentTimeMillis() + expirationTimeout;
+        }
+
+        @Override
+        long expiredByLifespanAt() {
+            return this.expiredByLifespanAt;
+        }
+    }
+}
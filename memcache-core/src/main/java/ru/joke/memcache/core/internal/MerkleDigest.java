@@ -0,0 +1,99 @@
+package ru.joke.memcache.core.internal;
+
+import ru.joke.memcache.core.spi.MerkleTree;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@ThreadSafe
+final class MerkleDigest {
+
+    // the hash of the leaf is the XOR of the hashes of its entries, so each change updates it incrementally in O(1)
+    private final AtomicLongArray leaves = new AtomicLongArray(MerkleTree.LEAVES_COUNT);
+    // the keys of the leaves are indexed only for the caches whose ranges of keys were requested
+    private volatile Set<Object>[] keysOfLeaves;
+
+    MerkleDigest(final boolean keysIndexed) {
+        if (keysIndexed) {
+            this.keysOfLeaves = createKeysIndex();
+        }
+    }
+
+    // the changes of the key must be performed under the lock of the entry of the key
+    void onChange(@Nonnull Object key, final long oldVersion, final long newVersion) {
+        onUpdate(MerkleTree.keyHash(key), oldVersion, newVersion);
+
+        final Set<Object>[] keysOfLeaves = this.keysOfLeaves;
+        if (keysOfLeaves == null || (oldVersion == 0) == (newVersion == 0)) {
+            return;
+        } else if (newVersion == 0) {
+            keysOfLeaves[MerkleTree.leafOf(key)].remove(key);
+        } else {
+            keysOfLeaves[MerkleTree.leafOf(key)].add(key);
+        }
+    }
+
+    // the change of the present entry: the presence of the key is not changed, so only the hash of the key is required
+    void onUpdate(final int keyHash, final long oldVersion, final long newVersion) {
+        final long delta = entryHash(keyHash, oldVersion) ^ entryHash(keyHash, newVersion);
+        if (delta != 0) {
+            this.leaves.accumulateAndGet(MerkleTree.leafOfHash(keyHash), delta, (hash, d) -> hash ^ d);
+        }
+    }
+
+    @Nonnull
+    long[] leaves() {
+        final long[] result = new long[this.leaves.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.leaves.get(i);
+        }
+
+        return result;
+    }
+
+    boolean keysIndexed() {
+        return this.keysOfLeaves != null;
+    }
+
+    // the index must be enabled while the entries of the digest are not changed
+    void indexKeys(@Nonnull Iterable<?> keys) {
+        final Set<Object>[] keysOfLeaves = createKeysIndex();
+        keys.forEach(key -> keysOfLeaves[MerkleTree.leafOf(key)].add(key));
+        this.keysOfLeaves = keysOfLeaves;
+    }
+
+    @Nonnull
+    Set<Object> keysOf(@Nonnegative int leaf) {
+        final Set<Object>[] keysOfLeaves = this.keysOfLeaves;
+        return keysOfLeaves == null ? Set.of() : keysOfLeaves[leaf];
+    }
+
+    private static Set<Object>[] createKeysIndex() {
+        @SuppressWarnings("unchecked")
+        final Set<Object>[] result = new Set[MerkleTree.LEAVES_COUNT];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ConcurrentHashMap.newKeySet();
+        }
+
+        return result;
+    }
+
+    private static long entryHash(final int keyHash, final long version) {
+        // the absent entry (version 0) doesn't contribute to the hash of the leaf
+        if (version == 0) {
+            return 0;
+        }
+
+        long hash = keyHash * 0x9E3779B97F4A7C15L + version;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
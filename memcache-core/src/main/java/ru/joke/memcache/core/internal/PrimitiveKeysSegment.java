@@ -0,0 +1,479 @@
+package ru.joke.memcache.core.internal;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+@ThreadSafe
+final class PrimitiveKeysSegment<K, V> extends AbstractMap<K, MemCacheEntry<K, V>> {
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int MIN_CAPACITY = 4;
+    private static final int MAX_STRIPES = 16;
+    private static final int MIN_STRIPE_SIZE = 64;
+    // the tables of the stripes use the high bits of the hash, so the stripe is chosen by the bits which are never used by the tables
+    private static final int STRIPE_HASH_SHIFT = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final ToLongFunction<K> keyMapper;
+    private final Stripe<K, V>[] stripes;
+    private final int stripesMask;
+    private final Collection<MemCacheEntry<K, V>> values;
+    private final Set<Entry<K, MemCacheEntry<K, V>>> entrySet;
+
+    @SuppressWarnings("unchecked")
+    PrimitiveKeysSegment(@Nonnull ToLongFunction<K> keyMapper, @Nonnegative int expectedSize) {
+        this.keyMapper = keyMapper;
+
+        // the expected size defines only the count of the stripes: the tables grow from the minimal capacity on demand,
+        // so the creation of the segments (e.g. by the cleaning of the cache) doesn't allocate the tables for the max entries
+        final int stripesCount = stripesFor(expectedSize);
+        this.stripes = new Stripe[stripesCount];
+        for (int i = 0; i < stripesCount; i++) {
+            this.stripes[i] = new Stripe<>();
+        }
+
+        this.stripesMask = stripesCount - 1;
+        this.values = new Values();
+        this.entrySet = new EntrySet();
+    }
+
+    @Nullable
+    MemCacheEntry<K, V> get(final long key) {
+        return stripeFor(key).get(key);
+    }
+
+    @Nullable
+    MemCacheEntry<K, V> computeIfPresent(final long key, @Nonnull UnaryOperator<MemCacheEntry<K, V>> remappingFunction) {
+        // the remapping function of the present entry doesn't use the key object, so the key is not boxed
+        return stripeFor(key).update(null, key, (k, v) -> v == null ? null : remappingFunction.apply(v), false);
+    }
+
+    @Override
+    public MemCacheEntry<K, V> get(Object key) {
+        return get(toPrimitive(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (final Stripe<K, V> stripe : this.stripes) {
+            size += stripe.size;
+        }
+
+        return size;
+    }
+
+    @Override
+    public MemCacheEntry<K, V> put(K key, MemCacheEntry<K, V> value) {
+        Objects.requireNonNull(value, "value");
+        return update(key, (k, v) -> value, true);
+    }
+
+    @Override
+    public MemCacheEntry<K, V> remove(Object key) {
+        return update(castKey(key), (k, v) -> null, true);
+    }
+
+    @Override
+    public MemCacheEntry<K, V> computeIfAbsent(K key, @Nonnull Function<? super K, ? extends MemCacheEntry<K, V>> mappingFunction) {
+        final MemCacheEntry<K, V> entry = get(this.keyMapper.applyAsLong(key));
+        return entry == null ? update(key, (k, v) -> v == null ? mappingFunction.apply(k) : v, false) : entry;
+    }
+
+    @Override
+    public MemCacheEntry<K, V> computeIfPresent(K key, @Nonnull BiFunction<? super K, ? super MemCacheEntry<K, V>, ? extends MemCacheEntry<K, V>> remappingFunction) {
+        return update(key, (k, v) -> v == null ? null : remappingFunction.apply(k, v), false);
+    }
+
+    @Override
+    public MemCacheEntry<K, V> compute(K key, @Nonnull BiFunction<? super K, ? super MemCacheEntry<K, V>, ? extends MemCacheEntry<K, V>> remappingFunction) {
+        return update(key, remappingFunction, false);
+    }
+
+    @Override
+    public void clear() {
+        for (final Stripe<K, V> stripe : this.stripes) {
+            stripe.clear();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Collection<MemCacheEntry<K, V>> values() {
+        return this.values;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Entry<K, MemCacheEntry<K, V>>> entrySet() {
+        return this.entrySet;
+    }
+
+    private MemCacheEntry<K, V> update(
+            final K key,
+            final BiFunction<? super K, ? super MemCacheEntry<K, V>, ? extends MemCacheEntry<K, V>> remappingFunction,
+            final boolean returnOldValue) {
+        final long primitiveKey = this.keyMapper.applyAsLong(key);
+        return stripeFor(primitiveKey).update(key, primitiveKey, remappingFunction, returnOldValue);
+    }
+
+    private Stripe<K, V> stripeFor(final long key) {
+        return this.stripes[(int) ((key * HASH_MULTIPLIER) >>> STRIPE_HASH_SHIFT) & this.stripesMask];
+    }
+
+    private long toPrimitive(final Object key) {
+        return this.keyMapper.applyAsLong(castKey(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private K castKey(final Object key) {
+        return (K) key;
+    }
+
+    private static int indexFor(final long key, final int shift) {
+        return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+    private static int stripesFor(final int expectedSize) {
+        final int stripes = Math.max(1, Math.min(MAX_STRIPES, expectedSize / MIN_STRIPE_SIZE));
+        return Integer.highestOneBit(stripes);
+    }
+
+    private final class Values extends AbstractCollection<MemCacheEntry<K, V>> {
+
+        @Nonnull
+        @Override
+        public Iterator<MemCacheEntry<K, V>> iterator() {
+            return new EntriesIterator<>(stripes);
+        }
+
+        @Override
+        public int size() {
+            return PrimitiveKeysSegment.this.size();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, MemCacheEntry<K, V>>> {
+
+        @Nonnull
+        @Override
+        public Iterator<Entry<K, MemCacheEntry<K, V>>> iterator() {
+            final Iterator<MemCacheEntry<K, V>> entries = new EntriesIterator<>(stripes);
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public Entry<K, MemCacheEntry<K, V>> next() {
+                    final MemCacheEntry<K, V> entry = entries.next();
+                    return new SimpleImmutableEntry<>(entry.key(), entry);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return PrimitiveKeysSegment.this.size();
+        }
+    }
+
+    // weakly consistent iterator: the entries of one stripe are captured at once under its read lock, so the shifts
+    // of the entries by the concurrent removals never lead to the lost or duplicated entries, and the stripe is never
+    // locked while the caller handles its entries (the entries can be removed by the caller while iterating)
+    private static final class EntriesIterator<K, V> implements Iterator<MemCacheEntry<K, V>> {
+
+        private final Stripe<K, V>[] stripes;
+
+        private int nextStripe;
+        private MemCacheEntry<K, V>[] batch;
+        private int batchSize;
+        private int position;
+
+        private EntriesIterator(final Stripe<K, V>[] stripes) {
+            this.stripes = stripes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.position == this.batchSize) {
+                if (this.nextStripe == this.stripes.length) {
+                    return false;
+                }
+
+                this.stripes[this.nextStripe++].captureTo(this);
+                this.position = 0;
+            }
+
+            return true;
+        }
+
+        @Override
+        public MemCacheEntry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final MemCacheEntry<K, V> entry = this.batch[this.position];
+            this.batch[this.position++] = null;
+            return entry;
+        }
+    }
+
+    @ThreadSafe
+    private static final class Stripe<K, V> {
+
+        private final StampedLock lock;
+
+        private volatile Thread writer;
+        private volatile int size;
+        // count of the structural modifications, guarded by the write lock
+        private int modifications;
+        private Table<K, V> table;
+
+        private Stripe() {
+            this.lock = new StampedLock();
+            this.table = new Table<>(MIN_CAPACITY);
+        }
+
+        private MemCacheEntry<K, V> get(final long key) {
+            final long stamp = this.lock.tryOptimisticRead();
+            if (stamp != 0) {
+                final MemCacheEntry<K, V> result = find(this.table, key);
+                if (this.lock.validate(stamp)) {
+                    return result;
+                }
+            }
+
+            // lookup from the remapping function of this stripe (the write lock is already held by the current thread)
+            if (this.writer == Thread.currentThread()) {
+                return find(this.table, key);
+            }
+
+            final long readStamp = this.lock.readLock();
+            try {
+                return find(this.table, key);
+            } finally {
+                this.lock.unlockRead(readStamp);
+            }
+        }
+
+        private MemCacheEntry<K, V> update(
+                final K key,
+                final long primitiveKey,
+                final BiFunction<? super K, ? super MemCacheEntry<K, V>, ? extends MemCacheEntry<K, V>> remappingFunction,
+                final boolean returnOldValue) {
+            // the remapping function can write other keys of the same stripe: the lock is already held by the thread then
+            final boolean nested = this.writer == Thread.currentThread();
+            final long stamp = nested ? 0 : lockForWrite();
+            try {
+                Table<K, V> table = this.table;
+                int index = indexOf(table, primitiveKey);
+                final MemCacheEntry<K, V> oldEntry = index >= 0 ? table.entries[index] : null;
+
+                final int modifications = this.modifications;
+                final MemCacheEntry<K, V> newEntry = remappingFunction.apply(key, oldEntry);
+                if (modifications != this.modifications) {
+                    // the entries were moved by the nested writes, so the position of the key is found again
+                    table = this.table;
+                    index = indexOf(table, primitiveKey);
+                }
+
+                // only the same key can't be changed by the nested writes
+                if ((index >= 0 ? table.entries[index] : null) != oldEntry) {
+                    throw new IllegalStateException("Recursive update");
+                }
+
+                if (newEntry == null) {
+                    if (oldEntry != null) {
+                        removeAt(table, index);
+                    }
+                } else if (oldEntry != null) {
+                    table.entries[index] = newEntry;
+                } else {
+                    insertAt(table, -index - 1, primitiveKey, newEntry);
+                }
+
+                return returnOldValue ? oldEntry : newEntry;
+            } finally {
+                if (!nested) {
+                    unlockWrite(stamp);
+                }
+            }
+        }
+
+        private void clear() {
+            final boolean nested = this.writer == Thread.currentThread();
+            final long stamp = nested ? 0 : lockForWrite();
+            try {
+                // the table of the cleared stripe grows again on demand, the previous one is released at once
+                this.table = new Table<>(MIN_CAPACITY);
+                this.size = 0;
+                this.modifications++;
+            } finally {
+                if (!nested) {
+                    unlockWrite(stamp);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void captureTo(final EntriesIterator<K, V> iterator) {
+            // the iterating thread can hold the write lock of the stripe (e.g. iterating from the remapping function)
+            final boolean nested = this.writer == Thread.currentThread();
+            final long stamp = nested ? 0 : this.lock.readLock();
+            try {
+                final int size = this.size;
+                if (iterator.batch == null || iterator.batch.length < size) {
+                    iterator.batch = new MemCacheEntry[size];
+                }
+
+                int count = 0;
+                for (final MemCacheEntry<K, V> entry : this.table.entries) {
+                    if (entry != null) {
+                        iterator.batch[count++] = entry;
+                    }
+                }
+
+                iterator.batchSize = count;
+            } finally {
+                if (!nested) {
+                    this.lock.unlockRead(stamp);
+                }
+            }
+        }
+
+        private long lockForWrite() {
+            final long stamp = this.lock.writeLock();
+            this.writer = Thread.currentThread();
+            return stamp;
+        }
+
+        private void unlockWrite(final long stamp) {
+            this.writer = null;
+            this.lock.unlockWrite(stamp);
+        }
+
+        private void insertAt(final Table<K, V> table, final int index, final long key, final MemCacheEntry<K, V> entry) {
+            table.keys[index] = key;
+            table.entries[index] = entry;
+            this.modifications++;
+
+            if (++this.size > table.threshold) {
+                resize(table);
+            }
+        }
+
+        private void removeAt(final Table<K, V> table, final int index) {
+            final long[] keys = table.keys;
+            final MemCacheEntry<K, V>[] entries = table.entries;
+            final int mask = entries.length - 1;
+
+            // backward shift deletion: closes the gap without tombstones
+            int gap = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                final MemCacheEntry<K, V> entry = entries[next];
+                if (entry == null) {
+                    break;
+                }
+
+                final int home = indexFor(keys[next], table.shift);
+                if ((next - home & mask) >= (next - gap & mask)) {
+                    keys[gap] = keys[next];
+                    entries[gap] = entry;
+                    gap = next;
+                }
+            }
+
+            entries[gap] = null;
+            keys[gap] = 0;
+            this.modifications++;
+            this.size--;
+        }
+
+        private void resize(final Table<K, V> table) {
+            final Table<K, V> newTable = new Table<>(table.entries.length << 1);
+            final long[] keys = table.keys;
+            final MemCacheEntry<K, V>[] entries = table.entries;
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] != null) {
+                    final int index = -indexOf(newTable, keys[i]) - 1;
+                    newTable.keys[index] = keys[i];
+                    newTable.entries[index] = entries[i];
+                }
+            }
+
+            this.table = newTable;
+        }
+
+        private static <K, V> MemCacheEntry<K, V> find(final Table<K, V> table, final long key) {
+            final long[] keys = table.keys;
+            final MemCacheEntry<K, V>[] entries = table.entries;
+            final int mask = entries.length - 1;
+
+            int index = indexFor(key, table.shift);
+            // probes count is limited because an optimistic reader can observe the table in the middle of modification
+            for (int i = 0; i <= mask; i++) {
+                final MemCacheEntry<K, V> entry = entries[index];
+                if (entry == null) {
+                    return null;
+                } else if (keys[index] == key) {
+                    return entry;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            return null;
+        }
+
+        private static int indexOf(final Table<?, ?> table, final long key) {
+            final long[] keys = table.keys;
+            final MemCacheEntry<?, ?>[] entries = table.entries;
+            final int mask = entries.length - 1;
+
+            int index = indexFor(key, table.shift);
+            while (entries[index] != null) {
+                if (keys[index] == key) {
+                    return index;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            return -index - 1;
+        }
+    }
+
+    private static class Table<K, V> {
+
+        private final long[] keys;
+        private final MemCacheEntry<K, V>[] entries;
+        private final int shift;
+        private final int threshold;
+
+        @SuppressWarnings("unchecked")
+        private Table(final int capacity) {
+            this.keys = new long[capacity];
+            this.entries = new MemCacheEntry[capacity];
+            this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+}
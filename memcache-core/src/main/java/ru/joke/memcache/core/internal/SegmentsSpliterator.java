@@ -0,0 +1,100 @@
+package ru.joke.memcache.core.internal;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+final class SegmentsSpliterator<K, V> implements Spliterator<Map.Entry<K, V>> {
+
+    private static final int CHARACTERISTICS = Spliterator.CONCURRENT | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+    private final CacheSegments.Segment<K, V>[] segments;
+    private final Function<MemCacheEntry<K, V>, V> valueReader;
+    private final int to;
+
+    private int from;
+    private Spliterator<MemCacheEntry<K, V>> current;
+    private Map.Entry<K, V> next;
+
+    SegmentsSpliterator(
+            @Nonnull CacheSegments.Segment<K, V>[] segments,
+            @Nonnull Function<MemCacheEntry<K, V>, V> valueReader) {
+        this(segments, valueReader, 0, segments.length, null);
+    }
+
+    private SegmentsSpliterator(
+            @Nonnull CacheSegments.Segment<K, V>[] segments,
+            @Nonnull Function<MemCacheEntry<K, V>, V> valueReader,
+            @Nonnegative int from,
+            @Nonnegative int to,
+            @Nullable Spliterator<MemCacheEntry<K, V>> current) {
+        this.segments = segments;
+        this.valueReader = valueReader;
+        this.from = from;
+        this.to = to;
+        this.current = current;
+    }
+
+    @Override
+    public boolean tryAdvance(@Nonnull Consumer<? super Map.Entry<K, V>> action) {
+        while (this.current != null || this.from < this.to) {
+            if (this.current == null) {
+                this.current = this.segments[this.from++].entries.values().spliterator();
+            }
+
+            if (!this.current.tryAdvance(this::read)) {
+                this.current = null;
+            } else if (this.next != null) {
+                final Map.Entry<K, V> entry = this.next;
+                this.next = null;
+                action.accept(entry);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public Spliterator<Map.Entry<K, V>> trySplit() {
+        // the remaining segments are split first, the entries of the last segment are split by the segment itself
+        final int remainingSegments = this.to - this.from;
+        if (remainingSegments > 1 || remainingSegments == 1 && this.current != null) {
+            final int middle = this.from + (remainingSegments + 1 >>> 1);
+            final Spliterator<Map.Entry<K, V>> prefix = new SegmentsSpliterator<>(this.segments, this.valueReader, this.from, middle, null);
+            this.from = middle;
+            return prefix;
+        }
+
+        if (this.current == null && remainingSegments == 1) {
+            this.current = this.segments[this.from++].entries.values().spliterator();
+        }
+
+        final Spliterator<MemCacheEntry<K, V>> split = this.current == null ? null : this.current.trySplit();
+        return split == null ? null : new SegmentsSpliterator<>(this.segments, this.valueReader, 0, 0, split);
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = this.current == null ? 0 : this.current.estimateSize();
+        for (int i = this.from; i < this.to; i++) {
+            size += this.segments[i].entries.size();
+        }
+
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    private void read(final MemCacheEntry<K, V> entry) {
+        final V value = this.valueReader.apply(entry);
+        this.next = value == null ? null : Map.entry(entry.key(), value);
+    }
+}
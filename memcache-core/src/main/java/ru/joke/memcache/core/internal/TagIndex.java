@@ -0,0 +1,67 @@
+package ru.joke.memcache.core.internal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@ThreadSafe
+final class TagIndex<K> {
+
+    private final Map<String, Set<K>> keysByTag;
+    private final Map<K, Set<String>> tagsByKey;
+
+    TagIndex() {
+        this.keysByTag = new ConcurrentHashMap<>();
+        this.tagsByKey = new ConcurrentHashMap<>();
+    }
+
+    // the changes of the tags of the key must be performed under the lock of the entry of the key
+    void tag(@Nonnull K key, @Nonnull Set<String> tags) {
+        final Set<String> previousTags = tags.isEmpty() ? this.tagsByKey.remove(key) : this.tagsByKey.put(key, Set.copyOf(tags));
+        if (previousTags != null) {
+            previousTags.forEach(tag -> {
+                if (!tags.contains(tag)) {
+                    unlink(tag, key);
+                }
+            });
+        }
+
+        tags.forEach(tag -> this.keysByTag.compute(tag, (t, keys) -> {
+            final Set<K> result = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            result.add(key);
+            return result;
+        }));
+    }
+
+    void untag(@Nonnull K key) {
+        // the lookup of the key is skipped for the caches without tags
+        if (this.tagsByKey.isEmpty()) {
+            return;
+        }
+
+        final Set<String> tags = this.tagsByKey.remove(key);
+        if (tags != null) {
+            tags.forEach(tag -> unlink(tag, key));
+        }
+    }
+
+    boolean hasTag(@Nonnull K key, @Nonnull String tag) {
+        final Set<String> tags = this.tagsByKey.get(key);
+        return tags != null && tags.contains(tag);
+    }
+
+    @Nonnull
+    Set<K> keysOf(@Nonnull String tag) {
+        final Set<K> keys = this.keysByTag.get(tag);
+        return keys == null ? Set.of() : Set.copyOf(keys);
+    }
+
+    private void unlink(final String tag, final K key) {
+        this.keysByTag.computeIfPresent(tag, (t, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package ru.joke.memcache.core.internal;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@ThreadSafe
+final class Tombstones<K> {
+
+    private final Map<K, Long> removalVersions;
+    private final HybridLogicalClock clock;
+    private final long retentionTime;
+    private final int purgeThreshold;
+    private final AtomicBoolean purgeInProgress;
+
+    Tombstones(
+            @Nonnull HybridLogicalClock clock,
+            @Nonnegative long retentionTime,
+            @Nonnegative int purgeThreshold) {
+        this.removalVersions = new ConcurrentHashMap<>();
+        this.clock = clock;
+        this.retentionTime = retentionTime;
+        this.purgeThreshold = purgeThreshold;
+        this.purgeInProgress = new AtomicBoolean();
+    }
+
+    // the changes of the tombstone of the key must be performed under the lock of the entry of the key
+    void record(@Nonnull K key, long version) {
+        this.removalVersions.merge(key, version, Math::max);
+        if (this.removalVersions.size() > this.purgeThreshold && this.purgeInProgress.compareAndSet(false, true)) {
+            try {
+                purge();
+            } finally {
+                this.purgeInProgress.set(false);
+            }
+        }
+    }
+
+    boolean covers(@Nonnull K key, long version) {
+        // the lookup of the key is skipped while there are no removals
+        if (this.removalVersions.isEmpty()) {
+            return false;
+        }
+
+        final Long removalVersion = this.removalVersions.get(key);
+        return removalVersion != null && removalVersion >= version;
+    }
+
+    void forget(@Nonnull K key) {
+        if (!this.removalVersions.isEmpty()) {
+            this.removalVersions.remove(key);
+        }
+    }
+
+    @Nonnegative
+    int size() {
+        return this.removalVersions.size();
+    }
+
+    private void purge() {
+        // tombstones are needed only until the delayed changes preceding the removal are received,
+        // so the tombstones older than the retention time are dropped
+        final long oldestRetainedVersion = this.clock.timestampBefore(this.retentionTime);
+        this.removalVersions.values().removeIf(version -> version < oldestRetainedVersion);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.joke.memcache.core.internal;
+
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+
+abstract class ValuesCodec {
+
+    @Nonnull
+    abstract <V extends Serializable> V encode(@Nonnull V value);
+
+    @Nonnull
+    abstract <V extends Serializable> V decode(@Nonnull V storedValue);
+
+    @Nonnull
+    abstract <V extends Serializable> V adopt(@Nonnull V restoredValue);
+
+    @Nonnull
+    static ValuesCodec create(@Nonnull MemoryStoreConfiguration configuration) {
+        return configuration.valuesCompressionEnabled()
+                ? new CompressingValuesCodec(configuration.decompressedValuesCacheSize())
+                : new NoOpValuesCodec();
+    }
+
+    static class NoOpValuesCodec extends ValuesCodec {
+
+        @Nonnull
+        @Override
+        <V extends Serializable> V encode(@Nonnull V value) {
+            return value;
+        }
+
+        @Nonnull
+        @Override
+        <V extends Serializable> V decode(@Nonnull V storedValue) {
+            return storedValue;
+        }
+
+        @Nonnull
+        @Override
+        <V extends Serializable> V adopt(@Nonnull V restoredValue) {
+            if (restoredValue instanceof CompressedValue compressedValue) {
+                @SuppressWarnings("unchecked")
+                final V result = (V) compressedValue.decompress();
+                return result;
+            }
+
+            return restoredValue;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ru.joke.memcache.core.reactive;
+
+import ru.joke.memcache.core.MemCacheException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ThreadSafe
+final class BufferedSubscription<T> implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super T> subscriber;
+    private final Executor executor;
+    private final int capacity;
+    private final Queue<T> buffer;
+    private final AtomicInteger bufferedCount;
+    private final AtomicLong requested;
+    private final AtomicInteger pendingDrains;
+    private final AtomicBoolean terminationHandled;
+    private final Runnable onTermination;
+
+    private volatile boolean cancelled;
+    private volatile boolean completed;
+    private volatile Throwable error;
+
+    // accessed only by the draining thread
+    private boolean subscribed;
+    private boolean terminated;
+
+    BufferedSubscription(
+            @Nonnull Flow.Subscriber<? super T> subscriber,
+            @Nonnull Executor executor,
+            @Nonnegative int capacity,
+            @Nonnull Runnable onTermination) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.onTermination = onTermination;
+        this.buffer = new ConcurrentLinkedQueue<>();
+        this.bufferedCount = new AtomicInteger();
+        this.requested = new AtomicLong();
+        this.pendingDrains = new AtomicInteger();
+        this.terminationHandled = new AtomicBoolean();
+    }
+
+    void start() {
+        scheduleDrain();
+    }
+
+    boolean offer(@Nonnull T item) {
+        if (this.cancelled || this.completed) {
+            return false;
+        }
+
+        // the producers are never blocked: the subscriber that does not keep up with the items fails
+        if (this.bufferedCount.incrementAndGet() > this.capacity) {
+            this.bufferedCount.decrementAndGet();
+            fail(new MemCacheException("Buffer of the subscriber is overflowed, buffer size: " + this.capacity));
+            return false;
+        }
+
+        this.buffer.offer(item);
+        scheduleDrain();
+        return true;
+    }
+
+    void complete() {
+        this.completed = true;
+        handleTermination();
+        scheduleDrain();
+    }
+
+    void fail(@Nonnull Throwable ex) {
+        if (this.completed) {
+            return;
+        }
+
+        this.error = ex;
+        complete();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Count of the requested items must be positive: " + n));
+            return;
+        }
+
+        this.requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+        scheduleDrain();
+    }
+
+    @Override
+    public void cancel() {
+        this.cancelled = true;
+        handleTermination();
+        scheduleDrain();
+    }
+
+    private void handleTermination() {
+        if (this.terminationHandled.compareAndSet(false, true)) {
+            this.onTermination.run();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (this.pendingDrains.getAndIncrement() == 0) {
+            this.executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            if (!this.subscribed) {
+                this.subscribed = true;
+                this.subscriber.onSubscribe(this);
+            }
+
+            if (!this.terminated) {
+                try {
+                    emit();
+                } catch (RuntimeException ex) {
+                    // the subscriber violated the contract, so the subscription is considered as cancelled
+                    this.terminated = true;
+                    cancel();
+                }
+            }
+
+            if (this.terminated) {
+                this.buffer.clear();
+            }
+
+            missed = this.pendingDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit() {
+        if (this.cancelled) {
+            this.terminated = true;
+            return;
+        }
+
+        final Throwable error = this.error;
+        if (error != null) {
+            this.terminated = true;
+            this.subscriber.onError(error);
+            return;
+        }
+
+        final long requested = this.requested.get();
+        long emitted = 0;
+        while (emitted < requested && !this.cancelled) {
+            final T item = this.buffer.poll();
+            if (item == null) {
+                break;
+            }
+
+            this.bufferedCount.decrementAndGet();
+            this.subscriber.onNext(item);
+            emitted++;
+        }
+
+        if (emitted > 0 && requested != Long.MAX_VALUE) {
+            this.requested.addAndGet(-emitted);
+        }
+
+        if (this.completed && !this.cancelled && this.buffer.isEmpty()) {
+            this.terminated = true;
+            this.subscriber.onComplete();
+        }
+    }
+}
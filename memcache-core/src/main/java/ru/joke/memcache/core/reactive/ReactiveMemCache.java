@@ -0,0 +1,202 @@
+package ru.joke.memcache.core.reactive;
+
+import ru.joke.memcache.core.Lifecycle;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
+import ru.joke.memcache.core.events.CacheEntryEventListener;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The reactive facade of the cache based on the {@linkplain Flow} API: the results of the batch reads
+ * and the events of the cache are streamed to the subscribers as they appear.<br>
+ * The items are delivered to each subscriber asynchronously on the executor of the facade according to the demand
+ * of the subscriber ({@linkplain Flow.Subscription#request(long)}); the items without the demand are buffered.
+ * The producers (the operations of the cache) are never blocked by the slow subscribers: the subscription is failed
+ * with the {@linkplain ru.joke.memcache.core.MemCacheException} when the buffer of the subscriber is overflowed.<br>
+ * The facade doesn't own the cache, the lifecycle of the cache is managed by the cache manager.
+ *
+ * @param <K> the type of the cache keys, must be serializable
+ * @param <V> the type of the cache values, must be serializable
+ * @author Alik
+ * @see MemCache
+ * @see CacheEntryEventListener
+ */
+@ThreadSafe
+public final class ReactiveMemCache<K extends Serializable, V extends Serializable> {
+
+    private final MemCache<K, V> cache;
+    private final Executor executor;
+    private final int bufferSize;
+
+    /**
+     * Creates the facade that delivers the items on the {@linkplain ForkJoinPool#commonPool()}
+     * with the {@linkplain Flow#defaultBufferSize()} buffer for each subscriber.
+     *
+     * @param cache the cache, cannot be {@code null}.
+     */
+    public ReactiveMemCache(@Nonnull MemCache<K, V> cache) {
+        this(cache, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * Creates the facade.
+     *
+     * @param cache      the cache, cannot be {@code null}.
+     * @param executor   the executor which delivers the items to the subscribers, cannot be {@code null}.
+     * @param bufferSize the maximum count of the items buffered for each subscriber without the demand, must be positive.
+     */
+    public ReactiveMemCache(
+            @Nonnull MemCache<K, V> cache,
+            @Nonnull Executor executor,
+            @Nonnegative int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+
+        this.cache = cache;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Returns the underlying cache.
+     *
+     * @return the cache, cannot be {@code null}.
+     */
+    @Nonnull
+    public MemCache<K, V> cache() {
+        return this.cache;
+    }
+
+    /**
+     * Returns the publisher of the values of the keys. The reads of all keys are started asynchronously on each
+     * subscription ({@linkplain MemCache#getAsync(Serializable)}) and the entries are published in the order
+     * of the completion of the reads, only the keys that are present in the cache are published.
+     * The publisher completes when all reads are completed or fails on the first failed read.<br>
+     * The buffer size of the facade must not be less than the count of the keys if the subscriber requests
+     * the entries lazily.
+     *
+     * @param keys the keys to read, cannot be {@code null}.
+     * @return the cold publisher of the entries, cannot be {@code null}.
+     */
+    @Nonnull
+    public Flow.Publisher<Map.Entry<K, V>> getAll(@Nonnull Collection<? extends K> keys) {
+        final List<K> keysSnapshot = List.copyOf(keys);
+        return subscriber -> {
+            final BufferedSubscription<Map.Entry<K, V>> subscription = createSubscription(subscriber, () -> {});
+            subscription.start();
+
+            if (keysSnapshot.isEmpty()) {
+                subscription.complete();
+                return;
+            }
+
+            final AtomicInteger remaining = new AtomicInteger(keysSnapshot.size());
+            for (final K key : keysSnapshot) {
+                this.cache.getAsync(key).whenComplete((value, ex) -> {
+                    if (ex != null) {
+                        subscription.fail(ex);
+                        return;
+                    }
+
+                    value.ifPresent(v -> subscription.offer(Map.entry(key, v)));
+                    if (remaining.decrementAndGet() == 0) {
+                        subscription.complete();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Returns the publisher of the events of the cache elements ({@linkplain CacheEntryEventListener#onEvent(CacheEntryEvent)}).
+     * Each subscription registers the own listener on the cache which is deregistered on the cancellation or on the failure
+     * of the subscription; the events that occurred before the subscription are not published.<br>
+     * The publisher never completes by itself.
+     *
+     * @return the hot publisher of the events, cannot be {@code null}.
+     * @see CacheEntryEvent
+     */
+    @Nonnull
+    public Flow.Publisher<CacheEntryEvent<K, V>> events() {
+        return subscriber -> subscribe(subscriber, false);
+    }
+
+    /**
+     * Returns the publisher of the batch events of the cache elements
+     * ({@linkplain CacheEntryEventListener#onBatchEvent(CacheEntriesEvent)}), see {@linkplain #events()}.
+     *
+     * @return the hot publisher of the batch events, cannot be {@code null}.
+     * @see CacheEntriesEvent
+     */
+    @Nonnull
+    public Flow.Publisher<CacheEntriesEvent<K, V>> batchEvents() {
+        return subscriber -> subscribe(subscriber, true);
+    }
+
+    private <E> void subscribe(final Flow.Subscriber<? super E> subscriber, final boolean batchEvents) {
+        final EventsPublishingListener<E> listener = new EventsPublishingListener<>(batchEvents);
+        listener.subscription = createSubscription(subscriber, () -> deregister(listener));
+        listener.subscription.start();
+
+        try {
+            this.cache.registerEventListener(listener);
+        } catch (RuntimeException ex) {
+            listener.subscription.fail(ex);
+        }
+    }
+
+    private void deregister(final CacheEntryEventListener<K, V> listener) {
+        // the listeners of the stopped cache are already dropped
+        if (this.cache.status() == Lifecycle.ComponentStatus.RUNNING) {
+            this.cache.deregisterEventListener(listener);
+        }
+    }
+
+    private <T> BufferedSubscription<T> createSubscription(
+            final Flow.Subscriber<? super T> subscriber,
+            final Runnable onTermination) {
+        return new BufferedSubscription<>(subscriber, this.executor, this.bufferSize, onTermination);
+    }
+
+    private final class EventsPublishingListener<E> implements CacheEntryEventListener<K, V> {
+
+        private final boolean batchEvents;
+        private volatile BufferedSubscription<E> subscription;
+
+        private EventsPublishingListener(final boolean batchEvents) {
+            this.batchEvents = batchEvents;
+        }
+
+        @Override
+        public void onEvent(@Nonnull CacheEntryEvent<? extends K, ? extends V> event) {
+            if (!this.batchEvents) {
+                publish(event);
+            }
+        }
+
+        @Override
+        public void onBatchEvent(@Nonnull CacheEntriesEvent<? extends K, ? extends V> event) {
+            if (this.batchEvents) {
+                publish(event);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void publish(final Object event) {
+            this.subscription.offer((E) event);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.joke.memcache.core.spi;
+
+import ru.joke.memcache.core.MemCache;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Serializable;
+import java.util.BitSet;
+
+/**
+ * The support of the anti-entropy repair of the replicas of the cache in the cluster.<br>
+ * It is the service provider interface for the clustering modules, it is not intended for the application code:
+ * the caches created by the {@linkplain ru.joke.memcache.core.MemCacheManager} implement it, the decorators of the caches
+ * may not implement it.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cache values
+ * @author Alik
+ * @see MerkleTree
+ */
+@ThreadSafe
+public interface AntiEntropySupport<K extends Serializable, V extends Serializable> {
+
+    /**
+     * Returns the snapshot of the Merkle tree of the cache. The tree is maintained incrementally on each change
+     * of the cache, so the snapshot is cheap. Trees of the replicas of the cache in the cluster can be compared
+     * to find the divergent ranges of keys.
+     *
+     * @return the snapshot of the Merkle tree of the cache; cannot be {@code null}.
+     * @see MerkleTree
+     */
+    @Nonnull
+    MerkleTree merkleTree();
+
+    /**
+     * Performs the given action for each element of the given ranges of keys (leaves of the Merkle tree)
+     * together with its version. Only the elements of the ranges are visited, the other elements of the cache are not scanned;
+     * the keys of the ranges are indexed on the first call, so the first call takes the time of the full scan of the cache.
+     * The iteration is weakly consistent (see {@linkplain MemCache#forEach(MemCache.VersionedEntryConsumer)}).
+     *
+     * @param ranges the indexes of the ranges (leaves of the Merkle tree), cannot be {@code null}.
+     * @param action the action, cannot be {@code null}.
+     * @see MerkleTree#leafOf(Object)
+     */
+    void forEachInRanges(@Nonnull BitSet ranges, @Nonnull MemCache.VersionedEntryConsumer<? super K, ? super V> action);
+}
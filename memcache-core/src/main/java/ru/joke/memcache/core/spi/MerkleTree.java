@@ -0,0 +1,162 @@
+package ru.joke.memcache.core.spi;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The snapshot of the Merkle tree of the cache. The keys of the cache are distributed between the fixed count of
+ * ranges (leaves of the tree) by their hash codes; the hash of the leaf depends on the keys and the versions of the entries
+ * of the range, the hash of the inner node depends on the hashes of its children.<br>
+ * The trees of the replicas of the cache are equal if the replicas contain the same entries of the same versions,
+ * so the comparison of the trees allows to find the divergent ranges of the replicas without the transfer of the entries.
+ * The hash codes of the keys must be the same on all nodes (as for strings, numbers and records of them);
+ * the enum keys are hashed by their names (see {@linkplain #keyHash(Object)}).
+ *
+ * @author Alik
+ * @see AntiEntropySupport#merkleTree()
+ */
+@Immutable
+public final class MerkleTree implements Serializable {
+
+    /**
+     * The count of the leaves (ranges of keys) of the tree.
+     */
+    public static final int LEAVES_COUNT = 1024;
+
+    private static final int LEAF_BITS = Integer.numberOfTrailingZeros(LEAVES_COUNT);
+
+    // the heap layout: the root is the node 1, the children of the node i are the nodes 2i and 2i + 1, leaves are the last nodes
+    private final long[] nodes;
+
+    public MerkleTree(@Nonnull long[] leafHashes) {
+        if (leafHashes.length != LEAVES_COUNT) {
+            throw new IllegalArgumentException("Leaves count must be " + LEAVES_COUNT);
+        }
+
+        this.nodes = new long[LEAVES_COUNT << 1];
+        System.arraycopy(leafHashes, 0, this.nodes, LEAVES_COUNT, LEAVES_COUNT);
+        for (int i = LEAVES_COUNT - 1; i > 0; i--) {
+            this.nodes[i] = combine(this.nodes[i << 1], this.nodes[(i << 1) + 1]);
+        }
+    }
+
+    /**
+     * Returns the index of the leaf (range of keys) of the key.
+     *
+     * @param key the key of the cache entry, cannot be {@code null}.
+     * @return the index of the leaf.
+     */
+    @Nonnegative
+    public static int leafOf(@Nonnull Object key) {
+        return leafOfHash(keyHash(key));
+    }
+
+    /**
+     * Returns the hash of the key which is the same on all nodes for the supported keys: the hash code of the key
+     * or the hash code of the name for the enum constants, since their hash codes are identity-based.
+     *
+     * @param key the key of the cache entry, cannot be {@code null}.
+     * @return the hash of the key.
+     */
+    public static int keyHash(@Nonnull Object key) {
+        return key instanceof Enum<?> e ? e.name().hashCode() : key.hashCode();
+    }
+
+    /**
+     * Returns the index of the leaf (range of keys) of the key with the given hash.
+     *
+     * @param keyHash the hash of the key of the cache entry.
+     * @return the index of the leaf.
+     * @see #leafOf(Object)
+     */
+    @Nonnegative
+    public static int leafOfHash(int keyHash) {
+        return (int) (mix(keyHash) >>> (Long.SIZE - LEAF_BITS));
+    }
+
+    /**
+     * Returns the hash of the root of the tree.
+     *
+     * @return the hash of the root.
+     */
+    public long rootHash() {
+        return this.nodes[1];
+    }
+
+    /**
+     * Returns the hash of the leaf (range of keys) with the given index.
+     *
+     * @param leaf the index of the leaf.
+     * @return the hash of the leaf.
+     */
+    public long leafHash(@Nonnegative int leaf) {
+        return this.nodes[LEAVES_COUNT + leaf];
+    }
+
+    /**
+     * Returns the indexes of the leaves (ranges of keys) whose hashes differ in this and in the given tree.
+     * Only the subtrees with the different hashes are compared.
+     *
+     * @param other the tree to compare with, cannot be {@code null}.
+     * @return the indexes of the divergent leaves, cannot be {@code null}.
+     */
+    @Nonnull
+    public BitSet diff(@Nonnull MerkleTree other) {
+        final BitSet result = new BitSet(LEAVES_COUNT);
+        diff(other, 1, result);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        return Arrays.equals(this.nodes, ((MerkleTree) o).nodes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(rootHash());
+    }
+
+    @Override
+    public String toString() {
+        return "MerkleTree{" +
+                "rootHash=" + Long.toHexString(rootHash()) +
+                '}';
+    }
+
+    private void diff(final MerkleTree other, final int node, final BitSet result) {
+        if (this.nodes[node] == other.nodes[node]) {
+            return;
+        } else if (node >= LEAVES_COUNT) {
+            result.set(node - LEAVES_COUNT);
+            return;
+        }
+
+        diff(other, node << 1, result);
+        diff(other, (node << 1) + 1, result);
+    }
+
+    private static long combine(final long left, final long right) {
+        return left == 0 && right == 0 ? 0 : mix(left * 31 + mix(right));
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -25,6 +25,7 @@ public class ConfigurationSourceTest {
         assertEquals(1, configuration.cleaningPoolSize(), "Default cleaning pool size must be set");
         final int parallelismLevel = Math.max(Runtime.getRuntime().availableProcessors() / 2, 1);
         assertEquals(parallelismLevel, configuration.asyncCacheOpsParallelismLevel(), "Default parallelism level must be set");
+        assertEquals(Configuration.AsyncCacheOpsMode.POOLED, configuration.asyncCacheOpsMode(), "Default async ops mode must be set");
     }
 
     @Test
@@ -81,6 +82,15 @@ public class ConfigurationSourceTest {
         assertEquals(parallelismLevel, pulledParallelismLevel, "Async ops parallelism level must be equal to value set");
     }
 
+    @Test
+    public void testSetAsyncCacheOpsMode() {
+        configurationSource.setAsyncCacheOpsMode(Configuration.AsyncCacheOpsMode.VIRTUAL_THREADS);
+
+        final var pulledMode = configurationSource.pull().asyncCacheOpsMode();
+
+        assertEquals(Configuration.AsyncCacheOpsMode.VIRTUAL_THREADS, pulledMode, "Async ops mode must be equal to value set");
+    }
+
     @Test
     public void testSetIllegalAsyncCacheOpsParallelismLevel() {
         configurationSource.setAsyncCacheOpsParallelismLevel(0);
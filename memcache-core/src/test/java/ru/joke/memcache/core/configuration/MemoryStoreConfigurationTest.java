@@ -26,6 +26,19 @@ public class MemoryStoreConfigurationTest {
 
         builder.setMaxEntries(-1);
         assertThrows(InvalidConfigurationException.class, builder::build, "Memory store configuration can't contain negative value in max entries");
+
+        builder.setMaxEntries(4);
+        builder.setConcurrencyLevel(2);
+        builder.setMaxConcurrencyLevel(1);
+        assertThrows(InvalidConfigurationException.class, builder::build, "Memory store configuration can't contain max concurrency level lesser than concurrency level");
+
+        builder.setMaxConcurrencyLevel(0);
+        builder.setConcurrencyLevel(1);
+        builder.setMaxEntries(1);
+
+        builder.setValuesCompressionEnabled(true);
+        builder.setDecompressedValuesCacheSize(-1);
+        assertThrows(InvalidConfigurationException.class, builder::build, "Memory store configuration can't contain negative value in decompressed values cache size");
     }
 
     @Test
@@ -42,6 +55,41 @@ public class MemoryStoreConfigurationTest {
         final var config = builder.build();
         assertEquals(concurrencyLevel, config.concurrencyLevel(), "Concurrency level must be equal to the value set in builder");
         assertEquals(maxEntries, config.maxEntries(), "Max entries count must be equal to the value set in builder");
+        assertFalse(config.valuesCompressionEnabled(), "Values compression must be disabled by default");
+        assertEquals(0, config.decompressedValuesCacheSize(), "Decompressed values cache size must be zero by default");
+        assertTrue(config.maxConcurrencyLevel() >= concurrencyLevel, "Max concurrency level must be not lesser than concurrency level by default");
+        assertTrue(config.maxConcurrencyLevel() <= maxEntries, "Max concurrency level must be not greater than max entries count");
+    }
+
+    @Test
+    public void testValidConfigurationWithMaxConcurrencyLevel() {
+        final var builder =
+                MemoryStoreConfiguration
+                        .builder()
+                            .setConcurrencyLevel(2)
+                            .setMaxConcurrencyLevel(8)
+                            .setMaxEntries(100);
+
+        assertEquals(8, builder.build().maxConcurrencyLevel(), "Max concurrency level must be equal to the value set in builder");
+        assertEquals(4, builder.setMaxEntries(4).build().maxConcurrencyLevel(), "Max concurrency level must be limited by max entries count");
+    }
+
+    @Test
+    public void testValidConfigurationWithValuesCompression() {
+        final int decompressedValuesCacheSize = 16;
+
+        final var builder =
+                MemoryStoreConfiguration
+                        .builder()
+                            .setConcurrencyLevel(1)
+                            .setMaxEntries(12)
+                            .setDecompressedValuesCacheSize(decompressedValuesCacheSize);
+
+        assertEquals(0, builder.build().decompressedValuesCacheSize(), "Decompressed values cache size must be zero when values compression is disabled");
+
+        final var config = builder.setValuesCompressionEnabled(true).build();
+        assertTrue(config.valuesCompressionEnabled(), "Values compression must be equal to the value set in builder");
+        assertEquals(decompressedValuesCacheSize, config.decompressedValuesCacheSize(), "Decompressed values cache size must be equal to the value set in builder");
     }
 
     @Test
@@ -19,6 +19,7 @@ public class XmlConfigurationSourceTest {
     private static final String INVALID_FILE_NAME = "/test-invalid-configuration.xml";
     private static final String VALID_FILE_NAME1 = "/test-configuration1.xml";
     private static final String VALID_FILE_NAME2 = "/test-configuration2.xml";
+    private static final String VIRTUAL_THREADS_FILE_NAME = "/test-configuration-virtual-threads.xml";
     private static final String RELATIVE_PATH = "src/test/resources";
 
     @Test
@@ -64,6 +65,19 @@ public class XmlConfigurationSourceTest {
         makeChecksValid(source);
     }
 
+    @Test
+    public void testWhenPullAsyncCacheOpsModeFromXmlThenOk() {
+        final ConfigurationSource source =
+                XmlConfigurationSource
+                        .builder()
+                            .addResourceConfigurationFilePaths(Set.of(VALID_FILE_NAME1, VIRTUAL_THREADS_FILE_NAME))
+                        .build();
+        final Configuration configuration = source.pull();
+
+        assertEquals(Configuration.AsyncCacheOpsMode.VIRTUAL_THREADS, configuration.asyncCacheOpsMode(), "Async cache ops mode must be equal to the mode from config file");
+        assertEquals(3, configuration.cacheConfigurations().size(), "Configurations count must be equal");
+    }
+
     private void makeChecksInvalid(final ConfigurationSource source) {
         assertThrows(InvalidConfigurationException.class, source::pull, "Exception must be thrown when the file is invalid");
     }
@@ -75,6 +89,7 @@ public class XmlConfigurationSourceTest {
         assertEquals(2, configuration.cleaningPoolSize(), "Cleaning pool size must be equal to max value from config files");
         assertEquals(3, configuration.cacheConfigurations().size(), "Configurations count must be equal");
         assertEquals(41, configuration.asyncCacheOpsParallelismLevel(), "Async cache ops parallelism level must be equal to max value from config files");
+        assertEquals(Configuration.AsyncCacheOpsMode.POOLED, configuration.asyncCacheOpsMode(), "Async cache ops mode must be default when it is not set in config files");
 
         final CacheConfiguration cacheConfiguration1 = TestCacheConfigBuilder.build("test1", CacheConfiguration.EvictionPolicy.LFU, 20, 2, "t1", "/opt/loc", true, -1, -1, List.of(new Listener1()));
         final CacheConfiguration cacheConfiguration2 = TestCacheConfigBuilder.build("test2", CacheConfiguration.EvictionPolicy.FIFO, 30, 3, "t1", "/opt/loc", true, 10000, 100, List.of(new Listener1()));
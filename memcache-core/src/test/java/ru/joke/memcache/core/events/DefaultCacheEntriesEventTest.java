@@ -3,8 +3,11 @@ package ru.joke.memcache.core.events;
 import org.junit.jupiter.api.Test;
 import ru.joke.memcache.core.MemCache;
 
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class DefaultCacheEntriesEventTest {
@@ -20,6 +23,18 @@ public class DefaultCacheEntriesEventTest {
         assertEquals(source, event.source(), "Source cache must be equal to the value set");
     }
 
+    @Test
+    public void testConstructorShouldSetAffectedKeysAndVersion() {
+        final MemCache<String, String> source = mock(MemCache.class);
+
+        final var allEntriesEvent = new DefaultCacheEntriesEvent<>(EventType.REMOVED, source);
+        assertTrue(allEntriesEvent.keys().isEmpty(), "Keys must not present when all entries are affected");
+
+        final var event = new DefaultCacheEntriesEvent<>(EventType.REMOVED, source, Set.of("key1", "key2"), 42);
+        assertEquals(Set.of("key1", "key2"), event.keys().orElseThrow(), "Keys must be equal to the value set");
+        assertEquals(42, event.version(), "Version must be equal to the value set");
+    }
+
     @Test
     public void testConstructorShouldThrowExceptionIfEventTypeIsNull() {
         final MemCache<?, ?> source = mock(MemCache.class);
@@ -1,10 +1,15 @@
 package ru.joke.memcache.core.internal;
 
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -42,6 +47,63 @@ public class AsyncOpsInvokerTest {
         assertEquals(2, value.get(), "Action should be performed");
     }
 
+    @Test
+    public void testVirtualThreadsInvocation() throws ExecutionException, InterruptedException {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21+");
+
+        try (AsyncOpsInvoker invoker = new AsyncOpsInvoker(2, Configuration.AsyncCacheOpsMode.VIRTUAL_THREADS)) {
+            final AtomicInteger concurrentOps = new AtomicInteger();
+            final AtomicInteger maxConcurrentOps = new AtomicInteger();
+            final CountDownLatch submitted = new CountDownLatch(1);
+
+            // the operations over the limit are queued, so the caller is not blocked while the running ones await the latch
+            final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int value = i;
+                futures.add(invoker.invoke(() -> {
+                    maxConcurrentOps.accumulateAndGet(concurrentOps.incrementAndGet(), Math::max);
+                    try {
+                        submitted.await();
+                        Thread.sleep(10);
+                    } catch (InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    } finally {
+                        concurrentOps.decrementAndGet();
+                    }
+
+                    return value;
+                }));
+            }
+
+            submitted.countDown();
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i, futures.get(i).get(), "Result value must be equal");
+            }
+
+            assertTrue(maxConcurrentOps.get() <= 2, "Count of concurrent operations must be limited by parallelism");
+        }
+    }
+
+    @Test
+    public void testInlineInvocation() {
+        try (AsyncOpsInvoker invoker = new AsyncOpsInvoker(1, Configuration.AsyncCacheOpsMode.INLINE)) {
+            final Thread caller = Thread.currentThread();
+            final CompletableFuture<Thread> future = invoker.invoke(Thread::currentThread);
+
+            assertTrue(future.isDone(), "Future must be completed on return");
+            assertSame(caller, future.join(), "Operation must be executed in the calling thread");
+
+            final AtomicInteger value = new AtomicInteger();
+            assertTrue(invoker.invoke(() -> value.set(2)).isDone(), "Future must be completed on return");
+            assertEquals(2, value.get(), "Action should be performed");
+
+            final CompletableFuture<Object> failedFuture = invoker.invoke(() -> {
+                throw new IllegalStateException();
+            });
+            assertTrue(failedFuture.isCompletedExceptionally(), "Future must be completed exceptionally when the operation fails");
+        }
+    }
+
     @AfterEach
     void tearDown() {
         asyncOpsInvoker.close();
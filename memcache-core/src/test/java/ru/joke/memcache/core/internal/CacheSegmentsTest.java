@@ -0,0 +1,270 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheSegmentsTest {
+
+    @Test
+    public void testSegmentsCountByConcurrencyLevel() {
+        assertEquals(4, createSegments(100, 3, 3).segments().length, "Segments count must be rounded up to power of two");
+        assertEquals(1, createSegments(100, 1, 1).segments().length, "Segments count must be equal");
+        assertEquals(2, createSegments(4, 16, 16).segments().length, "Segments count must be limited by max entries");
+    }
+
+    @Test
+    public void testRebuildKeepsEntries() {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 2, 16);
+        fill(segments, 500);
+
+        final CacheSegments.Segment<Integer, String>[] previousGeneration = segments.segments();
+        segments.tagIndex().tag(1, Set.of("a"));
+        assertTrue(segments.split(previousGeneration[0]), "Segment must be split");
+        assertEquals(3, segments.segments().length, "Segments count must be equal after split of the single segment");
+        assertSame(previousGeneration[1], segments.segments()[2], "Not split segment must be kept");
+        checkEntries(segments, 500);
+
+        while (segments.segments().length < 16) {
+            for (final CacheSegments.Segment<Integer, String> segment : segments.segments()) {
+                segments.split(segment);
+            }
+        }
+
+        assertEquals(Set.of(1), segments.tagIndex().keysOf("a"), "Tag index must be kept by rebuilding");
+        assertEquals(16, segments.segments().length, "Segments count must be equal after split");
+        assertFalse(segments.split(segments.segments()[0]), "Segment must not be split above the max concurrency level");
+        checkEntries(segments, 500);
+        assertEquals(0, Arrays.stream(previousGeneration).mapToInt(s -> s.evictionQueue.size()).sum(), "Queued entries must be moved from the replaced segments");
+
+        while (segments.segments().length > 2) {
+            for (final CacheSegments.Segment<Integer, String> segment : segments.segments()) {
+                segments.merge(segment);
+            }
+        }
+
+        assertEquals(2, segments.segments().length, "Segments count must be equal after merge");
+        assertFalse(segments.merge(segments.segments()[0]), "Segment must not be merged below the concurrency level");
+        checkEntries(segments, 500);
+    }
+
+    @Test
+    public void testWritersOfOtherSegmentsAreNotBlockedBySplit() throws InterruptedException {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 2, 4);
+        fill(segments, 100);
+
+        final CacheSegments.Segment<Integer, String> splitSegment = segments.segments()[0];
+        final int otherKey = findKey(segments, segments.segments()[1]);
+        final CacheSegments.Segment<Integer, String> holder = segments.acquire(findKey(segments, splitSegment));
+        final Thread rebuilder = new Thread(() -> segments.split(splitSegment));
+        rebuilder.start();
+        rebuilder.join(200);
+
+        assertTrue(rebuilder.isAlive(), "Split must wait for the writers of the split segment");
+        final CacheSegments.Segment<Integer, String> otherSegment = segments.acquire(otherKey);
+        assertSame(segments.segments()[1], otherSegment, "Writers of the other segments must not be blocked by split");
+        otherSegment.release();
+
+        holder.release();
+        rebuilder.join();
+
+        assertEquals(3, segments.segments().length, "Segments count must be equal after split");
+        checkEntries(segments, 100);
+    }
+
+    @Test
+    public void testBatchesVisitEachEntryOnceWhileRebuilding() {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 4, 16);
+        fill(segments, 500);
+
+        final List<Integer> visitedKeys = new ArrayList<>();
+        final AtomicInteger batches = new AtomicInteger();
+        segments.forEachBatch(
+                MemCacheEntry::key,
+                batch -> {
+                    visitedKeys.addAll(batch);
+                    // the layout is changed between the batches: the segments are split after the first one and merged after the next one
+                    if (batches.incrementAndGet() == 1) {
+                        Arrays.stream(segments.segments()).forEach(segments::split);
+                    } else if (batches.get() == 2) {
+                        Arrays.stream(segments.segments()).forEach(segments::merge);
+                    }
+                }
+        );
+
+        assertEquals(500, visitedKeys.size(), "Each entry must be visited once");
+        assertEquals(500, new HashSet<>(visitedKeys).size(), "Each entry must be visited once");
+    }
+
+    @Test
+    public void testAdaptToContention() {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 1, 4);
+        assertFalse(segments.adapt(), "Segments must not be adapted without writes");
+
+        // the first writer holds the segment, so all writes of the second one are contended
+        final CacheSegments.Segment<Integer, String> holder = segments.acquire(0);
+        for (int i = 0; i < 2_000; i++) {
+            segments.acquire(i).release();
+        }
+        holder.release();
+
+        assertTrue(segments.adapt(), "Segments must be split under contention");
+        assertEquals(2, segments.segments().length, "Segments count must be equal after split");
+
+        for (int p = 0; p < 8; p++) {
+            writeWithoutContention(segments);
+            assertFalse(segments.adapt(), "Segments must not be merged soon after split");
+        }
+
+        for (int p = 0; p < 32 && segments.segments().length > 1; p++) {
+            writeWithoutContention(segments);
+            segments.adapt();
+        }
+
+        assertEquals(1, segments.segments().length, "Segments must be merged after calm periods");
+    }
+
+    @Test
+    public void testWritersAwaitRebuilding() throws InterruptedException {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 1, 4);
+        fill(segments, 100);
+
+        final CacheSegments.Segment<Integer, String> holder = segments.acquire(1);
+        final AtomicBoolean rebuilt = new AtomicBoolean();
+        final Thread rebuilder = new Thread(() -> {
+            segments.split(segments.segments()[0]);
+            rebuilt.set(true);
+        });
+        rebuilder.start();
+        rebuilder.join(200);
+
+        assertFalse(rebuilt.get(), "Rebuilding must wait for active writers");
+        assertEquals("1", segments.segmentFor(1).entries.get(1).value(), "Readers must not be blocked by rebuilding");
+
+        holder.release();
+        rebuilder.join();
+
+        assertTrue(rebuilt.get(), "Rebuilding must be completed after writers release");
+        checkEntries(segments, 100);
+    }
+
+    @Test
+    public void testReadsAreNotCountedAsWrites() throws InterruptedException {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 1, 4);
+        fill(segments, 10);
+
+        final CacheSegments.Segment<Integer, String> reader = segments.acquireForRead(0);
+        for (int i = 0; i < 2_000; i++) {
+            segments.acquireForRead(i).release();
+        }
+
+        final Thread rebuilder = new Thread(() -> segments.split(segments.segments()[0]));
+        rebuilder.start();
+        rebuilder.join(200);
+
+        assertTrue(rebuilder.isAlive(), "Rebuilding must wait for the acquired reads");
+        reader.release();
+        rebuilder.join();
+
+        assertEquals(2, segments.segments().length, "Segments count must be equal after rebuilding");
+        assertFalse(segments.adapt(), "Segments must not be adapted by the reads");
+        checkEntries(segments, 10);
+    }
+
+    @Test
+    public void testClear() {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 4, 4);
+        fill(segments, 100);
+        final EvictionQueue<Integer, String> evictionQueue = segments.segments()[0].evictionQueue;
+        final TagIndex<Integer> tagIndex = segments.tagIndex();
+        tagIndex.tag(1, Set.of("a"));
+
+        final CacheSegments.Segment<Integer, String>[] previousGeneration = segments.clear();
+
+        assertEquals(100, Arrays.stream(previousGeneration).mapToInt(s -> s.entries.size()).sum(), "Previous generation must not be changed by clear");
+        assertEquals(100, Arrays.stream(previousGeneration).mapToInt(s -> s.evictionQueue.size()).sum(), "Eviction queues of previous generation must not be changed by clear");
+        assertSame(evictionQueue, previousGeneration[0].evictionQueue, "Eviction queue of previous generation must be equal");
+        assertNotSame(evictionQueue, segments.segments()[0].evictionQueue, "New generation must have own eviction queues");
+        assertSame(tagIndex, previousGeneration[0].tagIndex, "Tag index of previous generation must be equal");
+        assertTrue(segments.tagIndex().keysOf("a").isEmpty(), "New generation must have own tag index");
+        assertEquals(0, segments.queuedCount(), "Queued count must be equal after clear");
+        assertEquals(0, segments.size(), "Size must be equal after clear");
+        assertEquals(4, segments.segments().length, "Segments count must be equal after clear");
+    }
+
+    @Test
+    public void testClearWhileRebuilding() throws InterruptedException {
+        final CacheSegments<Integer, String> segments = createSegments(1_000, 1, 4);
+        fill(segments, 100);
+
+        final CacheSegments.Segment<Integer, String> holder = segments.acquire(1);
+        final Thread rebuilder = new Thread(() -> segments.split(segments.segments()[0]));
+        rebuilder.start();
+        rebuilder.join(200);
+
+        segments.clear();
+        holder.release();
+        rebuilder.join();
+
+        assertEquals(0, segments.size(), "Entries must not be restored by rebuilding after clear");
+        assertEquals(1, segments.segments().length, "Segments count must be equal after clear");
+    }
+
+    private CacheSegments<Integer, String> createSegments(final int maxEntries, final int concurrencyLevel, final int maxConcurrencyLevel) {
+        return new CacheSegments<>(
+                ConcurrentHashMap::new,
+                queuedCount -> EvictionQueue.create(CacheConfiguration.EvictionPolicy.LRU, queuedCount),
+                maxEntries,
+                concurrencyLevel,
+                maxConcurrencyLevel
+        );
+    }
+
+    private void writeWithoutContention(final CacheSegments<Integer, String> segments) {
+        for (int i = 0; i < 2_000; i++) {
+            segments.acquire(i).release();
+        }
+    }
+
+    private int findKey(final CacheSegments<Integer, String> segments, final CacheSegments.Segment<Integer, String> segment) {
+        int key = 0;
+        while (segments.segmentFor(key) != segment) {
+            key++;
+        }
+
+        return key;
+    }
+
+    private void fill(final CacheSegments<Integer, String> segments, final int count) {
+        for (int i = 0; i < count; i++) {
+            final CacheSegments.Segment<Integer, String> segment = segments.acquire(i);
+            try {
+                final MemCacheEntry<Integer, String> entry = new MemCacheEntryFactory.LinkedEntry<>(i, String.valueOf(i));
+                segment.entries.put(i, entry);
+                segment.evictionQueue.add(entry);
+            } finally {
+                segment.release();
+            }
+        }
+    }
+
+    private void checkEntries(final CacheSegments<Integer, String> segments, final int count) {
+        assertEquals(count, segments.size(), "Size must be equal");
+        assertEquals(count, segments.queuedCount(), "Queued count must be equal");
+        for (int i = 0; i < count; i++) {
+            final MemCacheEntry<Integer, String> entry = segments.segmentFor(i).entries.get(i);
+            assertNotNull(entry, "Entry must present");
+            assertEquals(String.valueOf(i), entry.value(), "Value must be equal");
+        }
+    }
+}
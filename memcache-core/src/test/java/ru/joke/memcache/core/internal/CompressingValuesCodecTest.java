@@ -0,0 +1,62 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressingValuesCodecTest {
+
+    @Test
+    public void testEncodeAndDecode() {
+        makeEncodeAndDecodeChecks(new CompressingValuesCodec(0));
+        makeEncodeAndDecodeChecks(new CompressingValuesCodec(4));
+    }
+
+    @Test
+    public void testDecompressedValuesCache() {
+        final var codec = new CompressingValuesCodec(4);
+        final var value = createValue();
+
+        final Serializable encoded = codec.encode(value);
+        assertSame(value, codec.decode(encoded), "Just written value must be taken from decompressed values cache");
+
+        final var codecWithoutCache = new CompressingValuesCodec(0);
+        final Serializable encodedWithoutCache = codecWithoutCache.encode(value);
+        assertNotSame(value, codecWithoutCache.decode(encodedWithoutCache), "Value must be decompressed when decompressed values cache is disabled");
+    }
+
+    @Test
+    public void testAdoptOfRestoredValues() {
+        final var codec = new CompressingValuesCodec(0);
+        final var value = createValue();
+
+        final Serializable compressed = codec.adopt(value);
+        assertInstanceOf(CompressedValue.class, compressed, "Restored value must be compressed");
+        assertSame(compressed, codec.adopt(compressed), "Already compressed value must not be compressed again");
+
+        final var noOpCodec = new ValuesCodec.NoOpValuesCodec();
+        assertEquals(value, noOpCodec.adopt(compressed), "Compressed restored value must be decompressed when compression is disabled");
+        assertSame(value, noOpCodec.adopt(value), "Not compressed restored value must be used as is");
+    }
+
+    private void makeEncodeAndDecodeChecks(final CompressingValuesCodec codec) {
+        final var value = createValue();
+
+        final Serializable encoded = codec.encode(value);
+        assertInstanceOf(CompressedValue.class, encoded, "Encoded value must be compressed");
+        assertTrue(((CompressedValue) encoded).size() > 0, "Compressed value must be not empty");
+        assertEquals(value, codec.decode(encoded), "Decoded value must be equal to source value");
+    }
+
+    private ArrayList<String> createValue() {
+        final var value = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            value.add("value" + i);
+        }
+
+        return value;
+    }
+}
@@ -1,19 +1,25 @@
 package ru.joke.memcache.core.internal;
 
+import one.nio.serial.ObjectOutputChannel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.MemCacheException;
 import ru.joke.memcache.core.configuration.CacheConfiguration;
 import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DiskPersistentCacheRepositoryTest {
 
-    private EntryMetadataFactory metadataFactory;
+    private MemCacheEntryFactory entryFactory;
     private DiskPersistentCacheRepository repository;
     private String storePath;
 
@@ -24,8 +30,8 @@ public class DiskPersistentCacheRepositoryTest {
         final String cacheName = "test";
         this.storePath = System.getProperty("user.home") + "/tst/" + uid + "/" + cacheName + ".bin";
         final var cacheConfiguration = TestCacheConfigBuilder.build("test", CacheConfiguration.EvictionPolicy.LFU, 10, 1, uid, location, true, -1, -1, Collections.emptyList());
-        this.metadataFactory = new EntryMetadataFactory(cacheConfiguration);
-        this.repository = new DiskPersistentCacheRepository(cacheConfiguration, this.metadataFactory);
+        this.entryFactory = new MemCacheEntryFactory(cacheConfiguration);
+        this.repository = new DiskPersistentCacheRepository(cacheConfiguration, this.entryFactory);
 
         final File store = new File(this.storePath);
         store.delete();
@@ -62,9 +68,9 @@ public class DiskPersistentCacheRepositoryTest {
         final File store = new File(this.storePath);
         assertFalse(store.exists(), "File store must not exist");
 
-        final MemCacheEntry<Integer, ArrayList<String>> entry1 = new MemCacheEntry<>(new ArrayList<>(List.of("1")), this.metadataFactory.create(1));
-        final MemCacheEntry<Integer, ArrayList<String>> entry2 = new MemCacheEntry<>(new ArrayList<>(List.of("1", "2")), this.metadataFactory.create(2));
-        final MemCacheEntry<Integer, ArrayList<String>> entry3 = new MemCacheEntry<>(new ArrayList<>(), this.metadataFactory.create(3));
+        final MemCacheEntry<Integer, ArrayList<String>> entry1 = this.entryFactory.create(1, new ArrayList<>(List.of("1")));
+        final MemCacheEntry<Integer, ArrayList<String>> entry2 = this.entryFactory.create(2, new ArrayList<>(List.of("1", "2")));
+        final MemCacheEntry<Integer, ArrayList<String>> entry3 = this.entryFactory.create(3, new ArrayList<>());
 
         final Set<MemCacheEntry<Integer, ArrayList<String>>> entries = new HashSet<>();
         entries.add(entry1);
@@ -86,7 +92,87 @@ public class DiskPersistentCacheRepositoryTest {
             final var entry = originalEntriesList.get(i);
             final var restoredEntry = restoredEntriesList.get(i);
             assertEquals(entry.value(), restoredEntry.value(), "Entry value after restore must be equal to original");
-            assertEquals(entry.metadata().key(), restoredEntry.metadata().key(), "Entry key after restore must be equal to original");
+            assertEquals(entry.key(), restoredEntry.key(), "Entry key after restore must be equal to original");
         }
     }
+
+    @Test
+    public void testRestoreOfLegacyFormat() throws IOException {
+        final File store = new File(this.storePath);
+        store.getParentFile().mkdirs();
+
+        // the layout of the stores written before the versioning of the format
+        try (final FileChannel channel = FileChannel.open(store.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             final ObjectOutput out = new ObjectOutputChannel(channel)) {
+            out.writeInt(2);
+            out.writeByte(1);
+            out.writeUTF("1");
+            out.writeLong(1_000);
+            out.writeLong(3);
+            out.writeObject(new ArrayList<>(List.of("1")));
+            out.writeByte(2);
+            out.writeObject(2);
+            out.writeLong(0);
+            out.writeLong(0);
+            out.writeObject(new ArrayList<>());
+        }
+
+        final Map<Serializable, MemCacheEntry<Serializable, ArrayList<String>>> restored = new HashMap<>();
+        this.repository.<Serializable, ArrayList<String>> load().forEach(e -> restored.put(e.key(), e));
+
+        assertFalse(store.exists(), "File store must not exist after restore");
+        assertEquals(2, restored.size(), "Entries size after restore must be equal");
+        assertEquals(List.of("1"), restored.get("1").value(), "Entry value after restore must be equal");
+        assertEquals(List.of(), restored.get(2).value(), "Entry value after restore must be equal");
+        assertEquals(3, ((MemCacheEntryFactory.LFUEntry<?, ?>) restored.get("1")).frequency(), "Entry frequency after restore must be equal");
+        assertTrue(restored.get("1").lastAccessed() <= System.currentTimeMillis() - 1_000, "Entry last access time after restore must be equal");
+    }
+
+    @Test
+    public void testCorruptedStoreIsIgnored() throws IOException {
+        final File store = new File(this.storePath);
+        store.getParentFile().mkdirs();
+
+        try (final FileChannel channel = FileChannel.open(store.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             final ObjectOutput out = new ObjectOutputChannel(channel)) {
+            out.writeInt(-1);
+            out.writeByte(1);
+        }
+
+        try {
+            assertTrue(this.repository.load().isEmpty(), "Store of unknown format must not be restored");
+            assertFalse(store.exists(), "Unreadable file store must be removed");
+        } finally {
+            store.delete();
+        }
+    }
+
+    @Test
+    public void testStoreOfUnsupportedVersionIsKept() throws IOException {
+        final File store = new File(this.storePath);
+        store.getParentFile().mkdirs();
+
+        try (final FileChannel channel = FileChannel.open(store.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             final ObjectOutput out = new ObjectOutputChannel(channel)) {
+            out.writeInt(0xCAC4E5F0);
+            out.writeByte(Byte.MAX_VALUE);
+        }
+
+        try {
+            assertThrows(MemCacheException.class, () -> this.repository.load(), "Store of unsupported version must not be restored");
+            assertTrue(store.exists(), "File store must be kept when restore failed");
+        } finally {
+            store.delete();
+        }
+    }
+
+    @Test
+    public void testSaveOverwritesStore() {
+        this.repository.save(Set.of(this.entryFactory.create(1, "1"), this.entryFactory.create(2, "2")));
+        this.repository.save(Set.of(this.entryFactory.create(3, "3")));
+
+        final Collection<MemCacheEntry<Integer, String>> restored = this.repository.load();
+        assertEquals(1, restored.size(), "Only entries of the last saving must be restored");
+        assertEquals(3, restored.iterator().next().key(), "Entry key after restore must be equal");
+    }
 }
@@ -0,0 +1,179 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvictionQueueTest {
+
+    @Test
+    public void testLFU() {
+        final var entries = createEntries(CacheConfiguration.EvictionPolicy.LFU, 3);
+        final EvictionQueue<Integer, String> queue = createQueue(CacheConfiguration.EvictionPolicy.LFU, entries);
+
+        assertSame(entries.get(0), queue.victim(), "Oldest entry must be evicted first among entries with equal count of usages");
+
+        queue.onAccess(entries.get(0));
+        queue.onAccess(entries.get(1));
+        assertSame(entries.get(2), queue.victim(), "Non-used entry must be evicted first");
+
+        queue.onAccess(entries.get(2));
+        queue.onAccess(entries.get(2));
+        queue.onAccess(entries.get(1));
+        assertSame(entries.get(0), queue.victim(), "Entry with lesser count of usages must be evicted first");
+
+        assertTrue(queue.remove(entries.get(0)), "Queued entry must be removed");
+        assertSame(entries.get(2), queue.victim(), "Entry which reached the count of usages first must be evicted first among entries with equal count of usages");
+    }
+
+    @Test
+    public void testLFUAccessesUnderContention() throws InterruptedException {
+        final var entries = createEntries(CacheConfiguration.EvictionPolicy.LFU, 3);
+        final EvictionQueue<Integer, String> queue = createQueue(CacheConfiguration.EvictionPolicy.LFU, entries);
+
+        // the accesses can't be applied to the order by the reader while the lock is held by another thread
+        final Thread reader = new Thread(() -> {
+            queue.onAccess(entries.get(0));
+            queue.onAccess(entries.get(0));
+            queue.onAccess(entries.get(1));
+        });
+
+        queue.lock.lock();
+        try {
+            reader.start();
+            reader.join();
+        } finally {
+            queue.lock.unlock();
+        }
+
+        assertEquals(2, ((MemCacheEntryFactory.LFUEntry<?, ?>) entries.get(0)).frequency(), "Accesses must be recorded under contention");
+        assertSame(entries.get(2), queue.victim(), "Recorded accesses must be applied before the choice of the victim");
+
+        assertTrue(queue.remove(entries.get(2)), "Queued entry must be removed");
+        assertSame(entries.get(1), queue.victim(), "Entry with lesser count of usages must be evicted first");
+    }
+
+    @Test
+    public void testLRU() {
+        final var entries = createEntries(CacheConfiguration.EvictionPolicy.LRU, 3);
+        final EvictionQueue<Integer, String> queue = createQueue(CacheConfiguration.EvictionPolicy.LRU, entries);
+
+        assertSame(entries.get(0), queue.victim(), "Oldest entry must be evicted first");
+
+        queue.onAccess(entries.get(0));
+        assertSame(entries.get(1), queue.victim(), "Least recently used entry must be evicted first");
+
+        queue.onAccess(entries.get(1));
+        assertSame(entries.get(2), queue.victim(), "Least recently used entry must be evicted first");
+    }
+
+    @Test
+    public void testMRU() {
+        final var entries = createEntries(CacheConfiguration.EvictionPolicy.MRU, 3);
+        final EvictionQueue<Integer, String> queue = createQueue(CacheConfiguration.EvictionPolicy.MRU, entries);
+
+        assertSame(entries.get(2), queue.victim(), "Newest entry must be evicted first");
+
+        queue.onAccess(entries.get(0));
+        assertSame(entries.get(0), queue.victim(), "Most recently used entry must be evicted first");
+    }
+
+    @Test
+    public void testFIFO() {
+        final var entries = createEntries(CacheConfiguration.EvictionPolicy.FIFO, 3);
+        final EvictionQueue<Integer, String> queue = createQueue(CacheConfiguration.EvictionPolicy.FIFO, entries);
+
+        assertSame(entries.get(0), queue.victim(), "Oldest entry must be evicted first");
+        queue.onAccess(entries.get(0));
+        assertSame(entries.get(0), queue.victim(), "Oldest entry must be evicted first; should not changed after usage");
+    }
+
+    @Test
+    public void testLIFO() {
+        final var entries = createEntries(CacheConfiguration.EvictionPolicy.LIFO, 3);
+        final EvictionQueue<Integer, String> queue = createQueue(CacheConfiguration.EvictionPolicy.LIFO, entries);
+
+        assertSame(entries.get(2), queue.victim(), "Newest entry must be evicted first");
+        queue.onAccess(entries.get(2));
+        assertSame(entries.get(2), queue.victim(), "Newest entry must be evicted first; should not changed after usage");
+    }
+
+    @Test
+    public void testRemove() {
+        for (final CacheConfiguration.EvictionPolicy policy : CacheConfiguration.EvictionPolicy.values()) {
+            final var entries = createEntries(policy, 3);
+            final EvictionQueue<Integer, String> queue = createQueue(policy, entries);
+            assertEquals(entries.size(), queue.size(), "Queue size must be equal");
+
+            assertTrue(queue.remove(entries.get(1)), "Queued entry must be removed");
+            assertFalse(queue.remove(entries.get(1)), "Removed entry must not be removed again");
+            queue.onAccess(entries.get(1));
+            assertEquals(entries.size() - 1, queue.size(), "Queue size must be equal after removal");
+
+            queue.add(entries.get(0));
+            assertEquals(entries.size() - 1, queue.size(), "Queued entry must not be added twice");
+
+            assertTrue(queue.remove(entries.get(0)), "Queued entry must be removed");
+            assertTrue(queue.remove(entries.get(2)), "Queued entry must be removed");
+            assertEquals(0, queue.size(), "Queue must be empty after removal of all entries");
+            assertNull(queue.victim(), "Empty queue must not have victims");
+            assertFalse(queue.remove(entries.get(0)), "Entry must not be removed from empty queue");
+        }
+    }
+
+    @Test
+    public void testTransfer() {
+        for (final CacheConfiguration.EvictionPolicy policy : CacheConfiguration.EvictionPolicy.values()) {
+            final var entries = createEntries(policy, 4);
+            final EvictionQueue<Integer, String> queue = createQueue(policy, entries);
+            queue.onAccess(entries.get(0));
+
+            final EvictionQueue<Integer, String> evenQueue = EvictionQueue.create(policy, new LongAdder());
+            final EvictionQueue<Integer, String> oddQueue = EvictionQueue.create(policy, new LongAdder());
+            queue.transferTo(entry -> entry.key() % 2 == 0 ? evenQueue : oddQueue);
+
+            assertEquals(0, queue.size(), "Queue must be empty after the transfer");
+            assertEquals(2, evenQueue.size(), "Target queue size must be equal");
+            assertEquals(2, oddQueue.size(), "Target queue size must be equal");
+            assertNull(queue.victim(), "Retired queue must not have victims");
+
+            final boolean evictNewest = policy == CacheConfiguration.EvictionPolicy.LIFO || policy == CacheConfiguration.EvictionPolicy.MRU;
+            final boolean evictAccessed = policy == CacheConfiguration.EvictionPolicy.FIFO || policy == CacheConfiguration.EvictionPolicy.MRU;
+            assertSame(entries.get(evictNewest ? 3 : 1), oddQueue.victim(), "Order of the entries must be kept by the transfer");
+            assertSame(entries.get(evictAccessed ? 0 : 2), evenQueue.victim(), "Order of the entries must be kept by the transfer");
+
+            queue.add(entries.get(0));
+            queue.onAccess(entries.get(2));
+            assertFalse(queue.remove(entries.get(2)), "Transferred entry must not be removed from the retired queue");
+            assertEquals(0, queue.size(), "Retired queue must ignore the additions");
+            assertEquals(2, evenQueue.size(), "Target queue must not be changed by the operations of the retired queue");
+        }
+    }
+
+    private EvictionQueue<Integer, String> createQueue(
+            final CacheConfiguration.EvictionPolicy policy,
+            final List<MemCacheEntry<Integer, String>> entries) {
+        final EvictionQueue<Integer, String> queue = EvictionQueue.create(policy, new LongAdder());
+        entries.forEach(queue::add);
+        return queue;
+    }
+
+    private List<MemCacheEntry<Integer, String>> createEntries(final CacheConfiguration.EvictionPolicy policy, final int count) {
+        final var configuration = TestCacheConfigBuilder.build("test", policy, 10, 1, null, null, true, -1, -1, Collections.emptyList());
+        final MemCacheEntryFactory entryFactory = new MemCacheEntryFactory(configuration);
+
+        final List<MemCacheEntry<Integer, String>> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entryFactory.create(i, String.valueOf(i)));
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HybridLogicalClockTest {
+
+    @Test
+    public void testMonotonicTimestamps() {
+        final var clock = new HybridLogicalClock();
+
+        long previous = clock.now();
+        for (int i = 0; i < 100_000; i++) {
+            final long current = clock.now();
+            assertTrue(current > previous, "Timestamps must grow monotonically");
+            previous = current;
+        }
+    }
+
+    @Test
+    public void testUpdateByReceivedTimestamp() {
+        final var clock = new HybridLogicalClock();
+        final long receivedTimestamp = clock.now() + (60_000L << 16);
+
+        clock.update(receivedTimestamp);
+        assertTrue(clock.now() > receivedTimestamp, "Timestamp must be greater than the received one");
+
+        final long current = clock.now();
+        clock.update(1);
+        assertTrue(clock.now() > current, "Old received timestamp must not move the clock back");
+    }
+}
@@ -3,7 +3,9 @@ package ru.joke.memcache.core.internal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.joke.memcache.core.Lifecycle;
+import ru.joke.memcache.core.LongKeyMemCache;
 import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheException;
 import ru.joke.memcache.core.configuration.CacheConfiguration;
 import ru.joke.memcache.core.configuration.ConfigurationSource;
 import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
@@ -103,6 +105,33 @@ public class InternalMemCacheManagerTest {
         }
     }
 
+    @Test
+    public void testPrimitiveKeysCacheGet() {
+        try (final InternalMemCacheManager cacheManager = new InternalMemCacheManager(createSimpleConfigurationSource())) {
+            cacheManager.initialize();
+
+            final var longKeysConfig =
+                    CacheConfiguration
+                            .builder()
+                                .setCacheName("test-long")
+                                .setKeysType(CacheConfiguration.KeysType.LONG)
+                                .setEvictionPolicy(this.cacheConfiguration1.evictionPolicy())
+                                .setMemoryStoreConfiguration(this.cacheConfiguration1.memoryStoreConfiguration())
+                                .setExpirationConfiguration(this.cacheConfiguration1.expirationConfiguration())
+                            .build();
+            assertTrue(cacheManager.createCache(longKeysConfig), "Cache must be created");
+
+            final Optional<LongKeyMemCache<String>> longKeyCache = cacheManager.getLongKeyCache(longKeysConfig.cacheName());
+            assertTrue(longKeyCache.isPresent(), "Cache with long keys must present in cache manager");
+            assertTrue(longKeyCache.orElseThrow().put(1L, "1").isEmpty(), "Old value must not present");
+            assertTrue(cacheManager.<Long, String> getCache(longKeysConfig.cacheName()).orElseThrow().get(1L).filter("1"::equals).isPresent(), "Value must be available by boxed key");
+
+            assertTrue(cacheManager.getLongKeyCache("unknown").isEmpty(), "Cache must not present in cache manager");
+            assertThrows(MemCacheException.class, () -> cacheManager.getIntKeyCache(longKeysConfig.cacheName()), "Exception must be thrown when keys type of the cache is not int");
+            assertThrows(MemCacheException.class, () -> cacheManager.getLongKeyCache(this.cacheConfiguration1.cacheName()), "Exception must be thrown when keys type of the cache is not long");
+        }
+    }
+
     @Test
     public void testCacheManagerShutdown() {
         final InternalMemCacheManager cacheManager = new InternalMemCacheManager(createSimpleConfigurationSource());
@@ -0,0 +1,195 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
+import ru.joke.memcache.core.events.CacheEntryEventListener;
+import ru.joke.memcache.core.events.EventType;
+import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
+import ru.joke.memcache.core.spi.MerkleTree;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongKeyMapMemCacheTest {
+
+    private static final String CACHE_NAME = "test";
+
+    private AsyncOpsInvoker asyncOpsInvoker;
+
+    @BeforeEach
+    void setUp() {
+        this.asyncOpsInvoker = new AsyncOpsInvoker(1);
+    }
+
+    @Test
+    public void testCacheOperations() {
+        final List<CacheEntryEvent<?, ?>> events = new ArrayList<>();
+        final CacheEntryEventListener<?, ?> listener = new CacheEntryEventListener<>() {
+            @Override
+            public void onEvent(@Nonnull CacheEntryEvent<? extends Serializable, ? extends Serializable> event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onBatchEvent(@Nonnull CacheEntriesEvent<? extends Serializable, ? extends Serializable> event) {
+            }
+        };
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 2, 1, null, null, true, -1, -1, List.of(listener));
+        final var cache = new LongKeyMapMemCache<String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        final var stats = cache.statistics();
+        stats.setStatisticsEnabled(true);
+
+        assertTrue(cache.put(1L, "1").isEmpty(), "Old value must not present");
+        assertTrue(cache.get(1L).filter("1"::equals).isPresent(), "Added value must present");
+        assertTrue(cache.get(Long.valueOf(1)).filter("1"::equals).isPresent(), "Added value must present by boxed key");
+        assertTrue(cache.putIfAbsent(1L, "1!").filter("1"::equals).isPresent(), "Old value must present");
+
+        assertTrue(cache.put(2L, "2").isEmpty(), "Old value must not present");
+        assertTrue(cache.put(3L, "3").isEmpty(), "Old value must not present");
+        assertTrue(cache.get(1L).isEmpty(), "First added value must be evicted by policy");
+
+        assertTrue(cache.remove(2L).filter("2"::equals).isPresent(), "Removed value must present");
+        assertTrue(cache.get(2L).isEmpty(), "Value must not present after removal");
+        assertTrue(cache.remove(2L).isEmpty(), "Value must not present after removal");
+
+        assertEquals(1, stats.currentEntriesCount(), "Current entries count must be equal");
+        assertEquals(1, stats.evictionsCount(), "Evictions count must be equal");
+        assertEquals(2, stats.readOnlyRetrievalHitsCount(), "Read only retrievals hits count must be equal");
+        assertEquals(2, stats.readOnlyRetrievalMissesCount(), "Read only retrievals misses count must be equal");
+
+        assertEquals(5, events.size(), "Events count must be equal");
+        assertEquals(EventType.REMOVED, events.get(2).eventType(), "Event type must be equal");
+        assertEquals(1L, events.get(2).key(), "Event key must be equal");
+    }
+
+    @Test
+    public void testIntKeysCacheOperations() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 100, 1, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new IntKeyMapMemCache<Integer>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(cache.put(i, Integer.valueOf(i)).isEmpty(), "Old value must not present");
+        }
+
+        assertEquals(100, cache.statistics().currentEntriesCount(), "Current entries count must be equal to max entries");
+        for (int i = 0; i < 200; i++) {
+            final int key = i;
+            assertEquals(i >= 100, cache.get(key).filter(v -> v == key).isPresent(), "Only last added values must present");
+        }
+
+        assertTrue(cache.computeIfPresent(150, (k, v) -> v + 1).filter(v -> v == 151).isPresent(), "Computed value must be equal");
+        assertTrue(cache.get(150).filter(v -> v == 151).isPresent(), "Computed value must present");
+    }
+
+    @Test
+    public void testOverwriteOfPresentEntry() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 10, 1, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new LongKeyMapMemCache<String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        final var stats = cache.statistics();
+        stats.setStatisticsEnabled(true);
+
+        assertTrue(cache.put(1L, "1").isEmpty(), "Old value must not present");
+        assertTrue(cache.put(1L, "2").filter("1"::equals).isPresent(), "Old value must present");
+        assertTrue(cache.put(1L, "2").filter("2"::equals).isPresent(), "Old value must present");
+        assertTrue(cache.get(1L).filter("2"::equals).isPresent(), "Overwritten value must present");
+        assertEquals(3, stats.putHitsCount(), "Put hits count must be equal");
+
+        final List<Long> versions = new ArrayList<>();
+        cache.forEach((key, value, version) -> versions.add(version));
+        assertEquals(1, versions.size(), "Entries count must be equal");
+
+        // the digest changed by the overwrite of the primitive key must be consistent with the removal by the boxed key
+        assertTrue(cache.remove(Long.valueOf(1L)).filter("2"::equals).isPresent(), "Removed value must present");
+        assertEquals(new MerkleTree(new long[MerkleTree.LEAVES_COUNT]), cache.merkleTree(), "Tree of the empty cache must be equal");
+    }
+
+    @Test
+    public void testRestoreFromRepository() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, Collections.emptyList());
+        final MemCacheEntryFactory entryFactory = new MemCacheEntryFactory(cacheConfig);
+        final MemCacheEntry<Long, String> entry = entryFactory.create(1L, "1");
+
+        final var repository = new PersistentCacheRepository() {
+            private Collection<?> savedEntries;
+
+            @Override
+            @SuppressWarnings("unchecked")
+            <K extends Serializable, V extends Serializable> Collection<MemCacheEntry<K, V>> load() {
+                return Set.of((MemCacheEntry<K, V>) (MemCacheEntry<?, ?>) entry);
+            }
+
+            @Override
+            <K extends Serializable, V extends Serializable> void save(Collection<MemCacheEntry<K, V>> entries) {
+                this.savedEntries = new ArrayList<>(entries);
+            }
+        };
+
+        final var cache = new LongKeyMapMemCache<String>(cacheConfig, this.asyncOpsInvoker, repository, entryFactory);
+        cache.initialize();
+
+        assertTrue(cache.get(1L).filter("1"::equals).isPresent(), "Entry must present in cache after restore");
+
+        cache.shutdown();
+        assertEquals(1, repository.savedEntries.size(), "Entries must be persisted on shutdown");
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException, ExecutionException {
+        makeConcurrentAccessChecks(CacheConfiguration.EvictionPolicy.FIFO, 1_000);
+    }
+
+    @Test
+    public void testConcurrentAccessWithEvictionByUsage() throws InterruptedException, ExecutionException {
+        makeConcurrentAccessChecks(CacheConfiguration.EvictionPolicy.LRU, 100);
+        makeConcurrentAccessChecks(CacheConfiguration.EvictionPolicy.LFU, 100);
+        makeConcurrentAccessChecks(CacheConfiguration.EvictionPolicy.MRU, 100);
+    }
+
+    private void makeConcurrentAccessChecks(final CacheConfiguration.EvictionPolicy policy, final int maxEntries) throws InterruptedException, ExecutionException {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, policy, maxEntries, 2, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new LongKeyMapMemCache<Long>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final long offset = t * 10_000L;
+                results.add(executor.submit(() -> {
+                    boolean valid = true;
+                    for (long i = 0; i < 5_000; i++) {
+                        final long key = offset + i % 200;
+                        cache.put(key, Long.valueOf(key));
+                        valid &= cache.get(key).map(v -> v == key).orElse(true);
+                        if (i % 3 == 0) {
+                            cache.remove(key);
+                        }
+                    }
+
+                    return valid;
+                }));
+            }
+
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get(), "Values must be consistent with keys");
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(cache.statistics().currentEntriesCount() <= maxEntries, "Current entries count must not be greater than max entries");
+    }
+}
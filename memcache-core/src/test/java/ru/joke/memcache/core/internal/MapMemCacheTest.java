@@ -4,17 +4,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.joke.memcache.core.Lifecycle;
 import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
 import ru.joke.memcache.core.events.CacheEntriesEvent;
 import ru.joke.memcache.core.events.CacheEntryEvent;
 import ru.joke.memcache.core.events.CacheEntryEventListener;
 import ru.joke.memcache.core.events.EventType;
 import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
+import ru.joke.memcache.core.spi.MerkleTree;
 
 import javax.annotation.Nonnull;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,7 +36,7 @@ public class MapMemCacheTest {
     @Test
     public void testInstantiatedCache() {
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, Collections.emptyList());
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
 
         assertEquals(CACHE_NAME, cache.name(), "Cache name must be equal");
         assertEquals(cacheConfig, cache.configuration(), "Cache configuration must be equal");
@@ -42,25 +46,25 @@ public class MapMemCacheTest {
     @Test
     public void testCacheInitializationWithEmptyPersistentStore() {
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, Collections.emptyList());
-        final EntryMetadataFactory metadataFactory = new EntryMetadataFactory(cacheConfig);
-        final MemCacheEntry<Integer, String> entry1 = new MemCacheEntry<>("1", metadataFactory.create(1));
-        final MemCacheEntry<Integer, String> entry2 = new MemCacheEntry<>("2", metadataFactory.create(2));
+        final MemCacheEntryFactory entryFactory = new MemCacheEntryFactory(cacheConfig);
+        final MemCacheEntry<Integer, String> entry1 = entryFactory.create(1, "1");
+        final MemCacheEntry<Integer, String> entry2 = entryFactory.create(2, "2");
 
         final var repositorySpy = new PersistentCacheRepositorySpy(Set.of(entry1, entry2));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, repositorySpy, metadataFactory);
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, repositorySpy, entryFactory);
         cache.initialize();
 
         assertEquals(Lifecycle.ComponentStatus.RUNNING, cache.status(), "Cache status must be " + Lifecycle.ComponentStatus.RUNNING + " after initialization");
         assertTrue(repositorySpy.restoreWasCalled, "Restore should be called");
-        assertTrue(cache.get(entry1.metadata().key()).filter(entry1.value()::equals).isPresent(), "Entry must present in cache after restore");
-        assertTrue(cache.get(entry2.metadata().key()).filter(entry2.value()::equals).isPresent(), "Entry must present in cache after restore");
+        assertTrue(cache.get(entry1.key()).filter(entry1.value()::equals).isPresent(), "Entry must present in cache after restore");
+        assertTrue(cache.get(entry2.key()).filter(entry2.value()::equals).isPresent(), "Entry must present in cache after restore");
     }
 
     @Test
     public void testCacheInitializationWithErrorPersistentStore() {
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, Collections.emptyList());
         final var errorRepository = new ErrorOnRestoreRepository();
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, errorRepository, new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, errorRepository, new MemCacheEntryFactory(cacheConfig));
         assertThrows(RuntimeException.class, cache::initialize, "Exception must be thrown on restore from repository");
 
         assertEquals(Lifecycle.ComponentStatus.FAILED, cache.status(), "Cache status must be " + Lifecycle.ComponentStatus.FAILED + " after initialization with error repository");
@@ -70,7 +74,7 @@ public class MapMemCacheTest {
     public void testPutToCache() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 2, 1, null, null, true, -1, -1, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -117,7 +121,7 @@ public class MapMemCacheTest {
     public void testPutIfAbsentToCache() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 2, 1, null, null, true, -1, -1, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -151,7 +155,7 @@ public class MapMemCacheTest {
     public void testRemoveFromCache() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 2, 1, null, null, true, -1, -1, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -189,7 +193,7 @@ public class MapMemCacheTest {
     public void testReplaceInCache() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -226,11 +230,355 @@ public class MapMemCacheTest {
         makeRemovedEventChecks(3, v3, listener.events.get(4));
     }
 
+    @Test
+    public void testPutIfNewerInCache() {
+        final var listener = new ListenerSpy();
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, List.of(listener));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        final String v1 = "1";
+        assertTrue(cache.put(1, v1).isEmpty(), "Old value must not present");
+        final long localVersion = listener.events.get(0).version();
+        assertTrue(localVersion > 0, "Version of the local change must be assigned");
+
+        final String v2 = "2";
+        assertFalse(cache.putIfNewer(1, v2, localVersion), "Change with the same version must be discarded");
+        assertFalse(cache.putIfNewer(1, null, localVersion - 1), "Stale removal must be discarded");
+        assertTrue(cache.get(1).filter(v1::equals).isPresent(), "Value must not be changed by stale changes");
+
+        final long remoteVersion = localVersion + 10;
+        assertTrue(cache.putIfNewer(1, v2, remoteVersion), "Newer change must be applied");
+        assertTrue(cache.get(1).filter(v2::equals).isPresent(), "Value must be changed by newer change");
+        assertTrue(cache.putIfNewer(2, v1, remoteVersion), "Newer change must be applied (added)");
+
+        assertTrue(cache.put(1, v1).filter(v2::equals).isPresent(), "Old value must be equal");
+        assertTrue(listener.events.get(3).version() > remoteVersion, "Version of the local change must be greater than the versions of the applied changes");
+
+        assertTrue(cache.putIfNewer(2, null, Long.MAX_VALUE), "Newer removal must be applied");
+        assertTrue(cache.get(2).isEmpty(), "Value must be removed");
+        assertFalse(cache.putIfNewer(2, null, Long.MAX_VALUE), "Removal of the absent entry must be discarded");
+
+        assertEquals(5, listener.events.size(), "Events count must be equal");
+        makeUpdatedEventChecks(1, v1, v2, listener.events.get(1));
+        assertEquals(remoteVersion, listener.events.get(1).version(), "Version of the event must be equal");
+        makeAddedEventChecks(2, v1, listener.events.get(2));
+        makeUpdatedEventChecks(1, v2, v1, listener.events.get(3));
+        makeRemovedEventChecks(2, v1, listener.events.get(4));
+    }
+
+    @Test
+    public void testPutIfNewerAfterRemoval() {
+        final var listener = new ListenerSpy();
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, List.of(listener));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        final long version = Long.MAX_VALUE - 10;
+        assertTrue(cache.putIfNewer(1, "1", version), "Change must be applied");
+        assertTrue(cache.putIfNewer(1, null, version + 2), "Newer removal must be applied");
+        assertFalse(cache.putIfNewer(1, "2", version + 1), "Delayed change older than the removal must be discarded");
+
+        assertFalse(cache.putIfNewer(2, null, version), "Removal of the absent entry must be discarded");
+        assertFalse(cache.putIfNewer(2, "1", version - 1), "Delayed change older than the removal of the absent entry must be discarded");
+        assertTrue(cache.get(2).isEmpty(), "Value must not be restored by the delayed change");
+
+        assertTrue(cache.putIfNewer(2, "2", version + 1), "Change newer than the removal must be applied");
+        assertTrue(cache.get(2).filter("2"::equals).isPresent(), "Value must be equal");
+        assertEquals(3, listener.events.size(), "Events count must be equal");
+    }
+
+    @Test
+    public void testForEachEntry() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 100, 4, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        cache.putIfNewer(0, "0", Long.MAX_VALUE);
+
+        final Map<Integer, String> visitedEntries = new HashMap<>();
+        cache.forEach((key, value, version) -> {
+            assertNull(visitedEntries.put(key, value), "Entry must be visited once");
+            assertEquals(key == 0, version == Long.MAX_VALUE, "Version must be equal");
+        });
+
+        assertEquals(50, visitedEntries.size(), "Visited entries count must be equal");
+        visitedEntries.forEach((key, value) -> assertEquals(String.valueOf(key), value, "Value must be equal"));
+
+        final Set<Integer> visitedKeys = new HashSet<>();
+        cache.forEach((key, value) -> visitedKeys.add(key));
+        assertEquals(visitedEntries.keySet(), visitedKeys, "Visited keys must be equal");
+    }
+
+    @Test
+    public void testStreamOfEntries() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 256, 4, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        final Map<Integer, String> expectedEntries = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, String.valueOf(i));
+            expectedEntries.put(i, String.valueOf(i));
+        }
+
+        assertEquals(100, cache.spliterator().estimateSize(), "Estimated size of the spliterator must be equal");
+        assertEquals(expectedEntries, cache.stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)), "Streamed entries must be equal");
+        assertEquals(expectedEntries, cache.parallelStream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)), "Streamed in parallel entries must be equal");
+
+        final Map<Integer, String> splitEntries = new HashMap<>();
+        final Deque<Spliterator<Map.Entry<Integer, String>>> spliterators = new ArrayDeque<>(List.of(cache.spliterator()));
+        while (!spliterators.isEmpty()) {
+            final var spliterator = spliterators.pop();
+            final var prefix = spliterator.trySplit();
+            if (prefix != null) {
+                spliterators.push(prefix);
+                spliterators.push(spliterator);
+            } else {
+                spliterator.forEachRemaining(e -> assertNull(splitEntries.put(e.getKey(), e.getValue()), "Entry must be visited once"));
+            }
+        }
+
+        assertEquals(expectedEntries, splitEntries, "Entries of the split spliterators must be equal");
+    }
+
+    @Test
+    public void testReduceAndCountOfEntries() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 256, 4, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        assertTrue(cache.reduce(1, (key, value) -> key, Integer::sum).isEmpty(), "Result of the reduce of the empty cache must not present");
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+
+        for (final long threshold : new long[] { 1, Long.MAX_VALUE }) {
+            assertEquals(Optional.of(4950), cache.reduce(threshold, (key, value) -> key, Integer::sum), "Result of the reduce must be equal");
+            assertEquals(Optional.of(2450), cache.reduce(threshold, (key, value) -> key % 2 == 0 ? key : null, Integer::sum), "Result of the reduce with skipped transformations must be equal");
+            assertEquals(10, cache.count(threshold, (key, value) -> value.length() == 1), "Count of the matching entries must be equal");
+
+            final var visitedKeys = ConcurrentHashMap.<Integer> newKeySet();
+            cache.forEach(threshold, (key, value) -> visitedKeys.add(key));
+            assertEquals(100, visitedKeys.size(), "Count of the visited entries must be equal");
+        }
+    }
+
+    @Test
+    public void testRemoveAll() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 100, 4, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        final List<CacheEntriesEvent<? extends Integer, ? extends String>> batchEvents = new ArrayList<>();
+        final List<CacheEntryEvent<? extends Integer, ? extends String>> events = new ArrayList<>();
+        cache.registerEventListener(new CacheEntryEventListener<>() {
+            @Override
+            public void onEvent(@Nonnull CacheEntryEvent<? extends Integer, ? extends String> event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onBatchEvent(@Nonnull CacheEntriesEvent<? extends Integer, ? extends String> event) {
+                batchEvents.add(event);
+            }
+        });
+
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        events.clear();
+
+        assertEquals(10, cache.removeAll(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 100)), "Removed entries count must be equal");
+        assertEquals(40, cache.statistics().currentEntriesCount(), "Entries count must be equal");
+        assertTrue(cache.get(0).isEmpty(), "Entry must be removed");
+        assertTrue(events.isEmpty(), "Single events must not be fired for batch removal");
+
+        assertEquals(1, batchEvents.size(), "Batch event must be fired once");
+        final var batchEvent = batchEvents.get(0);
+        assertEquals(EventType.REMOVED, batchEvent.eventType(), "Event type must be equal");
+        assertEquals(Set.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), batchEvent.keys().orElseThrow(), "Removed keys must be equal");
+        assertTrue(batchEvent.version() > 0, "Version of batch must be set");
+
+        assertEquals(0, cache.removeAll(List.of(0, 100)), "Removed entries count must be equal");
+        assertEquals(1, batchEvents.size(), "Batch event must not be fired if nothing removed");
+
+        cache.clear();
+        assertTrue(batchEvents.get(1).keys().isEmpty(), "Keys must not present for cleaning event");
+    }
+
+    @Test
+    public void testRemoveIf() {
+        final var listener = new ListenerSpy();
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 100, 4, null, null, true, -1, -1, List.of(listener));
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+        cache.statistics().setStatisticsEnabled(true);
+
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        listener.events.clear();
+
+        assertEquals(25, cache.removeIf((key, value) -> key % 2 == 0), "Removed entries count must be equal");
+        assertEquals(25, cache.statistics().currentEntriesCount(), "Entries count must be equal");
+        assertEquals(25, cache.statistics().removalHitsCount(), "Removal hits count must be equal");
+        assertTrue(cache.get(0).isEmpty(), "Entry must be removed");
+        assertTrue(cache.get(1).isPresent(), "Entry must not be removed");
+        assertTrue(listener.events.isEmpty(), "Single events must not be fired for batch removal");
+
+        assertEquals(1, listener.batchEvents.size(), "Batch event must be fired once");
+        final var batchEvent = listener.batchEvents.get(0);
+        assertEquals(EventType.REMOVED, batchEvent.eventType(), "Event type must be equal");
+        assertEquals(
+                IntStream.range(0, 50).filter(i -> i % 2 == 0).boxed().collect(Collectors.toSet()),
+                batchEvent.keys().orElseThrow(),
+                "Removed keys must be equal"
+        );
+        assertTrue(batchEvent.version() > 0, "Version of batch must be set");
+
+        assertEquals(0, cache.removeIf((key, value) -> value.isEmpty()), "Removed entries count must be equal");
+        assertEquals(1, listener.batchEvents.size(), "Batch event must not be fired if nothing removed");
+
+        final var replica = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        replica.initialize();
+        cache.forEach((key, value, version) -> replica.putIfNewer(key, value, version));
+        assertEquals(replica.merkleTree(), cache.merkleTree(), "Merkle tree must reflect the removed entries");
+    }
+
+    @Test
+    public void testInvalidateTag() {
+        final var listener = new ListenerSpy();
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 4, 1, null, null, true, -1, -1, List.of(listener));
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+        cache.statistics().setStatisticsEnabled(true);
+
+        cache.put(1, "1", Set.of("a"));
+        cache.put(2, "2", Set.of("a", "b"));
+        cache.put(3, "3", Set.of("b"));
+        cache.put(3, "4");
+        cache.put(4, "4");
+        listener.events.clear();
+
+        assertEquals(2, cache.invalidateTag("a"), "Removed entries count must be equal");
+        assertTrue(cache.get(1).isEmpty(), "Tagged entry must be removed");
+        assertTrue(cache.get(2).isEmpty(), "Tagged entry must be removed");
+        assertEquals(2, cache.statistics().removalHitsCount(), "Removal hits count must be equal");
+        assertTrue(listener.events.isEmpty(), "Single events must not be fired for batch removal");
+        assertEquals(1, listener.batchEvents.size(), "Batch event must be fired once");
+        assertEquals(Set.of(1, 2), listener.batchEvents.get(0).keys().orElseThrow(), "Removed keys must be equal");
+
+        assertEquals(0, cache.invalidateTag("a"), "Removed entries count must be equal");
+        assertEquals(1, listener.batchEvents.size(), "Batch event must not be fired if nothing removed");
+
+        cache.put(3, "3", Set.of("c"));
+        assertEquals(0, cache.invalidateTag("b"), "Entry must not be removed by the replaced tag");
+        assertTrue(cache.get(3).isPresent(), "Retagged entry must not be removed");
+
+        // the entry 3 is the oldest one and is evicted with its tags
+        cache.put(5, "5");
+        cache.put(6, "6");
+        cache.put(7, "7");
+        assertTrue(cache.get(3).isEmpty(), "Entry must be evicted");
+        cache.put(3, "3");
+        assertEquals(0, cache.invalidateTag("c"), "Tags of the evicted entry must be dropped");
+        assertTrue(cache.get(3).isPresent(), "Untagged entry must not be removed");
+
+        cache.put(8, "8", Set.of("d"));
+        cache.clear();
+        cache.put(8, "8");
+        assertEquals(0, cache.invalidateTag("d"), "Tags must be dropped by the cleaning");
+    }
+
+    @Test
+    public void testMerkleTreeOfReplicas() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 100, 4, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+        final var replica = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        replica.initialize();
+
+        assertEquals(0, cache.merkleTree().rootHash(), "Root hash of empty cache must be equal");
+
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        cache.forEach((key, value, version) -> replica.putIfNewer(key, value, version));
+        assertEquals(cache.merkleTree(), replica.merkleTree(), "Trees of replicas must be equal");
+
+        cache.put(1, "11");
+        cache.remove(2);
+        final BitSet expectedDiff = new BitSet();
+        expectedDiff.set(MerkleTree.leafOf(1));
+        expectedDiff.set(MerkleTree.leafOf(2));
+        assertEquals(expectedDiff, cache.merkleTree().diff(replica.merkleTree()), "Divergent ranges must be equal");
+
+        cache.forEach((key, value, version) -> replica.putIfNewer(key, value, version));
+        replica.remove(2);
+        assertEquals(cache.merkleTree(), replica.merkleTree(), "Trees of replicas must be equal");
+
+        cache.clear();
+        replica.forEach((key, value) -> replica.remove(key));
+        assertEquals(0, cache.merkleTree().rootHash(), "Root hash of cleared cache must be equal");
+        assertEquals(0, replica.merkleTree().rootHash(), "Root hash of empty cache must be equal");
+    }
+
+    @Test
+    public void testForEachInRanges() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 1000, 4, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        for (int i = 0; i < 500; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+
+        final BitSet ranges = new BitSet();
+        ranges.set(MerkleTree.leafOf(1));
+        ranges.set(MerkleTree.leafOf(2));
+
+        final Map<Integer, String> expectedEntries = new HashMap<>();
+        cache.forEach((key, value) -> {
+            if (ranges.get(MerkleTree.leafOf(key))) {
+                expectedEntries.put(key, value);
+            }
+        });
+
+        final Map<Integer, String> entries = new HashMap<>();
+        cache.forEachInRanges(ranges, (key, value, version) -> entries.put(key, value));
+        assertEquals(expectedEntries, entries, "Entries of the ranges must be equal");
+
+        // the entries changed after the indexing of the keys are visited too
+        cache.remove(1);
+        cache.put(2, "22");
+        cache.put(1_000, "1000");
+        expectedEntries.remove(1);
+        expectedEntries.put(2, "22");
+        if (ranges.get(MerkleTree.leafOf(1_000))) {
+            expectedEntries.put(1_000, "1000");
+        }
+
+        entries.clear();
+        cache.forEachInRanges(ranges, (key, value, version) -> entries.put(key, value));
+        assertEquals(expectedEntries, entries, "Entries of the ranges must be equal after the changes");
+
+        cache.clear();
+        cache.put(1, "1");
+        entries.clear();
+        cache.forEachInRanges(ranges, (key, value, version) -> entries.put(key, value));
+        assertEquals(Map.of(1, "1"), entries, "Entries of the ranges must be equal after the cleaning");
+    }
+
     @Test
     public void testClearCache() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -266,11 +614,34 @@ public class MapMemCacheTest {
         assertEquals(EventType.REMOVED, listener.batchEvents.get(0).eventType(), "Event type must be equal");
     }
 
+    @Test
+    public void testEvictionAfterClearCache() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 2, 1, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.clear();
+
+        // entries of the previous generation must not affect the eviction in the new one
+        cache.put(3, "3");
+        cache.put(4, "4");
+        assertTrue(cache.get(3).isPresent(), "Value must present");
+        cache.put(5, "5");
+
+        assertTrue(cache.get(1).isEmpty(), "Value must not present after clear");
+        assertTrue(cache.get(4).isEmpty(), "Least recently used value must be evicted");
+        assertTrue(cache.get(3).filter("3"::equals).isPresent(), "Value must present");
+        assertTrue(cache.get(5).filter("5"::equals).isPresent(), "Value must present");
+        assertEquals(2, cache.statistics().currentEntriesCount(), "Current entries count must be equal");
+    }
+
     @Test
     public void testClearExpired() throws InterruptedException {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, false, 100, 60, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -319,7 +690,7 @@ public class MapMemCacheTest {
     public void testMergeOperation() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, false, 100, 60, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -352,7 +723,7 @@ public class MapMemCacheTest {
     public void testComputeIfAbsentOperation() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, false, 100, 60, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -382,7 +753,7 @@ public class MapMemCacheTest {
 
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, false, 100, 60, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -415,7 +786,7 @@ public class MapMemCacheTest {
     public void testComputeOperation() {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, false, 100, 60, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -443,11 +814,34 @@ public class MapMemCacheTest {
         makeRemovedEventChecks(1, v1_updated, listener.events.get(2));
     }
 
+    @Test
+    public void testGetAsyncCompletedInPlace() {
+        final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 2, 1, null, null, true, -1, -1, Collections.emptyList());
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
+        cache.initialize();
+        cache.statistics().setStatisticsEnabled(true);
+
+        cache.put(1, "1");
+
+        final var hit = cache.getAsync(1);
+        assertTrue(hit.isDone(), "Future of the hit must be completed on return");
+        assertEquals(Optional.of("1"), hit.join(), "Value must be equal");
+
+        final var miss = cache.getAsync(2);
+        assertTrue(miss.isDone(), "Future of the miss must be completed on return");
+        assertTrue(miss.join().isEmpty(), "Value must not present");
+        assertSame(miss, cache.getAsync(3), "Future of the miss must be reused");
+        assertThrows(UnsupportedOperationException.class, () -> miss.obtrudeValue(Optional.of("2")), "Result of the reused future must not be replaced");
+
+        assertEquals(1, cache.statistics().readOnlyRetrievalHitsCount(), "Read only retrievals hits count must be equal");
+        assertEquals(2, cache.statistics().readOnlyRetrievalMissesCount(), "Read only retrievals misses count must be equal");
+    }
+
     @Test
     public void testAsyncCacheOps() throws ExecutionException, InterruptedException {
         final var listener = new ListenerSpy();
         final var cacheConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 2, 1, null, null, true, -1, -1, List.of(listener));
-        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new EntryMetadataFactory(cacheConfig));
+        final var cache = new MapMemCache<>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepository.NoPersistentCacheRepository(), new MemCacheEntryFactory(cacheConfig));
         cache.initialize();
 
         final var stats = cache.statistics();
@@ -497,6 +891,56 @@ public class MapMemCacheTest {
         assertEquals(EventType.REMOVED, listener.batchEvents.get(0).eventType(), "Event type must be equal");
     }
 
+    @Test
+    public void testCacheWithCompressedValues() {
+        final var listener = new ListenerSpy();
+        final var baseConfig = TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.FIFO, 3, 1, null, null, true, -1, -1, List.of(listener));
+        final var cacheConfig =
+                CacheConfiguration
+                        .builder()
+                            .setCacheName(baseConfig.cacheName())
+                            .setEvictionPolicy(baseConfig.evictionPolicy())
+                            .setExpirationConfiguration(baseConfig.expirationConfiguration())
+                            .setCacheEntryEventListeners(List.of(listener))
+                            .setMemoryStoreConfiguration(
+                                    MemoryStoreConfiguration
+                                            .builder()
+                                                .setMaxEntries(3)
+                                                .setConcurrencyLevel(1)
+                                                .setValuesCompressionEnabled(true)
+                                                .setDecompressedValuesCacheSize(1)
+                                            .build()
+                            )
+                        .build();
+        final MemCacheEntryFactory entryFactory = new MemCacheEntryFactory(cacheConfig);
+        final String restoredValue = "0";
+        final MemCacheEntry<Integer, String> restoredEntry = entryFactory.create(0, restoredValue);
+
+        final var cache = new MapMemCache<Integer, String>(cacheConfig, this.asyncOpsInvoker, new PersistentCacheRepositorySpy(Set.of(restoredEntry)), entryFactory);
+        cache.initialize();
+
+        assertTrue(cache.get(0).filter(restoredValue::equals).isPresent(), "Restored value must present in cache");
+
+        final String v1 = "1";
+        final String v2 = "2";
+        assertTrue(cache.put(1, v1).isEmpty(), "Old value must not present");
+        assertTrue(cache.put(2, v2).isEmpty(), "Old value must not present");
+
+        assertTrue(cache.get(1).filter(v1::equals).isPresent(), "Added value must present");
+        assertTrue(cache.get(2).filter(v2::equals).isPresent(), "Added value must present");
+
+        assertTrue(cache.replace(1, v1, v2), "Value must be replaced");
+        assertFalse(cache.replace(2, v1, v2), "Value must not be replaced");
+        assertTrue(cache.computeIfPresent(2, (k, v) -> v + v).filter("22"::equals).isPresent(), "Computed value must be equal");
+        assertTrue(cache.computeIfAbsent(2, k -> v1).filter("22"::equals).isPresent(), "Present value must be returned");
+
+        assertEquals(4, listener.events.size(), "Events count must be equal");
+        makeAddedEventChecks(1, v1, listener.events.get(0));
+        makeAddedEventChecks(2, v2, listener.events.get(1));
+        makeUpdatedEventChecks(1, v1, v2, listener.events.get(2));
+        makeUpdatedEventChecks(2, v2, "22", listener.events.get(3));
+    }
+
     private void makeRemovedEventChecks(final Integer key, final String value, final CacheEntryEvent<?, ?> event) {
 
         assertEquals(key, event.key(), "Event key must be equal");
@@ -0,0 +1,92 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemCacheEntryFactoryTest {
+
+    @Test
+    public void testEntriesWithLifespan() throws InterruptedException {
+        for (final CacheConfiguration.EvictionPolicy policy : CacheConfiguration.EvictionPolicy.values()) {
+            final MemCacheEntryFactory entryFactory = createFactory(policy, 1000);
+            final MemCacheEntry<Integer, String> entry = entryFactory.create(1, "1");
+
+            makeCommonChecks(entry, 1, "1");
+            assertTrue(entry.expiredByLifespanAt() > System.currentTimeMillis(), "Entry must not be expired by lifespan");
+            assertTrue(entry.expiredByLifespanAt() <= System.currentTimeMillis() + 1000, "Entry must be expired after lifespan");
+            assertEquals(
+                    policy == CacheConfiguration.EvictionPolicy.LFU,
+                    entry instanceof MemCacheEntryFactory.LFUEntry<Integer, String>,
+                    "Frequency must be tracked only by entries of LFU caches"
+            );
+        }
+    }
+
+    @Test
+    public void testEntriesWithoutLifespan() throws InterruptedException {
+        for (final CacheConfiguration.EvictionPolicy policy : CacheConfiguration.EvictionPolicy.values()) {
+            final MemCacheEntryFactory entryFactory = createFactory(policy, -1);
+            final MemCacheEntry<Integer, String> entry = entryFactory.create(1, "1");
+
+            makeCommonChecks(entry, 1, "1");
+            assertEquals(Long.MAX_VALUE, entry.expiredByLifespanAt(), "Entry must not be expired by lifespan");
+            assertFalse(entry instanceof MemCacheEntryFactory.ExpirableLinkedEntry<Integer, String>, "Lifespan must not be stored when it is not configured");
+            assertFalse(entry instanceof MemCacheEntryFactory.ExpirableLFUEntry<Integer, String>, "Lifespan must not be stored when it is not configured");
+        }
+    }
+
+    @Test
+    public void testEntriesWithPrimitiveKeys() {
+        for (final CacheConfiguration.KeysType keysType : List.of(CacheConfiguration.KeysType.INT, CacheConfiguration.KeysType.LONG)) {
+            final var configuration = CacheConfiguration
+                    .builder()
+                        .setCacheName("test")
+                        .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                        .setMemoryStoreConfiguration(MemoryStoreConfiguration.builder().setMaxEntries(10).setConcurrencyLevel(1).build())
+                        .setExpirationConfiguration(ExpirationConfiguration.builder().setEternal(true).build())
+                        .setKeysType(keysType)
+                    .build();
+            final MemCacheEntryFactory entryFactory = new MemCacheEntryFactory(configuration);
+            final Serializable key = keysType == CacheConfiguration.KeysType.INT ? (Serializable) 1_000 : (Serializable) 1_000L;
+
+            final MemCacheEntry<Serializable, String> entry = entryFactory.create(key, "1");
+            final MemCacheEntry<Serializable, String> sameKeyEntry = entryFactory.create(key, "2");
+
+            assertEquals(key, entry.key(), "Key must be equal");
+            assertEquals(key.hashCode(), entry.hashCode(), "Hash code must be equal to the hash code of the key");
+            assertEquals(entry, sameKeyEntry, "Entries with the same key must be equal");
+            assertNotEquals(entry, entryFactory.create(keysType == CacheConfiguration.KeysType.INT ? (Serializable) 1_001 : (Serializable) 1_001L, "1"), "Entries with different keys must not be equal");
+        }
+    }
+
+    private void makeCommonChecks(MemCacheEntry<Integer, String> entry, Integer key, String value) throws InterruptedException {
+
+        assertNotNull(entry, "Entry must be not null");
+        assertEquals(key, entry.key(), "Key must be equal");
+        assertEquals(value, entry.value(), "Value must be equal");
+
+        entry.value(value + value);
+        assertEquals(value + value, entry.value(), "Value must be equal after update");
+
+        final long lastAccessed = entry.lastAccessed();
+        Thread.sleep(1);
+        entry.onUsage();
+        Thread.sleep(1);
+
+        assertTrue(entry.lastAccessed() > lastAccessed, "Last accessed time must be more than prev last accessed time after usage");
+    }
+
+    private MemCacheEntryFactory createFactory(final CacheConfiguration.EvictionPolicy policy, final long lifespan) {
+        final var configuration = TestCacheConfigBuilder.build("test", policy, 10, 1, null, null, lifespan == -1, lifespan, -1, Collections.emptyList());
+        return new MemCacheEntryFactory(configuration);
+    }
+}
@@ -17,7 +17,7 @@ public class NoPersistentCacheRepositoryTest {
     @Test
     public void testLoadEmptyAfterSave() {
         final PersistentCacheRepository repository = new PersistentCacheRepository.NoPersistentCacheRepository();
-        repository.save(List.of(new MemCacheEntry<>("12", new EntryMetadataFactory.FIFOEntryMetadata<>(1, 10))));
+        repository.save(List.of(new MemCacheEntryFactory.LinkedEntry<>(1, "12")));
 
         assertTrue(repository.load().isEmpty(), "Repository must be empty after save");
     }
@@ -0,0 +1,134 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveKeysSegmentTest {
+
+    private MemCacheEntryFactory entryFactory;
+
+    @BeforeEach
+    void setUp() {
+        final var cacheConfig = TestCacheConfigBuilder.build("test", CacheConfiguration.EvictionPolicy.FIFO, 10, 1, null, null, true, -1, -1, Collections.emptyList());
+        this.entryFactory = new MemCacheEntryFactory(cacheConfig);
+    }
+
+    @Test
+    public void testSegmentOperations() {
+        final var segment = new PrimitiveKeysSegment<Long, String>(Long::longValue, 2);
+
+        final int count = 1_000;
+        for (long i = 0; i < count; i++) {
+            final long key = i * 31;
+            assertNull(segment.put(key, createEntry(key)), "Old entry must not present");
+        }
+
+        assertEquals(count, segment.size(), "Segment size must be equal");
+        assertEquals(count, segment.values().size(), "Segment values count must be equal");
+        assertEquals(count, segment.entrySet().size(), "Segment entries count must be equal");
+
+        for (long i = 0; i < count; i++) {
+            final long key = i * 31;
+            final MemCacheEntry<Long, String> entry = segment.get(key);
+            assertNotNull(entry, "Entry must present in segment");
+            assertEquals(String.valueOf(key), entry.value(), "Entry value must be equal");
+            assertEquals(entry, segment.get(Long.valueOf(key)), "Entry by boxed key must be equal");
+        }
+
+        // removal of every second key: remaining keys must be available after shift of collided entries
+        for (long i = 0; i < count; i += 2) {
+            assertNotNull(segment.remove(i * 31), "Removed entry must present");
+        }
+
+        assertEquals(count / 2, segment.size(), "Segment size must be equal");
+        for (long i = 0; i < count; i++) {
+            final long key = i * 31;
+            assertEquals(i % 2 == 1, segment.get(key) != null, "Entry must present only for not removed keys");
+        }
+
+        assertNull(segment.get(-1L), "Entry must not present in segment");
+
+        segment.clear();
+        assertEquals(0, segment.size(), "Segment must be empty after clear");
+        assertNull(segment.get(31L), "Entry must not present after clear");
+
+        // the tables of the cleared segment grow again from the minimal capacity
+        for (long i = 0; i < count; i++) {
+            assertNull(segment.put(i, createEntry(i)), "Old entry must not present after clear");
+        }
+
+        assertEquals(count, segment.size(), "Segment size must be equal after refill");
+        assertEquals("999", segment.get(999L).value(), "Entry value must be equal after refill");
+    }
+
+    @Test
+    public void testSegmentComputeOperations() {
+        final var segment = new PrimitiveKeysSegment<Integer, String>(Integer::intValue, 2);
+        final int key = 1;
+
+        assertNull(segment.computeIfPresent(key, (k, v) -> createEntry(k)), "Entry must not be computed when it is absent");
+        assertNull(segment.computeIfAbsent(key, k -> null), "Entry must not be added when function returns null");
+        assertEquals(0, segment.size(), "Segment must be empty");
+
+        final MemCacheEntry<Integer, String> entry = segment.computeIfAbsent(key, this::createEntry);
+        assertNotNull(entry, "Entry must be computed when it is absent");
+        assertSame(entry, segment.computeIfAbsent(key, this::createEntry), "Present entry must be returned");
+
+        final MemCacheEntry<Integer, String> updatedEntry = segment.compute(key, (k, v) -> this.entryFactory.create(k, v.value() + "!"));
+        assertEquals("1!", updatedEntry.value(), "Entry value must be updated");
+        assertSame(updatedEntry, segment.get(key), "Updated entry must present in segment");
+
+        assertNull(segment.computeIfPresent(key, (k, v) -> null), "Entry must be removed");
+        assertTrue(segment.isEmpty(), "Segment must be empty after removal");
+
+        // other keys can be written from the remapping function even if they are moved by the nested writes
+        final MemCacheEntry<Integer, String> nestedEntry = segment.computeIfAbsent(key, k -> {
+            for (int i = 2; i < 100; i++) {
+                segment.put(i, createEntry(i));
+            }
+
+            for (int i = 2; i < 100; i += 2) {
+                segment.remove(i);
+            }
+
+            return createEntry(k);
+        });
+        assertSame(nestedEntry, segment.get(key), "Entry computed with nested writes must present in segment");
+        assertEquals(50, segment.size(), "Segment size must be equal after nested writes");
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> segment.compute(key, (k, v) -> segment.remove(k)),
+                "Exception must be thrown on recursive update of the same key"
+        );
+    }
+
+    @Test
+    public void testIterationWithRemoval() {
+        final var segment = new PrimitiveKeysSegment<Long, String>(Long::longValue, 1_024);
+        final int count = 2_000;
+        for (long i = 0; i < count; i++) {
+            segment.put(i, createEntry(i));
+        }
+
+        // the entries are removed while iterating: the remaining ones must be visited exactly once
+        final Set<Long> visitedKeys = new HashSet<>();
+        for (final MemCacheEntry<Long, String> entry : segment.values()) {
+            assertTrue(visitedKeys.add(entry.key()), "Entry must be visited once");
+            segment.remove(entry.key() + 1);
+        }
+
+        assertTrue(visitedKeys.size() >= count / 2, "Entries not removed before the visit must be visited");
+        assertEquals(segment.size(), segment.entrySet().stream().count(), "Count of the iterated entries must be equal to the size");
+    }
+
+    private <K> MemCacheEntry<K, String> createEntry(final K key) {
+        return this.entryFactory.create(key, String.valueOf(key));
+    }
+}
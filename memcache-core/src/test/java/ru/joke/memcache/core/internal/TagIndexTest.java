@@ -0,0 +1,44 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TagIndexTest {
+
+    @Test
+    public void testTagAndUntag() {
+        final TagIndex<Integer> index = new TagIndex<>();
+        index.tag(1, Set.of("a", "b"));
+        index.tag(2, Set.of("a"));
+
+        assertEquals(Set.of(1, 2), index.keysOf("a"), "Keys of the tag must be equal");
+        assertEquals(Set.of(1), index.keysOf("b"), "Keys of the tag must be equal");
+        assertTrue(index.hasTag(1, "b"), "Key must have the tag");
+        assertFalse(index.hasTag(2, "b"), "Key must not have the tag");
+
+        index.untag(1);
+
+        assertEquals(Set.of(2), index.keysOf("a"), "Keys of the tag must be equal after the untagging");
+        assertTrue(index.keysOf("b").isEmpty(), "Keys of the tag must be empty after the untagging");
+        assertFalse(index.hasTag(1, "a"), "Untagged key must not have the tag");
+    }
+
+    @Test
+    public void testRetag() {
+        final TagIndex<Integer> index = new TagIndex<>();
+        index.tag(1, Set.of("a", "b"));
+        index.tag(1, Set.of("b", "c"));
+
+        assertTrue(index.keysOf("a").isEmpty(), "Keys of the replaced tag must be empty");
+        assertEquals(Set.of(1), index.keysOf("b"), "Keys of the retained tag must be equal");
+        assertEquals(Set.of(1), index.keysOf("c"), "Keys of the added tag must be equal");
+
+        index.tag(1, Set.of());
+
+        assertTrue(index.keysOf("b").isEmpty(), "Keys of the tag must be empty after the removal of the tags");
+        assertTrue(index.keysOf("c").isEmpty(), "Keys of the tag must be empty after the removal of the tags");
+    }
+}
@@ -0,0 +1,35 @@
+package ru.joke.memcache.core.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TombstonesTest {
+
+    @Test
+    public void testRecordAndForget() {
+        final Tombstones<Integer> tombstones = new Tombstones<>(new HybridLogicalClock(), 60_000, 10);
+        tombstones.record(1, 5);
+        tombstones.record(1, 3);
+
+        assertTrue(tombstones.covers(1, 5), "Change with the version of the removal must be covered");
+        assertTrue(tombstones.covers(1, 4), "Change older than the removal must be covered");
+        assertFalse(tombstones.covers(1, 6), "Change newer than the removal must not be covered");
+        assertFalse(tombstones.covers(2, 1), "Change of the key without the removal must not be covered");
+
+        tombstones.forget(1);
+        assertFalse(tombstones.covers(1, 4), "Forgotten removal must not cover the changes");
+    }
+
+    @Test
+    public void testPurge() {
+        final HybridLogicalClock clock = new HybridLogicalClock();
+        final Tombstones<Integer> tombstones = new Tombstones<>(clock, 60_000, 2);
+        tombstones.record(1, clock.timestampBefore(120_000));
+        tombstones.record(2, clock.timestampBefore(120_000));
+        tombstones.record(3, clock.now());
+
+        assertEquals(1, tombstones.size(), "Tombstones older than the retention time must be purged on the overflow");
+        assertTrue(tombstones.covers(3, clock.timestampBefore(1_000)), "Recent tombstone must be retained");
+    }
+}
@@ -0,0 +1,195 @@
+package ru.joke.memcache.core.reactive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheException;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
+import ru.joke.memcache.core.events.EventType;
+import ru.joke.memcache.core.fixtures.TestCacheConfigBuilder;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import java.util.*;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveMemCacheTest {
+
+    private static final String CACHE_NAME = "test";
+
+    private InternalMemCacheManager cacheManager;
+    private MemCache<Integer, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        this.cacheManager = new InternalMemCacheManager();
+        this.cacheManager.initialize();
+        this.cacheManager.createCache(TestCacheConfigBuilder.build(CACHE_NAME, CacheConfiguration.EvictionPolicy.LRU, 16, 1, null, null, true, -1, -1, Collections.emptyList()));
+        this.cache = this.cacheManager.getCache(CACHE_NAME, Integer.class, String.class).orElseThrow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.cacheManager.shutdown();
+    }
+
+    @Test
+    public void testGetAllPublishesPresentEntries() {
+        this.cache.put(1, "1");
+        this.cache.put(3, "3");
+        final var reactiveCache = new ReactiveMemCache<>(this.cache, Runnable::run, 16);
+
+        final var subscriber = new CollectingSubscriber<Map.Entry<Integer, String>>(Long.MAX_VALUE);
+        reactiveCache.getAll(List.of(1, 2, 3)).subscribe(subscriber);
+
+        assertTrue(subscriber.completed, "Publisher must be completed");
+        assertNull(subscriber.error, "Publisher must not be failed");
+        assertEquals(Map.of(1, "1", 3, "3"), toMap(subscriber.items), "Published entries must be equal");
+    }
+
+    @Test
+    public void testGetAllWithEmptyKeys() {
+        final var reactiveCache = new ReactiveMemCache<>(this.cache, Runnable::run, 16);
+
+        final var subscriber = new CollectingSubscriber<Map.Entry<Integer, String>>(1);
+        reactiveCache.getAll(Collections.emptyList()).subscribe(subscriber);
+
+        assertTrue(subscriber.completed, "Publisher must be completed");
+        assertTrue(subscriber.items.isEmpty(), "Published entries must be empty");
+    }
+
+    @Test
+    public void testEventsPublishedAccordingToDemand() {
+        final var reactiveCache = new ReactiveMemCache<>(this.cache, Runnable::run, 16);
+
+        final var subscriber = new CollectingSubscriber<CacheEntryEvent<Integer, String>>(1);
+        reactiveCache.events().subscribe(subscriber);
+
+        this.cache.put(1, "1");
+        this.cache.put(2, "2");
+        this.cache.remove(1);
+
+        assertEquals(1, subscriber.items.size(), "Count of the published events must be equal to the demand");
+        assertEquals(1, subscriber.items.get(0).key(), "Key of the event must be equal");
+        assertEquals(EventType.ADDED, subscriber.items.get(0).eventType(), "Type of the event must be equal");
+
+        subscriber.subscription.request(2);
+
+        assertEquals(3, subscriber.items.size(), "Buffered events must be published after the request");
+        assertEquals(2, subscriber.items.get(1).key(), "Key of the event must be equal");
+        assertEquals(EventType.REMOVED, subscriber.items.get(2).eventType(), "Type of the event must be equal");
+        assertFalse(subscriber.completed, "Events publisher must not be completed");
+    }
+
+    @Test
+    public void testBatchEventsPublished() {
+        final var reactiveCache = new ReactiveMemCache<>(this.cache, Runnable::run, 16);
+
+        final var singleEventsSubscriber = new CollectingSubscriber<CacheEntryEvent<Integer, String>>(Long.MAX_VALUE);
+        final var batchEventsSubscriber = new CollectingSubscriber<CacheEntriesEvent<Integer, String>>(Long.MAX_VALUE);
+        reactiveCache.events().subscribe(singleEventsSubscriber);
+        reactiveCache.batchEvents().subscribe(batchEventsSubscriber);
+
+        this.cache.put(1, "1");
+        this.cache.clear();
+
+        assertEquals(1, singleEventsSubscriber.items.size(), "Only single events must be published by events publisher");
+        assertEquals(1, batchEventsSubscriber.items.size(), "Only batch events must be published by batch events publisher");
+    }
+
+    @Test
+    public void testBufferOverflowFailsSubscription() {
+        final var reactiveCache = new ReactiveMemCache<>(this.cache, Runnable::run, 2);
+
+        final var subscriber = new CollectingSubscriber<CacheEntryEvent<Integer, String>>(0);
+        reactiveCache.events().subscribe(subscriber);
+
+        this.cache.put(1, "1");
+        this.cache.put(2, "2");
+        assertNull(subscriber.error, "Subscription must not be failed until the buffer is overflowed");
+
+        this.cache.put(3, "3");
+
+        assertInstanceOf(MemCacheException.class, subscriber.error, "Subscription must be failed on the buffer overflow");
+        assertTrue(subscriber.items.isEmpty(), "Buffered events must not be published after the failure");
+    }
+
+    @Test
+    public void testCancelStopsPublishing() {
+        final var reactiveCache = new ReactiveMemCache<>(this.cache, Runnable::run, 16);
+
+        final var subscriber = new CollectingSubscriber<CacheEntryEvent<Integer, String>>(Long.MAX_VALUE);
+        reactiveCache.events().subscribe(subscriber);
+
+        this.cache.put(1, "1");
+        subscriber.subscription.cancel();
+        this.cache.put(2, "2");
+
+        assertEquals(1, subscriber.items.size(), "Events must not be published after the cancellation");
+        assertFalse(subscriber.completed, "Cancelled subscription must not be completed");
+        assertNull(subscriber.error, "Cancelled subscription must not be failed");
+    }
+
+    @Test
+    public void testNonPositiveRequestFailsSubscription() {
+        final var reactiveCache = new ReactiveMemCache<>(this.cache, Runnable::run, 16);
+
+        final var subscriber = new CollectingSubscriber<CacheEntryEvent<Integer, String>>(0);
+        reactiveCache.events().subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error, "Subscription must be failed on the non-positive request");
+    }
+
+    @Test
+    public void testInvalidBufferSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ReactiveMemCache<>(this.cache, Runnable::run, 0), "Buffer size must be positive");
+    }
+
+    private static Map<Integer, String> toMap(final List<Map.Entry<Integer, String>> entries) {
+        final Map<Integer, String> result = new HashMap<>();
+        entries.forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    private static class CollectingSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final long initialRequest;
+        private final List<T> items = new ArrayList<>();
+
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        private CollectingSubscriber(final long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (this.initialRequest > 0) {
+                subscription.request(this.initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            this.items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.joke.memcache.core.spi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MerkleTreeTest {
+
+    @Test
+    public void testEqualTrees() {
+        final long[] leaves = new long[MerkleTree.LEAVES_COUNT];
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i] = i * 31L;
+        }
+
+        final var tree1 = new MerkleTree(leaves);
+        final var tree2 = new MerkleTree(leaves.clone());
+
+        assertEquals(tree1, tree2, "Trees must be equal");
+        assertEquals(tree1.rootHash(), tree2.rootHash(), "Root hashes must be equal");
+        assertTrue(tree1.diff(tree2).isEmpty(), "Trees must not diverge");
+        assertEquals(0, new MerkleTree(new long[MerkleTree.LEAVES_COUNT]).rootHash(), "Root hash of empty tree must be equal");
+    }
+
+    @Test
+    public void testDivergentLeaves() {
+        final long[] leaves = new long[MerkleTree.LEAVES_COUNT];
+        final long[] otherLeaves = new long[MerkleTree.LEAVES_COUNT];
+        otherLeaves[3] = 1;
+        otherLeaves[MerkleTree.LEAVES_COUNT - 1] = 2;
+
+        final var tree = new MerkleTree(leaves);
+        final var otherTree = new MerkleTree(otherLeaves);
+
+        final BitSet expectedDiff = new BitSet();
+        expectedDiff.set(3);
+        expectedDiff.set(MerkleTree.LEAVES_COUNT - 1);
+
+        assertNotEquals(tree.rootHash(), otherTree.rootHash(), "Root hashes must not be equal");
+        assertEquals(expectedDiff, tree.diff(otherTree), "Divergent leaves must be equal");
+        assertEquals(expectedDiff, otherTree.diff(tree), "Divergent leaves must be equal");
+        assertEquals(2, otherTree.leafHash(MerkleTree.LEAVES_COUNT - 1), "Leaf hash must be equal");
+    }
+
+    @Test
+    public void testLeafOfKey() {
+        for (int i = 0; i < 10_000; i++) {
+            final int leaf = MerkleTree.leafOf("key" + i);
+            assertTrue(leaf >= 0 && leaf < MerkleTree.LEAVES_COUNT, "Leaf must be in range");
+            assertEquals(leaf, MerkleTree.leafOf("key" + i), "Leaf of the key must be stable");
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new MerkleTree(new long[1]));
+    }
+
+    @Test
+    public void testLeafOfEnumKey() {
+        // the hash codes of the enum constants differ between the nodes, so the leaf must depend only on the name
+        for (final TimeUnit unit : TimeUnit.values()) {
+            assertEquals(unit.name().hashCode(), MerkleTree.keyHash(unit), "Hash of the enum key must be equal");
+            assertEquals(MerkleTree.leafOf(unit.name()), MerkleTree.leafOf(unit), "Leaf of the enum key must be equal");
+        }
+    }
+}
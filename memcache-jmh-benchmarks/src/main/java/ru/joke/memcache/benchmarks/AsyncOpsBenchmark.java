@@ -0,0 +1,121 @@
+package ru.joke.memcache.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.Configuration;
+import ru.joke.memcache.core.configuration.ConfigurationSource;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the synchronous operations of the cache with their asynchronous versions, which are executed on the pool
+ * of the asynchronous operations of the cache manager and are awaited by the calling thread, so the difference is
+ * the cost of the hand-off to the pool and of the completion of the future. The parallelism of the pool and the mode
+ * of execution of the asynchronous operations are the parameters of the benchmark, the count of the calling threads
+ * can be changed with {@code -t}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@Fork(value = 2, jvmArgs = {"-Xms4G", "-Xmx4G"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class AsyncOpsBenchmark {
+
+    private static final String CACHE_NAME = "async";
+    private static final int CACHE_SIZE = 100_000;
+
+    @Param({"1", "4", "16"})
+    public int asyncParallelism;
+
+    @Param
+    public Configuration.AsyncCacheOpsMode asyncMode;
+
+    private MemCacheManager cacheManager;
+    private MemCache<Integer, Integer> cache;
+
+    @State(Scope.Thread)
+    public static class ThreadKeyState {
+        private int key = new Random().nextInt(0, CACHE_SIZE);
+
+        Integer nextKey() {
+            final int result = this.key;
+            this.key = result + 1 == CACHE_SIZE ? 0 : result + 1;
+            return result;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.cacheManager = new InternalMemCacheManager(
+                ConfigurationSource
+                        .createDefault()
+                            .setCleaningPoolSize(1)
+                            .setAsyncCacheOpsParallelismLevel(this.asyncParallelism)
+                            .setAsyncCacheOpsMode(this.asyncMode)
+                            .add(buildCacheConfiguration())
+        );
+        this.cacheManager.initialize();
+        this.cache = this.cacheManager.getCache(CACHE_NAME, Integer.class, Integer.class).orElseThrow();
+
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            this.cache.put(i, i);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.cacheManager.shutdown();
+    }
+
+    @Benchmark
+    public Optional<Integer> get(ThreadKeyState state) {
+        return this.cache.get(state.nextKey());
+    }
+
+    @Benchmark
+    public Optional<Integer> getAsync(ThreadKeyState state) {
+        return this.cache.getAsync(state.nextKey()).join();
+    }
+
+    @Benchmark
+    public Optional<Integer> put(ThreadKeyState state) {
+        final Integer key = state.nextKey();
+        return this.cache.put(key, key);
+    }
+
+    @Benchmark
+    public Optional<Integer> putAsync(ThreadKeyState state) {
+        final Integer key = state.nextKey();
+        return this.cache.putAsync(key, key).join();
+    }
+
+    private CacheConfiguration buildCacheConfiguration() {
+        return CacheConfiguration
+                .builder()
+                    .setCacheName(CACHE_NAME)
+                    .setMemoryStoreConfiguration(
+                            MemoryStoreConfiguration
+                                    .builder()
+                                        .setMaxEntries(CACHE_SIZE)
+                                        .setConcurrencyLevel(4)
+                                    .build()
+                    )
+                    .setExpirationConfiguration(
+                            ExpirationConfiguration
+                                    .builder()
+                                        .setEternal(true)
+                                    .build()
+                    )
+                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                .build();
+    }
+}
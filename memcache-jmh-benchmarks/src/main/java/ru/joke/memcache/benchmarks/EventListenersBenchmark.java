@@ -0,0 +1,120 @@
+package ru.joke.memcache.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.ConfigurationSource;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.events.CacheEntriesEvent;
+import ru.joke.memcache.core.events.CacheEntryEvent;
+import ru.joke.memcache.core.events.CacheEntryEventListener;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the synchronous notification of the registered event listeners on the put to the cache:
+ * each put of the key already present in the cache produces the event, which is delivered to each listener
+ * in the calling thread before the put returns. The listeners only count the received events, so the difference
+ * of the throughput with 0, 1 and 10 listeners is the cost of the fan-out itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 2, jvmArgs = {"-Xms4G", "-Xmx4G"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class EventListenersBenchmark {
+
+    private static final String CACHE_NAME = "listened";
+    private static final int CACHE_SIZE = 100_000;
+
+    @Param({"0", "1", "10"})
+    public int listenersCount;
+
+    private MemCacheManager cacheManager;
+    private MemCache<Integer, Integer> cache;
+
+    @State(Scope.Thread)
+    public static class ThreadKeyState {
+        private int key = new Random().nextInt(0, CACHE_SIZE);
+
+        Integer nextKey() {
+            final int result = this.key;
+            this.key = result + 1 == CACHE_SIZE ? 0 : result + 1;
+            return result;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.cacheManager = new InternalMemCacheManager(
+                ConfigurationSource
+                        .createDefault()
+                            .setCleaningPoolSize(1)
+                            .setAsyncCacheOpsParallelismLevel(1)
+                            .add(buildCacheConfiguration())
+        );
+        this.cacheManager.initialize();
+        this.cache = this.cacheManager.getCache(CACHE_NAME, Integer.class, Integer.class).orElseThrow();
+
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            this.cache.put(i, i);
+        }
+
+        for (int i = 0; i < this.listenersCount; i++) {
+            this.cache.registerEventListener(new CountingListener());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.cacheManager.shutdown();
+    }
+
+    @Benchmark
+    public Optional<Integer> put(ThreadKeyState state) {
+        final Integer key = state.nextKey();
+        return this.cache.put(key, key);
+    }
+
+    private static class CountingListener implements CacheEntryEventListener<Integer, Integer> {
+
+        private long eventsCount;
+
+        @Override
+        public void onEvent(CacheEntryEvent<? extends Integer, ? extends Integer> event) {
+            this.eventsCount++;
+        }
+
+        @Override
+        public void onBatchEvent(CacheEntriesEvent<? extends Integer, ? extends Integer> event) {
+            this.eventsCount++;
+        }
+    }
+
+    private CacheConfiguration buildCacheConfiguration() {
+        return CacheConfiguration
+                .builder()
+                    .setCacheName(CACHE_NAME)
+                    .setMemoryStoreConfiguration(
+                            MemoryStoreConfiguration
+                                    .builder()
+                                        .setMaxEntries(CACHE_SIZE)
+                                        .setConcurrencyLevel(4)
+                                    .build()
+                    )
+                    .setExpirationConfiguration(
+                            ExpirationConfiguration
+                                    .builder()
+                                        .setEternal(true)
+                                    .build()
+                    )
+                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                .build();
+    }
+}
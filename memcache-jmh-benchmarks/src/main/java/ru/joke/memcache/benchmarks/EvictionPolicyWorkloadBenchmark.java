@@ -0,0 +1,257 @@
+package ru.joke.memcache.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.ConfigurationSource;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The matrix of the eviction policies and the workloads: each operation reads the key chosen by the key distribution
+ * and loads it into the cache on a miss, so the eviction policy defines the hit ratio of the workload.<br>
+ * The throughput of the hits and the misses (so the hit ratio) and the count of the evictions of each iteration
+ * are reported by the auxiliary counters. The key space is larger than the cache, so the cache is always full
+ * during the measurement.<br>
+ * Run a subset of the matrix with the JMH options, e.g. {@code -p policy=LRU,LFU -p distribution=ZIPFIAN -t 4}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms4G", "-Xmx4G"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class EvictionPolicyWorkloadBenchmark {
+
+    private static final String CACHE_NAME = "workload";
+    private static final int KEY_SPACE_FACTOR = 4;
+    private static final int KEYS_SEQUENCE_LENGTH = 1 << 20;
+
+    @Param
+    public CacheConfiguration.EvictionPolicy policy;
+
+    @Param({"10000", "100000"})
+    public int cacheSize;
+
+    @Param({"1", "4"})
+    public int concurrencyLevel;
+
+    @Param
+    public KeyDistribution distribution;
+
+    private MemCacheManager cacheManager;
+    private MemCache<Integer, Integer> cache;
+    private final AtomicBoolean evictionsReported = new AtomicBoolean();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.cacheManager = new InternalMemCacheManager(
+                ConfigurationSource
+                        .createDefault()
+                            .setCleaningPoolSize(1)
+                            .setAsyncCacheOpsParallelismLevel(1)
+                            .add(buildCacheConfiguration())
+        );
+        this.cacheManager.initialize();
+        this.cache = this.cacheManager.getCache(CACHE_NAME, Integer.class, Integer.class).orElseThrow();
+
+        for (int i = 0; i < this.cacheSize; i++) {
+            this.cache.put(i, i);
+        }
+
+        this.cache.statistics().setStatisticsEnabled(true);
+        this.evictionsReported.set(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.cacheManager.shutdown();
+    }
+
+    @Benchmark
+    public Integer getOrLoad(ThreadKeysState keys, AccessCounters counters, EvictionCounters evictionCounters) {
+        final Integer key = keys.nextKey();
+        final Integer value = this.cache.get(key).orElse(null);
+        if (value != null) {
+            counters.hits++;
+            return value;
+        }
+
+        counters.misses++;
+        this.cache.put(key, key);
+        return key;
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKeysState {
+
+        private Integer[] keys;
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setUp(EvictionPolicyWorkloadBenchmark benchmark) {
+            // the keys are generated in advance, so the cost of the distribution is not measured
+            final int keySpace = benchmark.cacheSize * KEY_SPACE_FACTOR;
+            final SplittableRandom random = new SplittableRandom();
+            this.keys = benchmark.distribution.generate(keySpace, KEYS_SEQUENCE_LENGTH, random);
+            this.position = random.nextInt(KEYS_SEQUENCE_LENGTH);
+        }
+
+        Integer nextKey() {
+            final Integer key = this.keys[this.position];
+            this.position = (this.position + 1) & (KEYS_SEQUENCE_LENGTH - 1);
+            return key;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class AccessCounters {
+
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.hits = 0;
+            this.misses = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EvictionCounters {
+
+        public long evictions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.evictions = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void collect(EvictionPolicyWorkloadBenchmark benchmark) {
+            // the evictions are counted by the cache for all threads, so the count is reported by the first thread only
+            // and the sum of the counters of the threads is equal to it
+            if (benchmark.evictionsReported.compareAndSet(false, true)) {
+                this.evictions = benchmark.cache.statistics().evictionsCount();
+            }
+        }
+    }
+
+    public enum KeyDistribution {
+
+        /**
+         * All keys of the key space are accessed with the same probability.
+         */
+        UNIFORM {
+            @Override
+            Integer[] generate(int keySpace, int length, SplittableRandom random) {
+                final Integer[] result = new Integer[length];
+                for (int i = 0; i < length; i++) {
+                    result[i] = random.nextInt(keySpace);
+                }
+
+                return result;
+            }
+        },
+
+        /**
+         * The popularity of the keys follows the Zipf law (the exponent is 0.99 as in YCSB).
+         */
+        ZIPFIAN {
+            @Override
+            Integer[] generate(int keySpace, int length, SplittableRandom random) {
+                final double theta = 0.99;
+                double zetaN = 0;
+                for (int i = 1; i <= keySpace; i++) {
+                    zetaN += 1 / Math.pow(i, theta);
+                }
+
+                final double zeta2 = 1 + 1 / Math.pow(2, theta);
+                final double alpha = 1 / (1 - theta);
+                final double eta = (1 - Math.pow(2.0 / keySpace, 1 - theta)) / (1 - zeta2 / zetaN);
+
+                final Integer[] result = new Integer[length];
+                for (int i = 0; i < length; i++) {
+                    final double u = random.nextDouble();
+                    final double uz = u * zetaN;
+                    final int key;
+                    if (uz < 1) {
+                        key = 0;
+                    } else if (uz < zeta2) {
+                        key = 1;
+                    } else {
+                        key = (int) (keySpace * Math.pow(eta * u - eta + 1, alpha));
+                    }
+
+                    result[i] = Math.min(key, keySpace - 1);
+                }
+
+                return result;
+            }
+        },
+
+        /**
+         * 90% of the accesses are to the hot set of 10% of the keys.
+         */
+        HOTSPOT {
+            @Override
+            Integer[] generate(int keySpace, int length, SplittableRandom random) {
+                final int hotSetSize = Math.max(1, keySpace / 10);
+                final Integer[] result = new Integer[length];
+                for (int i = 0; i < length; i++) {
+                    result[i] = random.nextInt(10) < 9
+                            ? random.nextInt(hotSetSize)
+                            : hotSetSize + random.nextInt(keySpace - hotSetSize);
+                }
+
+                return result;
+            }
+        },
+
+        /**
+         * The keys of the key space are accessed sequentially in a loop.
+         */
+        SCAN {
+            @Override
+            Integer[] generate(int keySpace, int length, SplittableRandom random) {
+                final Integer[] result = new Integer[length];
+                for (int i = 0; i < length; i++) {
+                    result[i] = i % keySpace;
+                }
+
+                return result;
+            }
+        };
+
+        abstract Integer[] generate(int keySpace, int length, SplittableRandom random);
+    }
+
+    private CacheConfiguration buildCacheConfiguration() {
+        return CacheConfiguration
+                .builder()
+                    .setCacheName(CACHE_NAME)
+                    .setMemoryStoreConfiguration(
+                            MemoryStoreConfiguration
+                                    .builder()
+                                        .setMaxEntries(this.cacheSize)
+                                        .setConcurrencyLevel(this.concurrencyLevel)
+                                    .build()
+                    )
+                    .setExpirationConfiguration(
+                            ExpirationConfiguration
+                                    .builder()
+                                        .setEternal(true)
+                                    .build()
+                    )
+                    .setEvictionPolicy(this.policy)
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+package ru.joke.memcache.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.ConfigurationSource;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+import ru.joke.memcache.core.stats.MemCacheStatistics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the latency of the foreground operations of the cache while the expired entries are cleaned by the scheduled
+ * cleaning tasks of the cache manager (the cleaning runs with the period equal to the expiration timeout of the cache)
+ * and by the puts to the full cache, which clean the expired entries before the eviction.<br>
+ * The cache is filled before each iteration, so the first cleaning tick of the iteration expires the whole population
+ * of the cache and the next ticks sweep the entries written by the foreground puts. The latency distribution is sampled,
+ * so the spikes aligned with the cleaning ticks are visible in the high percentiles; the {@code ETERNAL} expiration mode
+ * is the baseline without any cleaning. The counts of the expired and the evicted entries of each iteration are reported
+ * by the auxiliary counters.<br>
+ * Attribute the cost with the JMH profilers, e.g. {@code -prof gc} for the allocations of the sweeps,
+ * {@code -prof stack:lines=3} or {@code -prof async} for the time of {@code MapMemCache.clearExpired}
+ * on the cleaning thread and on the foreground threads; run the operations concurrently with {@code -t}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms8G", "-Xmx8G"})
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class ExpirationCleaningBenchmark {
+
+    private static final String CACHE_NAME = "expiring";
+    private static final int KEY_SPACE_FACTOR = 2;
+    private static final int KEYS_SEQUENCE_LENGTH = 1 << 20;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int entriesCount;
+
+    @Param({"100", "1000"})
+    public long expirationTimeout;
+
+    @Param
+    public ExpirationMode expiration;
+
+    private MemCacheManager cacheManager;
+    private MemCache<Integer, Integer> cache;
+    private final AtomicBoolean cleaningReported = new AtomicBoolean();
+
+    public enum ExpirationMode {
+        ETERNAL,
+        LIFESPAN,
+        IDLE_TIMEOUT
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.cacheManager = new InternalMemCacheManager(
+                ConfigurationSource
+                        .createDefault()
+                            .setCleaningPoolSize(1)
+                            .setAsyncCacheOpsParallelismLevel(1)
+                            .add(buildCacheConfiguration())
+        );
+        this.cacheManager.initialize();
+        this.cache = this.cacheManager.getCache(CACHE_NAME, Integer.class, Integer.class).orElseThrow();
+
+        for (int i = 0; i < this.entriesCount; i++) {
+            this.cache.put(i, i);
+        }
+
+        this.cache.statistics().setStatisticsEnabled(true);
+        this.cleaningReported.set(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.cacheManager.shutdown();
+    }
+
+    @Benchmark
+    public Integer get(ThreadKeysState keys, CleaningCounters counters) {
+        return this.cache.get(keys.nextKey()).orElse(null);
+    }
+
+    @Benchmark
+    public Integer put(ThreadKeysState keys, CleaningCounters counters) {
+        final Integer key = keys.nextKey();
+        return this.cache.put(key, key).orElse(null);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKeysState {
+
+        private Integer[] keys;
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setUp(ExpirationCleaningBenchmark benchmark) {
+            // the key space is larger than the cache, so the puts of the absent keys overflow the full cache
+            final int keySpace = benchmark.entriesCount * KEY_SPACE_FACTOR;
+            final SplittableRandom random = new SplittableRandom();
+            this.keys = new Integer[KEYS_SEQUENCE_LENGTH];
+            for (int i = 0; i < KEYS_SEQUENCE_LENGTH; i++) {
+                this.keys[i] = random.nextInt(keySpace);
+            }
+
+            this.position = random.nextInt(KEYS_SEQUENCE_LENGTH);
+        }
+
+        Integer nextKey() {
+            final Integer key = this.keys[this.position];
+            this.position = (this.position + 1) & (KEYS_SEQUENCE_LENGTH - 1);
+            return key;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CleaningCounters {
+
+        public long expirations;
+        public long evictions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.expirations = 0;
+            this.evictions = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void collect(ExpirationCleaningBenchmark benchmark) {
+            // the cleaning is counted by the cache for all threads, so the counts are reported by the first thread only
+            // and the sums of the counters of the threads are equal to them
+            if (benchmark.cleaningReported.compareAndSet(false, true)) {
+                final MemCacheStatistics statistics = benchmark.cache.statistics();
+                this.expirations = statistics.expirationsCount();
+                this.evictions = statistics.evictionsCount();
+            }
+        }
+    }
+
+    private CacheConfiguration buildCacheConfiguration() {
+        // the other timeout is longer, so the entries are expired (and the cleaning is scheduled) by the measured one
+        final long longerTimeout = this.expirationTimeout * 10;
+        final ExpirationConfiguration.Builder expirationConfigBuilder = ExpirationConfiguration.builder();
+        switch (this.expiration) {
+            case ETERNAL -> expirationConfigBuilder.setEternal(true);
+            case LIFESPAN -> expirationConfigBuilder.setLifespan(this.expirationTimeout).setIdleTimeout(longerTimeout);
+            case IDLE_TIMEOUT -> expirationConfigBuilder.setIdleTimeout(this.expirationTimeout).setLifespan(longerTimeout);
+        }
+
+        return CacheConfiguration
+                .builder()
+                    .setCacheName(CACHE_NAME)
+                    .setMemoryStoreConfiguration(
+                            MemoryStoreConfiguration
+                                    .builder()
+                                        .setMaxEntries(this.entriesCount)
+                                        .setConcurrencyLevel(Runtime.getRuntime().availableProcessors())
+                                    .build()
+                    )
+                    .setExpirationConfiguration(expirationConfigBuilder.build())
+                    .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                .build();
+    }
+}
@@ -0,0 +1,7 @@
+package ru.joke.memcache.benchmarks;
+
+import org.openjdk.jmh.annotations.Threads;
+
+@Threads(4)
+public class IntKeyMemCacheMultipleThreadsBenchmark extends IntKeyMemCacheSingleThreadBenchmark {
+}
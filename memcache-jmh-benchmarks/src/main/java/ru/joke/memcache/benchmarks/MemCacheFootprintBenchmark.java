@@ -0,0 +1,177 @@
+package ru.joke.memcache.benchmarks;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.util.Multiset;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.ConfigurationSource;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the heap footprint of the cache entries with JOL.<br>
+ * The per entry overhead is the difference between the sizes of the object graphs of the full and the empty caches
+ * without the sizes of the keys and values themselves. The overhead is broken down by the structures of the cache:
+ * the nodes and the tables of the maps of the segments, the cache entries, the nodes of the eviction queue and the rest
+ * (the classes are shown with {@code -v}). The retained size per entry also includes the structures preallocated
+ * by the cache for its maximum entries count (e.g. the tables of the maps of the primitive keys), so it is the size
+ * of the heap retained by the full cache (without the keys and values) divided by the count of its entries.<br>
+ * Run it with {@code java -cp benchmarks.jar ru.joke.memcache.benchmarks.MemCacheFootprintBenchmark [entries] [-v]}.
+ */
+public class MemCacheFootprintBenchmark {
+
+    private static final int DEFAULT_ENTRIES_COUNT = 100_000;
+    private static final String INTERNAL_PACKAGE = "ru.joke.memcache.core.internal.";
+
+    private enum Structure {
+        MAP,
+        ENTRY,
+        QUEUE,
+        OTHER;
+
+        static Structure of(final Class<?> type) {
+            final Class<?> elementType = type.isArray() ? type.getComponentType() : type;
+            if (elementType.getName().startsWith(ConcurrentHashMap.class.getName())
+                    || elementType.getName().startsWith(INTERNAL_PACKAGE + "PrimitiveKeysSegment")
+                    || type.isArray() && (elementType == long.class || isCacheEntry(elementType))) {
+                return MAP;
+            } else if (isCacheEntry(elementType)) {
+                return ENTRY;
+            } else if (elementType.getName().startsWith(INTERNAL_PACKAGE + "EvictionQueue")) {
+                return QUEUE;
+            }
+
+            return OTHER;
+        }
+
+        private static boolean isCacheEntry(final Class<?> type) {
+            for (Class<?> t = type; t != null; t = t.getSuperclass()) {
+                if (t.getName().equals(INTERNAL_PACKAGE + "MemCacheEntry")) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    public static void main(String[] args) {
+        final int entriesCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ENTRIES_COUNT;
+        final boolean verbose = args.length > 1 && "-v".equals(args[1]);
+
+        System.out.printf("%-6s %-7s %-9s %15s %8s %8s %8s %8s %9s%n", "Policy", "Keys", "Lifespan", "Bytes per entry", "Map", "Entry", "Queue", "Other", "Retained");
+        for (final CacheConfiguration.KeysType keysType : CacheConfiguration.KeysType.values()) {
+            for (final CacheConfiguration.EvictionPolicy policy : CacheConfiguration.EvictionPolicy.values()) {
+                measure(policy, keysType, false, entriesCount, verbose);
+                measure(policy, keysType, true, entriesCount, verbose);
+            }
+        }
+    }
+
+    private static void measure(
+            final CacheConfiguration.EvictionPolicy policy,
+            final CacheConfiguration.KeysType keysType,
+            final boolean withLifespan,
+            final int entriesCount,
+            final boolean verbose) {
+        final String fullCacheName = "full";
+        final String emptyCacheName = "empty";
+        final MemCacheManager cacheManager = new InternalMemCacheManager(
+                ConfigurationSource
+                        .createDefault()
+                            .setCleaningPoolSize(1)
+                            .setAsyncCacheOpsParallelismLevel(1)
+                            .add(buildCacheConfiguration(fullCacheName, policy, keysType, withLifespan, entriesCount))
+                            .add(buildCacheConfiguration(emptyCacheName, policy, keysType, withLifespan, entriesCount))
+        );
+        cacheManager.initialize();
+
+        try {
+            final MemCache<Serializable, Serializable> fullCache = cacheManager.getCache(fullCacheName).orElseThrow();
+            final MemCache<Serializable, Serializable> emptyCache = cacheManager.getCache(emptyCacheName).orElseThrow();
+
+            final List<Object> keysAndValues = new ArrayList<>(entriesCount * 2);
+            for (int i = 0; i < entriesCount; i++) {
+                final Serializable key = keysType == CacheConfiguration.KeysType.LONG ? (Serializable) Long.valueOf(i) : (Serializable) Integer.valueOf(i);
+                final Serializable value = Integer.valueOf(i);
+                fullCache.put(key, value);
+                fullCache.get(key);
+                keysAndValues.add(key);
+                keysAndValues.add(value);
+            }
+
+            // sizes are compared instead of the layouts subtraction: objects can be moved by GC between the graph walks
+            final GraphLayout fullCacheLayout = GraphLayout.parseInstance(fullCache);
+            final Multiset<Class<?>> fullCacheSizes = fullCacheLayout.getClassSizes();
+            final Multiset<Class<?>> emptyCacheSizes = GraphLayout.parseInstance(emptyCache).getClassSizes();
+            final GraphLayout keysAndValuesLayout = GraphLayout.parseInstance(keysAndValues.toArray());
+            final Multiset<Class<?>> keysAndValuesSizes = keysAndValuesLayout.getClassSizes();
+
+            final Map<Class<?>, Long> entriesSizeByClass = new TreeMap<>(Comparator.comparing(Class::getName));
+            final Map<Structure, Long> entriesSizeByStructure = new EnumMap<>(Structure.class);
+            long entriesSize = 0;
+            for (final Class<?> type : fullCacheSizes.keys()) {
+                final long size = fullCacheSizes.count(type) - emptyCacheSizes.count(type) - keysAndValuesSizes.count(type);
+                entriesSizeByClass.put(type, size);
+                entriesSizeByStructure.merge(Structure.of(type), size, Long::sum);
+                entriesSize += size;
+            }
+
+            System.out.printf(
+                    "%-6s %-7s %-9s %15.1f %8.1f %8.1f %8.1f %8.1f %9.1f%n",
+                    policy,
+                    keysType,
+                    withLifespan,
+                    (double) entriesSize / entriesCount,
+                    (double) entriesSizeByStructure.getOrDefault(Structure.MAP, 0L) / entriesCount,
+                    (double) entriesSizeByStructure.getOrDefault(Structure.ENTRY, 0L) / entriesCount,
+                    (double) entriesSizeByStructure.getOrDefault(Structure.QUEUE, 0L) / entriesCount,
+                    (double) entriesSizeByStructure.getOrDefault(Structure.OTHER, 0L) / entriesCount,
+                    (double) (fullCacheLayout.totalSize() - keysAndValuesLayout.totalSize()) / entriesCount
+            );
+            if (verbose) {
+                entriesSizeByClass.forEach((type, size) -> {
+                    if (size != 0) {
+                        System.out.printf("    %-6s %10.1f  %s%n", Structure.of(type), (double) size / entriesCount, type.getName());
+                    }
+                });
+            }
+        } finally {
+            cacheManager.shutdown();
+        }
+    }
+
+    private static CacheConfiguration buildCacheConfiguration(
+            final String cacheName,
+            final CacheConfiguration.EvictionPolicy policy,
+            final CacheConfiguration.KeysType keysType,
+            final boolean withLifespan,
+            final int entriesCount) {
+        return CacheConfiguration
+                .builder()
+                    .setCacheName(cacheName)
+                    .setKeysType(keysType)
+                    .setMemoryStoreConfiguration(
+                            MemoryStoreConfiguration
+                                    .builder()
+                                        .setMaxEntries(entriesCount)
+                                        .setConcurrencyLevel(4)
+                                    .build()
+                    )
+                    .setExpirationConfiguration(
+                            ExpirationConfiguration
+                                    .builder()
+                                        .setLifespan(withLifespan ? 60_000 : -1)
+                                        .setIdleTimeout(-1)
+                                    .build()
+                    )
+                    .setEvictionPolicy(policy)
+                .build();
+    }
+}
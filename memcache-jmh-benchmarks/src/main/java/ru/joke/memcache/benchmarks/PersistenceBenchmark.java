@@ -0,0 +1,224 @@
+package ru.joke.memcache.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.joke.memcache.core.MemCache;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.configuration.*;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the throughput of the persistence of the cache entries to the disk on the shutdown of the cache
+ * ({@code save}) and their restore on the initialization of the cache ({@code load}) with the temporary directory
+ * as the persistent store.<br>
+ * Each operation saves or loads all entries of the cache, the entries and the bytes of the store processed per second
+ * are reported by the auxiliary counters; the filling of the cache and the cleanup of the store are not measured.<br>
+ * Run the benchmark with {@code -prof gc} to report the allocation rate, e.g.
+ * {@code java -jar benchmarks.jar PersistenceBenchmark -prof gc -p keyType=STRING}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms4G", "-Xmx4G"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PersistenceBenchmark {
+
+    private static final String CACHE_NAME = "persistent";
+    private static final String STORE_UID = "benchmark";
+
+    public enum KeyType {
+        STRING,
+        LONG,
+        OBJECT
+    }
+
+    public record ObjectKey(String tenant, long id) implements Serializable {
+    }
+
+    @State(Scope.Benchmark)
+    public static class StoreState {
+
+        @Param
+        public KeyType keyType;
+
+        @Param({"16", "1024"})
+        public int valueSize;
+
+        @Param({"10000", "100000"})
+        public int entriesCount;
+
+        private Path storeDir;
+        private long storeSize;
+
+        @Setup(Level.Trial)
+        public void createStore() throws IOException {
+            this.storeDir = Files.createTempDirectory("memcache-persistence-benchmark");
+            Files.createDirectories(this.storeDir.resolve(STORE_UID));
+
+            // the size of the store is the same for each invocation, so it is measured once
+            final MemCacheManager cacheManager = createCacheManager();
+            cacheManager.initialize();
+            fill(cacheManager.<Serializable, Serializable> getCache(CACHE_NAME).orElseThrow());
+            cacheManager.shutdown();
+
+            this.storeSize = storeSize();
+            deleteSavedEntries();
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteStore() throws IOException {
+            try (Stream<Path> files = Files.walk(this.storeDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+
+        MemCacheManager createCacheManager() {
+            return new InternalMemCacheManager(
+                    ConfigurationSource
+                            .createDefault()
+                                .setCleaningPoolSize(1)
+                                .setAsyncCacheOpsParallelismLevel(1)
+                                .add(buildCacheConfiguration())
+            );
+        }
+
+        void fill(final MemCache<Serializable, Serializable> cache) {
+            for (int i = 0; i < this.entriesCount; i++) {
+                final byte[] value = new byte[this.valueSize];
+                value[0] = (byte) i;
+                cache.put(createKey(i), value);
+            }
+        }
+
+        void deleteSavedEntries() {
+            // the saved store is restored and deleted by the next cache manager
+            final MemCacheManager cacheManager = createCacheManager();
+            cacheManager.initialize();
+            cacheManager.<Serializable, Serializable> getCache(CACHE_NAME).orElseThrow().clear();
+            cacheManager.shutdown();
+        }
+
+        private long storeSize() {
+            try (Stream<Path> files = Files.walk(this.storeDir)) {
+                return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private Serializable createKey(final int i) {
+            return switch (this.keyType) {
+                case STRING -> "key-" + i;
+                case LONG -> (long) i;
+                case OBJECT -> new ObjectKey("tenant-" + (i & 15), i);
+            };
+        }
+
+        private CacheConfiguration buildCacheConfiguration() {
+            return CacheConfiguration
+                    .builder()
+                        .setCacheName(CACHE_NAME)
+                        .setMemoryStoreConfiguration(
+                                MemoryStoreConfiguration
+                                        .builder()
+                                            .setMaxEntries(this.entriesCount)
+                                            .setConcurrencyLevel(4)
+                                        .build()
+                        )
+                        .setExpirationConfiguration(
+                                ExpirationConfiguration
+                                        .builder()
+                                            .setEternal(true)
+                                        .build()
+                        )
+                        .setPersistentStoreConfiguration(
+                                PersistentStoreConfiguration
+                                        .builder()
+                                            .setLocation(this.storeDir.toString())
+                                            .setUid(STORE_UID)
+                                        .build()
+                        )
+                        .setEvictionPolicy(CacheConfiguration.EvictionPolicy.LRU)
+                    .build();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ThroughputCounters {
+
+        public long entries;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.entries = 0;
+            this.bytes = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SaveState {
+
+        private MemCacheManager cacheManager;
+
+        @Setup(Level.Invocation)
+        public void setUp(StoreState store) {
+            this.cacheManager = store.createCacheManager();
+            this.cacheManager.initialize();
+            store.fill(this.cacheManager.<Serializable, Serializable> getCache(CACHE_NAME).orElseThrow());
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown(StoreState store) {
+            store.deleteSavedEntries();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LoadState {
+
+        private MemCacheManager cacheManager;
+
+        @Setup(Level.Invocation)
+        public void setUp(StoreState store) {
+            final MemCacheManager cacheManager = store.createCacheManager();
+            cacheManager.initialize();
+            store.fill(cacheManager.<Serializable, Serializable> getCache(CACHE_NAME).orElseThrow());
+            cacheManager.shutdown();
+
+            this.cacheManager = store.createCacheManager();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            this.cacheManager.<Serializable, Serializable> getCache(CACHE_NAME).orElseThrow().clear();
+            this.cacheManager.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void save(StoreState store, SaveState state, ThroughputCounters counters) {
+        state.cacheManager.shutdown();
+
+        counters.entries += store.entriesCount;
+        counters.bytes += store.storeSize;
+    }
+
+    @Benchmark
+    public MemCacheManager load(StoreState store, LoadState state, ThroughputCounters counters) {
+        state.cacheManager.initialize();
+
+        counters.entries += store.entriesCount;
+        counters.bytes += store.storeSize;
+        return state.cacheManager;
+    }
+}
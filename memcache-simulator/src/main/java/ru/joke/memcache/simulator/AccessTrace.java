@@ -0,0 +1,140 @@
+package ru.joke.memcache.simulator;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * The recorded sequence of the accessed keys which is replayed by the simulator.
+ * The trace is loaded into the memory once, so it can be replayed for each eviction policy and capacity.
+ *
+ * @author Alik
+ * @see TraceFormat
+ * @see HitRatioSimulator
+ */
+@Immutable
+public final class AccessTrace {
+
+    private final long[] keys;
+    private final int accessesCount;
+
+    private AccessTrace(@Nonnull long[] keys, @Nonnegative int accessesCount) {
+        this.keys = keys;
+        this.accessesCount = accessesCount;
+    }
+
+    /**
+     * Loads the trace from the file.
+     *
+     * @param traceFile the file of the trace, cannot be {@code null}.
+     * @param format    the format of the trace, cannot be {@code null}.
+     * @return the loaded trace, cannot be {@code null}.
+     * @throws IOException if the file can not be read or the trace is malformed
+     */
+    @Nonnull
+    public static AccessTrace load(@Nonnull Path traceFile, @Nonnull TraceFormat format) throws IOException {
+        try (InputStream input = Files.newInputStream(traceFile)) {
+            return load(input, format);
+        }
+    }
+
+    /**
+     * Loads the trace from the stream. The stream is not closed.
+     *
+     * @param input  the stream of the trace, cannot be {@code null}.
+     * @param format the format of the trace, cannot be {@code null}.
+     * @return the loaded trace, cannot be {@code null}.
+     * @throws IOException if the stream can not be read or the trace is malformed
+     */
+    @Nonnull
+    public static AccessTrace load(@Nonnull InputStream input, @Nonnull TraceFormat format) throws IOException {
+        final KeysCollector collector = new KeysCollector();
+        Objects.requireNonNull(format, "format").read(Objects.requireNonNull(input, "input"), collector);
+        return new AccessTrace(collector.keys, collector.count);
+    }
+
+    /**
+     * Creates the trace from the given keys.
+     *
+     * @param keys the accessed keys in the order of the accesses, cannot be {@code null}.
+     * @return the trace, cannot be {@code null}.
+     */
+    @Nonnull
+    public static AccessTrace of(@Nonnull long... keys) {
+        return new AccessTrace(keys.clone(), keys.length);
+    }
+
+    /**
+     * Returns the count of the accesses of the trace.
+     *
+     * @return the count of the accesses.
+     */
+    @Nonnegative
+    public int accessesCount() {
+        return this.accessesCount;
+    }
+
+    /**
+     * Returns the count of the distinct keys of the trace.
+     *
+     * @return the count of the distinct keys.
+     */
+    @Nonnegative
+    public int distinctKeysCount() {
+        final long[] sortedKeys = Arrays.copyOf(this.keys, this.accessesCount);
+        Arrays.sort(sortedKeys);
+
+        int result = 0;
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (i == 0 || sortedKeys[i] != sortedKeys[i - 1]) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Replays the accesses of the trace in their order.
+     *
+     * @param accessConsumer the consumer of the accessed keys, cannot be {@code null}.
+     */
+    public void replay(@Nonnull LongConsumer accessConsumer) {
+        for (int i = 0; i < this.accessesCount; i++) {
+            accessConsumer.accept(this.keys[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AccessTrace{" +
+                "accessesCount=" + accessesCount +
+                '}';
+    }
+
+    private static class KeysCollector implements LongConsumer {
+
+        private long[] keys = new long[1024];
+        private int count;
+
+        @Override
+        public void accept(long key) {
+            if (this.count == this.keys.length) {
+                if (this.count == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Trace is too large");
+                }
+
+                this.keys = Arrays.copyOf(this.keys, (int) Math.min(Integer.MAX_VALUE - 8, this.count * 2L));
+            }
+
+            this.keys[this.count++] = key;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.joke.memcache.simulator;
+
+import ru.joke.memcache.core.LongKeyMemCache;
+import ru.joke.memcache.core.MemCacheManager;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+import ru.joke.memcache.core.configuration.ConfigurationSource;
+import ru.joke.memcache.core.configuration.ExpirationConfiguration;
+import ru.joke.memcache.core.configuration.MemoryStoreConfiguration;
+import ru.joke.memcache.core.internal.InternalMemCacheManager;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The trace-driven simulator of the hit ratio of the cache: the recorded accesses are replayed through the cache
+ * for each eviction policy and capacity, the key absent in the cache is loaded into it on the access.
+ * The results are written as CSV ({@code policy,capacity,accesses,hits,hit_ratio}), so the hit ratio curves
+ * of the policies can be plotted by the capacity.<br>
+ * Usage: {@code java -jar memcache-simulator.jar <trace file> <format> <capacities> [policies] [output file]},
+ * where the format is one of {@linkplain TraceFormat} (case-insensitive), the capacities and the policies are comma-separated
+ * (all policies by default) and the results are written to the standard output by default.
+ *
+ * @author Alik
+ * @see AccessTrace
+ * @see TraceFormat
+ */
+@ThreadSafe
+public final class HitRatioSimulator {
+
+    private static final String CACHE_NAME = "simulated";
+    private static final String CSV_HEADER = "policy,capacity,accesses,hits,hit_ratio";
+
+    /**
+     * Result of the simulation of the trace with the eviction policy and the capacity of the cache.
+     *
+     * @param policy   the eviction policy, cannot be {@code null}.
+     * @param capacity the capacity of the cache.
+     * @param accesses the count of the accesses.
+     * @param hits     the count of the hits.
+     */
+    public record Result(
+            @Nonnull CacheConfiguration.EvictionPolicy policy,
+            @Nonnegative int capacity,
+            @Nonnegative long accesses,
+            @Nonnegative long hits) {
+
+        /**
+         * Returns the hit ratio.
+         *
+         * @return the ratio of the hits to the accesses.
+         */
+        public double hitRatio() {
+            return this.accesses == 0 ? 0 : (double) this.hits / this.accesses;
+        }
+
+        @Nonnull
+        String toCsvRow() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%d,%.6f", this.policy, this.capacity, this.accesses, this.hits, hitRatio());
+        }
+    }
+
+    /**
+     * Replays the trace through the cache with the given eviction policy and capacity.
+     *
+     * @param trace    the trace, cannot be {@code null}.
+     * @param policy   the eviction policy, cannot be {@code null}.
+     * @param capacity the capacity of the cache; must be positive.
+     * @return the result of the simulation, cannot be {@code null}.
+     */
+    @Nonnull
+    public Result simulate(
+            @Nonnull AccessTrace trace,
+            @Nonnull CacheConfiguration.EvictionPolicy policy,
+            @Nonnegative int capacity) {
+        final MemCacheManager cacheManager = new InternalMemCacheManager(
+                ConfigurationSource
+                        .createDefault()
+                            .setCleaningPoolSize(1)
+                            .setAsyncCacheOpsParallelismLevel(1)
+                            .add(buildCacheConfiguration(policy, capacity))
+        );
+        cacheManager.initialize();
+
+        try {
+            final LongKeyMemCache<Boolean> cache = cacheManager.<Boolean> getLongKeyCache(CACHE_NAME).orElseThrow();
+            final long[] hits = new long[1];
+            trace.replay(key -> {
+                if (cache.get(key).isPresent()) {
+                    hits[0]++;
+                } else {
+                    cache.put(key, Boolean.TRUE);
+                }
+            });
+
+            return new Result(policy, capacity, trace.accessesCount(), hits[0]);
+        } finally {
+            cacheManager.shutdown();
+        }
+    }
+
+    /**
+     * Replays the trace for each eviction policy and capacity and writes the results as CSV.
+     *
+     * @param trace      the trace, cannot be {@code null}.
+     * @param policies   the eviction policies, cannot be {@code null}.
+     * @param capacities the capacities of the cache, cannot be {@code null}.
+     * @param output     the output of the CSV, cannot be {@code null}.
+     * @return the results of the simulations, cannot be {@code null}.
+     * @throws IOException if the results can not be written
+     */
+    @Nonnull
+    public List<Result> simulate(
+            @Nonnull AccessTrace trace,
+            @Nonnull Collection<CacheConfiguration.EvictionPolicy> policies,
+            @Nonnull Collection<Integer> capacities,
+            @Nonnull Appendable output) throws IOException {
+        output.append(CSV_HEADER).append(System.lineSeparator());
+
+        final List<Result> results = new ArrayList<>(policies.size() * capacities.size());
+        for (final CacheConfiguration.EvictionPolicy policy : policies) {
+            for (final int capacity : new TreeSet<>(capacities)) {
+                final Result result = simulate(trace, policy, capacity);
+                output.append(result.toCsvRow()).append(System.lineSeparator());
+                results.add(result);
+            }
+        }
+
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: <trace file> <" + String.join("|", formatNames()) + "> <capacities> [policies] [output file]");
+            System.exit(1);
+        }
+
+        final TraceFormat format = TraceFormat.valueOf(args[1].toUpperCase(Locale.ROOT));
+        final List<Integer> capacities = Arrays.stream(args[2].split(",")).map(String::strip).map(Integer::valueOf).toList();
+        final List<CacheConfiguration.EvictionPolicy> policies =
+                args.length > 3
+                        ? Arrays.stream(args[3].split(",")).map(p -> CacheConfiguration.EvictionPolicy.valueOf(p.strip().toUpperCase(Locale.ROOT))).toList()
+                        : List.of(CacheConfiguration.EvictionPolicy.values());
+
+        final AccessTrace trace = AccessTrace.load(Path.of(args[0]), format);
+        System.err.println("Trace loaded: " + trace.accessesCount() + " accesses, " + trace.distinctKeysCount() + " distinct keys");
+
+        final HitRatioSimulator simulator = new HitRatioSimulator();
+        if (args.length > 4) {
+            try (Writer output = Files.newBufferedWriter(Path.of(args[4]), StandardCharsets.UTF_8)) {
+                simulator.simulate(trace, policies, capacities, output);
+            }
+        } else {
+            final PrintStream output = System.out;
+            simulator.simulate(trace, policies, capacities, output);
+            output.flush();
+        }
+    }
+
+    private static List<String> formatNames() {
+        return Arrays.stream(TraceFormat.values()).map(f -> f.name().toLowerCase(Locale.ROOT)).toList();
+    }
+
+    private static CacheConfiguration buildCacheConfiguration(
+            final CacheConfiguration.EvictionPolicy policy,
+            final int capacity) {
+        return CacheConfiguration
+                .builder()
+                    .setCacheName(CACHE_NAME)
+                    .setKeysType(CacheConfiguration.KeysType.LONG)
+                    .setMemoryStoreConfiguration(
+                            MemoryStoreConfiguration
+                                    .builder()
+                                        .setMaxEntries(capacity)
+                                        .setConcurrencyLevel(1)
+                                    .build()
+                    )
+                    .setExpirationConfiguration(
+                            ExpirationConfiguration
+                                    .builder()
+                                        .setEternal(true)
+                                    .build()
+                    )
+                    .setEvictionPolicy(policy)
+                .build();
+    }
+}
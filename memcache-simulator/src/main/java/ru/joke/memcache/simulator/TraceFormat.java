@@ -0,0 +1,143 @@
+package ru.joke.memcache.simulator;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongConsumer;
+
+/**
+ * Formats of the access traces supported by the simulator.
+ *
+ * @author Alik
+ * @see AccessTrace
+ */
+public enum TraceFormat {
+
+    /**
+     * Text trace: the key is the first whitespace-separated token of each line. Numeric keys are used as is,
+     * other keys are hashed to 64 bits. Empty lines and lines starting with {@code #} are skipped.
+     */
+    TEXT {
+        @Override
+        void read(@Nonnull InputStream input, @Nonnull LongConsumer accessConsumer) throws IOException {
+            forEachToken(input, 1, tokens -> accessConsumer.accept(parseKey(tokens[0])));
+        }
+    },
+
+    /**
+     * Binary trace: the sequence of the big-endian 64-bit keys.
+     */
+    BINARY {
+        @Override
+        void read(@Nonnull InputStream input, @Nonnull LongConsumer accessConsumer) throws IOException {
+            final DataInputStream dataInput = new DataInputStream(new BufferedInputStream(input));
+            while (true) {
+                final long key;
+                try {
+                    key = dataInput.readLong();
+                } catch (EOFException ex) {
+                    return;
+                }
+
+                accessConsumer.accept(key);
+            }
+        }
+    },
+
+    /**
+     * ARC trace (Megiddo and Modha): each line is {@code <start block> <blocks count> <ignored> <request number>},
+     * each block of the request is the separate access.
+     */
+    ARC {
+        @Override
+        void read(@Nonnull InputStream input, @Nonnull LongConsumer accessConsumer) throws IOException {
+            forEachToken(input, 2, tokens -> {
+                final long startBlock = Long.parseLong(tokens[0]);
+                final long blocksCount = Long.parseLong(tokens[1]);
+                for (long i = 0; i < blocksCount; i++) {
+                    accessConsumer.accept(startBlock + i);
+                }
+            });
+        }
+    },
+
+    /**
+     * LIRS trace (Jiang and Zhang): each line is the number of the accessed block; the lines with
+     * the non-numeric content (e.g. the end marker {@code *}) are skipped.
+     */
+    LIRS {
+        @Override
+        void read(@Nonnull InputStream input, @Nonnull LongConsumer accessConsumer) throws IOException {
+            forEachToken(input, 1, tokens -> {
+                if (isNumber(tokens[0])) {
+                    accessConsumer.accept(Long.parseLong(tokens[0]));
+                }
+            });
+        }
+    };
+
+    abstract void read(@Nonnull InputStream input, @Nonnull LongConsumer accessConsumer) throws IOException;
+
+    private static void forEachToken(
+            final InputStream input,
+            final int minTokensCount,
+            final TokensConsumer tokensConsumer) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            final String trimmedLine = line.strip();
+            if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {
+                continue;
+            }
+
+            final String[] tokens = trimmedLine.split("\\s+");
+            if (tokens.length < minTokensCount) {
+                throw new IOException("Malformed trace line " + lineNumber + ": " + line);
+            }
+
+            try {
+                tokensConsumer.accept(tokens);
+            } catch (NumberFormatException ex) {
+                throw new IOException("Malformed trace line " + lineNumber + ": " + line, ex);
+            }
+        }
+    }
+
+    private static long parseKey(final String token) {
+        if (isNumber(token)) {
+            return Long.parseLong(token);
+        }
+
+        // FNV-1a hash of the key, the collisions of 64-bit hashes are negligible for the hit ratio
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : token.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    private static boolean isNumber(final String token) {
+        final int start = token.startsWith("-") ? 1 : 0;
+        if (token.length() == start || token.length() - start > 18) {
+            return false;
+        }
+
+        for (int i = start; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface TokensConsumer {
+
+        void accept(String[] tokens);
+    }
+}
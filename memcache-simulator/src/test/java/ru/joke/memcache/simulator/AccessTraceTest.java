@@ -0,0 +1,69 @@
+package ru.joke.memcache.simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessTraceTest {
+
+    @Test
+    public void testTextTrace() throws IOException {
+        final AccessTrace trace = load("# comment\n42 read\n\nkey\n42\nkey\n", TraceFormat.TEXT);
+
+        final List<Long> keys = keysOf(trace);
+        assertEquals(4, trace.accessesCount(), "Accesses count must be equal");
+        assertEquals(2, trace.distinctKeysCount(), "Distinct keys count must be equal");
+        assertEquals(42L, keys.get(0), "Numeric key must be used as is");
+        assertEquals(keys.get(1), keys.get(3), "Same keys must be equal");
+        assertNotEquals(42L, keys.get(1), "Keys must be different");
+    }
+
+    @Test
+    public void testBinaryTrace() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeLong(1);
+            output.writeLong(Long.MAX_VALUE);
+            output.writeLong(1);
+        }
+
+        final AccessTrace trace = AccessTrace.load(new ByteArrayInputStream(bytes.toByteArray()), TraceFormat.BINARY);
+        assertEquals(List.of(1L, Long.MAX_VALUE, 1L), keysOf(trace), "Keys must be equal");
+    }
+
+    @Test
+    public void testArcTrace() throws IOException {
+        final AccessTrace trace = load("10 3 0 1\n20 1 0 2\n", TraceFormat.ARC);
+        assertEquals(List.of(10L, 11L, 12L, 20L), keysOf(trace), "Each block of request must be accessed");
+    }
+
+    @Test
+    public void testLirsTrace() throws IOException {
+        final AccessTrace trace = load("5\n7\n5\n*\n", TraceFormat.LIRS);
+        assertEquals(List.of(5L, 7L, 5L), keysOf(trace), "Keys must be equal");
+    }
+
+    @Test
+    public void testMalformedTrace() {
+        assertThrows(IOException.class, () -> load("10\n", TraceFormat.ARC));
+        assertThrows(IOException.class, () -> load("10 x 0 1\n", TraceFormat.ARC));
+    }
+
+    private static AccessTrace load(final String trace, final TraceFormat format) throws IOException {
+        return AccessTrace.load(new ByteArrayInputStream(trace.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private static List<Long> keysOf(final AccessTrace trace) {
+        final List<Long> result = new ArrayList<>();
+        trace.replay(result::add);
+        return result;
+    }
+}
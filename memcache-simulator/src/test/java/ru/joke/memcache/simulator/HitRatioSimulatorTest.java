@@ -0,0 +1,64 @@
+package ru.joke.memcache.simulator;
+
+import org.junit.jupiter.api.Test;
+import ru.joke.memcache.core.configuration.CacheConfiguration;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HitRatioSimulatorTest {
+
+    private final HitRatioSimulator simulator = new HitRatioSimulator();
+
+    @Test
+    public void testWorkingSetFitsIntoCache() {
+        final AccessTrace trace = loopTrace(10, 100);
+
+        for (final CacheConfiguration.EvictionPolicy policy : CacheConfiguration.EvictionPolicy.values()) {
+            final HitRatioSimulator.Result result = this.simulator.simulate(trace, policy, 10);
+            assertEquals(1_000, result.accesses(), "Accesses count must be equal");
+            assertEquals(990, result.hits(), "Only first accesses of keys must be misses for " + policy);
+        }
+    }
+
+    @Test
+    public void testLoopLargerThanCache() {
+        final AccessTrace trace = loopTrace(11, 100);
+
+        final HitRatioSimulator.Result lruResult = this.simulator.simulate(trace, CacheConfiguration.EvictionPolicy.LRU, 10);
+        assertEquals(0, lruResult.hits(), "LRU must miss each access of the loop larger than the cache");
+        assertEquals(0, lruResult.hitRatio(), "Hit ratio must be equal");
+
+        final HitRatioSimulator.Result mruResult = this.simulator.simulate(trace, CacheConfiguration.EvictionPolicy.MRU, 10);
+        assertTrue(mruResult.hitRatio() > 0.5, "MRU must hit most accesses of the loop larger than the cache");
+    }
+
+    @Test
+    public void testCsvOutput() throws IOException {
+        final StringBuilder output = new StringBuilder();
+        final List<HitRatioSimulator.Result> results = this.simulator.simulate(
+                loopTrace(10, 10),
+                List.of(CacheConfiguration.EvictionPolicy.LRU, CacheConfiguration.EvictionPolicy.LFU),
+                List.of(20, 5),
+                output
+        );
+
+        final List<String> lines = output.toString().lines().toList();
+        assertEquals(4, results.size(), "Results count must be equal");
+        assertEquals(5, lines.size(), "Lines count must be equal");
+        assertEquals("policy,capacity,accesses,hits,hit_ratio", lines.get(0), "Header must be equal");
+        assertEquals("LRU,5,100,0,0.000000", lines.get(1), "Row must be equal");
+        assertEquals("LRU,20,100,90,0.900000", lines.get(2), "Row must be equal");
+    }
+
+    private static AccessTrace loopTrace(final int keysCount, final int loopsCount) {
+        final long[] keys = new long[keysCount * loopsCount];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i % keysCount;
+        }
+
+        return AccessTrace.of(keys);
+    }
+}